@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2018 IBM Corporation and others.
+ * Copyright (c) 2000, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -14,16 +14,14 @@
 package org.eclipse.jdt.core.manipulation;
 
 import org.eclipse.core.runtime.Assert;
-import org.eclipse.core.runtime.preferences.DefaultScope;
-import org.eclipse.core.runtime.preferences.InstanceScope;
-
-import org.eclipse.core.resources.ProjectScope;
 
 import org.eclipse.text.templates.ContextTypeRegistry;
 import org.eclipse.text.templates.TemplateStoreCore;
 
 import org.eclipse.jdt.core.IJavaProject;
 
+import org.eclipse.jdt.internal.core.manipulation.ProjectPreferenceCache;
+
 /**
  * Central access point for the Java Manipulation plug-in (id <code>"org.eclipse.jdt.core.manipulation"</code>).
  */
@@ -66,6 +64,7 @@ public class JavaManipulation {
 	public static final void setPreferenceNodeId (String id) {
 		Assert.isLegal(fgPreferenceNodeId == null || id == null, "Preference node already set"); //$NON-NLS-1$
 		fgPreferenceNodeId= id;
+		ProjectPreferenceCache.getInstance().clear();
 	}
 
 	/**
@@ -80,6 +79,7 @@ public class JavaManipulation {
 	 */
 	public static final void setCodeTemplateStore (TemplateStoreCore in) {
 		fTemplateStore= in;
+		ProjectPreferenceCache.getInstance().clear();
 	}
 
 	/**
@@ -106,17 +106,6 @@ public class JavaManipulation {
 	 * @since 1.10
 	 */
 	public static String getPreference(String key, IJavaProject project) {
-		String val;
-		if (project != null) {
-			val= new ProjectScope(project.getProject()).getNode(JavaManipulation.fgPreferenceNodeId).get(key, null);
-			if (val != null) {
-				return val;
-			}
-		}
-		val= InstanceScope.INSTANCE.getNode(JavaManipulation.fgPreferenceNodeId).get(key, null);
-		if (val != null) {
-			return val;
-		}
-		return DefaultScope.INSTANCE.getNode(JavaManipulation.fgPreferenceNodeId).get(key, null);
+		return ProjectPreferenceCache.getInstance().getPreference(project, key);
 	}
 }
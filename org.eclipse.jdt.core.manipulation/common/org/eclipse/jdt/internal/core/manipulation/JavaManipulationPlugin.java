@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2018 IBM Corporation and others.
+ * Copyright (c) 2000, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -51,6 +51,7 @@ public class JavaManipulationPlugin extends Plugin implements DebugOptionsListen
 
 	@Override
 	public void stop(BundleContext context) throws Exception {
+		ProjectPreferenceCache.shutdown();
 		super.stop(context);
 		fgDefault = null;
 	}
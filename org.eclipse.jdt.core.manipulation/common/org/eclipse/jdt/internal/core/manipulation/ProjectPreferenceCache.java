@@ -0,0 +1,329 @@
+/*******************************************************************************
+ * Copyright (c) 2020 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.core.manipulation;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.osgi.service.prefs.BackingStoreException;
+
+import org.eclipse.core.runtime.preferences.DefaultScope;
+import org.eclipse.core.runtime.preferences.IEclipsePreferences;
+import org.eclipse.core.runtime.preferences.IEclipsePreferences.IPreferenceChangeListener;
+import org.eclipse.core.runtime.preferences.IEclipsePreferences.PreferenceChangeEvent;
+import org.eclipse.core.runtime.preferences.InstanceScope;
+
+import org.eclipse.core.resources.ProjectScope;
+
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.manipulation.JavaManipulation;
+
+/**
+ * Caches an immutable snapshot of the options and preferences of each Java project, so that code
+ * which runs for every compilation unit or proposal does not copy the option map of the project
+ * or walk the preference scopes on each lookup.
+ * <p>
+ * The snapshots are read without locking. All snapshots are discarded when a preference of
+ * <code>org.eclipse.jdt.core</code> or of the preference node of
+ * {@link JavaManipulation#getPreferenceNodeId()} changes in the project, instance or default scope,
+ * and a snapshot is discarded when the preference node of its project has been removed, for example
+ * because the project has been deleted. A snapshot is rebuilt on the next lookup. The snapshots
+ * and preference nodes of removed projects are dropped when a snapshot is built.
+ * </p>
+ */
+public final class ProjectPreferenceCache implements IPreferenceChangeListener {
+
+	/**
+	 * The options and preferences of a project, or of the workspace.
+	 */
+	private static final class Snapshot {
+
+		/** The project preferences of <code>org.eclipse.jdt.core</code>, or <code>null</code> for the workspace */
+		private final IEclipsePreferences fProjectNode;
+
+		private final Map<String, String> fOptions;
+
+		private final Map<String, String> fCompilerOptions;
+
+		/** The resolved preferences of the preference node id, <code>NO_VALUE</code> for unset keys */
+		private final Map<String, String> fPreferences= new ConcurrentHashMap<>();
+
+		private volatile ProjectTemplateStore fTemplateStore;
+
+		Snapshot(IEclipsePreferences projectNode, Map<String, String> options) {
+			fProjectNode= projectNode;
+			fOptions= Collections.unmodifiableMap(options);
+			Map<String, String> compilerOptions= new HashMap<>(options);
+			for (Entry<String, String> entry : compilerOptions.entrySet()) {
+				String value= entry.getValue();
+				if (JavaCore.ERROR.equals(value) || JavaCore.WARNING.equals(value) || JavaCore.INFO.equals(value))
+					entry.setValue(JavaCore.IGNORE);
+			}
+			compilerOptions.put(JavaCore.COMPILER_PB_MAX_PER_UNIT, "0"); //$NON-NLS-1$
+			compilerOptions.put(JavaCore.COMPILER_TASK_TAGS, ""); //$NON-NLS-1$
+			fCompilerOptions= Collections.unmodifiableMap(compilerOptions);
+		}
+
+		boolean isValid() {
+			return fProjectNode == null || nodeExists(fProjectNode);
+		}
+	}
+
+	/** Marks a preference without a value, since the snapshot cannot hold <code>null</code> values */
+	private static final String NO_VALUE= new String();
+
+	private static ProjectPreferenceCache fgInstance;
+
+	/**
+	 * Returns the preference cache.
+	 *
+	 * @return the preference cache
+	 */
+	public static synchronized ProjectPreferenceCache getInstance() {
+		if (fgInstance == null)
+			fgInstance= new ProjectPreferenceCache();
+		return fgInstance;
+	}
+
+	/**
+	 * Removes the preference listeners when the plug-in is stopped.
+	 */
+	static synchronized void shutdown() {
+		if (fgInstance != null) {
+			fgInstance.dispose();
+			fgInstance= null;
+		}
+	}
+
+	private final Map<IJavaProject, Snapshot> fSnapshots= new ConcurrentHashMap<>();
+
+	private volatile Snapshot fWorkspaceSnapshot;
+
+	/** Incremented whenever the snapshots are discarded */
+	private final AtomicInteger fGeneration= new AtomicInteger();
+
+	/** The number of option maps copied from the Java model to build snapshots */
+	private final AtomicLong fOptionMapCopies= new AtomicLong();
+
+	/** The preference nodes this cache listens to */
+	private final Set<IEclipsePreferences> fListenedNodes= ConcurrentHashMap.newKeySet();
+
+	private ProjectPreferenceCache() {
+	}
+
+	/**
+	 * Returns the options of the given project, like {@link IJavaProject#getOptions(boolean)} with
+	 * inherited options, or the options of the workspace like {@link JavaCore#getOptions()}.
+	 *
+	 * @param project the project, or <code>null</code> for the workspace options
+	 * @return the options, must not be modified
+	 */
+	public Map<String, String> getOptions(IJavaProject project) {
+		return getSnapshot(project).fOptions;
+	}
+
+	/**
+	 * Returns the option of the given project, like {@link IJavaProject#getOption(String, boolean)}
+	 * with inherited options, or the option of the workspace like {@link JavaCore#getOption(String)}.
+	 *
+	 * @param project the project, or <code>null</code> for the workspace option
+	 * @param key the option key
+	 * @return the option value, or <code>null</code> if the option is unknown
+	 */
+	public String getOption(IJavaProject project, String key) {
+		return getSnapshot(project).fOptions.get(key);
+	}
+
+	/**
+	 * Returns the options to parse compilation units of the given project. All problems are
+	 * ignored, no problems are reported per unit and task tags are not parsed.
+	 *
+	 * @param project the project, or <code>null</code> for the workspace options
+	 * @return the compiler options, must not be modified
+	 */
+	public Map<String, String> getCompilerOptions(IJavaProject project) {
+		return getSnapshot(project).fCompilerOptions;
+	}
+
+	/**
+	 * Returns the preference of the preference node {@link JavaManipulation#getPreferenceNodeId()}
+	 * in the project, instance or default scope.
+	 *
+	 * @param project the project, or <code>null</code> for the workspace preference
+	 * @param key the preference key
+	 * @return the preference value, or <code>null</code> if the preference is not set
+	 */
+	public String getPreference(IJavaProject project, String key) {
+		Map<String, String> preferences= getSnapshot(project).fPreferences;
+		String value= preferences.get(key);
+		if (value == null) {
+			value= lookupPreference(project, key);
+			preferences.put(key, value != null ? value : NO_VALUE);
+			return value;
+		}
+		return value == NO_VALUE ? null : value;
+	}
+
+	/**
+	 * Returns the loaded code template store of the given project.
+	 *
+	 * @param project the project
+	 * @return the template store, must not be modified
+	 */
+	public ProjectTemplateStore getTemplateStore(IJavaProject project) {
+		Snapshot snapshot= getSnapshot(project);
+		ProjectTemplateStore store= snapshot.fTemplateStore;
+		if (store == null) {
+			synchronized (snapshot) {
+				store= snapshot.fTemplateStore;
+				if (store == null) {
+					store= new ProjectTemplateStore(project.getProject());
+					try {
+						store.load();
+					} catch (IOException e) {
+						JavaManipulationPlugin.log(e);
+					}
+					snapshot.fTemplateStore= store;
+				}
+			}
+		}
+		return store;
+	}
+
+	/**
+	 * Returns how many option maps have been copied from the Java model to build snapshots. Used
+	 * for testing.
+	 *
+	 * @return the number of copied option maps
+	 */
+	public long getOptionMapCopies() {
+		return fOptionMapCopies.get();
+	}
+
+	/**
+	 * Tells whether this cache listens to the given preference node. Used for testing.
+	 *
+	 * @param node the preference node
+	 * @return <code>true</code> if the cache listens to changes of the node
+	 */
+	public boolean isListening(IEclipsePreferences node) {
+		return fListenedNodes.contains(node);
+	}
+
+	/**
+	 * Discards all snapshots.
+	 */
+	public void clear() {
+		fGeneration.incrementAndGet();
+		fSnapshots.clear();
+		fWorkspaceSnapshot= null;
+	}
+
+	@Override
+	public void preferenceChange(PreferenceChangeEvent event) {
+		clear();
+	}
+
+	private Snapshot getSnapshot(IJavaProject project) {
+		Snapshot snapshot= project != null ? fSnapshots.get(project) : fWorkspaceSnapshot;
+		if (snapshot != null && snapshot.isValid())
+			return snapshot;
+
+		removeInvalidNodes();
+		int generation= fGeneration.get();
+		IEclipsePreferences projectNode= null;
+		if (project != null) {
+			ProjectScope scope= new ProjectScope(project.getProject());
+			projectNode= scope.getNode(JavaCore.PLUGIN_ID);
+			listen(projectNode);
+			if (JavaManipulation.getPreferenceNodeId() != null)
+				listen(scope.getNode(JavaManipulation.getPreferenceNodeId()));
+		}
+		listen(InstanceScope.INSTANCE.getNode(JavaCore.PLUGIN_ID));
+		listen(DefaultScope.INSTANCE.getNode(JavaCore.PLUGIN_ID));
+		if (JavaManipulation.getPreferenceNodeId() != null) {
+			listen(InstanceScope.INSTANCE.getNode(JavaManipulation.getPreferenceNodeId()));
+			listen(DefaultScope.INSTANCE.getNode(JavaManipulation.getPreferenceNodeId()));
+		}
+
+		fOptionMapCopies.incrementAndGet();
+		snapshot= new Snapshot(projectNode, project != null ? project.getOptions(true) : JavaCore.getOptions());
+		if (project != null)
+			fSnapshots.put(project, snapshot);
+		else
+			fWorkspaceSnapshot= snapshot;
+		if (fGeneration.get() != generation) {
+			// a preference has changed while the snapshot was built, it may be stale
+			if (project != null)
+				fSnapshots.remove(project, snapshot);
+			else if (fWorkspaceSnapshot == snapshot)
+				fWorkspaceSnapshot= null;
+		}
+		return snapshot;
+	}
+
+	private void listen(IEclipsePreferences node) {
+		if (fListenedNodes.add(node))
+			node.addPreferenceChangeListener(this);
+	}
+
+	/**
+	 * Drops the snapshots and the listened preference nodes of removed projects. The listeners
+	 * of a removed node are discarded with the node, a recreated project gets new nodes.
+	 */
+	private void removeInvalidNodes() {
+		fSnapshots.values().removeIf(snapshot -> !snapshot.isValid());
+		fListenedNodes.removeIf(node -> !nodeExists(node));
+	}
+
+	private void dispose() {
+		for (IEclipsePreferences node : fListenedNodes) {
+			if (nodeExists(node))
+				node.removePreferenceChangeListener(this);
+		}
+		fListenedNodes.clear();
+		clear();
+	}
+
+	private static boolean nodeExists(IEclipsePreferences node) {
+		try {
+			return node.nodeExists(""); //$NON-NLS-1$
+		} catch (BackingStoreException e) {
+			return false;
+		}
+	}
+
+	private static String lookupPreference(IJavaProject project, String key) {
+		String val;
+		if (project != null) {
+			val= new ProjectScope(project.getProject()).getNode(JavaManipulation.getPreferenceNodeId()).get(key, null);
+			if (val != null) {
+				return val;
+			}
+		}
+		val= InstanceScope.INSTANCE.getNode(JavaManipulation.getPreferenceNodeId()).get(key, null);
+		if (val != null) {
+			return val;
+		}
+		return DefaultScope.INSTANCE.getNode(JavaManipulation.getPreferenceNodeId()).get(key, null);
+	}
+}
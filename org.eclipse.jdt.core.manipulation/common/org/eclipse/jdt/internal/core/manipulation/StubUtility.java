@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2019 IBM Corporation and others.
+ * Copyright (c) 2000, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -14,7 +14,6 @@
  *******************************************************************************/
 package org.eclipse.jdt.internal.core.manipulation;
 
-import java.io.IOException;
 import java.lang.reflect.Modifier;
 import java.util.AbstractList;
 import java.util.ArrayList;
@@ -795,7 +794,7 @@ public class StubUtility {
 	}
 
 	public static boolean shouldGenerateMethodTypeParameterTags(IJavaProject project) {
-		return JavaCore.ENABLED.equals(project.getOption(JavaCore.COMPILER_PB_MISSING_JAVADOC_TAGS_METHOD_TYPE_PARAMETERS, true));
+		return JavaCore.ENABLED.equals(ProjectPreferenceCache.getInstance().getOption(project, JavaCore.COMPILER_PB_MISSING_JAVADOC_TAGS_METHOD_TYPE_PARAMETERS));
 	}
 
 	/**
@@ -988,12 +987,7 @@ public class StubUtility {
 	}
 
 	public static String getTodoTaskTag(IJavaProject project) {
-		String markers= null;
-		if (project == null) {
-			markers= JavaCore.getOption(JavaCore.COMPILER_TASK_TAGS);
-		} else {
-			markers= project.getOption(JavaCore.COMPILER_TASK_TAGS, true);
-		}
+		String markers= ProjectPreferenceCache.getInstance().getOption(project, JavaCore.COMPILER_TASK_TAGS);
 
 		if (markers != null && markers.length() > 0) {
 			int idx= markers.indexOf(',');
@@ -1455,10 +1449,10 @@ public class StubUtility {
 
 
 	public static boolean hasFieldName(IJavaProject project, String name) {
-		String prefixes= project.getOption(JavaCore.CODEASSIST_FIELD_PREFIXES, true);
-		String suffixes= project.getOption(JavaCore.CODEASSIST_FIELD_SUFFIXES, true);
-		String staticPrefixes= project.getOption(JavaCore.CODEASSIST_STATIC_FIELD_PREFIXES, true);
-		String staticSuffixes= project.getOption(JavaCore.CODEASSIST_STATIC_FIELD_SUFFIXES, true);
+		String prefixes= ProjectPreferenceCache.getInstance().getOption(project, JavaCore.CODEASSIST_FIELD_PREFIXES);
+		String suffixes= ProjectPreferenceCache.getInstance().getOption(project, JavaCore.CODEASSIST_FIELD_SUFFIXES);
+		String staticPrefixes= ProjectPreferenceCache.getInstance().getOption(project, JavaCore.CODEASSIST_STATIC_FIELD_PREFIXES);
+		String staticSuffixes= ProjectPreferenceCache.getInstance().getOption(project, JavaCore.CODEASSIST_STATIC_FIELD_SUFFIXES);
 
 
 		return hasPrefixOrSuffix(prefixes, suffixes, name)
@@ -1466,22 +1460,22 @@ public class StubUtility {
 	}
 
 	public static boolean hasParameterName(IJavaProject project, String name) {
-		String prefixes= project.getOption(JavaCore.CODEASSIST_ARGUMENT_PREFIXES, true);
-		String suffixes= project.getOption(JavaCore.CODEASSIST_ARGUMENT_SUFFIXES, true);
+		String prefixes= ProjectPreferenceCache.getInstance().getOption(project, JavaCore.CODEASSIST_ARGUMENT_PREFIXES);
+		String suffixes= ProjectPreferenceCache.getInstance().getOption(project, JavaCore.CODEASSIST_ARGUMENT_SUFFIXES);
 		return hasPrefixOrSuffix(prefixes, suffixes, name);
 	}
 
 	public static boolean hasLocalVariableName(IJavaProject project, String name) {
-		String prefixes= project.getOption(JavaCore.CODEASSIST_LOCAL_PREFIXES, true);
-		String suffixes= project.getOption(JavaCore.CODEASSIST_LOCAL_SUFFIXES, true);
+		String prefixes= ProjectPreferenceCache.getInstance().getOption(project, JavaCore.CODEASSIST_LOCAL_PREFIXES);
+		String suffixes= ProjectPreferenceCache.getInstance().getOption(project, JavaCore.CODEASSIST_LOCAL_SUFFIXES);
 		return hasPrefixOrSuffix(prefixes, suffixes, name);
 	}
 
 	public static boolean hasConstantName(IJavaProject project, String name) {
 		if (Character.isUpperCase(name.charAt(0)))
 			return true;
-		String prefixes= project.getOption(JavaCore.CODEASSIST_STATIC_FINAL_FIELD_PREFIXES, true);
-		String suffixes= project.getOption(JavaCore.CODEASSIST_STATIC_FINAL_FIELD_SUFFIXES, true);
+		String prefixes= ProjectPreferenceCache.getInstance().getOption(project, JavaCore.CODEASSIST_STATIC_FINAL_FIELD_PREFIXES);
+		String suffixes= ProjectPreferenceCache.getInstance().getOption(project, JavaCore.CODEASSIST_STATIC_FINAL_FIELD_SUFFIXES);
 		return hasPrefixOrSuffix(prefixes, suffixes, name);
 	}
 
@@ -1543,13 +1537,7 @@ public class StubUtility {
 	public static Template getCodeTemplate(String id, IJavaProject project) {
 		if (project == null)
 			return JavaManipulation.getCodeTemplateStore().findTemplateById(id);
-		ProjectTemplateStore projectStore= new ProjectTemplateStore(project.getProject());
-		try {
-			projectStore.load();
-		} catch (IOException e) {
-			JavaManipulationPlugin.log(e);
-		}
-		return projectStore.findTemplateById(id);
+		return ProjectPreferenceCache.getInstance().getTemplateStore(project).findTemplateById(id);
 	}
 
 
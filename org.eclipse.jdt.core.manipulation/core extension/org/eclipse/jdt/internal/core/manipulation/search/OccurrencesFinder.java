@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2016 IBM Corporation and others.
+ * Copyright (c) 2000, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -50,6 +50,7 @@ import org.eclipse.jdt.core.dom.VariableDeclarationFragment;
 import org.eclipse.jdt.internal.core.manipulation.Messages;
 import org.eclipse.jdt.internal.core.manipulation.util.BasicElementLabels;
 import org.eclipse.jdt.internal.corext.dom.ASTNodes;
+import org.eclipse.jdt.internal.corext.dom.BindingOccurrencesIndex;
 import org.eclipse.jdt.internal.corext.dom.Bindings;
 
 public class OccurrencesFinder extends ASTVisitor implements IOccurrencesFinder {
@@ -100,11 +101,45 @@ public class OccurrencesFinder extends ASTVisitor implements IOccurrencesFinder
 	private void performSearch() {
 		if (fResult == null) {
 			fResult= new ArrayList<>();
-			fWriteUsages= new HashSet<>();
-			fRoot.accept(this);
+			String key= BindingOccurrencesIndex.getKey(fTarget);
+			if (key != null && !isStaticMethod(fTarget)) {
+				performIndexedSearch(key);
+			} else {
+				fWriteUsages= new HashSet<>();
+				fRoot.accept(this);
+			}
+		}
+	}
+
+	/**
+	 * Looks up the occurrences in the binding index of the AST, which is shared by all finders
+	 * working on the same AST.
+	 *
+	 * @param key the key of the target binding
+	 */
+	private void performIndexedSearch(String key) {
+		BindingOccurrencesIndex index= BindingOccurrencesIndex.get(fRoot);
+		boolean isVariable= fTarget instanceof IVariableBinding;
+		for (Name node : index.getOccurrences(key)) {
+			int flag= 0;
+			String description= fReadDescription;
+			if (isVariable) {
+				boolean isWrite= index.isWriteAccess(node);
+				flag= isWrite ? F_WRITE_OCCURRENCE : F_READ_OCCURRENCE;
+				if (isWrite)
+					description= fWriteDescription;
+			}
+			fResult.add(new OccurrenceLocation(node.getStartPosition(), node.getLength(), flag, description));
 		}
 	}
 
+	/*
+	 * Static methods can also be referenced by static imports, which are matched by name.
+	 */
+	private static boolean isStaticMethod(IBinding binding) {
+		return binding instanceof IMethodBinding && Modifier.isStatic(binding.getModifiers());
+	}
+
 	@Override
 	public OccurrenceLocation[] getOccurrences() {
 		performSearch();
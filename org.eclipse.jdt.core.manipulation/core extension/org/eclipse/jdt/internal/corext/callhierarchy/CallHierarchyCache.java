@@ -0,0 +1,313 @@
+/*******************************************************************************
+ * Copyright (c) 2020 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.corext.callhierarchy;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.jdt.core.ElementChangedEvent;
+import org.eclipse.jdt.core.IElementChangedListener;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaElementDelta;
+import org.eclipse.jdt.core.IMember;
+import org.eclipse.jdt.core.ITypeRoot;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.JavaModelException;
+
+/**
+ * Cache of the calls found for method wrappers, shared by all call hierarchies.
+ * <p>
+ * The cache is bounded by the total number of call locations it holds. When the
+ * bound is exceeded, the least recently used entries are evicted. Entries are
+ * invalidated by Java element changes:
+ * <ul>
+ * <li>A change of a compilation unit or class file can remove the callers it contains, or add
+ * callers of methods whose names occur in its source. Caller entries are discarded if one of
+ * their callers is declared in the changed type root, or if the name of their method occurs in
+ * the changed source. If the source is not available, all caller entries are discarded.</li>
+ * <li>Callees only depend on the body of the member, so callee entries are only discarded if the
+ * type root declaring the member changes.</li>
+ * <li>Classpath and project changes discard all entries.</li>
+ * </ul>
+ * </p>
+ */
+final class CallHierarchyCache implements IElementChangedListener {
+
+	/**
+	 * The default maximum number of call locations held by the cache.
+	 */
+	private static final int MAX_CALL_LOCATIONS= 100000;
+
+	private static final int CONTENT_CHANGE_FLAGS= IJavaElementDelta.F_CONTENT | IJavaElementDelta.F_FINE_GRAINED
+			| IJavaElementDelta.F_CHILDREN | IJavaElementDelta.F_AST_AFFECTED;
+
+	private static final int CLASSPATH_CHANGE_FLAGS= IJavaElementDelta.F_CLASSPATH_CHANGED | IJavaElementDelta.F_RESOLVED_CLASSPATH_CHANGED
+			| IJavaElementDelta.F_ARCHIVE_CONTENT_CHANGED | IJavaElementDelta.F_OPENED | IJavaElementDelta.F_CLOSED
+			| IJavaElementDelta.F_ADDED_TO_CLASSPATH | IJavaElementDelta.F_REMOVED_FROM_CLASSPATH;
+
+	private static final class Entry {
+
+		final Map<String, MethodCall> fCalls;
+
+		final boolean fCallers;
+
+		final String fTypeRoot;
+
+		/**
+		 * The name of the member, which occurs in the source of new callers. Empty for anonymous
+		 * types, whose callers cannot be recognized by name.
+		 */
+		final String fName;
+
+		/** The handle identifiers of the type roots which declare the calls */
+		final Set<String> fCallTypeRoots= new HashSet<>();
+
+		final int fWeight;
+
+		Entry(Map<String, MethodCall> calls, boolean callers, String typeRoot, String name) {
+			fCalls= calls;
+			fCallers= callers;
+			fTypeRoot= typeRoot;
+			fName= name;
+			int weight= 1;
+			for (MethodCall call : calls.values()) {
+				if (call.hasCallLocations())
+					weight+= call.getCallLocations().size();
+				ITypeRoot callTypeRoot= call.getMember().getTypeRoot();
+				if (callTypeRoot != null)
+					fCallTypeRoots.add(callTypeRoot.getHandleIdentifier());
+			}
+			fWeight= weight;
+		}
+
+		/**
+		 * Tells whether this entry may be affected by changes of the given type roots.
+		 *
+		 * @param changedTypeRoots the identifiers in the sources of the changed type roots, by
+		 *            handle identifier of the type root. An identifier set is <code>null</code> if
+		 *            the source is not available.
+		 * @return <code>true</code> if the entry must be discarded
+		 */
+		boolean isAffectedBy(Map<String, Set<String>> changedTypeRoots) {
+			if (fTypeRoot == null || changedTypeRoots.containsKey(fTypeRoot))
+				return true;
+			if (!fCallers)
+				return false;
+			for (Map.Entry<String, Set<String>> changed : changedTypeRoots.entrySet()) {
+				if (fCallTypeRoots.contains(changed.getKey()))
+					return true;
+				Set<String> identifiers= changed.getValue();
+				if (identifiers == null || fName.length() == 0 || identifiers.contains(fName))
+					return true;
+			}
+			return false;
+		}
+	}
+
+	private final LinkedHashMap<String, Entry> fEntries= new LinkedHashMap<>(64, 0.75f, true);
+
+	private final int fMaxWeight;
+
+	private int fWeight;
+
+	private boolean fListening;
+
+	CallHierarchyCache() {
+		this(MAX_CALL_LOCATIONS);
+	}
+
+	CallHierarchyCache(int maxWeight) {
+		fMaxWeight= maxWeight;
+	}
+
+	/**
+	 * Returns the key under which the calls of the given wrapper are cached.
+	 *
+	 * @param wrapper the method wrapper
+	 * @param scopeId the identifier of the search scope the calls are found in, see
+	 *            {@link CallHierarchyCore#getSearchScopeId()}
+	 * @return the cache key
+	 */
+	static String getKey(MethodWrapper wrapper, int scopeId) {
+		StringBuilder key= new StringBuilder();
+		key.append(scopeId).append(':');
+		if (wrapper instanceof CallerMethodWrapper) {
+			key.append('R').append(wrapper.getFieldSearchMode());
+		} else {
+			key.append('E');
+		}
+		return key.append(':').append(wrapper.getMethodCall().getKey()).toString();
+	}
+
+	/**
+	 * Returns the cached calls.
+	 *
+	 * @param key the cache key
+	 * @return the cached calls, or <code>null</code> if not cached. The returned map must not be
+	 *         modified.
+	 */
+	synchronized Map<String, MethodCall> get(String key) {
+		Entry entry= fEntries.get(key);
+		return entry != null ? entry.fCalls : null;
+	}
+
+	/**
+	 * Adds calls to the cache.
+	 *
+	 * @param key the cache key
+	 * @param wrapper the method wrapper the calls have been found for
+	 * @param calls the calls. The map must not be modified after it has been added.
+	 */
+	synchronized void put(String key, MethodWrapper wrapper, Map<String, MethodCall> calls) {
+		if (!fListening) {
+			JavaCore.addElementChangedListener(this, ElementChangedEvent.POST_CHANGE | ElementChangedEvent.POST_RECONCILE);
+			fListening= true;
+		}
+		IMember member= wrapper.getMember();
+		ITypeRoot typeRoot= member.getTypeRoot();
+		Entry entry= new Entry(calls, wrapper instanceof CallerMethodWrapper, typeRoot != null ? typeRoot.getHandleIdentifier() : null, member.getElementName());
+		Entry previous= fEntries.put(key, entry);
+		if (previous != null)
+			fWeight-= previous.fWeight;
+		fWeight+= entry.fWeight;
+
+		Iterator<Entry> iterator= fEntries.values().iterator();
+		while (fWeight > fMaxWeight && iterator.hasNext()) {
+			Entry eldest= iterator.next();
+			if (eldest == entry)
+				break;
+			fWeight-= eldest.fWeight;
+			iterator.remove();
+		}
+	}
+
+	/**
+	 * Removes calls from the cache.
+	 *
+	 * @param key the cache key
+	 */
+	synchronized void remove(String key) {
+		Entry entry= fEntries.remove(key);
+		if (entry != null)
+			fWeight-= entry.fWeight;
+	}
+
+	/**
+	 * Removes all entries from the cache.
+	 */
+	synchronized void clear() {
+		fEntries.clear();
+		fWeight= 0;
+	}
+
+	@Override
+	public void elementChanged(ElementChangedEvent event) {
+		synchronized (this) {
+			if (fEntries.isEmpty())
+				return;
+		}
+		Map<String, Set<String>> changedTypeRoots= new HashMap<>();
+		if (!collectChangedTypeRoots(event.getDelta(), changedTypeRoots)) {
+			clear();
+		} else if (!changedTypeRoots.isEmpty()) {
+			invalidate(changedTypeRoots);
+		}
+	}
+
+	private synchronized void invalidate(Map<String, Set<String>> changedTypeRoots) {
+		for (Iterator<Entry> iterator= fEntries.values().iterator(); iterator.hasNext();) {
+			Entry entry= iterator.next();
+			if (entry.isAffectedBy(changedTypeRoots)) {
+				fWeight-= entry.fWeight;
+				iterator.remove();
+			}
+		}
+	}
+
+	/**
+	 * Returns the identifiers which occur in the source of the given type root, including the
+	 * words of comments and string literals.
+	 *
+	 * @param typeRoot the type root
+	 * @param removed <code>true</code> if the type root has been removed
+	 * @return the identifiers, or <code>null</code> if the source is not available
+	 */
+	private static Set<String> getIdentifiers(ITypeRoot typeRoot, boolean removed) {
+		Set<String> identifiers= new HashSet<>();
+		if (removed)
+			return identifiers;
+		String source;
+		try {
+			source= typeRoot.getSource();
+		} catch (JavaModelException e) {
+			return null;
+		}
+		if (source == null)
+			return null;
+		int length= source.length();
+		int i= 0;
+		while (i < length) {
+			if (Character.isJavaIdentifierStart(source.charAt(i))) {
+				int start= i++;
+				while (i < length && Character.isJavaIdentifierPart(source.charAt(i)))
+					i++;
+				identifiers.add(source.substring(start, i));
+			} else {
+				i++;
+			}
+		}
+		return identifiers;
+	}
+
+	/**
+	 * Collects the type roots whose contents changed, with the identifiers in their sources.
+	 *
+	 * @param delta the delta
+	 * @param changedTypeRoots the map to add the changed type roots to
+	 * @return <code>false</code> if the delta affects the whole cache, <code>true</code> otherwise
+	 */
+	private static boolean collectChangedTypeRoots(IJavaElementDelta delta, Map<String, Set<String>> changedTypeRoots) {
+		IJavaElement element= delta.getElement();
+		int flags= delta.getFlags();
+		switch (element.getElementType()) {
+			case IJavaElement.JAVA_MODEL:
+				break;
+			case IJavaElement.JAVA_PROJECT:
+			case IJavaElement.PACKAGE_FRAGMENT_ROOT:
+				if (delta.getKind() != IJavaElementDelta.CHANGED || (flags & CLASSPATH_CHANGE_FLAGS) != 0)
+					return false;
+				break;
+			case IJavaElement.PACKAGE_FRAGMENT:
+				if (delta.getKind() != IJavaElementDelta.CHANGED)
+					return false;
+				break;
+			case IJavaElement.COMPILATION_UNIT:
+			case IJavaElement.CLASS_FILE:
+				if (delta.getKind() != IJavaElementDelta.CHANGED || (flags & CONTENT_CHANGE_FLAGS) != 0)
+					changedTypeRoots.put(element.getHandleIdentifier(), getIdentifiers((ITypeRoot) element, delta.getKind() == IJavaElementDelta.REMOVED));
+				return true;
+			default:
+				return true;
+		}
+		for (IJavaElementDelta child : delta.getAffectedChildren()) {
+			if (!collectChangedTypeRoots(child, changedTypeRoots))
+				return false;
+		}
+		return true;
+	}
+}
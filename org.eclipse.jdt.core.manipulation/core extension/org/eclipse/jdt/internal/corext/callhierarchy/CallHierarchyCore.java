@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2019 IBM Corporation and others.
+ * Copyright (c) 2019, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -22,6 +22,7 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Objects;
 import java.util.StringTokenizer;
 
 import org.eclipse.core.runtime.NullProgressMonitor;
@@ -56,9 +57,12 @@ public class CallHierarchyCore {
 
     private static CallHierarchyCore fgInstance;
     private IJavaSearchScope fSearchScope;
+    /** Incremented whenever the search scope changes, part of the keys of the method cache */
+    private int fSearchScopeId;
     private StringMatcher[] fFilters;
+    private final CallHierarchyCache fMethodCache= new CallHierarchyCache();
 
-    public static CallHierarchyCore getDefault() {
+    public static synchronized CallHierarchyCore getDefault() {
         if (fgInstance == null) {
             fgInstance= new CallHierarchyCore();
         }
@@ -166,7 +170,7 @@ public class CallHierarchyCore {
         return callLocation;
     }
 
-    public IJavaSearchScope getSearchScope() {
+    public synchronized IJavaSearchScope getSearchScope() {
         if (fSearchScope == null) {
             fSearchScope= SearchEngine.createWorkspaceScope();
         }
@@ -174,10 +178,41 @@ public class CallHierarchyCore {
         return fSearchScope;
     }
 
-    public void setSearchScope(IJavaSearchScope searchScope) {
+    public synchronized void setSearchScope(IJavaSearchScope searchScope) {
+        if (!Objects.equals(searchScope, fSearchScope)) {
+            fSearchScopeId++;
+            // the entries of the previous scope cannot be found anymore
+            fMethodCache.clear();
+        }
         this.fSearchScope= searchScope;
     }
 
+    /**
+     * Returns the identifier of the current search scope. The identifier changes whenever
+     * the search scope changes.
+     *
+     * @return the identifier of the search scope
+     */
+    synchronized int getSearchScopeId() {
+        return fSearchScopeId;
+    }
+
+    /**
+     * Returns the cache of the calls found so far, shared by all call hierarchies.
+     *
+     * @return the method cache
+     */
+    CallHierarchyCache getMethodCache() {
+        return fMethodCache;
+    }
+
+    /**
+     * Discards all cached calls.
+     */
+    public void clearCache() {
+        fMethodCache.clear();
+    }
+
 	/**
 	 * Checks whether the fully qualified name is ignored by the set filters.
 	 *
@@ -227,6 +262,7 @@ public class CallHierarchyCore {
      */
     public void resetFilters() {
     	fFilters= null;
+    	fMethodCache.clear();
     }
 
     /**
@@ -0,0 +1,184 @@
+/*******************************************************************************
+ * Copyright (c) 2020 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.corext.callhierarchy;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+
+import org.eclipse.jdt.internal.core.manipulation.JavaManipulationPlugin;
+
+/**
+ * Computes the calls of sibling method wrappers concurrently.
+ * <p>
+ * Callers of methods with distinct names are searched in batches, using one combined search
+ * pattern per batch. All other wrappers are searched individually. Batches and individual
+ * searches run on a pool of worker threads which is shared by all searchers. The threads of the
+ * pool terminate when they have been idle for a while.
+ * </p>
+ */
+class CallHierarchySearcher {
+
+	/**
+	 * The maximum number of methods combined into one search pattern.
+	 */
+	private static final int MAX_BATCH_SIZE= 32;
+
+	private static ThreadPoolExecutor fgExecutor;
+
+	private final List<MethodWrapper> fWrappers;
+
+	CallHierarchySearcher(List<MethodWrapper> wrappers) {
+		fWrappers= wrappers;
+	}
+
+	/**
+	 * Computes the calls of all wrappers and stores them in the wrappers and the shared cache.
+	 *
+	 * @param progressMonitor the progress monitor, or <code>null</code>
+	 * @throws OperationCanceledException if the progress monitor has been canceled
+	 */
+	void run(final IProgressMonitor progressMonitor) {
+		List<Callable<Void>> tasks= createTasks(progressMonitor);
+		if (progressMonitor != null)
+			progressMonitor.beginTask(CallHierarchyMessages.CallerMethodWrapper_taskname, tasks.size());
+
+		List<Future<Void>> futures= new ArrayList<>(tasks.size());
+		try {
+			CompletionService<Void> service= new ExecutorCompletionService<>(getExecutor());
+			for (Callable<Void> task : tasks) {
+				futures.add(service.submit(task));
+			}
+			for (int i= 0; i < tasks.size(); i++) {
+				service.take().get();
+				if (progressMonitor != null) {
+					if (progressMonitor.isCanceled())
+						throw new OperationCanceledException();
+					progressMonitor.worked(1);
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new OperationCanceledException();
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof OperationCanceledException)
+				throw (OperationCanceledException) e.getCause();
+			JavaManipulationPlugin.log(e.getCause());
+		} finally {
+			// tasks which are running stop at their next cancellation check, don't interrupt the search engine
+			for (Future<Void> future : futures) {
+				future.cancel(false);
+			}
+			if (progressMonitor != null)
+				progressMonitor.done();
+		}
+	}
+
+	private static synchronized ThreadPoolExecutor getExecutor() {
+		if (fgExecutor == null) {
+			int threads= Runtime.getRuntime().availableProcessors();
+			fgExecutor= new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), runnable -> {
+				Thread thread= new Thread(runnable, CallHierarchySearcher.class.getSimpleName());
+				thread.setDaemon(true);
+				return thread;
+			});
+			fgExecutor.allowCoreThreadTimeOut(true);
+		}
+		return fgExecutor;
+	}
+
+	private List<Callable<Void>> createTasks(IProgressMonitor progressMonitor) {
+		List<Callable<Void>> tasks= new ArrayList<>();
+		List<CallerMethodWrapper> batch= new ArrayList<>();
+		Set<String> batchedNames= new HashSet<>();
+		for (MethodWrapper wrapper : fWrappers) {
+			if (wrapper instanceof CallerMethodWrapper && ((CallerMethodWrapper) wrapper).canBeSearchedInBatch()
+					&& batchedNames.add(wrapper.getMember().getElementName())) {
+				batch.add((CallerMethodWrapper) wrapper);
+				if (batch.size() == MAX_BATCH_SIZE) {
+					tasks.add(createBatchTask(batch, progressMonitor));
+					batch= new ArrayList<>();
+					batchedNames.clear();
+				}
+			} else {
+				tasks.add(createTask(wrapper, progressMonitor));
+			}
+		}
+		if (batch.size() == 1) {
+			tasks.add(createTask(batch.get(0), progressMonitor));
+		} else if (!batch.isEmpty()) {
+			tasks.add(createBatchTask(batch, progressMonitor));
+		}
+		return tasks;
+	}
+
+	private static Callable<Void> createTask(final MethodWrapper wrapper, final IProgressMonitor progressMonitor) {
+		return () -> {
+			IProgressMonitor monitor= createTaskMonitor(progressMonitor);
+			findChildren(wrapper, monitor);
+			return null;
+		};
+	}
+
+	private static Callable<Void> createBatchTask(final List<CallerMethodWrapper> batch, final IProgressMonitor progressMonitor) {
+		return () -> {
+			IProgressMonitor monitor= createTaskMonitor(progressMonitor);
+			if (!CallerMethodWrapper.findChildren(batch, monitor)) {
+				// matches could not be attributed to the searched methods, search them one by one
+				for (CallerMethodWrapper wrapper : batch) {
+					findChildren(wrapper, monitor);
+				}
+			}
+			return null;
+		};
+	}
+
+	private static void findChildren(MethodWrapper wrapper, IProgressMonitor monitor) {
+		wrapper.checkCanceled(monitor);
+		int scopeId= CallHierarchyCore.getDefault().getSearchScopeId();
+		Map<String, MethodCall> calls= wrapper.findChildren(monitor);
+		wrapper.checkCanceled(monitor);
+		wrapper.setCalls(calls, scopeId);
+	}
+
+	/**
+	 * Creates a monitor for a task running on a worker thread. Progress is reported by the
+	 * calling thread, the task monitor only forwards cancellation.
+	 *
+	 * @param progressMonitor the monitor of the calling thread, or <code>null</code>
+	 * @return the task monitor
+	 */
+	private static IProgressMonitor createTaskMonitor(final IProgressMonitor progressMonitor) {
+		return new NullProgressMonitor() {
+			@Override
+			public boolean isCanceled() {
+				return progressMonitor != null && progressMonitor.isCanceled();
+			}
+		};
+	}
+}
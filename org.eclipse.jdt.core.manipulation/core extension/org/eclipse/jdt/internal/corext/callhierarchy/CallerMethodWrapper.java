@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2019 IBM Corporation and others.
+ * Copyright (c) 2000, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -18,6 +18,7 @@
 package org.eclipse.jdt.internal.corext.callhierarchy;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.eclipse.core.runtime.CoreException;
@@ -162,6 +163,65 @@ public class CallerMethodWrapper extends MethodWrapper {
 		}
 	}
 
+	/**
+	 * Tells whether the callers of this wrapper can be searched together with the callers of
+	 * other methods in one combined search, see {@link #findChildren(List, IProgressMonitor)}.
+	 *
+	 * @return <code>true</code> if this wrapper can be searched in a batch
+	 */
+	boolean canBeSearchedInBatch() {
+		IMember member= getMember();
+		if (!(member instanceof IMethod) || !member.exists())
+			return false;
+		try {
+			return !((IMethod) member).isConstructor() && !JdtFlags.isPrivate(member);
+		} catch (JavaModelException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Searches the callers of several methods with one combined search pattern and stores the
+	 * callers in the corresponding wrappers.
+	 *
+	 * @param wrappers the wrappers to search the callers for. The wrappers must be searchable in a
+	 *            batch and their methods must have distinct names.
+	 * @param progressMonitor the progress monitor
+	 * @return <code>true</code> if the callers have been found, <code>false</code> if a match could
+	 *         not be attributed to one of the methods. In the latter case, no wrapper has been updated.
+	 * @see #canBeSearchedInBatch()
+	 */
+	static boolean findChildren(List<CallerMethodWrapper> wrappers, IProgressMonitor progressMonitor) {
+		SearchPattern pattern= null;
+		String[] names= new String[wrappers.size()];
+		for (int i= 0; i < names.length; i++) {
+			IMember member= wrappers.get(i).getMember();
+			names[i]= member.getElementName();
+			SearchPattern memberPattern= SearchPattern.createPattern(member, IJavaSearchConstants.REFERENCES, SearchUtils.GENERICS_AGNOSTIC_MATCH_RULE);
+			if (memberPattern == null)
+				return false;
+			pattern= pattern == null ? memberPattern : SearchPattern.createOrPattern(pattern, memberPattern);
+		}
+
+		MultiMethodReferencesSearchRequestor searchRequestor= new MultiMethodReferencesSearchRequestor(names);
+		int scopeId= CallHierarchyCore.getDefault().getSearchScopeId();
+		try {
+			new SearchEngine().search(pattern, new SearchParticipant[] { SearchEngine.getDefaultSearchParticipant() }, wrappers.get(0).getSearchScope(),
+					searchRequestor, progressMonitor);
+		} catch (CoreException e) {
+			JavaManipulationPlugin.log(e);
+			return false;
+		}
+		if (!searchRequestor.isAttributed())
+			return false;
+
+		for (int i= 0; i < names.length; i++) {
+			wrappers.get(i).checkCanceled(progressMonitor);
+			wrappers.get(i).setCalls(searchRequestor.getCallers(names[i]), scopeId);
+		}
+		return true;
+	}
+
 	private IJavaSearchScope getAccurateSearchScope(IJavaSearchScope defaultSearchScope, IMember member) throws JavaModelException {
 		if (! JdtFlags.isPrivate(member))
 			return defaultSearchScope;
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2019 IBM Corporation and others.
+ * Copyright (c) 2000, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -17,8 +17,10 @@
  *******************************************************************************/
 package org.eclipse.jdt.internal.corext.callhierarchy;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 
 import org.eclipse.core.runtime.Assert;
@@ -49,12 +51,6 @@ public abstract class MethodWrapper extends PlatformObject {
 
     private Map<String, MethodCall> fElements = null;
 
-    /*
-     * A cache of previously found methods. This cache should be searched
-     * before adding a "new" method object reference to the list of elements.
-     * This way previously found methods won't be searched again.
-     */
-    private Map<String, Map<String, MethodCall>> fMethodCache;
     private final MethodCall fMethodCall;
     private final MethodWrapper fParent;
     private int fLevel;
@@ -68,10 +64,8 @@ public abstract class MethodWrapper extends PlatformObject {
         Assert.isNotNull(methodCall);
 
         if (parent == null) {
-            setMethodCache(new HashMap<String, Map<String, MethodCall>>());
             fLevel = 1;
         } else {
-            setMethodCache(parent.getMethodCache());
             fLevel = parent.getLevel() + 1;
         }
 
@@ -162,17 +156,8 @@ public abstract class MethodWrapper extends PlatformObject {
         return result;
     }
 
-    private void setMethodCache(Map<String, Map<String, MethodCall>> methodCache) {
-        fMethodCache = methodCache;
-    }
-
     protected abstract String getTaskName();
 
-    private void addCallToCache(MethodCall methodCall) {
-        Map<String, MethodCall> cachedCalls = lookupMethod(this.getMethodCall());
-        cachedCalls.put(methodCall.getKey(), methodCall);
-    }
-
 	/**
 	 * Creates a method wrapper for the child of the receiver.
 	 *
@@ -182,14 +167,11 @@ public abstract class MethodWrapper extends PlatformObject {
     protected abstract MethodWrapper createMethodWrapper(MethodCall methodCall);
 
     private void doFindChildren(IProgressMonitor progressMonitor) {
-        Map<String, MethodCall> existingResults = lookupMethod(getMethodCall());
+        Map<String, MethodCall> existingResults = lookupMethod();
 
-        if (existingResults != null && !existingResults.isEmpty()) {
-            fElements = new HashMap<>();
-            fElements.putAll(existingResults);
+        if (existingResults != null) {
+            fElements = new HashMap<>(existingResults);
         } else {
-            initCalls();
-
             if (progressMonitor != null) {
                 progressMonitor.beginTask(getTaskName(), 100);
             }
@@ -244,45 +226,53 @@ public abstract class MethodWrapper extends PlatformObject {
      */
     protected abstract Map<String, MethodCall> findChildren(IProgressMonitor progressMonitor);
 
-    private Map<String, Map<String, MethodCall>> getMethodCache() {
-        return fMethodCache;
-    }
-
-    private void initCalls() {
-        this.fElements = new HashMap<>();
-
-        initCacheForMethod();
+    private static CallHierarchyCache getMethodCache() {
+        return CallHierarchyCore.getDefault().getMethodCache();
     }
 
     /**
      * Looks up a previously created search result in the "global" cache.
-     * @param methodCall the method call
-     * @return the List of previously found search results
+     * @return the previously found search results, or <code>null</code> if none
      */
-    private Map<String, MethodCall> lookupMethod(MethodCall methodCall) {
-        return getMethodCache().get(methodCall.getKey());
+    private Map<String, MethodCall> lookupMethod() {
+        return getMethodCache().get(CallHierarchyCache.getKey(this, CallHierarchyCore.getDefault().getSearchScopeId()));
     }
 
     private void performSearch(IProgressMonitor progressMonitor) {
-        fElements = findChildren(progressMonitor);
+        int scopeId= CallHierarchyCore.getDefault().getSearchScopeId();
+        Map<String, MethodCall> calls = findChildren(progressMonitor);
+        checkCanceled(progressMonitor);
+        setCalls(calls, scopeId);
+    }
 
-        for (Iterator<String> iter = fElements.keySet().iterator(); iter.hasNext();) {
-            checkCanceled(progressMonitor);
+    /**
+     * Sets the calls found for this wrapper and adds them to the "global" cache.
+     *
+     * @param calls a map from handle identifier ({@link String}) to {@link MethodCall}
+     * @param scopeId the identifier of the search scope when the search started, see
+     *            {@link CallHierarchyCore#getSearchScopeId()}
+     */
+    void setCalls(Map<String, MethodCall> calls, int scopeId) {
+        fElements = calls;
+        // calls found while the scope changed may stem from both scopes, they are not cached
+        if (scopeId == CallHierarchyCore.getDefault().getSearchScopeId())
+            getMethodCache().put(CallHierarchyCache.getKey(this, scopeId), this, new HashMap<>(calls));
+    }
 
-            MethodCall methodCall = getMethodCallFromMap(fElements, iter.next());
-            addCallToCache(methodCall);
-        }
+    /**
+     * Tells whether the calls of this wrapper are known, either because they have
+     * already been computed for this wrapper or because they are cached.
+     *
+     * @return <code>true</code> if {@link #getCalls(IProgressMonitor)} does not need to search
+     */
+    boolean hasCalls() {
+        return fElements != null || lookupMethod() != null;
     }
 
     private MethodCall getMethodCallFromMap(Map<String, MethodCall> elements, String key) {
         return elements.get(key);
     }
 
-    private void initCacheForMethod() {
-        Map<String, MethodCall> cachedCalls = new HashMap<>();
-        getMethodCache().put(this.getMethodCall().getKey(), cachedCalls);
-    }
-
     /**
      * Checks with the progress monitor to see whether the creation of the type hierarchy
      * should be canceled. Should be regularly called
@@ -313,7 +303,9 @@ public abstract class MethodWrapper extends PlatformObject {
 
         visitor.preVisit(this);
         if (visitor.visit(this)) {
-           for (MethodWrapper methodWrapper : getCalls(progressMonitor)) {
+           MethodWrapper[] calls = getCalls(progressMonitor);
+           prefetchCalls(calls, progressMonitor);
+           for (MethodWrapper methodWrapper : calls) {
             	methodWrapper.accept(visitor, progressMonitor);
             }
         }
@@ -331,6 +323,27 @@ public abstract class MethodWrapper extends PlatformObject {
 	 */
 	public void removeFromCache() {
 		fElements= null;
-		fMethodCache.remove(getMethodCall().getKey());
+		getMethodCache().remove(CallHierarchyCache.getKey(this, CallHierarchyCore.getDefault().getSearchScopeId()));
+	}
+
+	/**
+	 * Computes the calls of the given sibling wrappers up front, so that subsequent calls to
+	 * {@link #getCalls(IProgressMonitor)} on the wrappers are answered from the cache.
+	 * <p>
+	 * The searches for the siblings run concurrently. Callers of several methods are searched
+	 * with a single combined search pattern where possible.
+	 * </p>
+	 *
+	 * @param wrappers the sibling wrappers
+	 * @param progressMonitor the progress monitor, or <code>null</code>
+	 */
+	public static void prefetchCalls(MethodWrapper[] wrappers, IProgressMonitor progressMonitor) {
+		List<MethodWrapper> pending= new ArrayList<>(wrappers.length);
+		for (MethodWrapper wrapper : wrappers) {
+			if (wrapper.canHaveChildren() && !wrapper.isRecursive() && !wrapper.hasCalls())
+				pending.add(wrapper);
+		}
+		if (pending.size() > 1)
+			new CallHierarchySearcher(pending).run(progressMonitor);
 	}
 }
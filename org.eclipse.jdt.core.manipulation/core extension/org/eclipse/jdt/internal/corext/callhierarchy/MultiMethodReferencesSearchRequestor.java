@@ -0,0 +1,129 @@
+/*******************************************************************************
+ * Copyright (c) 2020 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.corext.callhierarchy;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.eclipse.jdt.core.IBuffer;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IMember;
+import org.eclipse.jdt.core.JavaModelException;
+import org.eclipse.jdt.core.search.SearchMatch;
+import org.eclipse.jdt.core.search.SearchRequestor;
+
+/**
+ * Search requestor for a combined search for the references to several methods with distinct
+ * names. Matches are attributed to the referenced method by the method name found in the source
+ * range of the match.
+ */
+class MultiMethodReferencesSearchRequestor extends SearchRequestor {
+
+	private final String[] fNames;
+
+	private final Map<String, CallSearchResultCollector> fSearchResults;
+
+	private boolean fAttributed= true;
+
+	MultiMethodReferencesSearchRequestor(String[] names) {
+		fNames= names;
+		fSearchResults= new HashMap<>(names.length * 2);
+		for (String name : names) {
+			fSearchResults.put(name, new CallSearchResultCollector());
+		}
+	}
+
+	/**
+	 * Tells whether all matches could be attributed to one of the methods.
+	 *
+	 * @return <code>true</code> if the callers of each method are complete
+	 */
+	public boolean isAttributed() {
+		return fAttributed;
+	}
+
+	/**
+	 * @param name the name of the method
+	 * @return a map from handle identifier ({@link String}) to {@link MethodCall}
+	 */
+	public Map<String, MethodCall> getCallers(String name) {
+		return fSearchResults.get(name).getCallers();
+	}
+
+	@Override
+	public void acceptSearchMatch(SearchMatch match) {
+		if (!fAttributed || match.getAccuracy() != SearchMatch.A_ACCURATE || match.isInsideDocComment())
+			return;
+
+		if (match.getElement() instanceof IMember) {
+			IMember member= (IMember) match.getElement();
+			switch (member.getElementType()) {
+				case IJavaElement.METHOD:
+				case IJavaElement.TYPE:
+				case IJavaElement.FIELD:
+				case IJavaElement.INITIALIZER:
+					String name= getReferencedName(member, match);
+					if (name == null) {
+						fAttributed= false;
+					} else {
+						fSearchResults.get(name).addMember(member, member, match.getOffset(), match.getOffset() + match.getLength());
+					}
+					break;
+			}
+		}
+	}
+
+	/**
+	 * Returns the name of the method referenced by the match.
+	 *
+	 * @param member the member containing the match
+	 * @param match the match
+	 * @return the method name, or <code>null</code> if the referenced method cannot be determined
+	 */
+	private String getReferencedName(IMember member, SearchMatch match) {
+		String text;
+		try {
+			IBuffer buffer= member.getOpenable().getBuffer();
+			if (buffer == null)
+				return null;
+			text= buffer.getText(match.getOffset(), match.getLength());
+		} catch (JavaModelException | IndexOutOfBoundsException e) {
+			return null;
+		}
+		String found= null;
+		for (String name : fNames) {
+			int index= indexOfIdentifier(text, name);
+			if (index == 0)
+				return name;
+			if (index > 0) {
+				if (found != null)
+					return null;
+				found= name;
+			}
+		}
+		return found;
+	}
+
+	private static int indexOfIdentifier(String text, String name) {
+		int index= text.indexOf(name);
+		while (index != -1) {
+			int end= index + name.length();
+			if ((index == 0 || !Character.isJavaIdentifierPart(text.charAt(index - 1)))
+					&& (end == text.length() || !Character.isJavaIdentifierPart(text.charAt(end))))
+				return index;
+			index= text.indexOf(name, index + 1);
+		}
+		return -1;
+	}
+}
@@ -0,0 +1,306 @@
+/*******************************************************************************
+ * Copyright (c) 2020 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.corext.dom;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.jdt.core.dom.AST;
+import org.eclipse.jdt.core.dom.ASTVisitor;
+import org.eclipse.jdt.core.dom.Assignment;
+import org.eclipse.jdt.core.dom.ClassInstanceCreation;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.eclipse.jdt.core.dom.Expression;
+import org.eclipse.jdt.core.dom.FieldAccess;
+import org.eclipse.jdt.core.dom.FieldDeclaration;
+import org.eclipse.jdt.core.dom.IBinding;
+import org.eclipse.jdt.core.dom.IMethodBinding;
+import org.eclipse.jdt.core.dom.ITypeBinding;
+import org.eclipse.jdt.core.dom.IVariableBinding;
+import org.eclipse.jdt.core.dom.Name;
+import org.eclipse.jdt.core.dom.NameQualifiedType;
+import org.eclipse.jdt.core.dom.ParameterizedType;
+import org.eclipse.jdt.core.dom.PostfixExpression;
+import org.eclipse.jdt.core.dom.PrefixExpression;
+import org.eclipse.jdt.core.dom.QualifiedName;
+import org.eclipse.jdt.core.dom.SimpleName;
+import org.eclipse.jdt.core.dom.SimpleType;
+import org.eclipse.jdt.core.dom.SingleVariableDeclaration;
+import org.eclipse.jdt.core.dom.Type;
+import org.eclipse.jdt.core.dom.VariableDeclarationFragment;
+
+/**
+ * Index from the key of a binding declaration to the names referring to it in a compilation unit
+ * AST. The index is built with a single pass over the AST when it is first requested and is
+ * stored as a property of the AST root, so it is discarded together with the AST. The index is
+ * rebuilt if the AST has been modified since.
+ * <p>
+ * The index provides two views:
+ * <ul>
+ * <li>the occurrences as reported by the <code>OccurrencesFinder</code>: a qualified name
+ * referring to the binding is reported as a whole, and the type name of a class instance creation
+ * is also an occurrence of the constructor</li>
+ * <li>the simple names linked by the {@link LinkedNodeFinder}: constructors are linked with their
+ * declaring type</li>
+ * </ul>
+ * Both views are in source order. Bindings without a key are not indexed.
+ * </p>
+ */
+public final class BindingOccurrencesIndex {
+
+	private static final String PROPERTY_KEY= BindingOccurrencesIndex.class.getName();
+
+	private final Map<String, List<Name>> fOccurrences= new HashMap<>();
+
+	private final Map<String, List<SimpleName>> fLinkedNames= new HashMap<>();
+
+	private final Set<Name> fWriteAccesses= new HashSet<>();
+
+	private final long fModificationCount;
+
+	private BindingOccurrencesIndex(long modificationCount) {
+		fModificationCount= modificationCount;
+	}
+
+	/**
+	 * Returns the index of the given AST, builds it if the AST has not been indexed yet.
+	 *
+	 * @param root the AST root, must have been created with bindings
+	 * @return the index of the AST
+	 */
+	public static BindingOccurrencesIndex get(CompilationUnit root) {
+		synchronized (root) {
+			long modificationCount= root.getAST().modificationCount();
+			BindingOccurrencesIndex index= (BindingOccurrencesIndex) root.getProperty(PROPERTY_KEY);
+			if (index == null || index.fModificationCount != modificationCount) {
+				index= new BindingOccurrencesIndex(modificationCount);
+				root.accept(index.new Collector());
+				root.setProperty(PROPERTY_KEY, index);
+			}
+			return index;
+		}
+	}
+
+	/**
+	 * Returns the key under which the given binding is indexed.
+	 *
+	 * @param binding the binding
+	 * @return the key of the binding declaration, or <code>null</code> if the binding cannot be
+	 *         looked up in the index
+	 */
+	public static String getKey(IBinding binding) {
+		return getDeclaration(binding).getKey();
+	}
+
+	/**
+	 * Returns the names referring to the binding with the given key, see
+	 * {@link #getKey(IBinding)}.
+	 *
+	 * @param key the binding key
+	 * @return the names in source order, the list must not be modified
+	 */
+	public List<Name> getOccurrences(String key) {
+		List<Name> result= fOccurrences.get(key);
+		return result != null ? result : Collections.<Name>emptyList();
+	}
+
+	/**
+	 * Tells whether the given name is written to, e.g. by an assignment or a declaration with an
+	 * initializer.
+	 *
+	 * @param name a name returned by {@link #getOccurrences(String)}
+	 * @return <code>true</code> if the name is a write access
+	 */
+	public boolean isWriteAccess(Name name) {
+		return fWriteAccesses.contains(name);
+	}
+
+	/**
+	 * Returns the simple names linked to the given binding in the sense of
+	 * {@link LinkedNodeFinder#findByBinding(org.eclipse.jdt.core.dom.ASTNode, IBinding)}. Method
+	 * bindings other than constructors are linked with overridden and overriding methods and
+	 * cannot be looked up.
+	 *
+	 * @param binding the binding
+	 * @return the linked names in source order, or <code>null</code> if the binding cannot be
+	 *         looked up in the index
+	 */
+	public SimpleName[] getLinkedNames(IBinding binding) {
+		if (binding instanceof IMethodBinding && !((IMethodBinding) binding).isConstructor())
+			return null;
+		String key= getLinkedDeclaration(binding).getKey();
+		if (key == null)
+			return null;
+		List<SimpleName> result= fLinkedNames.get(key);
+		if (result == null)
+			return new SimpleName[0];
+		return result.toArray(new SimpleName[result.size()]);
+	}
+
+	private static IBinding getDeclaration(IBinding binding) {
+		switch (binding.getKind()) {
+			case IBinding.TYPE:
+				return ((ITypeBinding) binding).getTypeDeclaration();
+			case IBinding.METHOD:
+				return ((IMethodBinding) binding).getMethodDeclaration();
+			case IBinding.VARIABLE:
+				return ((IVariableBinding) binding).getVariableDeclaration();
+			default:
+				return binding;
+		}
+	}
+
+	private static IBinding getLinkedDeclaration(IBinding binding) {
+		if (binding instanceof IMethodBinding && ((IMethodBinding) binding).isConstructor()) {
+			// link all constructors with their type
+			return ((IMethodBinding) binding).getDeclaringClass().getTypeDeclaration();
+		}
+		return getDeclaration(binding);
+	}
+
+	/**
+	 * Collects the occurrences the way the <code>OccurrencesFinder</code> collects them for a
+	 * single binding.
+	 */
+	private class Collector extends ASTVisitor {
+
+		Collector() {
+			super(true);
+		}
+
+		private void addOccurrence(Name node, IBinding binding) {
+			if (binding == null)
+				return;
+			String key= getDeclaration(binding).getKey();
+			if (key == null)
+				return;
+			List<Name> names= fOccurrences.get(key);
+			if (names == null) {
+				names= new ArrayList<>();
+				fOccurrences.put(key, names);
+			} else {
+				// a name inside a qualified name that already refers to the binding is not reported again
+				Name last= names.get(names.size() - 1);
+				if (last == node || ASTNodes.isParent(node, last))
+					return;
+			}
+			names.add(node);
+		}
+
+		private void addLinkedName(SimpleName node, IBinding binding) {
+			if (binding == null || node.getAST().apiLevel() >= AST.JLS10 && node.isVar())
+				return;
+			String key= getLinkedDeclaration(binding).getKey();
+			if (key == null)
+				return;
+			List<SimpleName> names= fLinkedNames.get(key);
+			if (names == null) {
+				names= new ArrayList<>();
+				fLinkedNames.put(key, names);
+			}
+			names.add(node);
+		}
+
+		private void addWrite(Name node) {
+			if (node != null)
+				fWriteAccesses.add(node);
+		}
+
+		@Override
+		public boolean visit(QualifiedName node) {
+			IBinding binding= node.resolveBinding();
+			if (binding instanceof IVariableBinding && ((IVariableBinding) binding).isField()) {
+				SimpleName name= node.getName();
+				addOccurrence(name, name.resolveBinding());
+			} else {
+				addOccurrence(node, binding);
+			}
+			return true;
+		}
+
+		@Override
+		public boolean visit(SimpleName node) {
+			IBinding binding= node.resolveBinding();
+			addOccurrence(node, binding);
+			addLinkedName(node, binding);
+			return true;
+		}
+
+		@Override
+		public boolean visit(ClassInstanceCreation node) {
+			// the type name is also an occurrence of the constructor
+			Type type= node.getType();
+			if (type instanceof ParameterizedType) {
+				type= ((ParameterizedType) type).getType();
+			}
+			if (type instanceof SimpleType) {
+				Name name= ((SimpleType) type).getName();
+				if (name instanceof QualifiedName)
+					name= ((QualifiedName) name).getName();
+				addOccurrence(name, node.resolveConstructorBinding());
+			} else if (type instanceof NameQualifiedType) {
+				addOccurrence(((NameQualifiedType) type).getName(), node.resolveConstructorBinding());
+			}
+			return true;
+		}
+
+		@Override
+		public boolean visit(Assignment node) {
+			addWrite(getSimpleName(node.getLeftHandSide()));
+			return true;
+		}
+
+		@Override
+		public boolean visit(SingleVariableDeclaration node) {
+			addWrite(node.getName());
+			return true;
+		}
+
+		@Override
+		public boolean visit(VariableDeclarationFragment node) {
+			if (node.getParent() instanceof FieldDeclaration || node.getInitializer() != null)
+				addWrite(node.getName());
+			return true;
+		}
+
+		@Override
+		public boolean visit(PrefixExpression node) {
+			PrefixExpression.Operator operator= node.getOperator();
+			if (operator == PrefixExpression.Operator.INCREMENT || operator == PrefixExpression.Operator.DECREMENT)
+				addWrite(getSimpleName(node.getOperand()));
+			return true;
+		}
+
+		@Override
+		public boolean visit(PostfixExpression node) {
+			addWrite(getSimpleName(node.getOperand()));
+			return true;
+		}
+
+		private SimpleName getSimpleName(Expression expression) {
+			if (expression instanceof SimpleName)
+				return (SimpleName) expression;
+			else if (expression instanceof QualifiedName)
+				return ((QualifiedName) expression).getName();
+			else if (expression instanceof FieldAccess)
+				return ((FieldAccess) expression).getName();
+			return null;
+		}
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2018 IBM Corporation and others.
+ * Copyright (c) 2000, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -46,12 +46,19 @@ public class LinkedNodeFinder  {
 	/**
 	 * Find all nodes connected to the given binding. e.g. Declaration of a field and all references.
 	 * For types this includes also the constructor declaration, for methods also overridden methods
-	 * or methods overriding (if existing in the same AST)
+	 * or methods overriding (if existing in the same AST).
+	 * If the root is a compilation unit, the nodes are looked up in its {@link BindingOccurrencesIndex} where possible.
 	 * @param root The root of the AST tree to search
 	 * @param binding The binding of the searched nodes
 	 * @return Return
 	 */
 	public static SimpleName[] findByBinding(ASTNode root, IBinding binding) {
+		if (root instanceof CompilationUnit) {
+			SimpleName[] names= BindingOccurrencesIndex.get((CompilationUnit) root).getLinkedNames(binding);
+			if (names != null) {
+				return names;
+			}
+		}
 		ArrayList<SimpleName> res= new ArrayList<>();
 		BindingFinder nodeFinder= new BindingFinder(binding, res);
 		root.accept(nodeFinder);
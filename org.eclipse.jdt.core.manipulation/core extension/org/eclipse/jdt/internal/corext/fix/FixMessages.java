@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2018 IBM Corporation and others.
+ * Copyright (c) 2000, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -33,6 +33,13 @@ public final class FixMessages extends NLS {
 	public static String CleanUpPostSaveListener_SlowCleanUpWarningDialog_explain;
 	public static String CleanUpPostSaveListener_unknown_profile_error_message;
 
+	public static String BulkCodeFormatter_format_error;
+	public static String BulkCodeFormatter_formatting_message;
+	public static String BulkCodeFormatter_modified_error;
+	public static String BulkCodeFormatter_problems_message;
+	public static String BulkCodeFormatter_writing_message;
+	public static String BulkCodeFormatter_write_error;
+
 	public static String CleanUpRefactoring_checkingPostConditions_message;
 	public static String CleanUpRefactoring_clean_up_multi_chang_name;
 	public static String CleanUpRefactoring_could_not_retrive_profile;
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2019 IBM Corporation and others.
+ * Copyright (c) 2000, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -31,6 +31,7 @@ import org.eclipse.core.resources.ResourceAttributes;
 import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.resources.mapping.IResourceChangeDescriptionFactory;
 
+import org.eclipse.ltk.core.refactoring.Refactoring;
 import org.eclipse.ltk.core.refactoring.RefactoringStatus;
 import org.eclipse.ltk.core.refactoring.participants.CheckConditionsContext;
 import org.eclipse.ltk.core.refactoring.participants.ResourceChangeChecker;
@@ -69,6 +70,7 @@ import org.eclipse.jdt.internal.corext.dom.Bindings;
 import org.eclipse.jdt.internal.corext.refactoring.base.RefactoringStatusCodes;
 import org.eclipse.jdt.internal.corext.refactoring.util.JavaElementUtil;
 import org.eclipse.jdt.internal.corext.refactoring.util.JavaStatusContext;
+import org.eclipse.jdt.internal.corext.refactoring.util.ModifiedFilesValidator;
 import org.eclipse.jdt.internal.corext.util.JavaConventionsUtil;
 import org.eclipse.jdt.internal.corext.util.JavaModelUtil;
 import org.eclipse.jdt.internal.corext.util.JdtFlags;
@@ -706,18 +708,20 @@ public class Checks {
 	//-------- validateEdit checks ----
 
 	public static RefactoringStatus validateModifiesFiles(IFile[] filesToModify, Object context) {
-		RefactoringStatus result= new RefactoringStatus();
-		IStatus status= Resources.checkInSync(filesToModify);
-		if (!status.isOK())
-			result.merge(RefactoringStatus.create(status));
-		status= Resources.makeCommittable(filesToModify, context);
-		if (!status.isOK()) {
-			result.merge(RefactoringStatus.create(status));
-			if (!result.hasFatalError()) {
-				result.addFatalError(RefactoringCoreMessages.Checks_validateEdit);
-			}
-		}
-		return result;
+		return ModifiedFilesValidator.validate(filesToModify, context, null);
+	}
+
+	/**
+	 * Validates that the given files can be modified by the given refactoring. Files found to be
+	 * in sync and writable are remembered for the later checks of the same refactoring.
+	 *
+	 * @param filesToModify the files to be modified
+	 * @param context the context passed to <code>validateEdit</code>
+	 * @param refactoring the refactoring which modifies the files
+	 * @return the refactoring status
+	 */
+	public static RefactoringStatus validateModifiesFiles(IFile[] filesToModify, Object context, Refactoring refactoring) {
+		return ModifiedFilesValidator.validate(filesToModify, context, refactoring);
 	}
 
 	public static void addModifiedFilesToChecker(IFile[] filesToModify, CheckConditionsContext context) {
@@ -735,6 +739,8 @@ public class Checks {
 		RefactoringStatus result= new RefactoringStatus();
 		if (resource == null)
 			return result;
+		if (resource.getType() == IResource.FILE)
+			return ModifiedFilesValidator.validate(new IFile[] { (IFile) resource }, context, null);
 		IStatus status= Resources.checkInSync(resource);
 		if (!status.isOK())
 			result.merge(RefactoringStatus.create(status));
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2019 IBM Corporation and others.
+ * Copyright (c) 2000, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -1186,6 +1186,8 @@ public final class RefactoringCoreMessages extends NLS {
 
 	public static String MethodChecks_overrides;
 
+	public static String ModifiedFilesValidator_timing;
+
 	public static String MoveCompilationUnitChange_name;
 
 	public static String MoveCuUpdateCreator_searching;
@@ -1888,6 +1890,8 @@ public final class RefactoringCoreMessages extends NLS {
 
 	public static String RenameTypeProcessor_progress_current_total;
 
+	public static String RenameTypeProcessor_searching_similarly_named_elements;
+
 	public static String ReferencesInBinaryContext_ref_in_binaries_description;
 
 	public static String ReferencesInBinaryContext_ref_in_binaries_description_plural;
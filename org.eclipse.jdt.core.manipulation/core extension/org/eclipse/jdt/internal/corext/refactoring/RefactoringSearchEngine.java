@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2019 IBM Corporation and others.
+ * Copyright (c) 2000, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -21,10 +21,14 @@ import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.PerformanceStats;
 
 import org.eclipse.core.resources.IResource;
 
@@ -43,6 +47,8 @@ import org.eclipse.jdt.core.search.SearchMatch;
 import org.eclipse.jdt.core.search.SearchPattern;
 import org.eclipse.jdt.core.search.SearchRequestor;
 
+import org.eclipse.jdt.core.manipulation.JavaManipulation;
+
 import org.eclipse.jdt.internal.corext.util.SearchUtils;
 
 /**
@@ -51,6 +57,26 @@ import org.eclipse.jdt.internal.corext.util.SearchUtils;
  */
 public class RefactoringSearchEngine {
 
+	/**
+	 * The name of the performance event used to trace the searches of refactorings. The time is
+	 * recorded per concurrently running search.
+	 */
+	public static final String PERFORMANCE_EVENT= JavaManipulation.ID_PLUGIN + "/perf/refactoring/search"; //$NON-NLS-1$
+
+	/**
+	 * If <code>true</code>, the time spent searching is forwarded to core's {@link PerformanceStats}
+	 * service.
+	 */
+	private static final boolean MEASURE_PERFORMANCE= PerformanceStats.isEnabled(PERFORMANCE_EVENT);
+
+	/**
+	 * The stats which are not measuring a search. Runs of one stats object must not overlap, so
+	 * each running search takes its own stats and returns it when done.
+	 */
+	private static final Queue<PerformanceStats> fgIdleStats= new ConcurrentLinkedQueue<>();
+
+	private static final AtomicInteger fgStatsCount= new AtomicInteger();
+
 	private RefactoringSearchEngine(){
 		//no instances
 	}
@@ -78,10 +104,13 @@ public class RefactoringSearchEngine {
 			}
 		}
 		ResourceSearchRequestor requestor = new ResourceSearchRequestor();
+		PerformanceStats stats= startMeasuring();
 		try {
 			new SearchEngine().search(pattern, SearchUtils.getDefaultSearchParticipants(), scope, requestor, pm);
 		} catch (CoreException e) {
 			throw new JavaModelException(e);
+		} finally {
+			stopMeasuring(stats);
 		}
 
 		List<IJavaElement> result= new ArrayList<>(requestor.resources.size());
@@ -143,14 +172,39 @@ public class RefactoringSearchEngine {
 	//TODO: throw CoreException
 	private static SearchResultGroup[] internalSearch(SearchEngine searchEngine, SearchPattern pattern, IJavaSearchScope scope,
 			CollectingSearchRequestor requestor, IProgressMonitor monitor, RefactoringStatus status) throws JavaModelException {
+		PerformanceStats stats= startMeasuring();
 		try {
 			searchEngine.search(pattern, SearchUtils.getDefaultSearchParticipants(), scope, requestor, monitor);
 		} catch (CoreException e) {
 			throw new JavaModelException(e);
+		} finally {
+			stopMeasuring(stats);
 		}
 		return groupByCu(requestor.getResults(), status);
 	}
 
+	/**
+	 * Starts measuring a search if the {@link #PERFORMANCE_EVENT} is enabled.
+	 *
+	 * @return the stats to pass to {@link #stopMeasuring(PerformanceStats)}, or <code>null</code>
+	 */
+	static PerformanceStats startMeasuring() {
+		if (!MEASURE_PERFORMANCE)
+			return null;
+		PerformanceStats stats= fgIdleStats.poll();
+		if (stats == null)
+			stats= PerformanceStats.getStats(PERFORMANCE_EVENT, "search " + fgStatsCount.incrementAndGet()); //$NON-NLS-1$
+		stats.startRun();
+		return stats;
+	}
+
+	static void stopMeasuring(PerformanceStats stats) {
+		if (stats != null) {
+			stats.endRun();
+			fgIdleStats.add(stats);
+		}
+	}
+
 	public static SearchResultGroup[] groupByCu(SearchMatch[] matches, RefactoringStatus status) {
 		return groupByCu(Arrays.asList(matches), status);
 	}
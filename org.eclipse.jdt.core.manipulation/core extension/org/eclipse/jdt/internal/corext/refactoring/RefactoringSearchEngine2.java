@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2019 IBM Corporation and others.
+ * Copyright (c) 2000, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -29,6 +29,7 @@ import org.eclipse.core.runtime.Assert;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.PerformanceStats;
 import org.eclipse.core.runtime.SubProgressMonitor;
 
 import org.eclipse.core.resources.IProject;
@@ -493,6 +494,7 @@ public final class RefactoringSearchEngine2 {
 		try {
 			monitor.beginTask("", 1); //$NON-NLS-1$
 			monitor.setTaskName(RefactoringCoreMessages.RefactoringSearchEngine_searching_occurrences);
+			PerformanceStats stats= RefactoringSearchEngine.startMeasuring();
 			try {
 				SearchEngine engine= null;
 				if (fOwner != null)
@@ -502,6 +504,8 @@ public final class RefactoringSearchEngine2 {
 				engine.search(fPattern, SearchUtils.getDefaultSearchParticipants(), fScope, getCollector(), new SubProgressMonitor(monitor, 1, SubProgressMonitor.SUPPRESS_SUBTASK_LABEL));
 			} catch (CoreException exception) {
 				throw new JavaModelException(exception);
+			} finally {
+				RefactoringSearchEngine.stopMeasuring(stats);
 			}
 		} finally {
 			monitor.done();
@@ -522,6 +526,7 @@ public final class RefactoringSearchEngine2 {
 		try {
 			monitor.beginTask("", 1); //$NON-NLS-1$
 			monitor.setTaskName(RefactoringCoreMessages.RefactoringSearchEngine_searching_referenced_fields);
+			PerformanceStats stats= RefactoringSearchEngine.startMeasuring();
 			try {
 				SearchEngine engine= null;
 				if (fOwner != null)
@@ -531,6 +536,8 @@ public final class RefactoringSearchEngine2 {
 				engine.searchDeclarationsOfAccessedFields(element, getCollector(), new SubProgressMonitor(monitor, 1, SubProgressMonitor.SUPPRESS_SUBTASK_LABEL));
 			} catch (CoreException exception) {
 				throw new JavaModelException(exception);
+			} finally {
+				RefactoringSearchEngine.stopMeasuring(stats);
 			}
 		} finally {
 			monitor.done();
@@ -551,6 +558,7 @@ public final class RefactoringSearchEngine2 {
 		try {
 			monitor.beginTask("", 1); //$NON-NLS-1$
 			monitor.setTaskName(RefactoringCoreMessages.RefactoringSearchEngine_searching_referenced_methods);
+			PerformanceStats stats= RefactoringSearchEngine.startMeasuring();
 			try {
 				SearchEngine engine= null;
 				if (fOwner != null)
@@ -560,6 +568,8 @@ public final class RefactoringSearchEngine2 {
 				engine.searchDeclarationsOfSentMessages(element, getCollector(), new SubProgressMonitor(monitor, 1, SubProgressMonitor.SUPPRESS_SUBTASK_LABEL));
 			} catch (CoreException exception) {
 				throw new JavaModelException(exception);
+			} finally {
+				RefactoringSearchEngine.stopMeasuring(stats);
 			}
 		} finally {
 			monitor.done();
@@ -580,6 +590,7 @@ public final class RefactoringSearchEngine2 {
 		try {
 			monitor.beginTask("", 1); //$NON-NLS-1$
 			monitor.setTaskName(RefactoringCoreMessages.RefactoringSearchEngine_searching_referenced_types);
+			PerformanceStats stats= RefactoringSearchEngine.startMeasuring();
 			try {
 				SearchEngine engine= null;
 				if (fOwner != null)
@@ -589,6 +600,8 @@ public final class RefactoringSearchEngine2 {
 				engine.searchDeclarationsOfReferencedTypes(element, getCollector(), new SubProgressMonitor(monitor, 1, SubProgressMonitor.SUPPRESS_SUBTASK_LABEL));
 			} catch (CoreException exception) {
 				throw new JavaModelException(exception);
+			} finally {
+				RefactoringSearchEngine.stopMeasuring(stats);
 			}
 		} finally {
 			monitor.done();
@@ -285,7 +285,7 @@ public class ConvertAnonymousToNestedRefactoring extends Refactoring {
 	public RefactoringStatus checkInitialConditions(IProgressMonitor pm) throws CoreException {
         RefactoringStatus result= Checks.validateModifiesFiles(
         	ResourceUtil.getFiles(new ICompilationUnit[]{fCu}),
-			getValidationContext());
+			getValidationContext(), this);
 		if (result.hasFatalError())
 		    return result;
 
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2019 IBM Corporation and others.
+ * Copyright (c) 2000, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -878,7 +878,7 @@ public class InlineConstantRefactoring extends Refactoring {
 				CompilationUnitChange change= changes.get(i);
 				cus[i]= change.getCompilationUnit();
 			}
-			result.merge(Checks.validateModifiesFiles(ResourceUtil.getFiles(cus), getValidationContext()));
+			result.merge(Checks.validateModifiesFiles(ResourceUtil.getFiles(cus), getValidationContext(), this));
 
 			pm.worked(1);
 
@@ -0,0 +1,145 @@
+/*******************************************************************************
+ * Copyright (c) 2020 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.corext.refactoring.structure;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.WorkingCopyOwner;
+import org.eclipse.jdt.core.dom.ASTRequestor;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+
+import org.eclipse.jdt.internal.corext.dom.IASTSharedValues;
+import org.eclipse.jdt.internal.corext.refactoring.util.RefactoringASTParser;
+
+/**
+ * Creates the {@link CompilationUnitRewrite}s of a refactoring that updates many compilation
+ * units. Instead of parsing each compilation unit on its own, the ASTs are created in batches of
+ * compilation units of the same project, which share one lookup environment.
+ * <p>
+ * A batch is parsed when the rewrite of one of its compilation units is requested. The ASTs of a
+ * batch are only held until they are handed to their rewrite, and the ASTs which have not been
+ * requested are discarded when the next batch is parsed. Clients should therefore request the
+ * rewrites in the order of {@link #getCompilationUnits()} and not hold on to a rewrite after its
+ * change has been created.
+ * </p>
+ * <p>
+ * The rewrites resolve bindings and perform statements recovery, like a rewrite created with
+ * {@link CompilationUnitRewrite#CompilationUnitRewrite(WorkingCopyOwner, ICompilationUnit)}.
+ * </p>
+ * <p>
+ * The prefetcher is not thread safe. The ASTs of a batch share one binding resolver, so the
+ * rewrites of a batch must not be used concurrently either.
+ * </p>
+ */
+public class CompilationUnitRewritePrefetcher {
+
+	/** The maximum number of compilation units parsed at once. */
+	private static final int MAX_AT_ONCE= (int) Math.max(25, Math.min(400, Runtime.getRuntime().maxMemory() / (5 << 20)));
+
+	private final WorkingCopyOwner fOwner;
+
+	private final ICompilationUnit[] fUnits;
+
+	/** The batches which have not been parsed yet, by compilation unit. */
+	private final Map<ICompilationUnit, ICompilationUnit[]> fBatches= new HashMap<>();
+
+	/** The ASTs of the last parsed batch which have not been requested yet. */
+	private final Map<ICompilationUnit, CompilationUnit> fASTs= new HashMap<>();
+
+	/**
+	 * Creates a new prefetcher.
+	 *
+	 * @param owner the working copy owner, or <code>null</code> for the primary owner
+	 * @param units the compilation units to create rewrites for
+	 */
+	public CompilationUnitRewritePrefetcher(WorkingCopyOwner owner, ICompilationUnit[] units) {
+		fOwner= owner;
+		Map<IJavaProject, List<ICompilationUnit>> byProject= new LinkedHashMap<>();
+		for (ICompilationUnit unit : units) {
+			List<ICompilationUnit> projectUnits= byProject.get(unit.getJavaProject());
+			if (projectUnits == null) {
+				projectUnits= new ArrayList<>();
+				byProject.put(unit.getJavaProject(), projectUnits);
+			}
+			if (!fBatches.containsKey(unit)) {
+				projectUnits.add(unit);
+				fBatches.put(unit, null);
+			}
+		}
+		List<ICompilationUnit> ordered= new ArrayList<>(fBatches.size());
+		for (List<ICompilationUnit> projectUnits : byProject.values()) {
+			for (int start= 0; start < projectUnits.size(); start+= MAX_AT_ONCE) {
+				List<ICompilationUnit> batch= projectUnits.subList(start, Math.min(start + MAX_AT_ONCE, projectUnits.size()));
+				ICompilationUnit[] batchUnits= batch.toArray(new ICompilationUnit[batch.size()]);
+				for (ICompilationUnit unit : batchUnits)
+					fBatches.put(unit, batchUnits);
+				ordered.addAll(batch);
+			}
+		}
+		fUnits= ordered.toArray(new ICompilationUnit[ordered.size()]);
+	}
+
+	/**
+	 * Returns the compilation units in the order in which their ASTs are created.
+	 *
+	 * @return the compilation units, grouped by project
+	 */
+	public ICompilationUnit[] getCompilationUnits() {
+		return fUnits;
+	}
+
+	/**
+	 * Creates the rewrite for the given compilation unit. Parses the batch of the compilation unit
+	 * if its AST has not been created yet. If the compilation unit has not been passed to the
+	 * prefetcher, or its AST has already been handed out or discarded, the rewrite parses the
+	 * compilation unit on its own when its AST is accessed.
+	 *
+	 * @param unit the compilation unit
+	 * @param monitor the progress monitor, or <code>null</code>
+	 * @return the compilation unit rewrite
+	 */
+	public CompilationUnitRewrite createRewrite(ICompilationUnit unit, IProgressMonitor monitor) {
+		CompilationUnit root= fASTs.remove(unit);
+		if (root == null) {
+			ICompilationUnit[] batch= fBatches.get(unit);
+			if (batch != null) {
+				parse(batch, monitor);
+				root= fASTs.remove(unit);
+			}
+		}
+		if (root == null)
+			return new CompilationUnitRewrite(fOwner, unit);
+		return new CompilationUnitRewrite(fOwner, unit, root);
+	}
+
+	private void parse(ICompilationUnit[] batch, IProgressMonitor monitor) {
+		fASTs.clear();
+		for (ICompilationUnit unit : batch)
+			fBatches.remove(unit);
+		new RefactoringASTParser(IASTSharedValues.SHARED_AST_LEVEL).createASTs(batch, new String[0], fOwner, true, true, false, new ASTRequestor() {
+			@Override
+			public void acceptAST(ICompilationUnit source, CompilationUnit ast) {
+				fASTs.put(source, ast);
+			}
+		}, monitor);
+	}
+}
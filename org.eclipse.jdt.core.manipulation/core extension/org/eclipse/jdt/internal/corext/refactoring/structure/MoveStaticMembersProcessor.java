@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2019 IBM Corporation and others.
+ * Copyright (c) 2000, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -800,7 +800,18 @@ public final class MoveStaticMembersProcessor extends MoveProcessor implements I
 			};
 			RefactoringSearchEngine.search(pattern, scope, requestor, new NullProgressMonitor(), status);
 			binaryRefs.addErrorIfNecessary(status);
-			ICompilationUnit[] units= affectedCompilationUnits.toArray(new ICompilationUnit[affectedCompilationUnits.size()]);
+			// parse the referencing compilation units in batches, the source and target are parsed already
+			List<ICompilationUnit> orderedUnits= new ArrayList<>(affectedCompilationUnits.size());
+			List<ICompilationUnit> otherUnits= new ArrayList<>(affectedCompilationUnits.size());
+			for (ICompilationUnit unit : affectedCompilationUnits) {
+				if (unit.equals(fSource.getCu()) || unit.equals(fTarget.getCu()))
+					orderedUnits.add(unit);
+				else
+					otherUnits.add(unit);
+			}
+			CompilationUnitRewritePrefetcher prefetcher= new CompilationUnitRewritePrefetcher(null, otherUnits.toArray(new ICompilationUnit[otherUnits.size()]));
+			orderedUnits.addAll(Arrays.asList(prefetcher.getCompilationUnits()));
+			ICompilationUnit[] units= orderedUnits.toArray(new ICompilationUnit[orderedUnits.size()]);
 
 			modifiedCus.addAll(Arrays.asList(units));
 			final MemberVisibilityAdjustor adjustor= new MemberVisibilityAdjustor(fDestinationType, fDestinationType);
@@ -808,7 +819,7 @@ public final class MoveStaticMembersProcessor extends MoveProcessor implements I
 			sub.beginTask(RefactoringCoreMessages.MoveMembersRefactoring_creating, units.length);
 			for (int index= 0; index < units.length; index++) {
 				ICompilationUnit unit= units[index];
-				CompilationUnitRewrite rewrite= getCuRewrite(unit);
+				CompilationUnitRewrite rewrite= getCuRewrite(unit, prefetcher);
 				adjustor.setRewrites(Collections.singletonMap(unit, rewrite));
 				adjustor.setAdjustments(adjustments);
 				adjustor.rewriteVisibility(unit, new SubProgressMonitor(sub, 1));
@@ -870,10 +881,16 @@ public final class MoveStaticMembersProcessor extends MoveProcessor implements I
 	}
 
 	private CompilationUnitRewrite getCuRewrite(ICompilationUnit unit) {
+		return getCuRewrite(unit, null);
+	}
+
+	private CompilationUnitRewrite getCuRewrite(ICompilationUnit unit, CompilationUnitRewritePrefetcher prefetcher) {
 		if (fSource.getCu().equals(unit))
 			return fSource;
 		if (fTarget != null && fTarget.getCu().equals(unit))
 			return fTarget;
+		if (prefetcher != null)
+			return prefetcher.createRewrite(unit, null);
 		return new CompilationUnitRewrite(unit);
 	}
 
@@ -0,0 +1,256 @@
+/*******************************************************************************
+ * Copyright (c) 2020 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.corext.refactoring.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.eclipse.core.runtime.IStatus;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.ResourceAttributes;
+
+import org.eclipse.ltk.core.refactoring.Refactoring;
+import org.eclipse.ltk.core.refactoring.RefactoringStatus;
+
+import org.eclipse.jdt.internal.corext.refactoring.Checks;
+import org.eclipse.jdt.internal.corext.refactoring.RefactoringCoreMessages;
+import org.eclipse.jdt.internal.corext.util.Messages;
+import org.eclipse.jdt.internal.corext.util.Resources;
+
+/**
+ * Validates that the files modified by a refactoring can be modified, see
+ * {@link Checks#validateModifiesFiles(IFile[], Object, Refactoring)}.
+ * <p>
+ * Checking whether a file is in sync and whether it is read-only accesses the file system, so the
+ * files are checked project by project in parallel. All read-only files are then passed to a
+ * single <code>IWorkspace#validateEdit(IFile[], Object)</code> call, which lets each team provider
+ * validate the files of its projects at once.
+ * </p>
+ * <p>
+ * Files found to be in sync and writable are remembered per refactoring together with their
+ * modification and local time stamps, for as long as the refactoring is referenced. Hence the final
+ * condition checking of a refactoring does not ask the team provider again for the files validated
+ * by its initial condition checking, as long as the workspace has not modified them in between. The
+ * synchronization state and the read-only attribute of a remembered file are still checked, since
+ * neither a modification in the file system nor making a file read-only changes the time stamps
+ * known to the workspace. Nothing is remembered without a refactoring. Changes validate the files
+ * again before they are performed.
+ * </p>
+ * <p>
+ * If the system property <code>org.eclipse.jdt.ui.validateEditTiming</code> is <code>true</code>,
+ * the time spent in each step is added to the returned status as an info entry.
+ * </p>
+ */
+public final class ModifiedFilesValidator {
+
+	/** The maximum number of remembered files. */
+	private static final int MAX_REMEMBERED_FILES= 50000;
+
+	private static final boolean TIMING= Boolean.getBoolean("org.eclipse.jdt.ui.validateEditTiming"); //$NON-NLS-1$
+
+	/**
+	 * The state of a file that is in sync and writable.
+	 */
+	private static final class FileState {
+		private final long fModificationStamp;
+		private final long fLocalTimeStamp;
+
+		FileState(IFile file) {
+			fModificationStamp= file.getModificationStamp();
+			fLocalTimeStamp= file.getLocalTimeStamp();
+		}
+
+		boolean isValid(IFile file) {
+			if (fModificationStamp != file.getModificationStamp() || fLocalTimeStamp != file.getLocalTimeStamp())
+				return false;
+			if (!file.isSynchronized(IResource.DEPTH_ZERO))
+				return false;
+			ResourceAttributes attributes= file.getResourceAttributes();
+			return attributes != null && !attributes.isReadOnly();
+		}
+	}
+
+	/**
+	 * The result of checking the files of one project.
+	 */
+	private static final class ProjectResult {
+		private final List<IFile> fOutOfSync= new ArrayList<>();
+		private final List<IFile> fReadOnly= new ArrayList<>();
+		private final List<IFile> fCommittable= new ArrayList<>();
+	}
+
+	/** The committable files by refactoring. */
+	private static final Map<Object, Map<IFile, FileState>> fgCommittable= new WeakHashMap<>();
+
+	private ModifiedFilesValidator() {
+	}
+
+	/**
+	 * Validates that the given files can be modified.
+	 *
+	 * @param files the files to be modified
+	 * @param context the context passed to <code>validateEdit</code>
+	 * @param refactoring the refactoring which modifies the files, or <code>null</code> to not
+	 *            remember the validated files
+	 * @return the refactoring status, has a fatal error if the team provider refuses to modify a
+	 *         file
+	 *
+	 * @see org.eclipse.core.resources.IWorkspace#validateEdit(IFile[], Object)
+	 */
+	public static RefactoringStatus validate(IFile[] files, Object context, Refactoring refactoring) {
+		long start= System.currentTimeMillis();
+
+		FileState[] states= new FileState[files.length];
+		if (refactoring != null) {
+			synchronized (fgCommittable) {
+				Map<IFile, FileState> committable= fgCommittable.get(refactoring);
+				for (int i= 0; committable != null && i < files.length; i++)
+					states[i]= committable.get(files[i]);
+			}
+		}
+
+		Map<IProject, List<IFile>> unknown= new LinkedHashMap<>();
+		for (int i= 0; i < files.length; i++) {
+			// the synchronization state and the read-only attribute are read outside of the lock
+			IFile file= files[i];
+			if (states[i] == null || !states[i].isValid(file)) {
+				List<IFile> projectFiles= unknown.get(file.getProject());
+				if (projectFiles == null) {
+					projectFiles= new ArrayList<>();
+					unknown.put(file.getProject(), projectFiles);
+				}
+				projectFiles.add(file);
+			}
+		}
+
+		List<ProjectResult> results= checkProjects(unknown);
+		long checked= System.currentTimeMillis();
+
+		RefactoringStatus result= new RefactoringStatus();
+		Set<IFile> outOfSync= new LinkedHashSet<>();
+		List<IFile> readOnly= new ArrayList<>();
+		List<IFile> validated= new ArrayList<>();
+		for (ProjectResult projectResult : results) {
+			outOfSync.addAll(projectResult.fOutOfSync);
+			readOnly.addAll(projectResult.fReadOnly);
+			validated.addAll(projectResult.fCommittable);
+		}
+		if (!outOfSync.isEmpty()) {
+			IStatus status= Resources.checkInSync(outOfSync.toArray(new IResource[outOfSync.size()]));
+			if (!status.isOK())
+				result.merge(RefactoringStatus.create(status));
+		}
+		IStatus status= Resources.makeReadOnlyFilesCommittable(readOnly.toArray(new IFile[readOnly.size()]), context);
+		if (!status.isOK()) {
+			result.merge(RefactoringStatus.create(status));
+			if (!result.hasFatalError()) {
+				result.addFatalError(RefactoringCoreMessages.Checks_validateEdit);
+			}
+		} else {
+			for (IFile file : readOnly) {
+				if (!outOfSync.contains(file))
+					validated.add(file);
+			}
+		}
+		long end= System.currentTimeMillis();
+
+		if (refactoring != null)
+			remember(refactoring, validated);
+
+		if (TIMING) {
+			result.addInfo(Messages.format(RefactoringCoreMessages.ModifiedFilesValidator_timing, new Object[] {
+					Integer.valueOf(files.length), Integer.valueOf(unknown.size()),
+					Long.valueOf(checked - start), Integer.valueOf(readOnly.size()), Long.valueOf(end - checked) }));
+		}
+		return result;
+	}
+
+	private static List<ProjectResult> checkProjects(Map<IProject, List<IFile>> files) {
+		List<ProjectResult> results= new ArrayList<>(files.size());
+		int threads= Math.min(files.size(), Runtime.getRuntime().availableProcessors());
+		if (threads <= 1) {
+			for (List<IFile> projectFiles : files.values())
+				results.add(checkFiles(projectFiles));
+			return results;
+		}
+
+		ExecutorService executor= Executors.newFixedThreadPool(threads, runnable -> {
+			Thread thread= new Thread(runnable, ModifiedFilesValidator.class.getSimpleName());
+			thread.setDaemon(true);
+			return thread;
+		});
+		try {
+			List<Callable<ProjectResult>> tasks= new ArrayList<>(files.size());
+			for (List<IFile> projectFiles : files.values())
+				tasks.add(() -> checkFiles(projectFiles));
+			for (Future<ProjectResult> future : executor.invokeAll(tasks))
+				results.add(future.get());
+			return results;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(e);
+		} catch (ExecutionException e) {
+			Throwable cause= e.getCause();
+			if (cause instanceof RuntimeException)
+				throw (RuntimeException) cause;
+			throw new IllegalStateException(cause);
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	private static ProjectResult checkFiles(List<IFile> files) {
+		ProjectResult result= new ProjectResult();
+		for (IFile file : files) {
+			boolean inSync= file.isSynchronized(IResource.DEPTH_INFINITE);
+			if (!inSync)
+				result.fOutOfSync.add(file);
+			if (Resources.isReadOnly(file))
+				result.fReadOnly.add(file);
+			else if (inSync)
+				result.fCommittable.add(file);
+		}
+		return result;
+	}
+
+	private static void remember(Refactoring refactoring, List<IFile> files) {
+		synchronized (fgCommittable) {
+			Map<IFile, FileState> committable= fgCommittable.get(refactoring);
+			if (committable == null) {
+				committable= new HashMap<>();
+				fgCommittable.put(refactoring, committable);
+			} else if (committable.size() + files.size() > MAX_REMEMBERED_FILES) {
+				committable.clear();
+			}
+			for (IFile file : files) {
+				if (file.getModificationStamp() != IResource.NULL_STAMP)
+					committable.put(file, new FileState(file));
+			}
+		}
+	}
+}
@@ -0,0 +1,104 @@
+/*******************************************************************************
+ * Copyright (c) 2020 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.corext.refactoring.util;
+
+import java.util.function.Function;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+
+import org.eclipse.ltk.core.refactoring.RefactoringStatus;
+
+import org.eclipse.jdt.core.ICompilationUnit;
+
+import org.eclipse.jdt.internal.corext.util.ParallelUnitRunner;
+
+/**
+ * Creates the changes of a refactoring for many compilation units on a pool of worker threads,
+ * see {@link ParallelUnitRunner}.
+ * <p>
+ * The compilation units are processed independently of each other, so a processor must only
+ * modify state that belongs to its compilation unit, for example the rewrite of the unit and the
+ * entry of a {@link TextChangeManager}. The statuses returned by the processor are merged in the
+ * order of the compilation units, regardless of the order in which the workers finish.
+ * </p>
+ */
+public final class ParallelChangeCreator {
+
+	/**
+	 * Creates the change for a single compilation unit.
+	 */
+	public interface IUnitProcessor extends ParallelUnitRunner.IUnitTask<RefactoringStatus> {
+
+		/**
+		 * Creates the change for the given compilation unit. May be called from any thread.
+		 *
+		 * @param unit the compilation unit
+		 * @param monitor the progress monitor
+		 * @return the status of the compilation unit
+		 * @throws CoreException if the change cannot be created
+		 */
+		RefactoringStatus process(ICompilationUnit unit, IProgressMonitor monitor) throws CoreException;
+
+		@Override
+		default RefactoringStatus run(ICompilationUnit unit, IProgressMonitor monitor) throws CoreException {
+			return process(unit, monitor);
+		}
+	}
+
+	private ParallelChangeCreator() {
+	}
+
+	/**
+	 * Limits the number of worker threads, see {@link ParallelUnitRunner#setMaxThreads(int)}.
+	 *
+	 * @param maxThreads the maximum number of worker threads, or <code>-1</code> for one per
+	 *            available processor
+	 */
+	public static void setMaxThreads(int maxThreads) {
+		ParallelUnitRunner.setMaxThreads(maxThreads);
+	}
+
+	/**
+	 * Tells whether the given number of compilation units is processed by several threads.
+	 *
+	 * @param units the number of compilation units
+	 * @return <code>true</code> if the compilation units are processed concurrently
+	 */
+	public static boolean isConcurrent(int units) {
+		return ParallelUnitRunner.isConcurrent(units);
+	}
+
+	/**
+	 * Processes the given compilation units, see
+	 * {@link ParallelUnitRunner#run(ICompilationUnit[], ParallelUnitRunner.IUnitTask, Function, IProgressMonitor)}.
+	 *
+	 * @param units the compilation units
+	 * @param processor the processor
+	 * @param subTask computes the sub task for the compilation unit waited for, or
+	 *            <code>null</code> to not report sub tasks
+	 * @param pm the progress monitor
+	 * @return the statuses of the compilation units, merged in the order of the units
+	 * @throws CoreException the exception thrown by the processor for the first failing
+	 *             compilation unit
+	 * @throws OperationCanceledException if the progress monitor has been canceled
+	 */
+	public static RefactoringStatus run(ICompilationUnit[] units, IUnitProcessor processor, Function<ICompilationUnit, String> subTask, IProgressMonitor pm) throws CoreException {
+		RefactoringStatus result= new RefactoringStatus();
+		for (RefactoringStatus status : ParallelUnitRunner.run(units, processor, subTask, pm))
+			result.merge(status);
+		return result;
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2018 IBM Corporation and others.
+ * Copyright (c) 2000, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -14,23 +14,23 @@
  *******************************************************************************/
 package org.eclipse.jdt.internal.corext.refactoring.util;
 
+import java.util.HashMap;
 import java.util.Map;
-import java.util.Map.Entry;
 
 import org.eclipse.core.runtime.IProgressMonitor;
 
 import org.eclipse.jdt.core.IClassFile;
 import org.eclipse.jdt.core.ICompilationUnit;
 import org.eclipse.jdt.core.IJavaElement;
-import org.eclipse.jdt.core.IJavaProject;
 import org.eclipse.jdt.core.ITypeRoot;
-import org.eclipse.jdt.core.JavaCore;
 import org.eclipse.jdt.core.WorkingCopyOwner;
 import org.eclipse.jdt.core.dom.ASTNode;
 import org.eclipse.jdt.core.dom.ASTParser;
+import org.eclipse.jdt.core.dom.ASTRequestor;
 import org.eclipse.jdt.core.dom.CompilationUnit;
 import org.eclipse.jdt.core.manipulation.CoreASTProvider;
 
+import org.eclipse.jdt.internal.core.manipulation.ProjectPreferenceCache;
 import org.eclipse.jdt.internal.corext.dom.IASTSharedValues;
 import org.eclipse.jdt.internal.corext.util.JavaModelUtil;
 
@@ -61,11 +61,35 @@ public class RefactoringASTParser {
 		fParser.setSource(typeRoot);
 		if (owner != null)
 			fParser.setWorkingCopyOwner(owner);
-		fParser.setCompilerOptions(getCompilerOptions(typeRoot));
+		fParser.setCompilerOptions(getSharedCompilerOptions(typeRoot));
 		CompilationUnit result= (CompilationUnit) fParser.createAST(pm);
 		return result;
 	}
 
+	/**
+	 * Creates the ASTs of the given compilation units with a single lookup environment, see
+	 * {@link ASTParser#createASTs(ICompilationUnit[], String[], ASTRequestor, IProgressMonitor)}.
+	 *
+	 * @param units the compilation units, must all be in the same project
+	 * @param bindingKeys the keys of the bindings to create
+	 * @param owner the working copy owner, or <code>null</code> for the primary owner
+	 * @param resolveBindings whether bindings are to be resolved
+	 * @param statementsRecovery whether statements recovery should be enabled
+	 * @param bindingsRecovery whether bindings recovery should be enabled
+	 * @param requestor the requestor to receive the ASTs
+	 * @param pm an {@link IProgressMonitor}, or <code>null</code>
+	 */
+	public void createASTs(ICompilationUnit[] units, String[] bindingKeys, WorkingCopyOwner owner, boolean resolveBindings, boolean statementsRecovery, boolean bindingsRecovery, ASTRequestor requestor, IProgressMonitor pm) {
+		fParser.setResolveBindings(resolveBindings);
+		fParser.setStatementsRecovery(statementsRecovery);
+		fParser.setBindingsRecovery(bindingsRecovery);
+		fParser.setProject(units[0].getJavaProject());
+		if (owner != null)
+			fParser.setWorkingCopyOwner(owner);
+		fParser.setCompilerOptions(getSharedCompilerOptions(units[0]));
+		fParser.createASTs(units, bindingKeys, requestor, pm);
+	}
+
 	/**
 	 * @param newCuSource the source
 	 * @param originalCu the compilation unit to get the name and project from
@@ -81,7 +105,7 @@ public class RefactoringASTParser {
 		fParser.setSource(newCuSource.toCharArray());
 		fParser.setUnitName(originalCu.getElementName());
 		fParser.setProject(originalCu.getJavaProject());
-		fParser.setCompilerOptions(getCompilerOptions(originalCu));
+		fParser.setCompilerOptions(getSharedCompilerOptions(originalCu));
 		CompilationUnit newCUNode= (CompilationUnit) fParser.createAST(pm);
 		return newCUNode;
 	}
@@ -102,7 +126,7 @@ public class RefactoringASTParser {
 		String cfName= originalCf.getElementName();
 		fParser.setUnitName(cfName.substring(0, cfName.length() - 6) + JavaModelUtil.DEFAULT_CU_SUFFIX);
 		fParser.setProject(originalCf.getJavaProject());
-		fParser.setCompilerOptions(getCompilerOptions(originalCf));
+		fParser.setCompilerOptions(getSharedCompilerOptions(originalCf));
 		CompilationUnit newCUNode= (CompilationUnit) fParser.createAST(pm);
 		return newCUNode;
 	}
@@ -147,18 +171,18 @@ public class RefactoringASTParser {
 	 * @return compiler options
 	 */
 	public static Map<String, String> getCompilerOptions(IJavaElement element) {
-		IJavaProject project= element.getJavaProject();
-		Map<String, String> options= project.getOptions(true);
-		for (Entry<String, String> entry : options.entrySet()) {
-			String key = entry.getKey();
-			String value= entry.getValue();
-			if (JavaCore.ERROR.equals(value) || JavaCore.WARNING.equals(value) || JavaCore.INFO.equals(value)) {
-				// System.out.println("Ignoring - " + key);
-				options.put(key, JavaCore.IGNORE);
-			}
-		}
-		options.put(JavaCore.COMPILER_PB_MAX_PER_UNIT, "0"); //$NON-NLS-1$
-		options.put(JavaCore.COMPILER_TASK_TAGS, ""); //$NON-NLS-1$
-		return options;
+		return new HashMap<>(getSharedCompilerOptions(element));
+	}
+
+	/**
+	 * Returns the cached compiler options of the project of the given element, see
+	 * {@link #getCompilerOptions(IJavaElement)}. The options can be passed to
+	 * {@link ASTParser#setCompilerOptions(Map)}, which copies them.
+	 *
+	 * @param element an element (not the Java model)
+	 * @return compiler options, must not be modified
+	 */
+	private static Map<String, String> getSharedCompilerOptions(IJavaElement element) {
+		return ProjectPreferenceCache.getInstance().getCompilerOptions(element.getJavaProject());
 	}
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2019 IBM Corporation and others.
+ * Copyright (c) 2000, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -29,6 +29,10 @@ import org.eclipse.jdt.core.refactoring.CompilationUnitChange;
 /**
  * A <code>TextChangeManager</code> manages associations between <code>ICompilationUnit</code>
  * or <code>IFile</code> and <code>TextChange</code> objects.
+ * <p>
+ * The manager is thread safe, so that the changes for different compilation units can be
+ * created concurrently.
+ * </p>
  */
 public class TextChangeManager {
 
@@ -51,7 +55,7 @@ public class TextChangeManager {
 	 * @param cu the compilation unit (key)
 	 * @param change the change associated with the compilation unit
 	 */
-	public void manage(ICompilationUnit cu, TextChange change) {
+	public synchronized void manage(ICompilationUnit cu, TextChange change) {
 		fMap.put(cu, change);
 	}
 
@@ -62,7 +66,7 @@ public class TextChangeManager {
 	 * @param cu the compilation unit for which the text buffer change is requested
 	 * @return the text change associated with the given compilation unit.
 	 */
-	public TextChange get(ICompilationUnit cu) {
+	public synchronized TextChange get(ICompilationUnit cu) {
 		TextChange result= fMap.get(cu);
 		if (result == null) {
 			result= new CompilationUnitChange(cu.getElementName(), cu);
@@ -79,7 +83,7 @@ public class TextChangeManager {
 	 * @param unit the key determining the <tt>TextChange</tt> to be removed.
 	 * @return the removed <tt>TextChange</tt>.
 	 */
-	public TextChange remove(ICompilationUnit unit) {
+	public synchronized TextChange remove(ICompilationUnit unit) {
 		return fMap.remove(unit);
 	}
 
@@ -88,7 +92,7 @@ public class TextChangeManager {
 	 *
 	 * @return all text changes managed by this instance
 	 */
-	public TextChange[] getAllChanges(){
+	public synchronized TextChange[] getAllChanges(){
 		Set<ICompilationUnit> cuSet= fMap.keySet();
 		ICompilationUnit[] cus= cuSet.toArray(new ICompilationUnit[cuSet.size()]);
 		// sort by cu name:
@@ -113,14 +117,14 @@ public class TextChangeManager {
 	 *
 	 * @return all compilation units managed by this instance
 	 */
-	public ICompilationUnit[] getAllCompilationUnits(){
+	public synchronized ICompilationUnit[] getAllCompilationUnits(){
 		return fMap.keySet().toArray(new ICompilationUnit[fMap.keySet().size()]);
 	}
 
 	/**
 	 * Clears all associations between resources and text changes.
 	 */
-	public void clear() {
+	public synchronized void clear() {
 		fMap.clear();
 	}
 
@@ -130,7 +134,7 @@ public class TextChangeManager {
 	 * @param cu the compilation unit
 	 * @return <code>true</code> if any text changes are managed for the specified compilation unit and <code>false</code> otherwise
 	 */
-	public boolean containsChangesIn(ICompilationUnit cu){
+	public synchronized boolean containsChangesIn(ICompilationUnit cu){
 		return fMap.containsKey(cu);
 	}
 }
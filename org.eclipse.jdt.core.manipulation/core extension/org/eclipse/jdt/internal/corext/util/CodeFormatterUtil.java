@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2017 IBM Corporation and others.
+ * Copyright (c) 2000, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -34,6 +34,7 @@ import org.eclipse.jdt.core.formatter.CodeFormatter;
 import org.eclipse.jdt.core.formatter.DefaultCodeFormatterConstants;
 
 import org.eclipse.jdt.internal.core.manipulation.JavaManipulationPlugin;
+import org.eclipse.jdt.internal.core.manipulation.ProjectPreferenceCache;
 
 public class CodeFormatterUtil {
 
@@ -49,7 +50,7 @@ public class CodeFormatterUtil {
 	 * @return the indent string
 	 */
 	public static String createIndentString(int indentationUnits, IJavaProject project) {
-		Map<String, String> options= project != null ? project.getOptions(true) : JavaCore.getOptions();
+		Map<String, String> options= ProjectPreferenceCache.getInstance().getOptions(project);
 		return ToolFactory.createCodeFormatter(options).createIndentationString(indentationUnits);
 	}
 
@@ -108,9 +109,7 @@ public class CodeFormatterUtil {
 	 * @since 3.1
 	 */
 	private static String getCoreOption(IJavaProject project, String key) {
-		if (project == null)
-			return JavaCore.getOption(key);
-		return project.getOption(key, true);
+		return ProjectPreferenceCache.getInstance().getOption(project, key);
 	}
 
 	/**
@@ -157,7 +156,7 @@ public class CodeFormatterUtil {
 	 * @return the formatted source string
 	 */
 	public static String format(int kind, String source, int indentationLevel, String lineSeparator, IJavaProject project) {
-		Map<String, String> options= project != null ? project.getOptions(true) : null;
+		Map<String, String> options= project != null ? ProjectPreferenceCache.getInstance().getOptions(project) : null;
 		return format(kind, source, indentationLevel, lineSeparator, options);
 	}
 
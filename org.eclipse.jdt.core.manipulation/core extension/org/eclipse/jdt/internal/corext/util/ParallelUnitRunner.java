@@ -0,0 +1,221 @@
+/*******************************************************************************
+ * Copyright (c) 2020 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.corext.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.SubProgressMonitor;
+
+import org.eclipse.jdt.core.ICompilationUnit;
+
+/**
+ * Runs a task for many compilation units on a pool of worker threads.
+ * <p>
+ * The compilation units are processed independently of each other, so a task must only modify
+ * state that belongs to its compilation unit, or state that is thread safe. The results of the
+ * task are returned in the order of the compilation units, regardless of the order in which the
+ * workers finish.
+ * </p>
+ * <p>
+ * Progress is reported by the calling thread, the monitors passed to the task only forward
+ * cancellation. The task must check for cancellation, it is also canceled if the task fails for
+ * another compilation unit. No task is running anymore when
+ * {@link #run(ICompilationUnit[], IUnitTask, Function, IProgressMonitor)} returns.
+ * </p>
+ */
+public final class ParallelUnitRunner {
+
+	/**
+	 * The task run for a single compilation unit.
+	 *
+	 * @param <T> the type of the result
+	 */
+	public interface IUnitTask<T> {
+
+		/**
+		 * Runs the task for the given compilation unit. May be called from any thread.
+		 *
+		 * @param unit the compilation unit
+		 * @param monitor the progress monitor
+		 * @return the result for the compilation unit
+		 * @throws CoreException if the task fails
+		 */
+		T run(ICompilationUnit unit, IProgressMonitor monitor) throws CoreException;
+	}
+
+	/** The maximum number of worker threads, or <code>-1</code> for one per available processor */
+	private static volatile int fgMaxThreads= -1;
+
+	private ParallelUnitRunner() {
+	}
+
+	/**
+	 * Limits the number of worker threads. Used by tests to compare the results of a sequential
+	 * and a concurrent run.
+	 *
+	 * @param maxThreads the maximum number of worker threads, or <code>-1</code> for one per
+	 *            available processor
+	 */
+	public static void setMaxThreads(int maxThreads) {
+		fgMaxThreads= maxThreads;
+	}
+
+	/**
+	 * Tells whether the given number of compilation units is processed by several threads.
+	 *
+	 * @param units the number of compilation units
+	 * @return <code>true</code> if the compilation units are processed concurrently
+	 */
+	public static boolean isConcurrent(int units) {
+		return getThreadCount(units) > 1;
+	}
+
+	private static int getThreadCount(int units) {
+		int threads= Math.min(units, Runtime.getRuntime().availableProcessors());
+		int maxThreads= fgMaxThreads;
+		return maxThreads == -1 ? threads : Math.min(threads, maxThreads);
+	}
+
+	/**
+	 * Runs the task for the given compilation units. Uses one worker thread per available
+	 * processor, but not more threads than compilation units. A single compilation unit is
+	 * processed by the calling thread.
+	 * <p>
+	 * The sub task is computed on the calling thread before waiting for a compilation unit, so it
+	 * can report the results of the compilation units processed so far.
+	 * </p>
+	 *
+	 * @param units the compilation units
+	 * @param task the task
+	 * @param subTask computes the sub task for the compilation unit waited for, or
+	 *            <code>null</code> to not report sub tasks
+	 * @param pm the progress monitor
+	 * @return the results of the compilation units, in the order of the units
+	 * @throws CoreException the exception thrown by the task for the first failing compilation
+	 *             unit
+	 * @throws OperationCanceledException if the progress monitor has been canceled
+	 */
+	public static <T> List<T> run(ICompilationUnit[] units, IUnitTask<T> task, Function<ICompilationUnit, String> subTask, IProgressMonitor pm) throws CoreException {
+		pm.beginTask("", units.length); //$NON-NLS-1$
+		try {
+			List<T> result= new ArrayList<>(units.length);
+			int threads= getThreadCount(units.length);
+			if (threads <= 1) {
+				for (ICompilationUnit unit : units) {
+					if (subTask != null)
+						pm.subTask(subTask.apply(unit));
+					result.add(task.run(unit, new SubProgressMonitor(pm, 1)));
+					if (pm.isCanceled())
+						throw new OperationCanceledException();
+				}
+				return result;
+			}
+
+			ExecutorService executor= Executors.newFixedThreadPool(threads, runnable -> {
+				Thread thread= new Thread(runnable, ParallelUnitRunner.class.getSimpleName());
+				thread.setDaemon(true);
+				return thread;
+			});
+			boolean[] aborted= { false };
+			IProgressMonitor monitor= createTaskMonitor(pm, aborted);
+			List<Future<T>> futures= new ArrayList<>(units.length);
+			try {
+				for (ICompilationUnit unit : units)
+					futures.add(executor.submit(() -> task.run(unit, monitor)));
+				for (int i= 0; i < units.length; i++) {
+					if (subTask != null)
+						pm.subTask(subTask.apply(units[i]));
+					result.add(futures.get(i).get());
+					pm.worked(1);
+					if (pm.isCanceled())
+						throw new OperationCanceledException();
+				}
+				return result;
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new OperationCanceledException();
+			} catch (ExecutionException e) {
+				Throwable cause= e.getCause();
+				if (cause instanceof CoreException)
+					throw (CoreException) cause;
+				if (cause instanceof RuntimeException)
+					throw (RuntimeException) cause;
+				if (cause instanceof Error)
+					throw (Error) cause;
+				throw new IllegalStateException(cause);
+			} finally {
+				// the workers are not interrupted, interrupts may close the channels of the files they read
+				synchronized (aborted) {
+					aborted[0]= true;
+				}
+				for (Future<T> future : futures)
+					future.cancel(false);
+				executor.shutdown();
+				awaitTermination(executor);
+			}
+		} finally {
+			pm.done();
+		}
+	}
+
+	/**
+	 * Waits until the running tasks have returned, so that none of them modifies the state of
+	 * the caller afterwards.
+	 *
+	 * @param executor the executor which has been shut down
+	 */
+	private static void awaitTermination(ExecutorService executor) {
+		boolean interrupted= false;
+		while (!executor.isTerminated()) {
+			try {
+				executor.awaitTermination(1, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				interrupted= true;
+			}
+		}
+		if (interrupted)
+			Thread.currentThread().interrupt();
+	}
+
+	/**
+	 * Creates a monitor for a task running on a worker thread, which only forwards cancellation.
+	 *
+	 * @param pm the monitor of the calling thread
+	 * @param aborted the flag telling whether the run has ended, guarded by its own lock
+	 * @return the task monitor
+	 */
+	private static IProgressMonitor createTaskMonitor(final IProgressMonitor pm, final boolean[] aborted) {
+		return new NullProgressMonitor() {
+			@Override
+			public boolean isCanceled() {
+				synchronized (aborted) {
+					if (aborted[0])
+						return true;
+				}
+				return pm.isCanceled();
+			}
+		};
+	}
+}
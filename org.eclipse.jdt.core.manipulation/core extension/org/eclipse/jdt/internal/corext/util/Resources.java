@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2016 IBM Corporation and others.
+ * Copyright (c) 2000, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -110,17 +110,35 @@ public class Resources {
 	 * @see org.eclipse.core.resources.IWorkspace#validateEdit(org.eclipse.core.resources.IFile[], java.lang.Object)
 	 */
 	public static IStatus makeCommittable(IResource[] resources, Object context) {
-		List<IResource> readOnlyFiles= new ArrayList<>();
+		List<IFile> readOnlyFiles= new ArrayList<>();
 		for (IResource resource : resources) {
 			if (resource.getType() == IResource.FILE && isReadOnly(resource))
-				readOnlyFiles.add(resource);
+				readOnlyFiles.add((IFile) resource);
 		}
 		if (readOnlyFiles.isEmpty())
 			return Status.OK_STATUS;
 
+		return makeReadOnlyFilesCommittable(readOnlyFiles.toArray(new IFile[readOnlyFiles.size()]), context);
+	}
+
+	/**
+	 * Makes the given read-only files committable with a single call to <code>validateEdit</code>
+	 * on <tt>IWorkspace</tt>. In contrast to {@link #makeCommittable(IResource[], Object)}, the
+	 * files are not checked for being read-only again.
+	 *
+	 * @param readOnlyFiles the read-only files to be made committable
+	 * @param context the context passed to <code>validateEdit</code>
+	 * @return IStatus status describing the method's result. If <code>status.
+	 * isOK()</code> returns <code>true</code> then the files are committable
+	 *
+	 * @see org.eclipse.core.resources.IWorkspace#validateEdit(org.eclipse.core.resources.IFile[], java.lang.Object)
+	 */
+	public static IStatus makeReadOnlyFilesCommittable(IFile[] readOnlyFiles, Object context) {
+		if (readOnlyFiles.length == 0)
+			return Status.OK_STATUS;
+
 		Map<IFile, Long> oldTimeStamps= createModificationStampMap(readOnlyFiles);
-		IStatus status= ResourcesPlugin.getWorkspace().validateEdit(
-			readOnlyFiles.toArray(new IFile[readOnlyFiles.size()]), context);
+		IStatus status= ResourcesPlugin.getWorkspace().validateEdit(readOnlyFiles, context);
 		if (!status.isOK())
 			return status;
 
@@ -136,10 +154,9 @@ public class Resources {
 		return Status.OK_STATUS;
 	}
 
-	private static Map<IFile, Long> createModificationStampMap(List<IResource> files){
+	private static Map<IFile, Long> createModificationStampMap(IFile[] files){
 		Map<IFile, Long> map= new HashMap<>();
-		for (Iterator<IResource> iter= files.iterator(); iter.hasNext(); ) {
-			IFile file= (IFile)iter.next();
+		for (IFile file : files) {
 			map.put(file, Long.valueOf(file.getModificationStamp()));
 		}
 		return map;
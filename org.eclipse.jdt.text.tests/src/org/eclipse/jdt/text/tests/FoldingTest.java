@@ -0,0 +1,259 @@
+/*******************************************************************************
+ * Copyright (c) 2020 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.text.tests;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.jdt.text.tests.performance.EditorTestHelper;
+
+import org.eclipse.core.resources.IFile;
+
+import org.eclipse.text.tests.Accessor;
+
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.Position;
+import org.eclipse.jface.text.source.Annotation;
+import org.eclipse.jface.text.source.AnnotationModelEvent;
+import org.eclipse.jface.text.source.IAnnotationModel;
+import org.eclipse.jface.text.source.IAnnotationModelListener;
+import org.eclipse.jface.text.source.IAnnotationModelListenerExtension;
+import org.eclipse.jface.text.source.projection.ProjectionAnnotationModel;
+import org.eclipse.jface.text.source.projection.ProjectionViewer;
+
+import org.eclipse.jdt.core.ElementChangedEvent;
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IElementChangedListener;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaElementDelta;
+import org.eclipse.jdt.core.IMethod;
+import org.eclipse.jdt.core.IPackageFragment;
+import org.eclipse.jdt.core.IType;
+import org.eclipse.jdt.core.JavaCore;
+
+import org.eclipse.jdt.ui.text.folding.DefaultJavaFoldingStructureProvider;
+
+import org.eclipse.jdt.internal.ui.javaeditor.JavaEditor;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Tests the incremental update of the folding structure by the
+ * {@link DefaultJavaFoldingStructureProvider}.
+ */
+public class FoldingTest extends TestCase {
+
+	private static final String ANNOTATION_CLASS= "org.eclipse.jdt.ui.text.folding.DefaultJavaFoldingStructureProvider$JavaProjectionAnnotation";
+
+	private static final String LISTENER_CLASS= "org.eclipse.jdt.ui.text.folding.DefaultJavaFoldingStructureProvider$ElementChangedListener";
+
+	private static final String SOURCE=
+			"package folding;\n" +
+			"\n" +
+			"public class A {\n" +
+			"	void m1() {\n" +
+			"		m2();\n" +
+			"	}\n" +
+			"\n" +
+			"	void m2() {\n" +
+			"		m1();\n" +
+			"	}\n" +
+			"\n" +
+			"	void m3() {\n" +
+			"		m1();\n" +
+			"	}\n" +
+			"}\n";
+
+	public static Test setUpTest(Test someTest) {
+		return new JUnitProjectTestSetup(someTest);
+	}
+
+	public static Test suite() {
+		return setUpTest(new TestSuite(FoldingTest.class));
+	}
+
+	private IPackageFragment fPackage;
+	private ICompilationUnit fCU;
+	private JavaEditor fEditor;
+	private IDocument fDocument;
+	private ProjectionAnnotationModel fModel;
+	private boolean fWasFoldingEnabled;
+
+	private final List<IJavaElementDelta> fDeltas= Collections.synchronizedList(new ArrayList<>());
+	private final IElementChangedListener fDeltaListener= new IElementChangedListener() {
+		@Override
+		public void elementChanged(ElementChangedEvent event) {
+			if (fCU.equals(event.getDelta().getElement()))
+				fDeltas.add(event.getDelta());
+		}
+	};
+
+	private final Set<Annotation> fModifiedAnnotations= Collections.synchronizedSet(new HashSet<>());
+	private final IAnnotationModelListener fModelListener= new IAnnotationModelListenerExtension() {
+		@Override
+		public void modelChanged(AnnotationModelEvent event) {
+			fModifiedAnnotations.addAll(Arrays.asList(event.getAddedAnnotations()));
+			fModifiedAnnotations.addAll(Arrays.asList(event.getRemovedAnnotations()));
+			fModifiedAnnotations.addAll(Arrays.asList(event.getChangedAnnotations()));
+		}
+
+		@Override
+		public void modelChanged(IAnnotationModel model) {
+			// the extension method receives the details
+		}
+	};
+
+	@Override
+	protected void setUp() throws Exception {
+		fWasFoldingEnabled= EditorTestHelper.enableFolding(true);
+		fPackage= JUnitProjectTestSetup.getProject().findPackageFragmentRoot(JUnitProjectTestSetup.getProject().getPath().append("src")).createPackageFragment("folding", true, null);
+		fCU= fPackage.createCompilationUnit("A.java", SOURCE, true, null);
+		fEditor= (JavaEditor) EditorTestHelper.openInEditor((IFile) fCU.getResource(), true);
+		fDocument= EditorTestHelper.getDocument(fEditor);
+		fModel= ((ProjectionViewer) fEditor.getViewer()).getProjectionAnnotationModel();
+		assertNotNull(fModel);
+
+		long timeOut= System.currentTimeMillis() + 60000;
+		while (getFoldingAnnotations().size() < 3) {
+			EditorTestHelper.runEventQueue(fEditor, 200);
+			assertTrue(System.currentTimeMillis() < timeOut);
+		}
+		JavaCore.addElementChangedListener(fDeltaListener, ElementChangedEvent.POST_RECONCILE);
+		fModel.addAnnotationModelListener(fModelListener);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		if (fModel != null)
+			fModel.removeAnnotationModelListener(fModelListener);
+		JavaCore.removeElementChangedListener(fDeltaListener);
+		EditorTestHelper.closeAllEditors();
+		if (fPackage != null)
+			fPackage.delete(true, null);
+		EditorTestHelper.enableFolding(fWasFoldingEnabled);
+	}
+
+	public void testMemberEdit() throws Exception {
+		IType type= fCU.getType("A");
+		IMethod m1= type.getMethod("m1", new String[0]);
+		IMethod m2= type.getMethod("m2", new String[0]);
+		IMethod m3= type.getMethod("m3", new String[0]);
+		Map<IJavaElement, Annotation> before= getFoldingAnnotations();
+		Position m3Before= new Position(fModel.getPosition(before.get(m3)).getOffset(), fModel.getPosition(before.get(m3)).getLength());
+
+		String insertion= "		m3();\n";
+		int offset= fDocument.get().indexOf("	}\n\n	void m3()");
+		replace(offset, 0, insertion);
+
+		assertEquals(Collections.singleton(m2), computeAffectedMembers());
+		Map<IJavaElement, Annotation> after= getFoldingAnnotations();
+		assertEquals(before.keySet(), after.keySet());
+		Position m2Position= fModel.getPosition(after.get(m2));
+		assertTrue(m2Position.includes(offset));
+		assertTrue(m2Position.includes(offset + insertion.length()));
+
+		// the siblings are left untouched, their positions have been moved by the document
+		assertSame(before.get(m1), after.get(m1));
+		assertSame(before.get(m3), after.get(m3));
+		assertFalse(fModifiedAnnotations.contains(after.get(m1)));
+		assertFalse(fModifiedAnnotations.contains(after.get(m3)));
+		assertEquals(m3Before.getOffset() + insertion.length(), fModel.getPosition(after.get(m3)).getOffset());
+		assertEquals(m3Before.getLength(), fModel.getPosition(after.get(m3)).getLength());
+	}
+
+	public void testMemberRemoval() throws Exception {
+		IType type= fCU.getType("A");
+		IMethod m1= type.getMethod("m1", new String[0]);
+		IMethod m2= type.getMethod("m2", new String[0]);
+		IMethod m3= type.getMethod("m3", new String[0]);
+		Map<IJavaElement, Annotation> before= getFoldingAnnotations();
+
+		String removal= "\n	void m3() {\n		m1();\n	}\n";
+		replace(fDocument.get().indexOf(removal), removal.length(), "");
+
+		assertEquals(Collections.singleton(m3), computeAffectedMembers());
+		Map<IJavaElement, Annotation> after= getFoldingAnnotations();
+		assertEquals(new HashSet<>(Arrays.asList(m1, m2)), after.keySet());
+		assertTrue(fModifiedAnnotations.contains(before.get(m3)));
+		assertSame(before.get(m1), after.get(m1));
+		assertSame(before.get(m2), after.get(m2));
+		assertFalse(fModifiedAnnotations.contains(after.get(m1)));
+		assertFalse(fModifiedAnnotations.contains(after.get(m2)));
+	}
+
+	public void testIsContained() throws Exception {
+		IType type= fCU.getType("A");
+		IMethod m1= type.getMethod("m1", new String[0]);
+		IMethod m2= type.getMethod("m2", new String[0]);
+		Accessor provider= new Accessor(new DefaultJavaFoldingStructureProvider(), DefaultJavaFoldingStructureProvider.class);
+		Class<?>[] types= new Class[] { IJavaElement.class, Set.class };
+
+		assertTrue(((Boolean) provider.invoke("isContained", types, new Object[] { m2, Collections.singleton(m2) })).booleanValue());
+		assertTrue(((Boolean) provider.invoke("isContained", types, new Object[] { m2, Collections.singleton(type) })).booleanValue());
+		assertFalse(((Boolean) provider.invoke("isContained", types, new Object[] { m1, Collections.singleton(m2) })).booleanValue());
+		assertFalse(((Boolean) provider.invoke("isContained", types, new Object[] { type, Collections.singleton(m2) })).booleanValue());
+	}
+
+	/**
+	 * Changes the document and waits until the reconciler has updated the folding structure.
+	 *
+	 * @param offset the offset of the replaced text
+	 * @param length the length of the replaced text
+	 * @param text the new text
+	 * @throws Exception if the document cannot be changed
+	 */
+	private void replace(int offset, int length, String text) throws Exception {
+		fDeltas.clear();
+		fModifiedAnnotations.clear();
+		fDocument.replace(offset, length, text);
+		long timeOut= System.currentTimeMillis() + 60000;
+		while (fDeltas.isEmpty()) {
+			assertTrue(EditorTestHelper.joinReconciler(EditorTestHelper.getSourceViewer(fEditor), 100, 10000, 100));
+			assertTrue(System.currentTimeMillis() < timeOut);
+		}
+		EditorTestHelper.runEventQueue(fEditor);
+	}
+
+	private Set<?> computeAffectedMembers() {
+		IJavaElementDelta delta= fDeltas.get(fDeltas.size() - 1);
+		assertTrue((delta.getFlags() & IJavaElementDelta.F_FINE_GRAINED) != 0);
+		Object provider= new Accessor(fEditor, JavaEditor.class).get("fProjectionModelUpdater");
+		Object listener= new Accessor(provider, DefaultJavaFoldingStructureProvider.class).get("fElementListener");
+		Accessor accessor= new Accessor(listener, LISTENER_CLASS, getClass().getClassLoader());
+		return (Set<?>) accessor.invoke("computeAffectedMembers", new Class[] { IJavaElementDelta.class }, new Object[] { delta });
+	}
+
+	private Map<IJavaElement, Annotation> getFoldingAnnotations() {
+		Map<IJavaElement, Annotation> annotations= new HashMap<>();
+		Iterator<Annotation> iter= fModel.getAnnotationIterator();
+		while (iter.hasNext()) {
+			Annotation annotation= iter.next();
+			if (annotation.getClass().getName().equals(ANNOTATION_CLASS)) {
+				Accessor accessor= new Accessor(annotation, ANNOTATION_CLASS, getClass().getClassLoader());
+				if (!((Boolean) accessor.invoke("isComment", new Object[0])).booleanValue())
+					annotations.put((IJavaElement) accessor.invoke("getElement", new Object[0]), annotation);
+			}
+		}
+		return annotations;
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2013 IBM Corporation and others.
+ * Copyright (c) 2000, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -22,6 +22,8 @@ import junit.framework.TestSuite;
 import org.eclipse.jface.text.Document;
 import org.eclipse.jface.text.IDocument;
 import org.eclipse.jface.text.rules.FastPartitioner;
+import org.eclipse.jface.text.rules.RuleBasedPartitionScanner;
+import org.eclipse.jface.text.rules.Token;
 
 import org.eclipse.jdt.core.JavaCore;
 import org.eclipse.jdt.core.formatter.DefaultCodeFormatterConstants;
@@ -31,6 +33,7 @@ import org.eclipse.jdt.ui.text.IJavaPartitions;
 import org.eclipse.jdt.internal.ui.text.FastJavaPartitionScanner;
 import org.eclipse.jdt.internal.ui.text.JavaHeuristicScanner;
 import org.eclipse.jdt.internal.ui.text.JavaIndenter;
+import org.eclipse.jdt.internal.ui.text.Symbols;
 
 /**
  * SmartSemicolonAutoEditStrategyTest
@@ -1145,4 +1148,67 @@ public class JavaHeuristicScannerTest extends TestCase {
 		String indent= fScanner.computeIndentation(offset).toString();
 		assertEquals("\t", indent);
 	}
+
+	public void testTokensAfterEdit() throws Exception {
+		fDocument.set("foo bar");
+		assertEquals(Symbols.TokenIDENT, fHeuristicScanner.nextToken(0, JavaHeuristicScanner.UNBOUND));
+		assertEquals(3, fHeuristicScanner.getPosition());
+
+		fDocument.replace(3, 1, "");
+		assertEquals(Symbols.TokenIDENT, fHeuristicScanner.nextToken(0, JavaHeuristicScanner.UNBOUND));
+		assertEquals(6, fHeuristicScanner.getPosition());
+
+		fDocument.set("i f(x)");
+		assertEquals(Symbols.TokenIDENT, fHeuristicScanner.nextToken(0, JavaHeuristicScanner.UNBOUND));
+		fDocument.replace(1, 1, "");
+		assertEquals(Symbols.TokenIF, fHeuristicScanner.nextToken(0, JavaHeuristicScanner.UNBOUND));
+	}
+
+	public void testTokensAfterPartitionChange() throws Exception {
+		fDocument.set("\tint a;\n\tint b;\n");
+		assertEquals(Symbols.TokenSEMICOLON, fHeuristicScanner.previousToken(fDocument.getLength() - 1, JavaHeuristicScanner.UNBOUND));
+		assertEquals(13, fHeuristicScanner.getPosition());
+
+		// comment out the second line
+		fDocument.replace(8, 0, "//");
+		assertEquals(Symbols.TokenSEMICOLON, fHeuristicScanner.previousToken(fDocument.getLength() - 1, JavaHeuristicScanner.UNBOUND));
+		assertEquals(5, fHeuristicScanner.getPosition());
+
+		fDocument.replace(8, 2, "");
+		assertEquals(Symbols.TokenSEMICOLON, fHeuristicScanner.previousToken(fDocument.getLength() - 1, JavaHeuristicScanner.UNBOUND));
+		assertEquals(13, fHeuristicScanner.getPosition());
+	}
+
+	public void testTokensAfterPartitioningChange() throws Exception {
+		fDocument.set("foo bar");
+		assertEquals(Symbols.TokenIDENT, fHeuristicScanner.nextToken(0, JavaHeuristicScanner.UNBOUND));
+		assertEquals(3, fHeuristicScanner.getPosition());
+
+		// a partitioner which puts the whole document into comments
+		RuleBasedPartitionScanner commentScanner= new RuleBasedPartitionScanner();
+		commentScanner.setDefaultReturnToken(new Token(IJavaPartitions.JAVA_SINGLE_LINE_COMMENT));
+		FastPartitioner commentPartitioner= new FastPartitioner(commentScanner, new String[] { IJavaPartitions.JAVA_SINGLE_LINE_COMMENT });
+		commentPartitioner.connect(fDocument);
+		fDocument.setDocumentPartitioner(IJavaPartitions.JAVA_PARTITIONING, commentPartitioner);
+		try {
+			assertEquals(Symbols.TokenEOF, fHeuristicScanner.nextToken(0, JavaHeuristicScanner.UNBOUND));
+		} finally {
+			fDocument.setDocumentPartitioner(IJavaPartitions.JAVA_PARTITIONING, fPartitioner);
+			commentPartitioner.disconnect();
+		}
+
+		assertEquals(Symbols.TokenIDENT, fHeuristicScanner.nextToken(0, JavaHeuristicScanner.UNBOUND));
+		assertEquals(3, fHeuristicScanner.getPosition());
+	}
+
+	public void testTokensAfterPartitionerRemoved() throws Exception {
+		fDocument.set("foo bar");
+		assertEquals(Symbols.TokenIDENT, fHeuristicScanner.nextToken(0, JavaHeuristicScanner.UNBOUND));
+
+		fDocument.setDocumentPartitioner(IJavaPartitions.JAVA_PARTITIONING, null);
+		fDocument.setDocumentPartitioner(IJavaPartitions.JAVA_PARTITIONING, fPartitioner);
+		fDocument.replace(0, 3, "if");
+		assertEquals(Symbols.TokenIF, fHeuristicScanner.nextToken(0, JavaHeuristicScanner.UNBOUND));
+		assertEquals(2, fHeuristicScanner.getPosition());
+	}
 }
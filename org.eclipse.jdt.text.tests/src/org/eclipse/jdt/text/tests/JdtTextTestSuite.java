@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2018 IBM Corporation and others.
+ * Copyright (c) 2000, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -18,6 +18,7 @@ import org.eclipse.jdt.text.tests.codemining.ParameterNamesCodeMiningTest;
 import org.eclipse.jdt.text.tests.codemining.CodeMiningTriggerTest;
 import org.eclipse.jdt.text.tests.contentassist.ContentAssistTestSuite;
 import org.eclipse.jdt.text.tests.spelling.SpellCheckEngineTestCase;
+import org.eclipse.jdt.text.tests.spelling.SpellingProblemTrackerTest;
 import org.eclipse.jdt.text.tests.templates.TemplatesTestSuite;
 
 import junit.framework.JUnit4TestAdapter;
@@ -61,7 +62,9 @@ public class JdtTextTestSuite {
 						"org.eclipse.test.performance"
 				});
 		suite.addTest(BracketInserterTest.suite());
+		suite.addTest(FoldingTest.suite());
 		suite.addTest(new JUnit4TestAdapter(SpellCheckEngineTestCase.class));
+		suite.addTest(new JUnit4TestAdapter(SpellingProblemTrackerTest.class));
 		suite.addTest(SemanticHighlightingTest.suite());
 		suite.addTest(AutoboxingSemanticHighlightingTest.suite());
 		suite.addTest(NewForLoopJavaContextTest.suite());
@@ -0,0 +1,129 @@
+/*******************************************************************************
+ * Copyright (c) 2020 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.text.tests.performance;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.Assert;
+
+import org.eclipse.test.internal.performance.InternalPerformanceMeter;
+import org.eclipse.test.internal.performance.data.DataPoint;
+import org.eclipse.test.internal.performance.data.Dim;
+import org.eclipse.test.internal.performance.data.Sample;
+import org.eclipse.test.internal.performance.data.Scalar;
+import org.eclipse.test.internal.performance.data.Unit;
+
+/**
+ * Measures the bytes allocated by the thread which starts and stops the performance meter.
+ * <p>
+ * The bytes are read from the <code>getThreadAllocatedBytes</code> operation of the platform
+ * thread MXBean, which is provided by HotSpot based VMs. The meter fails to start if the VM does
+ * not support it.
+ * </p>
+ */
+public class AllocationPerformanceMeter extends InternalPerformanceMeter {
+
+	/** The dimension of the allocated bytes, not part of the predefined dimensions. */
+	public static final Dim ALLOCATED_BYTES= new Dim(60, Unit.BYTE);
+
+	private static final String THREAD_ALLOCATED_BYTES= "getThreadAllocatedBytes"; //$NON-NLS-1$
+
+	/** The data points, a pair per measured run */
+	private final List<DataPoint> fDataPoints= new ArrayList<>();
+
+	/** Timestamp */
+	private final long fStartTime;
+
+	/** The thread which has started the measurement, or <code>null</code> if not measuring */
+	private Thread fThread;
+
+	/**
+	 * Initialize the performance meter.
+	 *
+	 * @param scenarioId the scenario id
+	 */
+	public AllocationPerformanceMeter(String scenarioId) {
+		super(scenarioId);
+		fStartTime= System.currentTimeMillis();
+	}
+
+	/**
+	 * Returns the number of bytes allocated by the given thread since it has started.
+	 *
+	 * @param thread the thread
+	 * @return the allocated bytes, or <code>-1</code> if not supported by the VM
+	 */
+	public static long getAllocatedBytes(Thread thread) {
+		try {
+			MBeanServer server= ManagementFactory.getPlatformMBeanServer();
+			Object bytes= server.invoke(new ObjectName(ManagementFactory.THREAD_MXBEAN_NAME), THREAD_ALLOCATED_BYTES, new Object[] { Long.valueOf(thread.getId()) }, new String[] { long.class.getName() });
+			return ((Long) bytes).longValue();
+		} catch (JMException | RuntimeException e) {
+			return -1;
+		}
+	}
+
+	/*
+	 * @see org.eclipse.test.performance.PerformanceMeter#start()
+	 */
+	@Override
+	public void start() {
+		fThread= Thread.currentThread();
+		long bytes= getAllocatedBytes(fThread);
+		Assert.assertTrue("Could not start performance meter: the VM does not report the allocated bytes", bytes != -1);
+		fDataPoints.add(createDataPoint(BEFORE, bytes));
+	}
+
+	/*
+	 * @see org.eclipse.test.performance.PerformanceMeter#stop()
+	 */
+	@Override
+	public void stop() {
+		Assert.assertSame("The performance meter must be stopped by the thread which has started it", fThread, Thread.currentThread());
+		fDataPoints.add(createDataPoint(AFTER, getAllocatedBytes(fThread)));
+		fThread= null;
+	}
+
+	private static DataPoint createDataPoint(int step, long bytes) {
+		Map<Dim, Scalar> map= new HashMap<>(1);
+		map.put(ALLOCATED_BYTES, new Scalar(ALLOCATED_BYTES, bytes));
+		return new DataPoint(step, map);
+	}
+
+	/*
+	 * @see org.eclipse.test.internal.performance.InternalPerformanceMeter#getSample()
+	 */
+	@Override
+	public Sample getSample() {
+		DataPoint[] dataPoints= fDataPoints.toArray(new DataPoint[fDataPoints.size()]);
+		return new Sample(getScenarioName(), fStartTime, null, dataPoints);
+	}
+
+	/*
+	 * @see org.eclipse.test.performance.PerformanceMeter#dispose()
+	 */
+	@Override
+	public void dispose() {
+		super.dispose();
+		fDataPoints.clear();
+	}
+}
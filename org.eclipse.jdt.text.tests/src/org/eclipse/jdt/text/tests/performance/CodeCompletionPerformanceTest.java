@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -30,6 +30,7 @@ import org.eclipse.core.resources.IFolder;
 
 import org.eclipse.jface.preference.IPreferenceStore;
 
+import org.eclipse.jface.text.IDocument;
 import org.eclipse.jface.text.contentassist.ICompletionProposalExtension2;
 import org.eclipse.jface.text.source.ISourceViewer;
 
@@ -79,6 +80,10 @@ public class CodeCompletionPerformanceTest extends TextPerformanceTestCase {
 	private static final int ACC_COMPLETION= 150;
 	private static final int ACC_APPLICATION= 20;
 	private static final int ACC_PARAMETER_APPLICATION= 20;
+	private static final int ACC_VALIDATION= 200;
+
+	/** The pattern typed while validating the proposals. */
+	private static final String VALIDATION_PATTERN= "entrySetX";
 
 	private ICompilationUnit fCU;
 	private String fContents;
@@ -375,6 +380,46 @@ public class CodeCompletionPerformanceTest extends TextPerformanceTestCase {
 		assertAllPerformance();
 	}
 
+	public void testValidationWhileTyping() throws Exception {
+		createTypeHierarchy();
+
+		measureValidationWhileTyping(getNullPerformanceMeter(), getNullPerformanceMeter(), getWarmUpRuns());
+		PerformanceMeter performanceMeter= createPerformanceMeterForSummary("Java Editor: proposal validation while typing", Dimension.ELAPSED_PROCESS);
+		// the validation is meant to run without garbage, the allocated bytes are measured as well
+		PerformanceMeter allocationMeter= createAllocationPerformanceMeter("-allocation");
+		measureValidationWhileTyping(performanceMeter, allocationMeter, getMeasuredRuns());
+		commitAllMeasurements();
+		assertAllPerformance();
+	}
+
+	private void measureValidationWhileTyping(PerformanceMeter meter, PerformanceMeter allocationMeter, final int runs) throws Exception {
+		CompletionProposalCollector collector= createCollector();
+		IJavaCompletionProposal[] proposals= codeComplete(collector);
+		assertTrue(proposals.length > 0);
+
+		IDocument document= fEditor.getViewer().getDocument();
+		document.set(fContents.substring(0, fCodeAssistOffset) + VALIDATION_PATTERN + fContents.substring(fCodeAssistOffset));
+
+		for (int run= 0; run < runs; run++) {
+			allocationMeter.start();
+			meter.start();
+			for (int accumulated= 0; accumulated < ACC_VALIDATION; accumulated++) {
+				// the pattern grows by one character per keystroke
+				int valid= proposals.length;
+				for (int i= 0; i <= VALIDATION_PATTERN.length(); i++) {
+					valid= 0;
+					for (IJavaCompletionProposal proposal : proposals) {
+						if (((ICompletionProposalExtension2) proposal).validate(document, fCodeAssistOffset + i, null))
+							valid++;
+					}
+				}
+				assertEquals(0, valid);
+			}
+			meter.stop();
+			allocationMeter.stop();
+		}
+	}
+
 	private void applyProposal(IJavaCompletionProposal proposal) {
 		ISourceViewer viewer= fEditor.getViewer();
 		viewer.getDocument().set(fContents);
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2015 IBM Corporation and others.
+ * Copyright (c) 2000, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -359,6 +359,20 @@ public class TextPerformanceTestCase extends TestCase {
 		return performanceMeter;
 	}
 
+	/**
+	 * Create a performance meter with the given sub-scenario id which
+	 * measures the bytes allocated by the measuring thread. The performance
+	 * meter will be disposed on {@link #tearDown()}.
+	 *
+	 * @param subScenarioId the sub-scenario id
+	 * @return the created performance meter
+	 */
+	protected final AllocationPerformanceMeter createAllocationPerformanceMeter(String subScenarioId) {
+		AllocationPerformanceMeter performanceMeter= new AllocationPerformanceMeter(getBaseScenarioId() + subScenarioId);
+		addPerformanceMeter(performanceMeter);
+		return performanceMeter;
+	}
+
 	/**
 	 * Commits the measurements captured by all performance meters created
 	 * through one of this class' factory methods.
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2018 IBM Corporation and others.
+ * Copyright (c) 2000, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -171,6 +171,33 @@ public class SpellCheckEngineTestCase {
 		assertFalse(checker.isCorrect(LORRY));
 	}
 
+	@Test
+	public void testGeneration() {
+		fPreferences.setValue(PreferenceConstants.SPELLING_LOCALE, Locale.US.toString());
+		final ISpellChecker checker= fEngine.getSpellChecker();
+		assertNotNull(checker);
+
+		assertFalse(checker.isCorrect(LORRY));
+		int generation= checker.getGeneration();
+		assertFalse(checker.isCorrect(LORRY));
+		assertEquals(generation, checker.getGeneration());
+
+		checker.ignoreWord(LORRY);
+		assertTrue(generation != checker.getGeneration());
+		assertTrue(checker.isCorrect(LORRY));
+		checker.checkWord(LORRY);
+		assertFalse(checker.isCorrect(LORRY));
+
+		generation= checker.getGeneration();
+		boolean ignoreDigits= fPreferences.getBoolean(PreferenceConstants.SPELLING_IGNORE_DIGITS);
+		try {
+			fPreferences.setValue(PreferenceConstants.SPELLING_IGNORE_DIGITS, !ignoreDigits);
+			assertTrue(generation != checker.getGeneration());
+		} finally {
+			fPreferences.setValue(PreferenceConstants.SPELLING_IGNORE_DIGITS, ignoreDigits);
+		}
+	}
+
 	@Test
 	public void testUKSpellChecker() {
 		fPreferences.setValue(PreferenceConstants.SPELLING_LOCALE, Locale.UK.toString());
@@ -0,0 +1,239 @@
+/*******************************************************************************
+ * Copyright (c) 2020 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.text.tests.spelling;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.eclipse.jface.text.Document;
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.IRegion;
+import org.eclipse.jface.text.rules.FastPartitioner;
+
+import org.eclipse.jdt.ui.text.IJavaPartitions;
+
+import org.eclipse.jdt.internal.ui.text.FastJavaPartitionScanner;
+import org.eclipse.jdt.internal.ui.text.spelling.CoreSpellingProblem;
+import org.eclipse.jdt.internal.ui.text.spelling.SpellingProblemTracker;
+
+public class SpellingProblemTrackerTest {
+
+	private static final int THRESHOLD= 100;
+
+	private static final String CONTENTS= "/** Helo wrld */\nclass A {\n\t// typo1 here\n\tint a;\n}\n";
+
+	private Document fDocument;
+
+	private FastPartitioner fPartitioner;
+
+	private SpellingProblemTracker fTracker;
+
+	@Before
+	public void setUp() {
+		fDocument= new Document(CONTENTS);
+		String[] types= new String[] {
+			IJavaPartitions.JAVA_DOC,
+			IJavaPartitions.JAVA_MULTI_LINE_COMMENT,
+			IJavaPartitions.JAVA_SINGLE_LINE_COMMENT,
+			IJavaPartitions.JAVA_STRING,
+			IJavaPartitions.JAVA_CHARACTER,
+			IDocument.DEFAULT_CONTENT_TYPE
+		};
+		fPartitioner= new FastPartitioner(new FastJavaPartitionScanner(), types);
+		fPartitioner.connect(fDocument);
+		fDocument.setDocumentPartitioner(IJavaPartitions.JAVA_PARTITIONING, fPartitioner);
+
+		fTracker= new SpellingProblemTracker();
+		fDocument.addDocumentListener(fTracker);
+		fDocument.addDocumentPartitioningListener(fTracker);
+	}
+
+	@After
+	public void tearDown() {
+		fDocument.removeDocumentListener(fTracker);
+		fDocument.removeDocumentPartitioningListener(fTracker);
+		fDocument.setDocumentPartitioner(IJavaPartitions.JAVA_PARTITIONING, null);
+		fPartitioner.disconnect();
+	}
+
+	private CoreSpellingProblem createProblem(String word) throws Exception {
+		int offset= fDocument.get().indexOf(word);
+		int line= fDocument.getLineOfOffset(offset) + 1;
+		return new CoreSpellingProblem(offset, offset + word.length() - 1, line, "misspelled", word, false, false, fDocument, "A.java");
+	}
+
+	private void checkFully(String... words) throws Exception {
+		IRegion region= fTracker.beginCheck(fDocument, THRESHOLD);
+		assertEquals(0, region.getOffset());
+		assertEquals(fDocument.getLength(), region.getLength());
+		List<CoreSpellingProblem> problems= new ArrayList<>();
+		for (String word : words) {
+			problems.add(createProblem(word));
+		}
+		fTracker.endCheck(fDocument, problems, true, THRESHOLD);
+	}
+
+	private List<String> getWords(List<CoreSpellingProblem> problems) throws Exception {
+		List<String> words= new ArrayList<>();
+		for (CoreSpellingProblem problem : problems) {
+			words.add(fDocument.get(problem.getSourceStart(), problem.getSourceEnd() - problem.getSourceStart() + 1));
+		}
+		return words;
+	}
+
+	@Test
+	public void testFirstCheckIsFull() throws Exception {
+		assertTrue(fTracker.isFullCheckNeeded());
+		checkFully("Helo", "wrld", "typo1");
+
+		assertFalse(fTracker.isFullCheckNeeded());
+		assertNull(fTracker.getDirtyRegion());
+		assertEquals(Arrays.asList("Helo", "wrld", "typo1"), getWords(fTracker.getProblems()));
+		assertEquals(0, fTracker.beginCheck(fDocument, THRESHOLD).getLength());
+	}
+
+	@Test
+	public void testEditShiftsProblemsAndTracksDirtyRegion() throws Exception {
+		checkFully("Helo", "wrld", "typo1");
+
+		int offset= CONTENTS.indexOf("A {");
+		fDocument.replace(offset, 1, "AB");
+
+		// the dirty region may include a partitioning change
+		IRegion dirty= fTracker.getDirtyRegion();
+		assertNotNull(dirty);
+		assertTrue(dirty.getOffset() <= offset);
+		assertTrue(dirty.getOffset() + dirty.getLength() >= offset + 2);
+		assertEquals(Arrays.asList("Helo", "wrld", "typo1"), getWords(fTracker.getProblems()));
+		assertEquals(3, fTracker.getProblems().get(2).getSourceLineNumber());
+
+		fDocument.replace(0, 0, "\n");
+		dirty= fTracker.getDirtyRegion();
+		assertEquals(0, dirty.getOffset());
+		assertTrue(dirty.getOffset() + dirty.getLength() >= offset + 3);
+
+		// the check covers the partitions of all changed lines
+		IRegion checked= fTracker.beginCheck(fDocument, THRESHOLD);
+		assertEquals(0, checked.getOffset());
+		assertTrue(checked.getOffset() + checked.getLength() >= offset + 3);
+	}
+
+	@Test
+	public void testCheckedRegionSpansPartitions() throws Exception {
+		checkFully("Helo", "wrld", "typo1");
+
+		int offset= CONTENTS.indexOf("typo1");
+		fDocument.replace(offset, 5, "typo2");
+
+		IRegion checked= fTracker.beginCheck(fDocument, THRESHOLD);
+		assertTrue(checked.getOffset() >= CONTENTS.indexOf("*/") + 2);
+		assertTrue(checked.getOffset() <= offset);
+		assertTrue(checked.getOffset() + checked.getLength() >= CONTENTS.indexOf("here") + 4);
+	}
+
+	@Test
+	public void testMergeProblems() throws Exception {
+		checkFully("Helo", "wrld", "typo1");
+
+		int offset= CONTENTS.indexOf("typo1");
+		fDocument.replace(offset, 5, "typo2");
+		// the problem at the changed word is gone
+		assertEquals(Arrays.asList("Helo", "wrld"), getWords(fTracker.getProblems()));
+
+		fTracker.beginCheck(fDocument, THRESHOLD);
+		List<CoreSpellingProblem> reported= fTracker.endCheck(fDocument, Collections.singletonList(createProblem("typo2")), true, THRESHOLD);
+
+		assertEquals(Arrays.asList("Helo", "wrld", "typo2"), getWords(reported));
+		assertEquals(reported.size(), fTracker.getProblems().size());
+		assertNull(fTracker.getDirtyRegion());
+		assertFalse(fTracker.isFullCheckNeeded());
+	}
+
+	@Test
+	public void testMergeKeepsProblemsAfterCheckedRegion() throws Exception {
+		fDocument.set("class A {\n\t// typo1\n\tint a;\n\t// typo2\n}\n");
+		checkFully("typo1", "typo2");
+
+		int offset= fDocument.get().indexOf("typo1");
+		fDocument.replace(offset, 5, "typo3");
+		fTracker.beginCheck(fDocument, THRESHOLD);
+		List<CoreSpellingProblem> reported= fTracker.endCheck(fDocument, Collections.singletonList(createProblem("typo3")), true, THRESHOLD);
+
+		assertEquals(Arrays.asList("typo3", "typo2"), getWords(reported));
+	}
+
+	@Test
+	public void testCancelKeepsDirtyRegion() throws Exception {
+		checkFully("Helo", "wrld", "typo1");
+
+		int offset= CONTENTS.indexOf("typo1");
+		fDocument.replace(offset, 5, "typo2");
+		IRegion checked= fTracker.beginCheck(fDocument, THRESHOLD);
+		List<CoreSpellingProblem> reported= fTracker.endCheck(fDocument, new ArrayList<CoreSpellingProblem>(), false, THRESHOLD);
+
+		// the remembered problems are reported, the region is checked again
+		assertEquals(Arrays.asList("Helo", "wrld"), getWords(reported));
+		assertNotNull(fTracker.getDirtyRegion());
+		assertEquals(checked, fTracker.beginCheck(fDocument, THRESHOLD));
+	}
+
+	@Test
+	public void testCancelledFullCheck() throws Exception {
+		fTracker.beginCheck(fDocument, THRESHOLD);
+		List<CoreSpellingProblem> reported= fTracker.endCheck(fDocument, Collections.singletonList(createProblem("Helo")), false, THRESHOLD);
+
+		assertTrue(reported.isEmpty());
+		assertTrue(fTracker.isFullCheckNeeded());
+		checkFully("Helo", "wrld", "typo1");
+		assertFalse(fTracker.isFullCheckNeeded());
+	}
+
+	@Test
+	public void testChangeDuringCheck() throws Exception {
+		checkFully("Helo", "wrld", "typo1");
+
+		int offset= CONTENTS.indexOf("typo1");
+		fDocument.replace(offset, 5, "typo2");
+		fTracker.beginCheck(fDocument, THRESHOLD);
+		fDocument.replace(offset, 5, "typo3");
+		List<CoreSpellingProblem> reported= fTracker.endCheck(fDocument, Collections.singletonList(createProblem("typo3")), true, THRESHOLD);
+
+		assertEquals(Arrays.asList("Helo", "wrld"), getWords(reported));
+		assertNotNull(fTracker.getDirtyRegion());
+	}
+
+	@Test
+	public void testFullCheckRequestedDuringCheck() throws Exception {
+		checkFully("Helo", "wrld", "typo1");
+
+		fTracker.requestFullCheck();
+		fTracker.beginCheck(fDocument, THRESHOLD);
+		fTracker.requestFullCheck();
+		fTracker.endCheck(fDocument, new ArrayList<CoreSpellingProblem>(), true, THRESHOLD);
+
+		assertTrue(fTracker.isFullCheckNeeded());
+	}
+}
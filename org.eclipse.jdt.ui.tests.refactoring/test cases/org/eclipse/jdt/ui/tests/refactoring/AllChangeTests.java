@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2019 IBM Corporation and others.
+ * Copyright (c) 2000, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -24,6 +24,7 @@ public class AllChangeTests {
 		suite.addTest(new TestSuite(RenameResourceChangeTests.class));
 		suite.addTest(new TestSuite(MoveRenameResourceChangeTests.class));
 		suite.addTest(new TestSuite(RenameSourceFolderChangeTests.class));
+		suite.addTest(new TestSuite(RenamePackageChangeTests.class));
 		suite.addTest(new TestSuite(CopyPackageChangeTest.class));
 		suite.addTest(new TestSuite(CopyPackageChangeTest.class));
 		suite.addTest(DocumentChangeTest.suiteWithoutRefactoringTestSetup());
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2019 IBM Corporation and others.
+ * Copyright (c) 2000, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -112,6 +112,7 @@ public class AllRefactoringTests {
 		//--helpers
 		suite.addTest(RenamingNameSuggestorTests.suite());
 		suite.addTest(DelegateCreatorTests.suite());
+		suite.addTest(SubtreeHasherTests.suite());
 		return suite;
 	}
 }
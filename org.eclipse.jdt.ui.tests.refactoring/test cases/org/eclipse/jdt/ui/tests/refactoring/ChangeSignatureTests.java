@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2015 IBM Corporation and others.
+ * Copyright (c) 2000, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -15,14 +15,18 @@ package org.eclipse.jdt.ui.tests.refactoring;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
 import org.eclipse.core.runtime.NullProgressMonitor;
 
 import org.eclipse.ltk.core.refactoring.Change;
+import org.eclipse.ltk.core.refactoring.CompositeChange;
 import org.eclipse.ltk.core.refactoring.Refactoring;
 import org.eclipse.ltk.core.refactoring.RefactoringStatus;
+import org.eclipse.ltk.core.refactoring.TextChange;
 import org.eclipse.ltk.core.refactoring.participants.ProcessorBasedRefactoring;
 
 import org.eclipse.jdt.core.ICompilationUnit;
@@ -37,6 +41,7 @@ import org.eclipse.jdt.internal.corext.refactoring.ExceptionInfo;
 import org.eclipse.jdt.internal.corext.refactoring.ParameterInfo;
 import org.eclipse.jdt.internal.corext.refactoring.RefactoringAvailabilityTester;
 import org.eclipse.jdt.internal.corext.refactoring.structure.ChangeSignatureProcessor;
+import org.eclipse.jdt.internal.corext.refactoring.util.ParallelChangeCreator;
 import org.eclipse.jdt.internal.corext.util.JdtFlags;
 
 import junit.framework.Test;
@@ -2263,6 +2268,66 @@ public class ChangeSignatureTests extends RefactoringTest {
 		String[] signature= {};
 		helperRenameMethod(signature, "renamed", true, false);
 	}
-	
+
+	private Map<String, String> getChangedSources(IMethod method, int maxThreads) throws Exception {
+		ParallelChangeCreator.setMaxThreads(maxThreads);
+		try {
+			ChangeSignatureProcessor processor= new ChangeSignatureProcessor(method);
+			Refactoring ref= new ProcessorBasedRefactoring(processor);
+			processor.getParameterInfos().get(0).setNewTypeName("List<String>");
+			processor.setNewReturnTypeName("Map<String, Integer>");
+			assertTrue(ref.checkAllConditions(new NullProgressMonitor()).isOK());
+			Map<String, String> sources= new HashMap<>();
+			collectChangedSources(ref.createChange(new NullProgressMonitor()), sources);
+			return sources;
+		} finally {
+			ParallelChangeCreator.setMaxThreads(-1);
+		}
+	}
+
+	private static void collectChangedSources(Change change, Map<String, String> sources) throws Exception {
+		if (change instanceof CompositeChange) {
+			for (Change child : ((CompositeChange) change).getChildren())
+				collectChangedSources(child, sources);
+		} else if (change instanceof TextChange) {
+			ICompilationUnit cu= (ICompilationUnit) change.getModifiedElement();
+			sources.put(cu.getElementName(), ((TextChange) change).getPreviewContent(new NullProgressMonitor()));
+		}
+	}
+
+	public void testParallel() throws Exception {
+		// the overriding methods, which are updated concurrently, import the new types as the sequential run
+		IPackageFragment pack= getPackageP();
+		ICompilationUnit cu= createCU(pack, "A.java",
+				"package p;\n" +
+				"\n" +
+				"import java.util.List;\n" +
+				"import java.util.Map;\n" +
+				"\n" +
+				"public class A {\n" +
+				"	public Object m(Object o) {\n" +
+				"		return null;\n" +
+				"	}\n" +
+				"}\n");
+		for (int i= 0; i < 8; i++) {
+			createCU(pack, "B" + i + ".java",
+					"package p;\n" +
+					"\n" +
+					"public class B" + i + " extends A {\n" +
+					"	@Override\n" +
+					"	public Object m(Object o) {\n" +
+					"		return m(o);\n" +
+					"	}\n" +
+					"}\n");
+		}
+		IMethod method= cu.getType("A").getMethod("m", new String[] { "QObject;" });
+
+		Map<String, String> sequential= getChangedSources(method, 1);
+		Map<String, String> parallel= getChangedSources(method, -1);
+		assertEquals(9, sequential.size());
+		assertTrue(sequential.get("B0.java").contains("import java.util.List;"));
+		assertTrue(sequential.get("B0.java").contains("public Map<String, Integer> m(List<String> o)"));
+		assertEquals(sequential, parallel);
+	}
 }
 
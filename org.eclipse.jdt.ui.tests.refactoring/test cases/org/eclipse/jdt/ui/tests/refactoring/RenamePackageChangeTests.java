@@ -0,0 +1,108 @@
+/*******************************************************************************
+ * Copyright (c) 2020 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.ui.tests.refactoring;
+
+import java.io.ByteArrayInputStream;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+import org.eclipse.core.runtime.NullProgressMonitor;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IFolder;
+import org.eclipse.core.resources.IResource;
+
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IPackageFragment;
+
+import org.eclipse.jdt.internal.corext.refactoring.changes.RenamePackageChange;
+
+public class RenamePackageChangeTests extends RefactoringTest {
+
+	private static final Class<RenamePackageChangeTests> clazz= RenamePackageChangeTests.class;
+
+	public RenamePackageChangeTests(String name) {
+		super(name);
+	}
+
+	public static Test suite() {
+		return new RefactoringTestSetup(new TestSuite(clazz));
+	}
+
+	public static Test setUpTest(Test test) {
+		return new RefactoringTestSetup(test);
+	}
+
+	private IPackageFragment createPackages() throws Exception {
+		IPackageFragment pack= getRoot().createPackageFragment("a", true, null);
+		IPackageFragment subpack= getRoot().createPackageFragment("a.b", true, null);
+		pack.createCompilationUnit("A.java", "package a;\n\npublic class A {\n}\n", true, null);
+		subpack.createCompilationUnit("B.java", "package a.b;\n\npublic class B {\n}\n", true, null);
+		return pack;
+	}
+
+	private void performRename(IPackageFragment pack) throws Exception {
+		RenamePackageChange change= new RenamePackageChange(pack, "c", true);
+		change.initializeValidationData(new NullProgressMonitor());
+		assertTrue(change.isValid(new NullProgressMonitor()).isOK());
+		performChange(change);
+	}
+
+	private void assertRenamed() throws Exception {
+		IPackageFragment pack= getRoot().getPackageFragment("c");
+		IPackageFragment subpack= getRoot().getPackageFragment("c.b");
+		assertTrue(pack.exists());
+		assertTrue(subpack.exists());
+		assertFalse(getRoot().getPackageFragment("a.b").exists());
+
+		ICompilationUnit cuA= pack.getCompilationUnit("A.java");
+		ICompilationUnit cuB= subpack.getCompilationUnit("B.java");
+		assertTrue(cuA.exists());
+		assertTrue(cuB.exists());
+		assertEqualLines("package c;\n\npublic class A {\n}\n", cuA.getSource());
+		assertEqualLines("package c.b;\n\npublic class B {\n}\n", cuB.getSource());
+	}
+
+	public void testMoveFolder() throws Exception {
+		// the package folder is moved as a whole
+		IPackageFragment pack= createPackages();
+		IFolder folder= (IFolder) pack.getResource();
+		performRename(pack);
+
+		assertRenamed();
+		assertFalse(folder.exists());
+	}
+
+	public void testLinkedFile() throws Exception {
+		// the package folder contains a link, the packages are renamed one by one
+		IFolder targetFolder= getRoot().getJavaProject().getProject().getFolder("linkTarget");
+		try {
+			targetFolder.create(true, true, null);
+			IFile target= targetFolder.getFile("data.txt");
+			target.create(new ByteArrayInputStream("data".getBytes()), true, null);
+			IPackageFragment pack= createPackages();
+			IFile link= ((IFolder) getRoot().getPackageFragment("a.b").getResource()).getFile("data.txt");
+			link.createLink(target.getLocation(), IResource.NONE, null);
+			performRename(pack);
+
+			assertRenamed();
+			// the target of the link is neither moved nor renamed
+			assertTrue(target.exists());
+			assertEquals("data", getContents(target));
+		} finally {
+			targetFolder.delete(true, null);
+		}
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2015 IBM Corporation and others.
+ * Copyright (c) 2000, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -17,11 +17,13 @@ import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IAdaptable;
 import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
 import org.eclipse.core.runtime.Platform;
 
 import org.eclipse.core.resources.IFile;
@@ -49,9 +51,11 @@ import org.eclipse.jdt.core.refactoring.IJavaRefactorings;
 import org.eclipse.jdt.core.refactoring.descriptors.RenameJavaElementDescriptor;
 
 import org.eclipse.jdt.internal.core.refactoring.descriptors.RefactoringSignatureDescriptorFactory;
+import org.eclipse.jdt.internal.corext.refactoring.RefactoringCoreMessages;
 import org.eclipse.jdt.internal.corext.refactoring.rename.RenameTypeProcessor;
 import org.eclipse.jdt.internal.corext.refactoring.rename.RenamingNameSuggestor;
 import org.eclipse.jdt.internal.corext.refactoring.tagging.INameUpdating;
+import org.eclipse.jdt.internal.corext.refactoring.util.ParallelChangeCreator;
 
 import org.eclipse.jdt.ui.tests.refactoring.infra.DebugUtils;
 
@@ -1709,4 +1713,73 @@ public class RenameTypeTests extends RefactoringTest {
 		// Test references in annotations and type parameters
 		helper3("Try", "Bla", true, false, true);
 	}
+
+	private IType createSimilarElementsType() throws Exception {
+		IPackageFragment pack= getPackageP();
+		IType type= pack.createCompilationUnit("SomeClass.java", "package p;\npublic class SomeClass {\n}\n", true, null).getType("SomeClass");
+		for (int i= 0; i < 6; i++) {
+			String source= "package p;\npublic class User" + i + " {\n"
+					+ "\tSomeClass someClass;\n"
+					+ "\tSomeClass someClass" + i + ";\n"
+					+ "\tvoid foo() {\n\t\tSomeClass lvSomeClass= null;\n\t}\n"
+					+ "}\n";
+			pack.createCompilationUnit("User" + i + ".java", source, true, null);
+		}
+		return type;
+	}
+
+	private Refactoring createSimilarElementsRefactoring(IType type) throws Exception {
+		RenameJavaElementDescriptor descriptor= createRefactoringDescriptor(type, "OtherClass");
+		setTheOptions(descriptor, true, false, true, null, RenamingNameSuggestor.STRATEGY_EMBEDDED);
+		return createRefactoring(descriptor);
+	}
+
+	private IJavaElement[] getSimilarElements(IType type, int maxThreads) throws Exception {
+		ParallelChangeCreator.setMaxThreads(maxThreads);
+		try {
+			Refactoring ref= createSimilarElementsRefactoring(type);
+			assertTrue(ref.checkAllConditions(new NullProgressMonitor()).isOK());
+			return ((RenameTypeProcessor) ((RenameRefactoring) ref).getProcessor()).getSimilarElements();
+		} finally {
+			ParallelChangeCreator.setMaxThreads(-1);
+		}
+	}
+
+	public void testSimilarElementsParallel() throws Exception {
+		// the elements found concurrently are ordered as the elements found sequentially
+		IType type= createSimilarElementsType();
+		List<IJavaElement> sequential= Arrays.asList(getSimilarElements(type, 1));
+		List<IJavaElement> parallel= Arrays.asList(getSimilarElements(type, -1));
+		assertFalse(sequential.isEmpty());
+		assertEquals(sequential, parallel);
+	}
+
+	public void testSimilarElementsCanceled() throws Exception {
+		// canceling the search for similarly named elements keeps the references
+		Refactoring ref= createSimilarElementsRefactoring(createSimilarElementsType());
+		RenameTypeProcessor rtp= (RenameTypeProcessor) ((RenameRefactoring) ref).getProcessor();
+		String message= RefactoringCoreMessages.RenameTypeProcessor_searching_similarly_named_elements;
+		final String prefix= message.substring(0, message.indexOf("''{0}"));
+		NullProgressMonitor monitor= new NullProgressMonitor() {
+			@Override
+			public void subTask(String name) {
+				if (name.startsWith(prefix))
+					setCanceled(true);
+			}
+		};
+		assertTrue(ref.checkInitialConditions(new NullProgressMonitor()).isOK());
+		try {
+			rtp.initializeReferences(monitor);
+			fail("the search for similarly named elements was supposed to be canceled");
+		} catch (OperationCanceledException e) {
+			// expected
+		}
+
+		// the references are not searched again
+		rtp.setUpdateSimilarDeclarations(false);
+		assertTrue(rtp.initializeReferences(monitor).isOK());
+
+		assertNull("was supposed to pass", performRefactoring(ref));
+		assertTrue(getPackageP().getCompilationUnit("OtherClass.java").exists());
+	}
 }
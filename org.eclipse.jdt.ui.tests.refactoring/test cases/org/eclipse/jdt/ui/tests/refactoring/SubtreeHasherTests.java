@@ -0,0 +1,91 @@
+/*******************************************************************************
+ * Copyright (c) 2020 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.ui.tests.refactoring;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import org.eclipse.jdt.core.dom.ASTNode;
+import org.eclipse.jdt.core.dom.ASTParser;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.eclipse.jdt.core.dom.MethodDeclaration;
+import org.eclipse.jdt.core.dom.TypeDeclaration;
+
+import org.eclipse.jdt.internal.corext.dom.IASTSharedValues;
+import org.eclipse.jdt.internal.corext.dom.JdtASTMatcher;
+import org.eclipse.jdt.internal.corext.refactoring.code.SubtreeHasher;
+
+/**
+ * Tests that the structural hash codes of the {@link SubtreeHasher} agree with the
+ * {@link JdtASTMatcher}, which is used to find matching nodes: nodes which match must have the
+ * same hash code.
+ */
+public class SubtreeHasherTests extends TestCase {
+
+	public static Test suite() {
+		return new TestSuite(SubtreeHasherTests.class);
+	}
+
+	private static MethodDeclaration parseMethod(String source) {
+		ASTParser parser= ASTParser.newParser(IASTSharedValues.SHARED_AST_LEVEL);
+		parser.setSource(("class A {\n" + source + "\n}\n").toCharArray());
+		CompilationUnit root= (CompilationUnit) parser.createAST(null);
+		return ((TypeDeclaration) root.types().get(0)).getMethods()[0];
+	}
+
+	private static void assertMatch(ASTNode node, ASTNode other) {
+		assertTrue(node.subtreeMatch(new JdtASTMatcher(), other));
+		// each tree is hashed on its own, as by AstMatchingNodeFinder and SnippetFinder
+		assertEquals(new SubtreeHasher().getHash(node), new SubtreeHasher().getHash(other));
+	}
+
+	private static void assertNoMatch(ASTNode node, ASTNode other) {
+		assertFalse(node.subtreeMatch(new JdtASTMatcher(), other));
+		assertFalse(new SubtreeHasher().mayMatch(node, other));
+	}
+
+	public void testWhitespace() throws Exception {
+		MethodDeclaration method= parseMethod("int m(int a) { return a + 1; }");
+		MethodDeclaration other= parseMethod("\tint m(int a)\n\t{\n\t\treturn a\n\t\t\t+   1;\n\t}");
+		assertMatch(method, other);
+		assertMatch(method.getBody(), other.getBody());
+	}
+
+	public void testComments() throws Exception {
+		MethodDeclaration method= parseMethod("int m(int a) { return a + 1; }");
+		MethodDeclaration other= parseMethod("int m(int a) {\n\t// the sum\n\treturn a /* left */ + 1; /* done */\n}");
+		assertMatch(method, other);
+	}
+
+	public void testJavadoc() throws Exception {
+		// the matcher does not compare doc tags
+		MethodDeclaration method= parseMethod("/** Returns the sum. */\nint m(int a) { return a + 1; }");
+		MethodDeclaration other= parseMethod("/**\n * Adds one.\n * @param a the value\n */\nint m(int a) { return a + 1; }");
+		assertMatch(method, other);
+	}
+
+	public void testLiterals() throws Exception {
+		assertNoMatch(parseMethod("int m(int a) { return a + 1; }"), parseMethod("int m(int a) { return a + 2; }"));
+		assertNoMatch(parseMethod("String m() { return \"a\"; }"), parseMethod("String m() { return \"b\"; }"));
+		assertNoMatch(parseMethod("char m() { return 'a'; }"), parseMethod("char m() { return 'b'; }"));
+		assertNoMatch(parseMethod("boolean m() { return true; }"), parseMethod("boolean m() { return false; }"));
+	}
+
+	public void testNames() throws Exception {
+		assertMatch(parseMethod("int m(int a) { return a; }"), parseMethod("int m(int a) {return a;}"));
+		assertNoMatch(parseMethod("int m(int a) { return a; }"), parseMethod("int m(int b) { return b; }"));
+		assertNoMatch(parseMethod("int m(int a) { return a + 1; }"), parseMethod("int m(int a) { return a - 1; }"));
+	}
+}
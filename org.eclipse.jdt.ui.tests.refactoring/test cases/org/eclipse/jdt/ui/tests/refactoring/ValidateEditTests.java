@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2008 IBM Corporation and others.
+ * Copyright (c) 2000, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -23,12 +23,16 @@ import org.eclipse.team.core.RepositoryProvider;
 
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IProgressMonitor;
 
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IFolder;
 import org.eclipse.core.resources.IResource;
 import org.eclipse.core.resources.ResourceAttributes;
 
+import org.eclipse.ltk.core.refactoring.Change;
+import org.eclipse.ltk.core.refactoring.NullChange;
+import org.eclipse.ltk.core.refactoring.Refactoring;
 import org.eclipse.ltk.core.refactoring.RefactoringStatus;
 import org.eclipse.ltk.core.refactoring.participants.CopyRefactoring;
 import org.eclipse.ltk.core.refactoring.participants.MoveRefactoring;
@@ -40,6 +44,7 @@ import org.eclipse.jdt.core.refactoring.IJavaRefactorings;
 import org.eclipse.jdt.core.refactoring.descriptors.RenameJavaElementDescriptor;
 
 import org.eclipse.jdt.internal.core.refactoring.descriptors.RefactoringSignatureDescriptorFactory;
+import org.eclipse.jdt.internal.corext.refactoring.Checks;
 import org.eclipse.jdt.internal.corext.refactoring.reorg.JavaCopyProcessor;
 import org.eclipse.jdt.internal.corext.refactoring.reorg.JavaMoveProcessor;
 import org.eclipse.jdt.internal.corext.refactoring.reorg.ReorgDestinationFactory;
@@ -428,6 +433,102 @@ public class ValidateEditTests extends RefactoringTest {
 	}
 
 
+	public void testValidateModifiesFilesTwice() throws Exception {
+		// the second validation must notice that A has been modified and made read-only
+
+		IPackageFragment fragment= getRoot().createPackageFragment("org.test", true, null);
+
+		StringBuffer buf= new StringBuffer();
+		buf.append("package org.test;\n");
+		buf.append("public class A {\n");
+		buf.append("}\n");
+		ICompilationUnit cu1= fragment.createCompilationUnit("A.java", buf.toString(), true, null);
+
+		buf= new StringBuffer();
+		buf.append("package org.test;\n");
+		buf.append("public class B {\n");
+		buf.append("}\n");
+		ICompilationUnit cu2= fragment.createCompilationUnit("B.java", buf.toString(), true, null);
+		setReadOnly(cu2);
+
+		IFile[] files= { (IFile) cu1.getResource(), (IFile) cu2.getResource() };
+		Object context= new Object();
+		Refactoring refactoring= new NullRefactoring();
+		RefactoringStatus status= Checks.validateModifiesFiles(files, context, refactoring);
+		assertTrue(status.toString(), status.isOK());
+
+		Collection<IPath> validatedEditPaths= RefactoringTestRepositoryProvider.getValidatedEditPaths(getRoot().getJavaProject().getProject());
+		assertEquals(1, validatedEditPaths.size());
+		assertTrue(validatedEditPaths.contains(cu2.getPath()));
+
+		status= Checks.validateModifiesFiles(files, context, refactoring);
+		assertTrue(status.toString(), status.isOK());
+		assertEquals(1, validatedEditPaths.size());
+
+		((IFile) cu1.getResource()).setContents(getStream("package org.test;\npublic class A {}\n"), true, false, null);
+		setReadOnly(cu1);
+		status= Checks.validateModifiesFiles(files, context, refactoring);
+		assertTrue(status.toString(), status.isOK());
+		assertEquals(2, validatedEditPaths.size());
+		assertTrue(validatedEditPaths.contains(cu1.getPath()));
+	}
+
+	public void testValidateModifiesFilesMadeReadOnly() throws Exception {
+		// making a file read-only changes none of its stamps, the second validation must still notice it
+
+		IPackageFragment fragment= getRoot().createPackageFragment("org.test", true, null);
+
+		StringBuffer buf= new StringBuffer();
+		buf.append("package org.test;\n");
+		buf.append("public class A {\n");
+		buf.append("}\n");
+		ICompilationUnit cu1= fragment.createCompilationUnit("A.java", buf.toString(), true, null);
+		IFile file= (IFile) cu1.getResource();
+
+		IFile[] files= { file };
+		Object context= new Object();
+		Refactoring refactoring= new NullRefactoring();
+		RefactoringStatus status= Checks.validateModifiesFiles(files, context, refactoring);
+		assertTrue(status.toString(), status.isOK());
+
+		Collection<IPath> validatedEditPaths= RefactoringTestRepositoryProvider.getValidatedEditPaths(getRoot().getJavaProject().getProject());
+		assertTrue(validatedEditPaths.isEmpty());
+
+		long modificationStamp= file.getModificationStamp();
+		setReadOnly(cu1);
+		assertEquals(modificationStamp, file.getModificationStamp());
+
+		status= Checks.validateModifiesFiles(files, context, refactoring);
+		assertTrue(status.toString(), status.isOK());
+		assertEquals(1, validatedEditPaths.size());
+		assertTrue(validatedEditPaths.contains(cu1.getPath()));
+	}
+
+	/**
+	 * A refactoring which only scopes the validation of the modified files.
+	 */
+	private static final class NullRefactoring extends Refactoring {
+		@Override
+		public String getName() {
+			return "Null Refactoring";
+		}
+
+		@Override
+		public RefactoringStatus checkInitialConditions(IProgressMonitor pm) {
+			return new RefactoringStatus();
+		}
+
+		@Override
+		public RefactoringStatus checkFinalConditions(IProgressMonitor pm) {
+			return new RefactoringStatus();
+		}
+
+		@Override
+		public Change createChange(IProgressMonitor pm) {
+			return new NullChange();
+		}
+	}
+
 	private static void setReadOnly(ICompilationUnit cu) throws CoreException {
 		setReadOnly(cu.getResource());
 	}
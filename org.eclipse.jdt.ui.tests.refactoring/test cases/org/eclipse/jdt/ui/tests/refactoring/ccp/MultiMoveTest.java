@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2012 IBM Corporation and others.
+ * Copyright (c) 2000, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -13,6 +13,10 @@
  *******************************************************************************/
 package org.eclipse.jdt.ui.tests.refactoring.ccp;
 
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
 import junit.framework.Test;
 import junit.framework.TestSuite;
 
@@ -32,6 +36,7 @@ import org.eclipse.ltk.core.refactoring.participants.MoveArguments;
 import org.eclipse.ltk.core.refactoring.participants.MoveRefactoring;
 
 import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IImportDeclaration;
 import org.eclipse.jdt.core.IJavaElement;
 import org.eclipse.jdt.core.IPackageFragment;
 import org.eclipse.jdt.core.IPackageFragmentRoot;
@@ -299,6 +304,78 @@ public class MultiMoveTest extends RefactoringTest {
 
 	}
 
+	private static Set<String> getImports(ICompilationUnit cu) throws Exception {
+		Set<String> imports= new HashSet<>();
+		for (IImportDeclaration declaration : cu.getImports())
+			imports.add(declaration.getElementName());
+		return imports;
+	}
+
+	private static void assertImports(ICompilationUnit cu, String... expected) throws Exception {
+		assertEquals("imports of " + cu.getElementName(), new HashSet<>(Arrays.asList(expected)), getImports(cu));
+	}
+
+	public void testSeveralSourcePackages() throws Exception {
+		// the units of each source package are searched together, the references to all of them are updated
+		ParticipantTesting.reset();
+		IPackageFragment packP1= createPackage("p1");
+		ICompilationUnit p1A= packP1.createCompilationUnit("A.java", "package p1;\n\npublic class A {\n\tB fB;\n}\n", true, null);
+		ICompilationUnit p1B= packP1.createCompilationUnit("B.java", "package p1;\n\npublic class B {\n\tA fA;\n}\n", true, null);
+		IPackageFragment packP2= createPackage("p2");
+		ICompilationUnit p2C= packP2.createCompilationUnit("C.java", "package p2;\n\nimport p1.A;\n\npublic class C {\n\tA fA;\n\tD fD;\n}\n", true, null);
+		ICompilationUnit p2D= packP2.createCompilationUnit("D.java", "package p2;\n\npublic class D {\n\tC fC;\n}\n", true, null);
+		IPackageFragment packClient= createPackage("client");
+		ICompilationUnit client= packClient.createCompilationUnit("Client.java",
+				"package client;\n\nimport p1.A;\nimport p1.B;\nimport p2.C;\n\npublic class Client {\n\tA fA;\n\tB fB;\n\tC fC;\n}\n", true, null);
+		IPackageFragment packP3= createPackage("p3");
+
+		String[] handles= ParticipantTesting.createHandles(new Object[] {
+				p1A, p1A.getTypes()[0],
+				p2C, p2C.getTypes()[0],
+				p1A.getResource(), p2C.getResource()});
+
+		IResource[] resources= {};
+		IJavaElement[] javaElements= {p1A, p2C};
+		IMovePolicy policy= ReorgPolicyFactory.createMovePolicy(resources, javaElements);
+		JavaMoveProcessor processor= (policy.canEnable() ? new JavaMoveProcessor(policy) : null);
+		processor.setReorgQueries(new MockReorgQueries());
+		processor.setDestination(ReorgDestinationFactory.createDestination(packP3));
+		processor.setUpdateReferences(true);
+		performDummySearch();
+		RefactoringStatus status= performRefactoring(processor, true);
+
+		//-- checks
+		assertEquals("status should be ok here", null, status);
+
+		ICompilationUnit p3A= packP3.getCompilationUnit("A.java");
+		ICompilationUnit p3C= packP3.getCompilationUnit("C.java");
+		assertTrue(p3A.exists());
+		assertTrue(p3C.exists());
+		assertFalse(p1A.exists());
+		assertFalse(p2C.exists());
+		assertEquals("p3", p3A.getPackageDeclarations()[0].getElementName());
+		assertEquals("p3", p3C.getPackageDeclarations()[0].getElementName());
+
+		// the moved units import the types left in their source packages, but not each other
+		assertImports(p3A, "p1.B");
+		assertImports(p3C, "p2.D");
+		// the units left in the source packages and the clients import the moved types
+		assertImports(p1B, "p3.A");
+		assertImports(p2D, "p3.C");
+		assertImports(client, "p1.B", "p3.A", "p3.C");
+
+		ParticipantTesting.testMove(
+				handles,
+				new MoveArguments[] {
+						new MoveArguments(packP3, processor.getUpdateReferences()),
+						new MoveArguments(packP3, processor.getUpdateReferences()),
+						new MoveArguments(packP3, processor.getUpdateReferences()),
+						new MoveArguments(packP3, processor.getUpdateReferences()),
+						new MoveArguments(packP3.getResource(), processor.getUpdateReferences()),
+						new MoveArguments(packP3.getResource(), processor.getUpdateReferences())
+				});
+	}
+
 	public void testPackageMoveParticipants() throws Exception {
 		ParticipantTesting.reset();
 		IPackageFragmentRoot r1= JavaProjectHelper.addSourceContainer(RefactoringTestSetup.getProject(), "src1");
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2013 IBM Corporation and others.
+ * Copyright (c) 2000, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -22,6 +22,7 @@ public class AllReorgPerformanceTests {
 		TestSuite suite= new TestSuite(AllReorgPerformanceTests.class.getName());
 		suite.addTest(RenamePackagePerfTests1.suite());
 		suite.addTest(RenamePackagePerfTests2.suite());
+		suite.addTest(RenamePackageWithSubpackagesPerfTests.suite());
 
 		suite.addTest(RenameTypePerfAcceptanceTests.suite());
 		suite.addTest(RenameTypePerfTests1.suite());
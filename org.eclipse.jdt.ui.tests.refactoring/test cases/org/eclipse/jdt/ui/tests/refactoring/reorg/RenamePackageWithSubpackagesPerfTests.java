@@ -0,0 +1,99 @@
+/*******************************************************************************
+ * Copyright (c) 2020 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.ui.tests.refactoring.reorg;
+
+import junit.framework.Test;
+
+import org.eclipse.test.OrderedTestSuite;
+
+import org.eclipse.ltk.core.refactoring.participants.RenameRefactoring;
+
+import org.eclipse.jdt.core.IPackageFragment;
+import org.eclipse.jdt.core.IPackageFragmentRoot;
+
+import org.eclipse.jdt.internal.corext.refactoring.rename.RenamePackageProcessor;
+
+import org.eclipse.jdt.ui.tests.refactoring.infra.RefactoringPerformanceTestSetup;
+
+public class RenamePackageWithSubpackagesPerfTests extends RepeatingRefactoringPerformanceTestCase {
+
+	public static Test suite() {
+		// we must make sure that cold is executed before warm
+		OrderedTestSuite suite= new OrderedTestSuite(RenamePackageWithSubpackagesPerfTests.class, new String[] {
+			"testCold_10_10",
+			"test_10_100",
+			"test_100_100",
+			"test_300_100",
+		});
+		return new RefactoringPerformanceTestSetup(suite);
+	}
+
+	public static Test setUpTest(Test someTest) {
+		return new RefactoringPerformanceTestSetup(someTest);
+	}
+
+	public RenamePackageWithSubpackagesPerfTests(String name) {
+		super(name);
+	}
+
+	public void testCold_10_10() throws Exception {
+		executeRefactoring(10, 10, false, 3);
+	}
+
+	public void test_10_100() throws Exception {
+		executeRefactoring(10, 100, true, 10);
+	}
+
+	public void test_100_100() throws Exception {
+		executeRefactoring(100, 100, true, 3);
+	}
+
+	public void test_300_100() throws Exception {
+		executeRefactoring(300, 100, true, 1);
+	}
+
+	/**
+	 * Renames a package with the given number of subpackages, each of which contains the given
+	 * number of compilation units importing a type of the next subpackage. The number of
+	 * compilation units must be at least 2.
+	 *
+	 * @param numberOfPackages the number of subpackages
+	 * @param numberOfCus the number of compilation units in each subpackage
+	 * @param measure whether to measure the refactoring
+	 * @throws Exception if the refactoring fails
+	 */
+	@Override
+	protected void doExecuteRefactoring(int numberOfPackages, int numberOfCus, boolean measure) throws Exception {
+		IPackageFragmentRoot root= fTestProject.getSourceFolder();
+		IPackageFragment pack= root.createPackageFragment("com.acme", false, null);
+		for (int i= 0; i < numberOfPackages; i++) {
+			IPackageFragment subpackage= root.createPackageFragment("com.acme.p" + i, false, null);
+			String next= "com.acme.p" + ((i + 1) % numberOfPackages);
+			for (int j= 0; j < numberOfCus; j++) {
+				String nextType= "A" + ((j + 1) % numberOfCus);
+				StringBuilder buf= new StringBuilder();
+				buf.append("package " + subpackage.getElementName() + ";\n");
+				buf.append("import " + next + "." + nextType + ";\n");
+				buf.append("public class A" + j + " {\n");
+				buf.append("    " + nextType + " fNext;\n");
+				buf.append("}\n");
+				subpackage.createCompilationUnit("A" + j + ".java", buf.toString(), false, null);
+			}
+		}
+		RenamePackageProcessor processor= new RenamePackageProcessor(pack);
+		processor.setNewElementName("com.acme2");
+		processor.setRenameSubpackages(true);
+		executeRefactoring(new RenameRefactoring(processor), measure);
+	}
+}
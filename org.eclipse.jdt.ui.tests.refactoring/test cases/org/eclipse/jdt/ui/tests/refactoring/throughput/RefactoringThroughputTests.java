@@ -0,0 +1,235 @@
+/*******************************************************************************
+ * Copyright (c) 2020 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.ui.tests.refactoring.throughput;
+
+import junit.extensions.TestSetup;
+import junit.framework.Test;
+
+import org.eclipse.test.OrderedTestSuite;
+
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.PerformanceStats;
+
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.ResourcesPlugin;
+
+import org.eclipse.ltk.core.refactoring.Change;
+import org.eclipse.ltk.core.refactoring.PerformChangeOperation;
+import org.eclipse.ltk.core.refactoring.Refactoring;
+import org.eclipse.ltk.core.refactoring.RefactoringCore;
+import org.eclipse.ltk.core.refactoring.RefactoringStatus;
+import org.eclipse.ltk.core.refactoring.participants.MoveRefactoring;
+import org.eclipse.ltk.core.refactoring.participants.ProcessorBasedRefactoring;
+import org.eclipse.ltk.core.refactoring.participants.RenameRefactoring;
+
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IMethod;
+import org.eclipse.jdt.core.IPackageFragment;
+
+import org.eclipse.jdt.internal.corext.dom.IASTSharedValues;
+import org.eclipse.jdt.internal.corext.refactoring.ParameterInfo;
+import org.eclipse.jdt.internal.corext.refactoring.RefactoringSearchEngine;
+import org.eclipse.jdt.internal.corext.refactoring.code.InlineMethodRefactoring;
+import org.eclipse.jdt.internal.corext.refactoring.rename.RenamePackageProcessor;
+import org.eclipse.jdt.internal.corext.refactoring.rename.RenameTypeProcessor;
+import org.eclipse.jdt.internal.corext.refactoring.rename.RenameVirtualMethodProcessor;
+import org.eclipse.jdt.internal.corext.refactoring.reorg.IReorgPolicy.IMovePolicy;
+import org.eclipse.jdt.internal.corext.refactoring.reorg.JavaMoveProcessor;
+import org.eclipse.jdt.internal.corext.refactoring.reorg.ReorgDestinationFactory;
+import org.eclipse.jdt.internal.corext.refactoring.reorg.ReorgPolicyFactory;
+import org.eclipse.jdt.internal.corext.refactoring.structure.ChangeSignatureProcessor;
+import org.eclipse.jdt.internal.corext.refactoring.util.RefactoringASTParser;
+
+import org.eclipse.jdt.ui.tests.performance.JdtPerformanceTestCase;
+import org.eclipse.jdt.ui.tests.refactoring.ccp.MockReorgQueries;
+
+/**
+ * Measures the throughput of the main refactorings on a {@link SyntheticWorkspace}.
+ * <p>
+ * Each test runs one refactoring without user interface and records the time spent in the
+ * initial and final condition checking, the change creation and the change execution, together
+ * with the peak heap. The results of all tests are written by {@link ThroughputReport}.
+ * </p>
+ * <p>
+ * The search phase is the time the refactoring itself spends in its searches, summed over all
+ * searching threads. It is part of the other phases and is only recorded if the
+ * {@link RefactoringSearchEngine#PERFORMANCE_EVENT} is enabled, e.g. by the
+ * <code>throughput.options</code> debug options of this plug-in. The tests do not need a
+ * workbench and are run by the <code>throughput</code> target of <code>test.xml</code> in the
+ * headless test application.
+ * </p>
+ * <p>
+ * The size of the generated workspace is configured by system properties, see
+ * {@link SyntheticWorkspace}. A new workspace is generated for each test.
+ * </p>
+ */
+public class RefactoringThroughputTests extends JdtPerformanceTestCase {
+
+	private static class MyTestSetup extends TestSetup {
+
+		public static ThroughputReport fReport;
+
+		public MyTestSetup(Test test) {
+			super(test);
+		}
+
+		@Override
+		protected void setUp() throws Exception {
+			fReport= new ThroughputReport();
+		}
+
+		@Override
+		protected void tearDown() throws Exception {
+			fReport.write();
+			fReport= null;
+		}
+	}
+
+	private SyntheticWorkspace fWorkspace;
+
+	public static Test suite() {
+		return new MyTestSetup(new OrderedTestSuite(RefactoringThroughputTests.class, new String[] {
+			"testRenameType",
+			"testRenameMethod",
+			"testRenamePackage",
+			"testMoveCompilationUnit",
+			"testChangeSignature",
+			"testInlineMethod",
+		}));
+	}
+
+	public static Test setUpTest(Test someTest) {
+		return new MyTestSetup(someTest);
+	}
+
+	public RefactoringThroughputTests(String name) {
+		super(name);
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		fWorkspace= SyntheticWorkspace.fromSystemProperties();
+		fWorkspace.create();
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		fWorkspace.delete();
+		fWorkspace= null;
+		super.tearDown();
+	}
+
+	public void testRenameType() throws Exception {
+		RenameTypeProcessor processor= new RenameTypeProcessor(fWorkspace.getTargetType());
+		processor.setNewElementName("Target2");
+		execute("Rename Type", new RenameRefactoring(processor), true);
+	}
+
+	public void testRenameMethod() throws Exception {
+		RenameVirtualMethodProcessor processor= new RenameVirtualMethodProcessor(fWorkspace.getTargetMethod());
+		processor.setNewElementName("apply2");
+		execute("Rename Method", new RenameRefactoring(processor), true);
+	}
+
+	public void testRenamePackage() throws Exception {
+		IPackageFragment pack= (IPackageFragment) fWorkspace.getTargetUnit().getParent();
+		RenamePackageProcessor processor= new RenamePackageProcessor(pack);
+		processor.setNewElementName("target2");
+		execute("Rename Package", new RenameRefactoring(processor), true);
+	}
+
+	public void testMoveCompilationUnit() throws Exception {
+		IMovePolicy policy= ReorgPolicyFactory.createMovePolicy(new IResource[0], new IJavaElement[] { fWorkspace.getTargetUnit() });
+		assertTrue(policy.canEnable());
+		JavaMoveProcessor processor= new JavaMoveProcessor(policy);
+		IPackageFragment destination= fWorkspace.getTargetSourceFolder().createPackageFragment("destination", false, null);
+		processor.setDestination(ReorgDestinationFactory.createDestination(destination));
+		processor.setReorgQueries(new MockReorgQueries());
+		processor.setUpdateReferences(true);
+		execute("Move Compilation Unit", new MoveRefactoring(processor), false);
+	}
+
+	public void testChangeSignature() throws Exception {
+		IMethod method= fWorkspace.getTargetMethod();
+		ChangeSignatureProcessor processor= new ChangeSignatureProcessor(method);
+		processor.getParameterInfos().add(ParameterInfo.createInfoForAddedParameter("int", "offset", "0"));
+		execute("Change Signature", new ProcessorBasedRefactoring(processor), true);
+	}
+
+	public void testInlineMethod() throws Exception {
+		IMethod method= fWorkspace.getTargetMethod();
+		InlineMethodRefactoring refactoring= InlineMethodRefactoring.create(fWorkspace.getTargetUnit(),
+				new RefactoringASTParser(IASTSharedValues.SHARED_AST_LEVEL).parse(fWorkspace.getTargetUnit(), true),
+				method.getNameRange().getOffset(), method.getNameRange().getLength());
+		refactoring.setCurrentMode(InlineMethodRefactoring.Mode.INLINE_ALL);
+		refactoring.setDeleteSource(true);
+		execute("Inline Method", refactoring, true);
+	}
+
+	private void execute(String name, Refactoring refactoring, boolean checkUndo) throws Exception {
+		joinBackgroudActivities();
+		// Flush the undo manager to not count any already existing undo objects
+		// into the heap consumption
+		RefactoringCore.getUndoManager().flush();
+		System.gc();
+
+		NullProgressMonitor pm= new NullProgressMonitor();
+		ThroughputReport report= MyTestSetup.fReport;
+		ThroughputReport.Run run= report.startRun(name, fWorkspace);
+		try {
+			long searchTime= getSearchTime();
+
+			RefactoringStatus status= new RefactoringStatus();
+			status.merge(run.measure("initialConditions", () -> refactoring.checkInitialConditions(pm)));
+			assertFalse(status.toString(), status.hasFatalError());
+			status.merge(run.measure("finalConditions", () -> refactoring.checkFinalConditions(pm)));
+			assertFalse(status.toString(), status.hasFatalError());
+			run.set("status", status.isOK() ? "OK" : status.getEntryWithHighestSeverity().getMessage());
+
+			Change change= run.measure("createChange", () -> {
+				Change result= refactoring.createChange(pm);
+				result.initializeValidationData(pm);
+				return result;
+			});
+			PerformChangeOperation operation= new PerformChangeOperation(change);
+			operation.setUndoManager(RefactoringCore.getUndoManager(), refactoring.getName());
+			run.measure("perform", () -> {
+				ResourcesPlugin.getWorkspace().run(operation, pm);
+				return null;
+			});
+			if (PerformanceStats.isEnabled(RefactoringSearchEngine.PERFORMANCE_EVENT))
+				run.setPhase("search", getSearchTime() - searchTime);
+			report.finishRun(run);
+
+			assertTrue(operation.changeExecuted());
+			assertTrue(operation.getValidationStatus() == null || !operation.getValidationStatus().hasFatalError());
+			if (checkUndo)
+				assertNotNull(operation.getUndoChange());
+		} finally {
+			run.dispose();
+		}
+		RefactoringCore.getUndoManager().flush();
+		System.gc();
+	}
+
+	private static long getSearchTime() {
+		long result= 0;
+		for (PerformanceStats stats : PerformanceStats.getAllStats()) {
+			if (RefactoringSearchEngine.PERFORMANCE_EVENT.equals(stats.getEvent()))
+				result+= stats.getRunningTime();
+		}
+		return result;
+	}
+}
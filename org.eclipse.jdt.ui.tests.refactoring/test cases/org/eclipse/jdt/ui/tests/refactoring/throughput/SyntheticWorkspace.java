@@ -0,0 +1,197 @@
+/*******************************************************************************
+ * Copyright (c) 2020 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.ui.tests.refactoring.throughput;
+
+import org.junit.Assert;
+
+import org.eclipse.jdt.testplugin.JavaProjectHelper;
+
+import org.eclipse.core.runtime.CoreException;
+
+import org.eclipse.core.resources.IWorkspaceRunnable;
+import org.eclipse.core.resources.ResourcesPlugin;
+
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IMethod;
+import org.eclipse.jdt.core.IPackageFragment;
+import org.eclipse.jdt.core.IPackageFragmentRoot;
+import org.eclipse.jdt.core.IType;
+
+/**
+ * A generated workspace with a configurable number of projects, packages and compilation units.
+ * <p>
+ * The first project declares the type <code>target.Target</code>. Every generated compilation
+ * unit references the type and its method <code>apply(int)</code> as often as configured by the
+ * reference density. All other projects require the first project.
+ * </p>
+ * <p>
+ * The default dimensions can be overridden with the system properties
+ * <code>org.eclipse.jdt.ui.tests.refactoring.throughput.projects</code>,
+ * <code>.packages</code> (per project), <code>.units</code> (per package) and
+ * <code>.references</code> (per compilation unit).
+ * </p>
+ */
+public class SyntheticWorkspace {
+
+	private static final String PROPERTY_PREFIX= "org.eclipse.jdt.ui.tests.refactoring.throughput.";
+
+	public static final String TARGET_PACKAGE= "target";
+	public static final String TARGET_TYPE= "Target";
+	public static final String TARGET_METHOD= "apply";
+
+	private final int fProjectCount;
+	private final int fPackageCount;
+	private final int fUnitCount;
+	private final int fReferenceCount;
+
+	private IJavaProject[] fProjects;
+	private IPackageFragmentRoot fTargetRoot;
+	private ICompilationUnit fTargetUnit;
+
+	public SyntheticWorkspace(int projects, int packages, int units, int references) {
+		Assert.assertTrue(projects > 0 && packages > 0 && units > 0 && references > 0);
+		fProjectCount= projects;
+		fPackageCount= packages;
+		fUnitCount= units;
+		fReferenceCount= references;
+	}
+
+	/**
+	 * Creates a workspace description from the system properties.
+	 *
+	 * @return the description, the workspace is not created yet
+	 */
+	public static SyntheticWorkspace fromSystemProperties() {
+		return new SyntheticWorkspace(
+				Integer.getInteger(PROPERTY_PREFIX + "projects", 2).intValue(),
+				Integer.getInteger(PROPERTY_PREFIX + "packages", 10).intValue(),
+				Integer.getInteger(PROPERTY_PREFIX + "units", 50).intValue(),
+				Integer.getInteger(PROPERTY_PREFIX + "references", 10).intValue());
+	}
+
+	public int getProjectCount() {
+		return fProjectCount;
+	}
+
+	public int getPackageCount() {
+		return fPackageCount;
+	}
+
+	public int getUnitCount() {
+		return fUnitCount;
+	}
+
+	public int getReferenceCount() {
+		return fReferenceCount;
+	}
+
+	/**
+	 * @return the total number of compilation units referencing the target type
+	 */
+	public int getTotalUnitCount() {
+		return fProjectCount * fPackageCount * fUnitCount;
+	}
+
+	public IJavaProject getTargetProject() {
+		return fProjects[0];
+	}
+
+	public IPackageFragmentRoot getTargetSourceFolder() {
+		return fTargetRoot;
+	}
+
+	public ICompilationUnit getTargetUnit() {
+		return fTargetUnit;
+	}
+
+	public IType getTargetType() {
+		return fTargetUnit.getType(TARGET_TYPE);
+	}
+
+	public IMethod getTargetMethod() {
+		return getTargetType().getMethod(TARGET_METHOD, new String[] { "I" });
+	}
+
+	public void create() throws CoreException {
+		fProjects= new IJavaProject[fProjectCount];
+		IWorkspaceRunnable runnable= monitor -> {
+			for (int i= 0; i < fProjectCount; i++) {
+				fProjects[i]= createProject(i);
+			}
+		};
+		ResourcesPlugin.getWorkspace().run(runnable, null);
+	}
+
+	public void delete() throws CoreException {
+		if (fProjects == null)
+			return;
+		for (IJavaProject project : fProjects) {
+			if (project != null && project.exists())
+				JavaProjectHelper.delete(project);
+		}
+		fProjects= null;
+	}
+
+	private IJavaProject createProject(int index) throws CoreException {
+		IJavaProject project= JavaProjectHelper.createJavaProject("Throughput" + index, "bin");
+		Assert.assertTrue("rt not found", JavaProjectHelper.addRTJar(project) != null);
+		IPackageFragmentRoot root= JavaProjectHelper.addSourceContainer(project, "src");
+		if (index == 0) {
+			fTargetRoot= root;
+			fTargetUnit= createTargetUnit(root);
+		} else {
+			JavaProjectHelper.addRequiredProject(project, fProjects[0]);
+		}
+		for (int i= 0; i < fPackageCount; i++) {
+			IPackageFragment pack= root.createPackageFragment("p" + index + "_" + i, false, null);
+			for (int j= 0; j < fUnitCount; j++) {
+				createReferenceUnit(pack, j);
+			}
+		}
+		return project;
+	}
+
+	private static ICompilationUnit createTargetUnit(IPackageFragmentRoot root) throws CoreException {
+		IPackageFragment pack= root.createPackageFragment(TARGET_PACKAGE, false, null);
+		StringBuilder buf= new StringBuilder();
+		buf.append("package " + TARGET_PACKAGE + ";\n");
+		buf.append("public class " + TARGET_TYPE + " {\n");
+		buf.append("    public static int compute(int value) {\n");
+		buf.append("        return value * 2;\n");
+		buf.append("    }\n");
+		buf.append("    public int " + TARGET_METHOD + "(int value) {\n");
+		buf.append("        return compute(value) + 1;\n");
+		buf.append("    }\n");
+		buf.append("}\n");
+		return pack.createCompilationUnit(TARGET_TYPE + ".java", buf.toString(), false, null);
+	}
+
+	private void createReferenceUnit(IPackageFragment pack, int index) throws CoreException {
+		StringBuilder buf= new StringBuilder();
+		buf.append("package " + pack.getElementName() + ";\n");
+		buf.append("import " + TARGET_PACKAGE + "." + TARGET_TYPE + ";\n");
+		buf.append("public class Unit" + index + " {\n");
+		buf.append("    private " + TARGET_TYPE + " target= new " + TARGET_TYPE + "();\n");
+		buf.append("    public int run() {\n");
+		buf.append("        int result= 0;\n");
+		for (int i= 0; i < fReferenceCount; i++) {
+			buf.append("        result+= target." + TARGET_METHOD + "(" + i + ");\n");
+		}
+		buf.append("        return result;\n");
+		buf.append("    }\n");
+		buf.append("}\n");
+		pack.createCompilationUnit("Unit" + index + ".java", buf.toString(), false, null);
+	}
+}
@@ -0,0 +1,260 @@
+/*******************************************************************************
+ * Copyright (c) 2020 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.ui.tests.refactoring.throughput;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.management.ListenerNotFoundException;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.TabularData;
+
+/**
+ * Collects the phase times and the peak heap of refactoring runs and writes them as JSON.
+ * <p>
+ * The peak heap is the highest heap usage of the process during the run. The heap only grows
+ * between two garbage collections, so it is the maximum of the heap usage before each garbage
+ * collection of the run and of the heap usage at its end.
+ * </p>
+ * <p>
+ * The report is written to the file given by the system property
+ * <code>org.eclipse.jdt.ui.tests.refactoring.throughput.output</code>, or to
+ * <code>System.out</code> if the property is not set.
+ * </p>
+ */
+public class ThroughputReport {
+
+	private static final String OUTPUT_PROPERTY= "org.eclipse.jdt.ui.tests.refactoring.throughput.output";
+
+	public interface Phase<T> {
+		T run() throws Exception;
+	}
+
+	public static class Run implements NotificationListener {
+
+		/**
+		 * The type of the notifications sent by the garbage collectors after each collection.
+		 */
+		private static final String GC_NOTIFICATION= "com.sun.management.gc.notification";
+
+		private final String fName;
+		private final SyntheticWorkspace fWorkspace;
+		private final Map<String, Long> fPhases= new LinkedHashMap<>();
+		private final Map<String, Object> fValues= new LinkedHashMap<>();
+		private final Set<String> fHeapPools= new HashSet<>();
+		private long fPeakHeap;
+
+		Run(String name, SyntheticWorkspace workspace) {
+			fName= name;
+			fWorkspace= workspace;
+			for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+				if (pool.getType() == MemoryType.HEAP)
+					fHeapPools.add(pool.getName());
+			}
+			fPeakHeap= getHeapUsage();
+			for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+				if (collector instanceof NotificationEmitter)
+					((NotificationEmitter) collector).addNotificationListener(this, null, null);
+			}
+		}
+
+		@Override
+		public void handleNotification(Notification notification, Object handback) {
+			if (!GC_NOTIFICATION.equals(notification.getType()))
+				return;
+			CompositeData gcInfo= (CompositeData) ((CompositeData) notification.getUserData()).get("gcInfo");
+			TabularData usageBeforeGc= (TabularData) gcInfo.get("memoryUsageBeforeGc");
+			long used= 0;
+			for (Object row : usageBeforeGc.values()) {
+				CompositeData entry= (CompositeData) row;
+				if (fHeapPools.contains(entry.get("key")))
+					used+= MemoryUsage.from((CompositeData) entry.get("value")).getUsed();
+			}
+			updatePeakHeap(used);
+		}
+
+		private synchronized void updatePeakHeap(long used) {
+			fPeakHeap= Math.max(fPeakHeap, used);
+		}
+
+		/**
+		 * Runs a phase and records its elapsed time.
+		 *
+		 * @param name the name of the phase
+		 * @param phase the phase
+		 * @return the result of the phase
+		 * @throws Exception if the phase fails
+		 */
+		public <T> T measure(String name, Phase<T> phase) throws Exception {
+			long start= System.nanoTime();
+			try {
+				return phase.run();
+			} finally {
+				fPhases.put(name, Long.valueOf((System.nanoTime() - start) / 1000000));
+			}
+		}
+
+		/**
+		 * Records the elapsed time of a phase which is not run by {@link #measure(String, Phase)},
+		 * e.g. because it is part of other phases.
+		 *
+		 * @param name the name of the phase
+		 * @param millis the elapsed time in milliseconds
+		 */
+		public void setPhase(String name, long millis) {
+			fPhases.put(name, Long.valueOf(millis));
+		}
+
+		/**
+		 * Records an additional value of the run, e.g. the number of search matches.
+		 *
+		 * @param name the name of the value
+		 * @param value the value, a {@link Number} or a {@link String}
+		 */
+		public void set(String name, Object value) {
+			fValues.put(name, value);
+		}
+
+		void finish() {
+			updatePeakHeap(getHeapUsage());
+		}
+
+		/**
+		 * Stops listening to the garbage collections. Must be called when the run is over,
+		 * whether it has been finished or has failed.
+		 */
+		public void dispose() {
+			for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+				if (collector instanceof NotificationEmitter) {
+					try {
+						((NotificationEmitter) collector).removeNotificationListener(this);
+					} catch (ListenerNotFoundException e) {
+						// not registered, or already removed
+					}
+				}
+			}
+		}
+
+		private synchronized long getPeakHeap() {
+			return fPeakHeap;
+		}
+
+		void appendTo(StringBuilder buf) {
+			buf.append("\t\t{\n");
+			buf.append("\t\t\t\"refactoring\": ").append(quote(fName)).append(",\n");
+			buf.append("\t\t\t\"projects\": ").append(fWorkspace.getProjectCount()).append(",\n");
+			buf.append("\t\t\t\"packagesPerProject\": ").append(fWorkspace.getPackageCount()).append(",\n");
+			buf.append("\t\t\t\"unitsPerPackage\": ").append(fWorkspace.getUnitCount()).append(",\n");
+			buf.append("\t\t\t\"referencesPerUnit\": ").append(fWorkspace.getReferenceCount()).append(",\n");
+			buf.append("\t\t\t\"units\": ").append(fWorkspace.getTotalUnitCount()).append(",\n");
+			for (Map.Entry<String, Object> entry : fValues.entrySet()) {
+				Object value= entry.getValue();
+				buf.append("\t\t\t").append(quote(entry.getKey())).append(": ");
+				buf.append(value instanceof Number ? value.toString() : quote(String.valueOf(value))).append(",\n");
+			}
+			buf.append("\t\t\t\"phases\": {");
+			boolean first= true;
+			for (Map.Entry<String, Long> entry : fPhases.entrySet()) {
+				if (!first)
+					buf.append(',');
+				buf.append("\n\t\t\t\t").append(quote(entry.getKey())).append(": ").append(entry.getValue());
+				first= false;
+			}
+			buf.append("\n\t\t\t},\n");
+			buf.append("\t\t\t\"peakHeap\": ").append(getPeakHeap()).append('\n');
+			buf.append("\t\t}");
+		}
+	}
+
+	private final List<Run> fRuns= new ArrayList<>();
+
+	public Run startRun(String name, SyntheticWorkspace workspace) {
+		return new Run(name, workspace);
+	}
+
+	public void finishRun(Run run) {
+		run.finish();
+		fRuns.add(run);
+	}
+
+	public String toJSON() {
+		StringBuilder buf= new StringBuilder();
+		buf.append("{\n\t\"runs\": [");
+		for (int i= 0; i < fRuns.size(); i++) {
+			buf.append(i == 0 ? "\n" : ",\n");
+			fRuns.get(i).appendTo(buf);
+		}
+		buf.append("\n\t]\n}\n");
+		return buf.toString();
+	}
+
+	public void write() throws IOException {
+		String json= toJSON();
+		String output= System.getProperty(OUTPUT_PROPERTY);
+		if (output == null) {
+			System.out.print(json);
+			return;
+		}
+		try (Writer writer= new OutputStreamWriter(new FileOutputStream(output), StandardCharsets.UTF_8)) {
+			writer.write(json);
+		}
+	}
+
+	private static long getHeapUsage() {
+		return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+	}
+
+	private static String quote(String value) {
+		StringBuilder buf= new StringBuilder(value.length() + 2);
+		buf.append('"');
+		for (int i= 0; i < value.length(); i++) {
+			char ch= value.charAt(i);
+			switch (ch) {
+				case '"':
+				case '\\':
+					buf.append('\\').append(ch);
+					break;
+				case '\n':
+					buf.append("\\n");
+					break;
+				case '\t':
+					buf.append("\\t");
+					break;
+				default:
+					if (ch < 0x20)
+						buf.append(String.format("\\u%04x", Integer.valueOf(ch)));
+					else
+						buf.append(ch);
+			}
+		}
+		return buf.append('"').toString();
+	}
+}
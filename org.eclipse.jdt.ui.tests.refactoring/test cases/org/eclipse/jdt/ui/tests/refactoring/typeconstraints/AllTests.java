@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2013 IBM Corporation and others.
+ * Copyright (c) 2000, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -24,6 +24,8 @@ public class AllTests {
 		TestSuite suite= new TestSuite(AllTests.class.getName());
 		suite.addTest(TypeConstraintTests.suite());
 		suite.addTest(TypeEnvironmentTests.suite());
+		suite.addTest(EnumeratedTypeSetTests.suite());
+		suite.addTest(ConstraintVariableWorkListTests.suite());
 	    return suite;
 	}
 }
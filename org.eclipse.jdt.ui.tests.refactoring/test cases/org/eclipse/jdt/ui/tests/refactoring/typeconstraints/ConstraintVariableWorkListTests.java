@@ -0,0 +1,115 @@
+/*******************************************************************************
+ * Copyright (c) 2020 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.ui.tests.refactoring.typeconstraints;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.jdt.internal.corext.refactoring.typeconstraints.types.TypeEnvironment;
+import org.eclipse.jdt.internal.corext.refactoring.typeconstraints2.ConstraintVariable2;
+import org.eclipse.jdt.internal.corext.refactoring.typeconstraints2.ConstraintVariableWorkList;
+import org.eclipse.jdt.internal.corext.refactoring.typeconstraints2.ImmutableTypeVariable2;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+public class ConstraintVariableWorkListTests extends TestCase {
+
+	private TypeEnvironment fTypeEnvironment;
+
+	public ConstraintVariableWorkListTests(String name) {
+		super(name);
+	}
+
+	public static Test suite() {
+		return new TestSuite(ConstraintVariableWorkListTests.class);
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		fTypeEnvironment= new TypeEnvironment();
+	}
+
+	public void testFirstInFirstOut() throws Exception {
+		ConstraintVariableWorkList workList= new ConstraintVariableWorkList();
+		ConstraintVariable2 a= new ImmutableTypeVariable2(fTypeEnvironment.INT);
+		ConstraintVariable2 b= new ImmutableTypeVariable2(fTypeEnvironment.CHAR);
+		ConstraintVariable2 c= new ImmutableTypeVariable2(fTypeEnvironment.LONG);
+
+		workList.addAll(new ConstraintVariable2[] { a, b });
+		workList.add(c);
+		assertEquals(3, workList.size());
+		assertSame(a, workList.removeFirst());
+		assertSame(b, workList.removeFirst());
+		assertSame(c, workList.removeFirst());
+		assertTrue(workList.isEmpty());
+	}
+
+	public void testQueuedOnce() throws Exception {
+		ConstraintVariableWorkList workList= new ConstraintVariableWorkList();
+		ConstraintVariable2 a= new ImmutableTypeVariable2(fTypeEnvironment.INT);
+		ConstraintVariable2 b= new ImmutableTypeVariable2(fTypeEnvironment.CHAR);
+
+		assertTrue(workList.add(a));
+		assertTrue(workList.add(b));
+		assertFalse(workList.add(a));
+		assertEquals(2, workList.size());
+
+		// a processed variable can be queued again
+		assertSame(a, workList.removeFirst());
+		assertTrue(workList.add(a));
+		assertSame(b, workList.removeFirst());
+		assertSame(a, workList.removeFirst());
+		assertTrue(workList.isEmpty());
+	}
+
+	public void testEqualVariablesAreDistinct() throws Exception {
+		ConstraintVariableWorkList workList= new ConstraintVariableWorkList();
+		ConstraintVariable2 a= new ImmutableTypeVariable2(fTypeEnvironment.INT);
+		ConstraintVariable2 equal= new ImmutableTypeVariable2(fTypeEnvironment.INT);
+		assertEquals(a, equal);
+
+		workList.add(a);
+		workList.add(equal);
+		assertSame(a, workList.removeFirst());
+		assertSame(equal, workList.removeFirst());
+	}
+
+	public void testGrowsQueue() throws Exception {
+		ConstraintVariableWorkList workList= new ConstraintVariableWorkList();
+		List<ConstraintVariable2> variables= new ArrayList<>();
+		for (int i= 0; i < 100; i++)
+			variables.add(new ImmutableTypeVariable2(fTypeEnvironment.INT));
+
+		// wrap the ring buffer around before it grows
+		workList.addAll(variables.subList(0, 10));
+		for (int i= 0; i < 5; i++)
+			assertSame(variables.get(i), workList.removeFirst());
+		workList.addAll(variables.subList(10, 100));
+		assertEquals(95, workList.size());
+		for (int i= 5; i < 100; i++)
+			assertSame(variables.get(i), workList.removeFirst());
+		assertTrue(workList.isEmpty());
+	}
+
+	public void testRemoveFromEmpty() throws Exception {
+		try {
+			new ConstraintVariableWorkList().removeFirst();
+			fail();
+		} catch (IllegalStateException e) {
+			// expected
+		}
+	}
+}
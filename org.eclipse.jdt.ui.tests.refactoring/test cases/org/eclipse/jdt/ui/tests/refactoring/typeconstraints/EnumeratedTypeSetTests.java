@@ -0,0 +1,149 @@
+/*******************************************************************************
+ * Copyright (c) 2020 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.ui.tests.refactoring.typeconstraints;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+import org.eclipse.jdt.internal.corext.refactoring.typeconstraints.types.TType;
+import org.eclipse.jdt.internal.corext.refactoring.typeconstraints.types.TypeEnvironment;
+import org.eclipse.jdt.internal.corext.refactoring.typeconstraints.typesets.EnumeratedTypeSet;
+import org.eclipse.jdt.internal.corext.refactoring.typeconstraints.typesets.SingletonTypeSet;
+import org.eclipse.jdt.internal.corext.refactoring.typeconstraints.typesets.TypeSetEnvironment;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+public class EnumeratedTypeSetTests extends TestCase {
+
+	private TypeEnvironment fTypeEnvironment;
+
+	private TypeSetEnvironment fEnvironment;
+
+	public EnumeratedTypeSetTests(String name) {
+		super(name);
+	}
+
+	public static Test suite() {
+		return new TestSuite(EnumeratedTypeSetTests.class);
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		fTypeEnvironment= new TypeEnvironment();
+		fEnvironment= new TypeSetEnvironment(fTypeEnvironment);
+	}
+
+	private EnumeratedTypeSet createSet(TypeSetEnvironment environment, TType... types) {
+		return new EnumeratedTypeSet(Arrays.asList(types).iterator(), environment);
+	}
+
+	private static List<TType> getMembers(EnumeratedTypeSet set) {
+		List<TType> result= new ArrayList<>();
+		for (Iterator<TType> iter= set.iterator(); iter.hasNext();)
+			result.add(iter.next());
+		return result;
+	}
+
+	public void testInsertionOrder() throws Exception {
+		// the ids are given in the order INT, CHAR, LONG
+		createSet(fEnvironment, fTypeEnvironment.INT, fTypeEnvironment.CHAR, fTypeEnvironment.LONG);
+
+		EnumeratedTypeSet set= createSet(fEnvironment, fTypeEnvironment.LONG, fTypeEnvironment.INT, fTypeEnvironment.CHAR);
+		assertEquals(Arrays.asList(fTypeEnvironment.LONG, fTypeEnvironment.INT, fTypeEnvironment.CHAR), getMembers(set));
+		assertSame(fTypeEnvironment.LONG, set.anyMember());
+		assertEquals(Arrays.asList(set.toArray()), getMembers(set));
+
+		set.remove(fTypeEnvironment.INT);
+		set.add(fTypeEnvironment.INT);
+		assertEquals(Arrays.asList(fTypeEnvironment.LONG, fTypeEnvironment.CHAR, fTypeEnvironment.INT), getMembers(set));
+	}
+
+	public void testAddAll() throws Exception {
+		EnumeratedTypeSet set= createSet(fEnvironment, fTypeEnvironment.CHAR, fTypeEnvironment.INT);
+
+		assertTrue(set.addAll(createSet(fEnvironment, fTypeEnvironment.LONG, fTypeEnvironment.INT, fTypeEnvironment.BYTE)));
+		assertEquals(Arrays.asList(fTypeEnvironment.CHAR, fTypeEnvironment.INT, fTypeEnvironment.LONG, fTypeEnvironment.BYTE), getMembers(set));
+		assertFalse(set.addAll(createSet(fEnvironment, fTypeEnvironment.INT)));
+		assertEquals(4, set.size());
+	}
+
+	public void testRetainAllAndRemoveAll() throws Exception {
+		EnumeratedTypeSet set= createSet(fEnvironment, fTypeEnvironment.LONG, fTypeEnvironment.CHAR, fTypeEnvironment.INT, fTypeEnvironment.BYTE);
+
+		assertTrue(set.retainAll(createSet(fEnvironment, fTypeEnvironment.INT, fTypeEnvironment.LONG, fTypeEnvironment.BYTE)));
+		assertEquals(Arrays.asList(fTypeEnvironment.LONG, fTypeEnvironment.INT, fTypeEnvironment.BYTE), getMembers(set));
+		assertFalse(set.retainAll(createSet(fEnvironment, fTypeEnvironment.INT, fTypeEnvironment.LONG, fTypeEnvironment.BYTE)));
+
+		assertTrue(set.removeAll(createSet(fEnvironment, fTypeEnvironment.INT, fTypeEnvironment.SHORT)));
+		assertEquals(Arrays.asList(fTypeEnvironment.LONG, fTypeEnvironment.BYTE), getMembers(set));
+		assertFalse(set.removeAll(createSet(fEnvironment, fTypeEnvironment.SHORT)));
+	}
+
+	public void testContains() throws Exception {
+		EnumeratedTypeSet set= createSet(fEnvironment, fTypeEnvironment.INT, fTypeEnvironment.CHAR);
+
+		assertTrue(set.contains(fTypeEnvironment.INT));
+		assertFalse(set.contains(fTypeEnvironment.LONG));
+		assertTrue(set.containsAll(createSet(fEnvironment, fTypeEnvironment.CHAR)));
+		assertFalse(set.containsAll(createSet(fEnvironment, fTypeEnvironment.CHAR, fTypeEnvironment.LONG)));
+	}
+
+	public void testIteratorRemove() throws Exception {
+		EnumeratedTypeSet set= createSet(fEnvironment, fTypeEnvironment.LONG, fTypeEnvironment.INT, fTypeEnvironment.CHAR);
+
+		for (Iterator<TType> iter= set.iterator(); iter.hasNext();) {
+			if (iter.next() == fTypeEnvironment.INT)
+				iter.remove();
+		}
+		assertEquals(Arrays.asList(fTypeEnvironment.LONG, fTypeEnvironment.CHAR), getMembers(set));
+		assertFalse(set.contains(fTypeEnvironment.INT));
+	}
+
+	public void testEqualsAndHashCode() throws Exception {
+		EnumeratedTypeSet set= createSet(fEnvironment, fTypeEnvironment.INT, fTypeEnvironment.CHAR);
+		EnumeratedTypeSet reordered= createSet(fEnvironment, fTypeEnvironment.CHAR, fTypeEnvironment.INT);
+		assertEquals(set, reordered);
+		assertEquals(set.hashCode(), reordered.hashCode());
+		assertFalse(set.equals(createSet(fEnvironment, fTypeEnvironment.INT)));
+
+		// the other environment numbers the types differently
+		TypeSetEnvironment other= new TypeSetEnvironment(fTypeEnvironment);
+		createSet(other, fTypeEnvironment.LONG);
+		EnumeratedTypeSet otherSet= createSet(other, fTypeEnvironment.CHAR, fTypeEnvironment.INT);
+		assertEquals(set, otherSet);
+		assertEquals(otherSet, set);
+		assertEquals(set.hashCode(), otherSet.hashCode());
+
+		SingletonTypeSet singleton= new SingletonTypeSet(fTypeEnvironment.INT, fEnvironment);
+		EnumeratedTypeSet single= createSet(fEnvironment, fTypeEnvironment.INT);
+		assertEquals(single, singleton);
+	}
+
+	public void testOtherEnvironment() throws Exception {
+		TypeSetEnvironment other= new TypeSetEnvironment(fTypeEnvironment);
+		createSet(other, fTypeEnvironment.BYTE, fTypeEnvironment.SHORT);
+
+		EnumeratedTypeSet set= createSet(fEnvironment, fTypeEnvironment.INT);
+		set.addAll(createSet(other, fTypeEnvironment.CHAR, fTypeEnvironment.BYTE));
+		assertEquals(Arrays.asList(fTypeEnvironment.INT, fTypeEnvironment.CHAR, fTypeEnvironment.BYTE), getMembers(set));
+		assertTrue(set.containsAll(createSet(other, fTypeEnvironment.BYTE, fTypeEnvironment.INT)));
+
+		set.retainAll(createSet(other, fTypeEnvironment.BYTE, fTypeEnvironment.INT));
+		assertEquals(Arrays.asList(fTypeEnvironment.INT, fTypeEnvironment.BYTE), getMembers(set));
+	}
+}
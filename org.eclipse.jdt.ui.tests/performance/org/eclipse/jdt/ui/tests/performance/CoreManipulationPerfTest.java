@@ -0,0 +1,265 @@
+/*******************************************************************************
+ * Copyright (c) 2020 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.ui.tests.performance;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.extensions.TestSetup;
+import junit.framework.Test;
+
+import org.eclipse.jdt.testplugin.JavaProjectHelper;
+import org.eclipse.jdt.testplugin.JavaTestPlugin;
+import org.eclipse.test.OrderedTestSuite;
+import org.eclipse.test.performance.Performance;
+import org.eclipse.test.performance.PerformanceMeter;
+
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IPackageFragment;
+import org.eclipse.jdt.core.IPackageFragmentRoot;
+import org.eclipse.jdt.core.JavaModelException;
+import org.eclipse.jdt.core.dom.ASTNode;
+import org.eclipse.jdt.core.dom.ASTParser;
+import org.eclipse.jdt.core.dom.ASTRequestor;
+import org.eclipse.jdt.core.dom.ASTVisitor;
+import org.eclipse.jdt.core.dom.BodyDeclaration;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.eclipse.jdt.core.dom.IMethodBinding;
+import org.eclipse.jdt.core.dom.MethodDeclaration;
+import org.eclipse.jdt.core.dom.SimpleName;
+import org.eclipse.jdt.core.dom.Statement;
+
+import org.eclipse.jdt.internal.corext.dom.ASTFlattener;
+import org.eclipse.jdt.internal.corext.dom.ASTNodes;
+import org.eclipse.jdt.internal.corext.dom.Bindings;
+import org.eclipse.jdt.internal.corext.dom.IASTSharedValues;
+import org.eclipse.jdt.internal.corext.dom.LocalVariableIndex;
+import org.eclipse.jdt.internal.corext.dom.ScopeAnalyzer;
+import org.eclipse.jdt.internal.corext.dom.Selection;
+import org.eclipse.jdt.internal.corext.fix.CodeStyleFixCore;
+import org.eclipse.jdt.internal.corext.refactoring.code.flow.FlowContext;
+import org.eclipse.jdt.internal.corext.refactoring.code.flow.InOutFlowAnalyzer;
+import org.eclipse.jdt.internal.corext.refactoring.code.flow.InputFlowAnalyzer;
+
+/**
+ * Measures the hot paths of <code>org.eclipse.jdt.core.manipulation</code> on the ASTs of a fixed
+ * corpus. The tests neither open editors nor views, the ASTs are created once per suite and each
+ * test only measures the analysis under test. The tests do not need a workbench and are run in the
+ * headless test application by the <code>performance</code> target of <code>test.xml</code>.
+ */
+public class CoreManipulationPerfTest extends JdtPerformanceTestCase {
+
+	private static final int WARM_UP_RUNS= 3;
+
+	private static final int MEASURED_RUNS= 10;
+
+	private static class MyTestSetup extends TestSetup {
+		public static final String SRC_CONTAINER= "src";
+
+		public static IJavaProject fJProject1;
+
+		public static CompilationUnit[] fRoots;
+
+		public MyTestSetup(Test test) {
+			super(test);
+		}
+
+		@Override
+		protected void setUp() throws Exception {
+			fJProject1= JavaProjectHelper.createJavaProject("TestProject1", "bin");
+			assertTrue("rt not found", JavaProjectHelper.addRTJar(fJProject1) != null);
+			File junitSrcArchive= JavaTestPlugin.getDefault().getFileInPlugin(JavaProjectHelper.JUNIT_SRC_381);
+			JavaProjectHelper.addSourceContainerWithImport(fJProject1, SRC_CONTAINER, junitSrcArchive, JavaProjectHelper.JUNIT_SRC_ENCODING);
+			fRoots= createASTs(fJProject1);
+		}
+
+		@Override
+		protected void tearDown() throws Exception {
+			fRoots= null;
+			if (fJProject1 != null && fJProject1.exists())
+				JavaProjectHelper.delete(fJProject1);
+		}
+	}
+
+	private static class NodeCollector extends ASTVisitor {
+
+		final List<SimpleName> fNames= new ArrayList<>();
+
+		final List<MethodDeclaration> fMethods= new ArrayList<>();
+
+		@Override
+		public boolean visit(SimpleName node) {
+			fNames.add(node);
+			return false;
+		}
+
+		@Override
+		public boolean visit(MethodDeclaration node) {
+			fMethods.add(node);
+			return true;
+		}
+	}
+
+	public static Test suite() {
+		return new MyTestSetup(new OrderedTestSuite(CoreManipulationPerfTest.class, new String[] {
+			"testASTNodes",
+			"testBindings",
+			"testScopeAnalyzer",
+			"testFlowAnalyzer",
+			"testASTFlattener",
+			"testCodeStyleFixCore",
+		}));
+	}
+
+	public static Test setUpTest(Test someTest) {
+		return new MyTestSetup(someTest);
+	}
+
+	private static void addAllCUs(IJavaElement[] children, List<ICompilationUnit> result) throws JavaModelException {
+		for (IJavaElement element : children) {
+			if (element instanceof ICompilationUnit) {
+				result.add((ICompilationUnit) element);
+			} else if (element instanceof IPackageFragmentRoot) {
+				IPackageFragmentRoot root= ((IPackageFragmentRoot) element);
+				addAllCUs(root.getChildren(), result);
+			} else if (element instanceof IPackageFragment) {
+				IPackageFragment pack= ((IPackageFragment) element);
+				addAllCUs(pack.getChildren(), result);
+			}
+		}
+	}
+
+	private static CompilationUnit[] createASTs(IJavaProject project) throws JavaModelException {
+		List<ICompilationUnit> cus= new ArrayList<>();
+		addAllCUs(project.getChildren(), cus);
+		final List<CompilationUnit> result= new ArrayList<>();
+		ASTParser parser= ASTParser.newParser(IASTSharedValues.SHARED_AST_LEVEL);
+		parser.setProject(project);
+		parser.setResolveBindings(true);
+		parser.createASTs(cus.toArray(new ICompilationUnit[cus.size()]), new String[0], new ASTRequestor() {
+			@Override
+			public void acceptAST(ICompilationUnit source, CompilationUnit ast) {
+				result.add(ast);
+			}
+		}, null);
+		return result.toArray(new CompilationUnit[result.size()]);
+	}
+
+	private static NodeCollector collectNodes() {
+		NodeCollector collector= new NodeCollector();
+		for (CompilationUnit root : MyTestSetup.fRoots) {
+			root.accept(collector);
+		}
+		return collector;
+	}
+
+	private interface Analysis {
+		void run(NodeCollector nodes);
+	}
+
+	private void measure(Analysis analysis) throws Exception {
+		NodeCollector nodes= collectNodes();
+		joinBackgroudActivities();
+
+		measure(Performance.getDefault().getNullPerformanceMeter(), analysis, nodes, WARM_UP_RUNS);
+		measure(fPerformanceMeter, analysis, nodes, MEASURED_RUNS);
+
+		commitMeasurements();
+		Performance.getDefault().assertPerformance(fPerformanceMeter);
+	}
+
+	private static void measure(PerformanceMeter performanceMeter, Analysis analysis, NodeCollector nodes, int runs) {
+		for (int i= 0; i < runs; i++) {
+			performanceMeter.start();
+			analysis.run(nodes);
+			performanceMeter.stop();
+		}
+	}
+
+	public void testASTNodes() throws Exception {
+		measure(nodes -> {
+			for (SimpleName name : nodes.fNames) {
+				ASTNodes.getParent(name, BodyDeclaration.class);
+				ASTNodes.getNormalizedNode(name);
+				ASTNodes.getEnclosingType(name);
+			}
+		});
+	}
+
+	public void testBindings() throws Exception {
+		measure(nodes -> {
+			for (MethodDeclaration method : nodes.fMethods) {
+				IMethodBinding binding= method.resolveBinding();
+				if (binding != null) {
+					Bindings.findOverriddenMethod(binding, true);
+					Bindings.asString(binding);
+				}
+			}
+		});
+	}
+
+	public void testScopeAnalyzer() throws Exception {
+		measure(nodes -> {
+			int flags= ScopeAnalyzer.METHODS | ScopeAnalyzer.VARIABLES | ScopeAnalyzer.TYPES | ScopeAnalyzer.CHECK_VISIBILITY;
+			for (MethodDeclaration method : nodes.fMethods) {
+				if (method.getBody() != null) {
+					ScopeAnalyzer analyzer= new ScopeAnalyzer((CompilationUnit) method.getRoot());
+					analyzer.getDeclarationsInScope(method.getBody().getStartPosition() + 1, flags);
+				}
+			}
+		});
+	}
+
+	public void testFlowAnalyzer() throws Exception {
+		// analyzes the first statement of each method body the way ExtractMethodAnalyzer does
+		measure(nodes -> {
+			for (MethodDeclaration method : nodes.fMethods) {
+				if (method.getBody() == null || method.getBody().statements().isEmpty())
+					continue;
+				Statement statement= (Statement) method.getBody().statements().get(0);
+				Selection selection= Selection.createFromStartLength(statement.getStartPosition(), statement.getLength());
+				int maxVariableId= LocalVariableIndex.perform(method);
+
+				FlowContext inputContext= new FlowContext(0, maxVariableId + 1);
+				inputContext.setConsiderAccessMode(true);
+				inputContext.setComputeMode(FlowContext.ARGUMENTS);
+				new InOutFlowAnalyzer(inputContext).perform(new ASTNode[] { statement });
+
+				FlowContext flowContext= new FlowContext(0, maxVariableId + 1);
+				flowContext.setConsiderAccessMode(true);
+				flowContext.setComputeMode(FlowContext.ARGUMENTS);
+				new InputFlowAnalyzer(flowContext, selection, true).perform(method);
+			}
+		});
+	}
+
+	public void testASTFlattener() throws Exception {
+		measure(nodes -> {
+			for (CompilationUnit root : MyTestSetup.fRoots) {
+				ASTFlattener.asString(root);
+			}
+		});
+	}
+
+	public void testCodeStyleFixCore() throws Exception {
+		measure(nodes -> {
+			for (CompilationUnit root : MyTestSetup.fRoots) {
+				CodeStyleFixCore.createCleanUp(root, true, true, true, true, true, true, false, false);
+			}
+		});
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2008 IBM Corporation and others.
+ * Copyright (c) 2000, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -93,6 +93,8 @@ public class JdtPerformanceTestCase extends PerformanceTestCase {
 	}
 
 	private static void runEventQueue() {
+		if (!PlatformUI.isWorkbenchRunning())
+			return; // headless
 		IWorkbenchWindow window= PlatformUI.getWorkbench().getActiveWorkbenchWindow();
 		if (window != null)
 			runEventQueue(window.getShell());
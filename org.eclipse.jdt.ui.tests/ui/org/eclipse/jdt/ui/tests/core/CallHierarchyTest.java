@@ -455,6 +455,38 @@ public class CallHierarchyTest extends TestCase {
         assertEquals("Wrong line number", 12, recursiveMethod2Wrapper.getMethodCall().getFirstCallLocation().getLineNumber());
     }
 
+    public void testPrefetchCallers() throws Exception {
+        helper.createSimpleClasses();
+
+        MethodWrapper[] roots= CallHierarchy.getDefault().getCallerRoots(new IMember[] { helper.getMethod1(), helper.getMethod2(), helper.getMethod3() });
+        MethodWrapper.prefetchCalls(roots, new NullProgressMonitor());
+
+        Collection<IMember> expectedCallersOf1= new ArrayList<>();
+        expectedCallersOf1.add(helper.getMethod2());
+        expectedCallersOf1.add(helper.getMethod3());
+        helper.assertCalls(expectedCallersOf1, roots[0].getCalls(new NullProgressMonitor()));
+
+        Collection<IMember> expectedCallersOf2= new ArrayList<>();
+        expectedCallersOf2.add(helper.getMethod3());
+        helper.assertCalls(expectedCallersOf2, roots[1].getCalls(new NullProgressMonitor()));
+
+        Collection<IMember> expectedCallersOf3= new ArrayList<>();
+        expectedCallersOf3.add(helper.getMethod4());
+        helper.assertCalls(expectedCallersOf3, roots[2].getCalls(new NullProgressMonitor()));
+    }
+
+    public void testCacheInvalidatedByChange() throws Exception {
+        helper.createSimpleClasses();
+
+        Collection<IMember> expectedMethods= new ArrayList<>();
+        expectedMethods.add(helper.getMethod3());
+        helper.assertCalls(expectedMethods, getSingleCallerRoot(helper.getMethod4()).getCalls(new NullProgressMonitor()));
+
+        IMethod method5= helper.getType2().createMethod("public void method5() { method4(); }\n", null, true, null);
+        expectedMethods.add(method5);
+        helper.assertCalls(expectedMethods, getSingleCallerRoot(helper.getMethod4()).getCalls(new NullProgressMonitor()));
+    }
+
     private void assertRecursive(MethodWrapper[] callResults, boolean shouldBeRecursive) {
     	for (MethodWrapper callResult : callResults) {
     		assertEquals("Wrong recursive value: " + callResult.getName(), shouldBeRecursive, callResult.isRecursive());
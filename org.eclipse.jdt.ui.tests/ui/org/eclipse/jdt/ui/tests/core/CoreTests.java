@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2018 IBM Corporation and others.
+ * Copyright (c) 2000, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -61,9 +61,11 @@ public class CoreTests extends TestCase {
 		suite.addTest(NameProposerTest.suite());
 		suite.addTest(OverrideTest.suite());
 		suite.addTest(PartialASTTest.suite());
+		suite.addTest(ProjectPreferenceCacheTest.suite());
 		suite.addTest(ScopeAnalyzerTest.suite());
 		suite.addTest(TemplateStoreTest.suite());
 		suite.addTest(TypeHierarchyTest.suite());
+		suite.addTest(TypeHierarchyLifeCycleTest.suite());
 		suite.addTest(TypeRulesTest.suite());
 		suite.addTest(TypeInfoTest.suite());
 		suite.addTest(StringsTest.suite());
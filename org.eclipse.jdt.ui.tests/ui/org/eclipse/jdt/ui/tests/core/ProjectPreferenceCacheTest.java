@@ -0,0 +1,135 @@
+/*******************************************************************************
+ * Copyright (c) 2020 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.ui.tests.core;
+
+import java.util.Map;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+import org.eclipse.jdt.testplugin.JavaProjectHelper;
+
+import org.eclipse.core.runtime.preferences.IEclipsePreferences;
+
+import org.eclipse.core.resources.ProjectScope;
+
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.manipulation.JavaManipulation;
+
+import org.eclipse.jdt.internal.core.manipulation.ProjectPreferenceCache;
+import org.eclipse.jdt.internal.core.manipulation.StubUtility;
+import org.eclipse.jdt.internal.corext.refactoring.util.RefactoringASTParser;
+
+public class ProjectPreferenceCacheTest extends CoreTests {
+
+	private static final Class<ProjectPreferenceCacheTest> THIS= ProjectPreferenceCacheTest.class;
+
+	private IJavaProject fJProject1;
+
+	public ProjectPreferenceCacheTest(String name) {
+		super(name);
+	}
+
+	public static Test suite() {
+		return setUpTest(new TestSuite(THIS));
+	}
+
+	public static Test setUpTest(Test test) {
+		return new ProjectTestSetup(test);
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		fJProject1= JavaProjectHelper.createJavaProject("TestProject1", "bin");
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		JavaProjectHelper.delete(fJProject1);
+	}
+
+	public void testOptionsAreNotCopiedPerLookup() throws Exception {
+		ProjectPreferenceCache cache= ProjectPreferenceCache.getInstance();
+		cache.getOptions(fJProject1);
+		long copies= cache.getOptionMapCopies();
+		int lookups= 100;
+		for (int i= 0; i < lookups; i++) {
+			RefactoringASTParser.getCompilerOptions(fJProject1);
+			StubUtility.hasFieldName(fJProject1, "xyzField");
+			StubUtility.getTodoTaskTag(fJProject1);
+		}
+		// a preference change by a background job may discard the snapshot, but the lookups do not copy the options
+		assertTrue(cache.getOptionMapCopies() - copies <= 2);
+		assertEquals(fJProject1.getOptions(true), cache.getOptions(fJProject1));
+	}
+
+	public void testCompilerOptions() throws Exception {
+		Map<String, String> options= RefactoringASTParser.getCompilerOptions(fJProject1);
+		assertEquals(JavaCore.IGNORE, options.get(JavaCore.COMPILER_PB_UNUSED_LOCAL));
+		assertEquals("", options.get(JavaCore.COMPILER_TASK_TAGS));
+
+		// the returned options belong to the caller
+		options.put(JavaCore.COMPILER_TASK_TAGS, "TODO");
+		assertEquals("", RefactoringASTParser.getCompilerOptions(fJProject1).get(JavaCore.COMPILER_TASK_TAGS));
+	}
+
+	public void testProjectOptionChange() throws Exception {
+		assertFalse(StubUtility.hasFieldName(fJProject1, "xyzField"));
+
+		fJProject1.setOption(JavaCore.CODEASSIST_FIELD_PREFIXES, "xyz");
+		assertTrue(StubUtility.hasFieldName(fJProject1, "xyzField"));
+
+		fJProject1.setOption(JavaCore.CODEASSIST_FIELD_PREFIXES, null);
+		assertFalse(StubUtility.hasFieldName(fJProject1, "xyzField"));
+	}
+
+	public void testProjectPreferenceChange() throws Exception {
+		String key= StubUtility.CODEGEN_EXCEPTION_VAR_NAME;
+		String workspaceValue= JavaManipulation.getPreference(key, null);
+		assertEquals(workspaceValue, JavaManipulation.getPreference(key, fJProject1));
+
+		IEclipsePreferences node= new ProjectScope(fJProject1.getProject()).getNode(JavaManipulation.getPreferenceNodeId());
+		node.put(key, "ex");
+		try {
+			assertEquals("ex", JavaManipulation.getPreference(key, fJProject1));
+			assertEquals(workspaceValue, JavaManipulation.getPreference(key, null));
+		} finally {
+			node.remove(key);
+		}
+		assertEquals(workspaceValue, JavaManipulation.getPreference(key, fJProject1));
+	}
+
+	public void testDeletedProject() throws Exception {
+		fJProject1.setOption(JavaCore.CODEASSIST_FIELD_PREFIXES, "xyz");
+		assertTrue(StubUtility.hasFieldName(fJProject1, "xyzField"));
+
+		JavaProjectHelper.delete(fJProject1);
+		fJProject1= JavaProjectHelper.createJavaProject("TestProject1", "bin");
+		assertFalse(StubUtility.hasFieldName(fJProject1, "xyzField"));
+	}
+
+	public void testDeletedProjectNodeIsReleased() throws Exception {
+		ProjectPreferenceCache cache= ProjectPreferenceCache.getInstance();
+		cache.getOptions(fJProject1);
+		IEclipsePreferences node= new ProjectScope(fJProject1.getProject()).getNode(JavaCore.PLUGIN_ID);
+		assertTrue(cache.isListening(node));
+
+		JavaProjectHelper.delete(fJProject1);
+		fJProject1= JavaProjectHelper.createJavaProject("TestProject1", "bin");
+		cache.getOptions(fJProject1);
+		assertFalse(cache.isListening(node));
+		assertTrue(cache.isListening(new ProjectScope(fJProject1.getProject()).getNode(JavaCore.PLUGIN_ID)));
+	}
+}
@@ -0,0 +1,143 @@
+/*******************************************************************************
+ * Copyright (c) 2020 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.ui.tests.core;
+
+import org.eclipse.jdt.testplugin.JavaProjectHelper;
+
+import org.eclipse.core.runtime.NullProgressMonitor;
+
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IMethod;
+import org.eclipse.jdt.core.IPackageFragment;
+import org.eclipse.jdt.core.IPackageFragmentRoot;
+import org.eclipse.jdt.core.IType;
+
+import org.eclipse.jdt.internal.ui.typehierarchy.ITypeHierarchyLifeCycleListener;
+import org.eclipse.jdt.internal.ui.typehierarchy.TypeHierarchyLifeCycle;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Tests which Java element deltas make {@link TypeHierarchyLifeCycle} refresh the whole hierarchy.
+ */
+public class TypeHierarchyLifeCycleTest extends TestCase {
+
+	private static final Class<TypeHierarchyLifeCycleTest> THIS= TypeHierarchyLifeCycleTest.class;
+
+	private IJavaProject fJavaProject;
+	private IPackageFragment fPackage;
+	private IType fTypeA;
+	private IType fTypeB;
+	private TypeHierarchyLifeCycle fLifeCycle;
+	private int fRefreshCount;
+
+	public TypeHierarchyLifeCycleTest(String name) {
+		super(name);
+	}
+
+	public static Test suite() {
+		return setUpTest(new TestSuite(THIS));
+	}
+
+	public static Test setUpTest(Test test) {
+		return new ProjectTestSetup(test);
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		fJavaProject= ProjectTestSetup.getProject();
+		IPackageFragmentRoot root= JavaProjectHelper.addSourceContainer(fJavaProject, "src");
+		fPackage= root.createPackageFragment("pack", true, null);
+		fTypeA= fPackage.getCompilationUnit("A.java").createType("public class A {\n}\n", null, true, null);
+		fTypeB= fPackage.getCompilationUnit("B.java").createType("public class B extends A {\n}\n", null, true, null);
+		fPackage.getCompilationUnit("C.java").createType("public class C {\n}\n", null, true, null);
+
+		fRefreshCount= 0;
+		fLifeCycle= new TypeHierarchyLifeCycle(false);
+		fLifeCycle.addChangedListener(new ITypeHierarchyLifeCycleListener() {
+			@Override
+			public void typeHierarchyChanged(TypeHierarchyLifeCycle typeHierarchyProvider, IType[] changedTypes) {
+				if (changedTypes == null)
+					fRefreshCount++;
+			}
+		});
+		fLifeCycle.doHierarchyRefresh(new IJavaElement[] { fTypeA }, new NullProgressMonitor());
+		assertTrue(fLifeCycle.getHierarchy().contains(fTypeB));
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		fLifeCycle.freeHierarchy();
+		JavaProjectHelper.clear(fJavaProject, ProjectTestSetup.getDefaultClasspath());
+	}
+
+	private void setContents(ICompilationUnit cu, String contents) throws Exception {
+		ICompilationUnit wc= cu.getWorkingCopy(null);
+		try {
+			wc.getBuffer().setContents(contents);
+			wc.reconcile(ICompilationUnit.NO_AST, false, null, null);
+			wc.commitWorkingCopy(true, null);
+		} finally {
+			wc.discardWorkingCopy();
+		}
+	}
+
+	public void testAddMethodSkipsRefresh() throws Exception {
+		fTypeB.createMethod("public void foo() {\n}\n", null, true, null);
+		assertEquals(0, fRefreshCount);
+	}
+
+	public void testDeleteMethodSkipsRefresh() throws Exception {
+		IMethod method= fTypeB.createMethod("public void foo() {\n}\n", null, true, null);
+		method.delete(true, null);
+		assertEquals(0, fRefreshCount);
+	}
+
+	public void testChangeMethodBodySkipsRefresh() throws Exception {
+		fTypeB.createMethod("public int foo() {\n\treturn 1;\n}\n", null, true, null);
+		setContents(fTypeB.getCompilationUnit(), "package pack;\npublic class B extends A {\n\tpublic int foo() {\n\t\treturn 2;\n\t}\n}\n");
+		assertEquals(0, fRefreshCount);
+	}
+
+	public void testChangeSuperTypeRefreshes() throws Exception {
+		setContents(fTypeB.getCompilationUnit(), "package pack;\npublic class B extends C {\n}\n");
+		assertEquals(1, fRefreshCount);
+	}
+
+	public void testChangeSuperTypeAfterMethodBodyRefreshes() throws Exception {
+		setContents(fTypeB.getCompilationUnit(), "package pack;\npublic class B extends A {\n\tvoid foo() {\n\t}\n}\n");
+		assertEquals(0, fRefreshCount);
+		// the hierarchy no longer reports changes, the life cycle must still detect the new super type
+		ICompilationUnit cuC= fPackage.getCompilationUnit("C.java");
+		setContents(cuC, "package pack;\npublic class C extends A {\n}\n");
+		assertEquals(1, fRefreshCount);
+
+		fLifeCycle.doHierarchyRefresh(new IJavaElement[] { fTypeA }, new NullProgressMonitor());
+		assertEquals(fTypeA, fLifeCycle.getHierarchy().getSuperclass(cuC.getType("C")));
+	}
+
+	public void testAddLocalTypeRefreshes() throws Exception {
+		setContents(fTypeB.getCompilationUnit(), "package pack;\npublic class B extends A {\n\tvoid foo() {\n\t\tclass L extends A {\n\t\t}\n\t}\n}\n");
+		assertEquals(1, fRefreshCount);
+	}
+
+	public void testDeleteSubTypeRefreshes() throws Exception {
+		fTypeB.getCompilationUnit().delete(true, null);
+		assertEquals(1, fRefreshCount);
+	}
+}
@@ -17,9 +17,13 @@
  *******************************************************************************/
 package org.eclipse.jdt.ui.tests.quickfix;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
+import java.io.File;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Hashtable;
 import java.util.Map;
@@ -50,12 +54,15 @@ import org.eclipse.jdt.core.dom.AST;
 import org.eclipse.jdt.core.dom.ASTParser;
 import org.eclipse.jdt.core.dom.ASTRequestor;
 import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.eclipse.jdt.core.formatter.CodeFormatter;
 import org.eclipse.jdt.core.formatter.DefaultCodeFormatterConstants;
 import org.eclipse.jdt.core.manipulation.CleanUpOptionsCore;
 
 import org.eclipse.jdt.internal.corext.dom.IASTSharedValues;
+import org.eclipse.jdt.internal.corext.fix.BulkCodeFormatter;
 import org.eclipse.jdt.internal.corext.fix.CleanUpConstants;
 import org.eclipse.jdt.internal.corext.refactoring.util.RefactoringASTParser;
+import org.eclipse.jdt.internal.corext.util.CodeFormatterUtil;
 
 import org.eclipse.jdt.ui.PreferenceConstants;
 import org.eclipse.jdt.ui.cleanup.CleanUpOptions;
@@ -9185,4 +9192,116 @@ public class CleanUpTest extends CleanUpTestCase {
 
 		assertRefactoringResultAsExpected(new ICompilationUnit[] {cu1}, new String[] {expected1});
 	}
+
+	@Test
+	public void testBulkCodeFormatter() throws Exception {
+		IPackageFragment pack1= fSourceFolder.createPackageFragment("test1", false, null);
+		StringBuffer buf= new StringBuffer();
+		buf.append("package test1;\n");
+		buf.append("public class E1 {\n");
+		buf.append("public void foo( ) {int i=0;}\n");
+		buf.append("}\n");
+		String original= buf.toString();
+		ICompilationUnit cu1= pack1.createCompilationUnit("E1.java", original, false, null);
+
+		buf= new StringBuffer();
+		buf.append("package test1;\n");
+		buf.append("public class E2 {\n");
+		buf.append("}\n");
+		pack1.createCompilationUnit("E2.java", buf.toString(), false, null);
+
+		ICompilationUnit[] units= pack1.getCompilationUnits();
+
+		// dry run
+		BulkCodeFormatter formatter= new BulkCodeFormatter(units, 2);
+		BulkCodeFormatter.Statistics statistics= formatter.format(null);
+		assertEquals(2, statistics.getUnits());
+		assertTrue(Arrays.asList(formatter.getChangedUnits()).contains(cu1));
+		assertEquals(original, cu1.getSource());
+
+		formatter.apply(null);
+		assertTrue(formatter.getStatus().isOK());
+		assertEquals(formatCompilationUnit(original), cu1.getSource());
+
+		// formatting is idempotent
+		formatter= new BulkCodeFormatter(units, 2);
+		statistics= formatter.format(null);
+		assertEquals(0, statistics.getChangedUnits());
+	}
+
+	@Test
+	public void testBulkCodeFormatterUnsavedBuffer() throws Exception {
+		IPackageFragment pack1= fSourceFolder.createPackageFragment("test1", false, null);
+		StringBuffer buf= new StringBuffer();
+		buf.append("package test1;\n");
+		buf.append("public class E1 {\n");
+		buf.append("}\n");
+		ICompilationUnit cu1= pack1.createCompilationUnit("E1.java", buf.toString(), false, null);
+
+		ICompilationUnit wc= cu1.getWorkingCopy(null);
+		try {
+			// an already formatted buffer is not changed
+			buf= new StringBuffer();
+			buf.append("package test1;\n");
+			buf.append("\n");
+			buf.append("public class E1 {\n");
+			buf.append("}\n");
+			String formatted= buf.toString();
+			wc.getBuffer().setContents(formatted);
+			assertTrue(wc.hasUnsavedChanges());
+
+			BulkCodeFormatter formatter= new BulkCodeFormatter(new ICompilationUnit[] { wc }, 1);
+			BulkCodeFormatter.Statistics statistics= formatter.format(null);
+			assertEquals(1, statistics.getUnits());
+			assertEquals(0, statistics.getChangedUnits());
+			assertEquals(0, formatter.getChangedUnits().length);
+
+			// a changed buffer is formatted in place
+			String unformatted= "package test1;\npublic class E1 {\npublic void foo( ) {int i=0;}\n}\n";
+			wc.getBuffer().setContents(unformatted);
+			formatter= new BulkCodeFormatter(new ICompilationUnit[] { wc }, 1);
+			statistics= formatter.format(null);
+			assertEquals(1, statistics.getChangedUnits());
+			formatter.apply(null);
+			assertTrue(formatter.getStatus().isOK());
+			assertEquals(formatCompilationUnit(unformatted), wc.getBuffer().getContents());
+		} finally {
+			wc.discardWorkingCopy();
+		}
+	}
+
+	@Test
+	public void testBulkCodeFormatterOutOfSyncFile() throws Exception {
+		IPackageFragment pack1= fSourceFolder.createPackageFragment("test1", false, null);
+		String unformatted1= "package test1;\npublic class E1 {\npublic void foo( ) {int i=0;}\n}\n";
+		ICompilationUnit cu1= pack1.createCompilationUnit("E1.java", unformatted1, false, null);
+		String unformatted2= "package test1;\npublic class E2 {\npublic void bar( ) {int j=0;}\n}\n";
+		ICompilationUnit cu2= pack1.createCompilationUnit("E2.java", unformatted2, false, null);
+
+		BulkCodeFormatter formatter= new BulkCodeFormatter(new ICompilationUnit[] { cu1, cu2 }, 2);
+		BulkCodeFormatter.Statistics statistics= formatter.format(null);
+		assertEquals(2, statistics.getChangedUnits());
+
+		// the file of E1 is changed behind the workspace's back
+		File file= cu1.getResource().getLocation().toFile();
+		long lastModified= file.lastModified();
+		assertTrue(file.delete());
+		assertTrue(file.createNewFile());
+		assertTrue(file.setLastModified(lastModified + 10000));
+		assertFalse(cu1.getResource().isSynchronized(0));
+
+		formatter.apply(null);
+		assertEquals(1, formatter.getStatus().getChildren().length);
+		assertEquals(formatCompilationUnit(unformatted2), cu2.getSource());
+
+		// a new run does not report the problems of the previous one
+		cu1.getResource().refreshLocal(0, null);
+		statistics= formatter.format(null);
+		assertEquals(0, statistics.getChangedUnits());
+		assertTrue(formatter.getStatus().isOK());
+	}
+
+	private String formatCompilationUnit(String source) {
+		return CodeFormatterUtil.format(CodeFormatter.K_COMPILATION_UNIT | CodeFormatter.F_INCLUDE_COMMENTS, source, 0, "\n", fJProject1);
+	}
 }
@@ -0,0 +1,168 @@
+/*******************************************************************************
+ * Copyright (c) 2020 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.ui.tests.search;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import org.eclipse.jdt.testplugin.JavaProjectHelper;
+
+import org.eclipse.search.ui.ISearchResultListener;
+import org.eclipse.search.ui.NewSearchUI;
+import org.eclipse.search.ui.text.Match;
+
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IMethod;
+import org.eclipse.jdt.core.IPackageFragment;
+import org.eclipse.jdt.core.IPackageFragmentRoot;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.search.SearchEngine;
+import org.eclipse.jdt.core.search.SearchMatch;
+
+import org.eclipse.jdt.ui.tests.core.rules.JUnitSourceSetup;
+
+import org.eclipse.jdt.internal.ui.search.JavaSearchResult;
+import org.eclipse.jdt.internal.ui.search.NewSearchResultCollector;
+import org.eclipse.jdt.internal.ui.search.SearchResultUpdater;
+
+/**
+ * Tests the index of the elements of a {@link JavaSearchResult} by file, the
+ * {@link SearchResultUpdater} which uses it, the notification of the listeners
+ * and the match limit of the {@link NewSearchResultCollector}.
+ */
+@RunWith(JUnit4.class)
+public class JavaSearchResultTest {
+
+	@Rule
+	public JUnitSourceSetup projectsetup = new JUnitSourceSetup();
+
+	@Test
+	public void testElementsInFile() throws Exception {
+		IMethod getName= SearchTestHelper.getMethod("junit.framework.TestCase", "getName", new String[0]);
+		IMethod assertMethod= SearchTestHelper.getMethod("junit.framework.Assert", "assertTrue", new String[] { "Z" });
+		JavaSearchResult result= new JavaSearchResult(null);
+		Match match= new Match(getName, 0, 1);
+		result.addMatch(match);
+		result.addMatch(new Match(getName, 2, 1));
+		result.addMatch(new Match(assertMethod, 0, 1));
+
+		assertEquals(Arrays.asList(getName), Arrays.asList(result.getElementsIn(getName.getCompilationUnit())));
+		assertEquals(Arrays.asList(getName), Arrays.asList(result.getElementsIn(getName)));
+		assertEquals(new HashSet<>(Arrays.asList(getName, assertMethod)), new HashSet<>(Arrays.asList(result.getElementsIn(getName.getAncestor(IJavaElement.PACKAGE_FRAGMENT)))));
+
+		// the element stays indexed until its last match is removed
+		result.removeMatch(match);
+		assertEquals(1, result.getElementsIn(getName.getCompilationUnit()).length);
+		result.removeMatches(result.getMatches(getName));
+		assertEquals(0, result.getElementsIn(getName.getCompilationUnit()).length);
+		assertEquals(1, result.getElementsIn(assertMethod.getCompilationUnit()).length);
+
+		result.removeAll();
+		assertEquals(0, result.getElementsIn(assertMethod.getCompilationUnit()).length);
+	}
+
+	@Test
+	public void testListenersNotifiedOutsideLock() throws Exception {
+		IMethod getName= SearchTestHelper.getMethod("junit.framework.TestCase", "getName", new String[0]);
+		IMethod assertMethod= SearchTestHelper.getMethod("junit.framework.Assert", "assertTrue", new String[] { "Z" });
+		JavaSearchResult result= new JavaSearchResult(null);
+		List<Boolean> locked= new ArrayList<>();
+		List<Integer> indexed= new ArrayList<>();
+		ISearchResultListener listener= event -> {
+			locked.add(Boolean.valueOf(Thread.holdsLock(result)));
+			indexed.add(Integer.valueOf(result.getElementsIn(getName.getCompilationUnit()).length));
+		};
+		result.addListener(listener);
+
+		Match match= new Match(getName, 0, 1);
+		result.addMatch(match);
+		result.addMatches(new Match[] { new Match(getName, 2, 1), new Match(assertMethod, 0, 1) });
+		result.removeMatch(match);
+		result.removeMatches(result.getMatches(assertMethod));
+		result.removeAll();
+		result.removeListener(listener);
+
+		assertEquals(5, locked.size());
+		assertFalse(locked.contains(Boolean.TRUE));
+		// the added element is indexed when the listeners are notified
+		assertEquals(Arrays.asList(1, 1, 1, 1, 0), indexed);
+		assertEquals(0, result.getElementsIn(getName.getCompilationUnit()).length);
+	}
+
+	@Test
+	public void testUpdaterRemovesMatchesOfDeletedUnit() throws Exception {
+		IJavaProject project= JavaProjectHelper.createJavaProject("SearchResultUpdaterProject", "bin");
+		JavaSearchResult result= new JavaSearchResult(null);
+		SearchResultUpdater updater= new SearchResultUpdater(result);
+		try {
+			IPackageFragmentRoot root= JavaProjectHelper.addSourceContainer(project, "src");
+			IPackageFragment pack= root.createPackageFragment("p", true, null);
+			ICompilationUnit cuA= pack.createCompilationUnit("A.java", "package p;\npublic class A {\n\tvoid foo() {\n\t}\n}\n", true, null);
+			ICompilationUnit cuB= pack.createCompilationUnit("B.java", "package p;\npublic class B {\n\tvoid bar() {\n\t}\n}\n", true, null);
+			IMethod foo= cuA.getType("A").getMethod("foo", new String[0]);
+			IMethod bar= cuB.getType("B").getMethod("bar", new String[0]);
+			result.addMatch(new Match(foo, 0, 1));
+			result.addMatch(new Match(foo, 2, 1));
+			result.addMatch(new Match(bar, 0, 1));
+
+			cuA.delete(true, null);
+			assertEquals(0, result.getMatchCount(foo));
+			assertEquals(1, result.getMatchCount(bar));
+			assertEquals(0, result.getElementsIn(cuA).length);
+
+			// an edit which keeps the element keeps its matches
+			cuB.getBuffer().append("\n");
+			cuB.save(null, true);
+			assertEquals(1, result.getMatchCount(bar));
+		} finally {
+			JavaCore.removeElementChangedListener(updater);
+			NewSearchUI.removeQueryListener(updater);
+			JavaProjectHelper.delete(project);
+		}
+	}
+
+	@Test
+	public void testCollectorTruncates() throws Exception {
+		IMethod getName= SearchTestHelper.getMethod("junit.framework.TestCase", "getName", new String[0]);
+		JavaSearchResult result= new JavaSearchResult(null);
+		NewSearchResultCollector collector= new NewSearchResultCollector(result, false, 2);
+		collector.beginReporting();
+		for (int i= 0; i < 3; i++) {
+			collector.acceptSearchMatch(new SearchMatch(getName, SearchMatch.A_ACCURATE, i, 1, SearchEngine.getDefaultSearchParticipant(), getName.getResource()));
+			assertEquals(i == 2, collector.isTruncated());
+		}
+		collector.endReporting();
+		assertEquals(2, result.getMatchCount());
+		assertTrue(collector.isTruncated());
+
+		NewSearchResultCollector unlimited= new NewSearchResultCollector(result, false);
+		unlimited.acceptSearchMatch(new SearchMatch(getName, SearchMatch.A_ACCURATE, 3, 1, SearchEngine.getDefaultSearchParticipant(), getName.getResource()));
+		unlimited.endReporting();
+		assertEquals(3, result.getMatchCount());
+		assertFalse(unlimited.isTruncated());
+	}
+}
@@ -13,10 +13,14 @@
  *******************************************************************************/
 package org.eclipse.jdt.ui.tests.search;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.Reader;
 import java.io.StringReader;
+import java.util.Set;
 
 import org.junit.After;
 import org.junit.Before;
@@ -45,9 +49,12 @@ import org.eclipse.jdt.core.ICompilationUnit;
 import org.eclipse.jdt.core.IJavaProject;
 import org.eclipse.jdt.core.IPackageFragment;
 import org.eclipse.jdt.core.IPackageFragmentRoot;
+import org.eclipse.jdt.core.IType;
 
 import org.eclipse.jdt.ui.tests.core.rules.ProjectTestSetup;
 
+import org.eclipse.jdt.internal.corext.util.ParallelUnitRunner;
+
 
 @RunWith(JUnit4.class)
 public class NLSSearchTest {
@@ -647,4 +654,57 @@ public class NLSSearchTest {
 		NLSSearchTestHelper.assertNumberOfProblems(accessor, propertiesFile, 1);
 	}
 
+
+	private Set<String> getProblems(IType[] accessors, IFile[] propertiesFiles, int maxThreads) {
+		ParallelUnitRunner.setMaxThreads(maxThreads);
+		try {
+			return NLSSearchTestHelper.getProblems(accessors, propertiesFiles);
+		} finally {
+			ParallelUnitRunner.setMaxThreads(-1);
+		}
+	}
+
+	@Test
+	public void testParallel() throws Exception {
+		// the accessor classes are audited concurrently, the findings are the same as when audited one by one
+		IType[] accessors= new IType[4];
+		IFile[] propertiesFiles= new IFile[accessors.length];
+		for (int i= 0; i < accessors.length; i++) {
+			IPackageFragment pack= fSourceFolder.createPackageFragment("test" + i, false, null);
+			StringBuilder buf= new StringBuilder();
+			buf.append("package test" + i + ";\n");
+			buf.append("import org.eclipse.osgi.util.NLS;\n");
+			buf.append("public class Accessor extends NLS {\n");
+			buf.append("\n");
+			buf.append("    public static String Client_used;\n");
+			buf.append("    public static String Client_undefined;\n");
+			buf.append("    public static String Client_unused;\n");
+			buf.append("\n");
+			buf.append("    private Accessor() {}\n");
+			buf.append("    private static final String BUNDLE_NAME = \"test" + i + ".Accessor\"; //$NON-NLS-1$\n");
+			buf.append("    static {NLS.initializeMessages(BUNDLE_NAME, Accessor.class);}\n");
+			buf.append("}\n");
+			ICompilationUnit accessor= pack.createCompilationUnit("Accessor.java", buf.toString(), false, null);
+			accessors[i]= accessor.getType("Accessor");
+
+			buf= new StringBuilder();
+			buf.append("package test" + i + ";\n");
+			buf.append("public class Client {\n");
+			buf.append("    public String s1= Accessor.Client_used;\n");
+			buf.append("    public String s2= Accessor.Client_undefined;\n");
+			buf.append("}\n");
+			pack.createCompilationUnit("Client.java", buf.toString(), false, null);
+
+			buf= new StringBuilder();
+			buf.append("Client_used=used\n");
+			buf.append("Client_unused=unused\n");
+			buf.append("Client_missing=missing\n");
+			propertiesFiles[i]= write((IFolder)pack.getCorrespondingResource(), buf.toString(), "Accessor.properties");
+		}
+
+		Set<String> sequential= getProblems(accessors, propertiesFiles, 1);
+		Set<String> parallel= getProblems(accessors, propertiesFiles, -1);
+		assertFalse(sequential.isEmpty());
+		assertEquals(sequential, parallel);
+	}
 }
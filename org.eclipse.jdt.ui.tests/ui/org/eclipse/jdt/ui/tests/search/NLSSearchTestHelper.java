@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2006, 2013 IBM Corporation and others.
+ * Copyright (c) 2006, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -15,6 +15,8 @@ package org.eclipse.jdt.ui.tests.search;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.HashSet;
+import java.util.Set;
 
 import org.junit.Assert;
 
@@ -54,13 +56,45 @@ public class NLSSearchTestHelper {
 	}
 
 	private static NLSSearchResult searchProblems(ICompilationUnit accessor, IFile propertiesFile) {
-		IType type= accessor.getType("Accessor");
-		NLSSearchQuery query= new NLSSearchQuery((new IType[] {type}), (new IFile[] {propertiesFile}), SearchEngine.createWorkspaceScope(), ""); //$NON-NLS-1$
+		return searchProblems(new IType[] {accessor.getType("Accessor")}, new IFile[] {propertiesFile});
+	}
+
+	private static NLSSearchResult searchProblems(IType[] accessors, IFile[] propertiesFiles) {
+		NLSSearchQuery query= new NLSSearchQuery(accessors, propertiesFiles, SearchEngine.createWorkspaceScope(), ""); //$NON-NLS-1$
 		NewSearchUI.runQueryInForeground(new BusyIndicatorRunnableContext(), query);
 		NLSSearchResult result= (NLSSearchResult)query.getSearchResult();
 		return result;
 	}
 
+	/**
+	 * Searches the problems of the given accessor classes and describes each match by its kind,
+	 * its file and its position.
+	 *
+	 * @param accessors the accessor classes
+	 * @param propertiesFiles the properties files of the accessor classes
+	 * @return the descriptions of the matches
+	 */
+	public static Set<String> getProblems(IType[] accessors, IFile[] propertiesFiles) {
+		NLSSearchResult result= searchProblems(accessors, propertiesFiles);
+		Set<String> problems= new HashSet<>();
+		for (Object element : result.getElements()) {
+			for (Match match : result.getMatches(element)) {
+				problems.add(describe(element) + "@" + match.getOffset() + ":" + match.getLength());
+			}
+		}
+		return problems;
+	}
+
+	private static String describe(Object element) {
+		if (element instanceof CompilationUnitEntry)
+			return "unused:" + ((CompilationUnitEntry)element).getCompilationUnit().getPath();
+		if (element instanceof FileEntry)
+			return "properties:" + ((FileEntry)element).getPropertiesFile().getFullPath();
+		if (element instanceof ICompilationUnit)
+			return "undefined:" + ((ICompilationUnit)element).getPath();
+		return String.valueOf(element);
+	}
+
 	private static void assertNumberResults(NLSSearchResult result, int expected) {
 		int is= result.getElements().length;
 		Assert.assertTrue("Expected number of results is " + expected + " but was " + is, is == expected);
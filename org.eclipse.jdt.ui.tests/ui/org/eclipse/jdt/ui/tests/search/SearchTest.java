@@ -23,6 +23,7 @@ import org.junit.runners.Suite;
 	TreeContentProviderTestWrapper.class,
 	ParticipantTest.class,
 	FileAdapterTest.class,
+	JavaSearchResultTest.class,
 	NLSSearchTest.class
 })
 public class SearchTest {
@@ -110,6 +110,13 @@ public class CallHierarchy {
         fgCallHierarchyCore.setSearchScope(searchScope);
     }
 
+    /**
+     * Discards the calls cached for all call hierarchies.
+     */
+    public void clearCache() {
+        fgCallHierarchyCore.clearCache();
+    }
+
     /**
      * Checks whether the fully qualified name is ignored by the set filters.
      *
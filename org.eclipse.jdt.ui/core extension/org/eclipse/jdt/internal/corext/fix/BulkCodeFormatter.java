@@ -0,0 +1,495 @@
+/*******************************************************************************
+ * Copyright (c) 2020 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.corext.fix;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.MultiStatus;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.SubMonitor;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IWorkspace;
+import org.eclipse.core.resources.IWorkspaceRunnable;
+import org.eclipse.core.resources.ResourcesPlugin;
+
+import org.eclipse.text.edits.MultiTextEdit;
+import org.eclipse.text.edits.TextEdit;
+
+import org.eclipse.jface.text.BadLocationException;
+import org.eclipse.jface.text.Document;
+import org.eclipse.jface.text.TextUtilities;
+
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.ToolFactory;
+import org.eclipse.jdt.core.formatter.CodeFormatter;
+
+import org.eclipse.jdt.internal.core.manipulation.util.BasicElementLabels;
+import org.eclipse.jdt.internal.corext.util.JavaModelUtil;
+import org.eclipse.jdt.internal.corext.util.Messages;
+import org.eclipse.jdt.internal.corext.util.Resources;
+
+import org.eclipse.jdt.internal.ui.JavaPlugin;
+import org.eclipse.jdt.internal.ui.preferences.formatter.FormatterProfileManager;
+
+/**
+ * Formats many compilation units at once with the formatter settings of their projects.
+ * <p>
+ * The sources are read and formatted by a pool of worker threads, each using its own code
+ * formatter per project. {@link #format(IProgressMonitor)} only computes the formatted sources,
+ * {@link #apply(IProgressMonitor)} then writes the compilation units whose content has changed.
+ * </p>
+ * <p>
+ * Compilation units with unsaved changes are formatted from their working copy buffer, and the
+ * formatting is applied to the buffer. All other compilation units are read from and written
+ * directly to their file, without going through the Java model.
+ * </p>
+ */
+public class BulkCodeFormatter {
+
+	/**
+	 * The figures of a bulk formatting run.
+	 */
+	public static final class Statistics {
+		private int fUnits;
+		private int fChangedUnits;
+		private long fCharacters;
+		private long fFormatTime;
+		private long fWriteTime;
+
+		/**
+		 * @return the number of formatted compilation units
+		 */
+		public int getUnits() {
+			return fUnits;
+		}
+
+		/**
+		 * @return the number of compilation units whose content is changed by the formatter
+		 */
+		public int getChangedUnits() {
+			return fChangedUnits;
+		}
+
+		/**
+		 * @return the number of characters read
+		 */
+		public long getCharacters() {
+			return fCharacters;
+		}
+
+		/**
+		 * @return the time spent to read and format the compilation units, in milliseconds
+		 */
+		public long getFormatTime() {
+			return fFormatTime;
+		}
+
+		/**
+		 * @return the time spent to write the changed compilation units, in milliseconds
+		 */
+		public long getWriteTime() {
+			return fWriteTime;
+		}
+
+		/**
+		 * @return the number of compilation units read and formatted per second
+		 */
+		public long getUnitsPerSecond() {
+			return fUnits * 1000L / Math.max(1, fFormatTime);
+		}
+	}
+
+	/**
+	 * A compilation unit to format. The fields are set by the calling thread before the
+	 * formatting starts, the results are set by the worker which formats the unit.
+	 */
+	private static final class Source {
+		final ICompilationUnit fUnit;
+		final IJavaProject fProject;
+		final int fKind;
+		/** The file to read and write, or <code>null</code> if the buffer is formatted. */
+		IFile fFile;
+		IPath fLocation;
+		String fCharset;
+		long fModificationStamp;
+		/** The buffer contents of a unit with unsaved changes. */
+		String fContent;
+
+		/** The formatted file contents, if the file has changed. */
+		byte[] fFormattedBytes;
+		/** The formatter edit on the buffer, if the buffer has changed. */
+		TextEdit fEdit;
+
+		Source(ICompilationUnit unit, int kind) {
+			fUnit= unit;
+			fProject= unit.getJavaProject();
+			fKind= kind;
+		}
+
+		boolean isChanged() {
+			return fFormattedBytes != null || fEdit != null;
+		}
+	}
+
+	/** The byte order mark, which is not part of the content of a compilation unit. */
+	private static final char BOM= '\uFEFF';
+
+	private final ICompilationUnit[] fUnits;
+	private final int fThreadCount;
+	private final Map<IJavaProject, Map<String, String>> fSettings= new HashMap<>();
+	private Statistics fStatistics= new Statistics();
+	private MultiStatus fStatus;
+	private Source[] fSources;
+
+	/**
+	 * Creates a bulk formatter using a worker thread per processor.
+	 *
+	 * @param units the compilation units to format
+	 */
+	public BulkCodeFormatter(ICompilationUnit[] units) {
+		this(units, Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Creates a bulk formatter.
+	 *
+	 * @param units the compilation units to format
+	 * @param threadCount the number of worker threads
+	 */
+	public BulkCodeFormatter(ICompilationUnit[] units, int threadCount) {
+		fUnits= units;
+		fThreadCount= Math.max(1, Math.min(threadCount, units.length));
+		fStatus= createStatus();
+	}
+
+	/**
+	 * Reads and formats the compilation units without changing them. The statistics and the
+	 * problems of a previous run are discarded.
+	 *
+	 * @param monitor the progress monitor, can be <code>null</code>
+	 * @return the statistics of the run
+	 * @throws CoreException if the compilation units cannot be accessed
+	 * @throws OperationCanceledException if the monitor has been canceled
+	 */
+	public Statistics format(IProgressMonitor monitor) throws CoreException {
+		SubMonitor subMonitor= SubMonitor.convert(monitor, Messages.format(FixMessages.BulkCodeFormatter_formatting_message, Integer.valueOf(fUnits.length)), fUnits.length * 2);
+		long start= System.currentTimeMillis();
+
+		fStatistics= new Statistics();
+		fStatus= createStatus();
+		fSources= prepare(subMonitor);
+		formatSources(subMonitor);
+
+		fStatistics.fUnits= fSources.length;
+		for (Source source : fSources) {
+			if (source.isChanged())
+				fStatistics.fChangedUnits++;
+		}
+		fStatistics.fFormatTime= System.currentTimeMillis() - start;
+		return fStatistics;
+	}
+
+	/**
+	 * Writes the compilation units which have been changed by {@link #format(IProgressMonitor)}.
+	 * Files which have been modified since they have been read are not written. A compilation
+	 * unit which cannot be written is reported in {@link #getStatus()}, the other compilation
+	 * units are still written.
+	 *
+	 * @param monitor the progress monitor, can be <code>null</code>
+	 * @return the statistics of the run
+	 * @throws CoreException if the workspace operation fails
+	 */
+	public Statistics apply(IProgressMonitor monitor) throws CoreException {
+		if (fSources == null)
+			throw new IllegalStateException("format(IProgressMonitor) must be called first"); //$NON-NLS-1$
+
+		List<Source> changed= new ArrayList<>();
+		List<IFile> files= new ArrayList<>();
+		for (Source source : fSources) {
+			if (source.isChanged()) {
+				changed.add(source);
+				if (source.fFile != null)
+					files.add(source.fFile);
+			}
+		}
+		if (changed.isEmpty())
+			return fStatistics;
+
+		long start= System.currentTimeMillis();
+		IStatus status= Resources.makeCommittable(files.toArray(new IResource[files.size()]), null);
+		if (!status.isOK()) {
+			fStatus.add(status);
+			return fStatistics;
+		}
+
+		SubMonitor subMonitor= SubMonitor.convert(monitor, Messages.format(FixMessages.BulkCodeFormatter_writing_message, Integer.valueOf(changed.size())), changed.size());
+		IWorkspace workspace= ResourcesPlugin.getWorkspace();
+		IWorkspaceRunnable runnable= pm -> {
+			for (Source source : changed) {
+				write(source, subMonitor.split(1));
+			}
+		};
+		workspace.run(runnable, workspace.getRoot(), IWorkspace.AVOID_UPDATE, null);
+		fStatistics.fWriteTime= System.currentTimeMillis() - start;
+		return fStatistics;
+	}
+
+	/**
+	 * @return the compilation units changed by the formatter
+	 */
+	public ICompilationUnit[] getChangedUnits() {
+		List<ICompilationUnit> result= new ArrayList<>();
+		if (fSources != null) {
+			for (Source source : fSources) {
+				if (source.isChanged())
+					result.add(source.fUnit);
+			}
+		}
+		return result.toArray(new ICompilationUnit[result.size()]);
+	}
+
+	/**
+	 * @return the statistics of the last run
+	 */
+	public Statistics getStatistics() {
+		return fStatistics;
+	}
+
+	/**
+	 * @return the problems of the last run with compilation units which could not be formatted or
+	 *         written
+	 */
+	public IStatus getStatus() {
+		return fStatus;
+	}
+
+	/**
+	 * Collects the compilation units to format, reports one tick of work per unit.
+	 *
+	 * @param subMonitor the monitor of the run
+	 * @return the sources
+	 * @throws CoreException if a compilation unit cannot be accessed
+	 */
+	private Source[] prepare(SubMonitor subMonitor) throws CoreException {
+		Source[] sources= new Source[fUnits.length];
+		for (int i= 0; i < fUnits.length; i++) {
+			ICompilationUnit unit= fUnits[i];
+			int kind= (JavaModelUtil.isModuleInfo(unit) ? CodeFormatter.K_MODULE_INFO : CodeFormatter.K_COMPILATION_UNIT) | CodeFormatter.F_INCLUDE_COMMENTS;
+			Source source= new Source(unit, kind);
+			if (!fSettings.containsKey(source.fProject))
+				fSettings.put(source.fProject, FormatterProfileManager.getProjectSettings(source.fProject));
+
+			IResource resource= unit.getResource();
+			IPath location= resource != null ? resource.getLocation() : null;
+			if (unit.hasUnsavedChanges() || location == null || !(resource instanceof IFile)) {
+				source.fContent= unit.getBuffer().getContents();
+			} else {
+				source.fFile= (IFile) resource;
+				source.fLocation= location;
+				source.fCharset= source.fFile.getCharset();
+				source.fModificationStamp= source.fFile.getModificationStamp();
+			}
+			sources[i]= source;
+			subMonitor.split(1);
+		}
+		return sources;
+	}
+
+	/**
+	 * Formats the sources in the worker threads, reports one tick of work per source.
+	 *
+	 * @param subMonitor the monitor of the run
+	 */
+	private void formatSources(SubMonitor subMonitor) {
+		AtomicInteger next= new AtomicInteger();
+		AtomicInteger done= new AtomicInteger();
+		AtomicInteger characters= new AtomicInteger();
+		AtomicBoolean canceled= new AtomicBoolean();
+
+		ExecutorService executor= Executors.newFixedThreadPool(fThreadCount, runnable -> {
+			Thread thread= new Thread(runnable, "Bulk Code Formatter"); //$NON-NLS-1$
+			thread.setDaemon(true);
+			return thread;
+		});
+		try {
+			List<Future<?>> workers= new ArrayList<>(fThreadCount);
+			for (int i= 0; i < fThreadCount; i++) {
+				workers.add(executor.submit(() -> {
+					// the code formatters are not thread safe, each worker has its own
+					Map<IJavaProject, CodeFormatter> formatters= new HashMap<>();
+					int index;
+					while (!canceled.get() && (index= next.getAndIncrement()) < fSources.length) {
+						Source source= fSources[index];
+						try {
+							characters.addAndGet(formatSource(source, formatters));
+						} catch (IOException | RuntimeException e) {
+							addProblem(Messages.format(FixMessages.BulkCodeFormatter_format_error, BasicElementLabels.getPathLabel(source.fUnit.getPath(), false)), e);
+						}
+						done.incrementAndGet();
+					}
+				}));
+			}
+
+			int reported= 0;
+			for (Future<?> worker : workers) {
+				while (true) {
+					try {
+						worker.get(100, TimeUnit.MILLISECONDS);
+						break;
+					} catch (TimeoutException e) {
+						// report the progress
+					} catch (ExecutionException e) {
+						JavaPlugin.log(e.getCause());
+						break;
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+						canceled.set(true);
+						throw new OperationCanceledException();
+					}
+					int current= done.get();
+					subMonitor.worked(current - reported);
+					reported= current;
+					if (subMonitor.isCanceled()) {
+						canceled.set(true);
+						throw new OperationCanceledException();
+					}
+				}
+			}
+			fStatistics.fCharacters= characters.get();
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Reads and formats a compilation unit. Called by the worker threads.
+	 *
+	 * @param source the compilation unit
+	 * @param formatters the code formatters of the worker thread by project
+	 * @return the number of characters read
+	 * @throws IOException if the file cannot be read
+	 */
+	private int formatSource(Source source, Map<IJavaProject, CodeFormatter> formatters) throws IOException {
+		String content;
+		boolean hasBOM= false;
+		Charset charset= null;
+		if (source.fFile != null) {
+			charset= Charset.forName(source.fCharset);
+			content= charset.decode(ByteBuffer.wrap(Files.readAllBytes(source.fLocation.toFile().toPath()))).toString();
+			if (content.length() > 0 && content.charAt(0) == BOM) {
+				hasBOM= true;
+				content= content.substring(1);
+			}
+		} else {
+			content= source.fContent;
+		}
+
+		CodeFormatter formatter= formatters.get(source.fProject);
+		if (formatter == null) {
+			formatter= ToolFactory.createCodeFormatter(fSettings.get(source.fProject), ToolFactory.M_FORMAT_EXISTING);
+			formatters.put(source.fProject, formatter);
+		}
+
+		Document document= new Document(content);
+		String lineDelimiter= TextUtilities.getDefaultLineDelimiter(document);
+		TextEdit edit= formatter.format(source.fKind, content, 0, content.length(), 0, lineDelimiter);
+		if (edit == null || edit instanceof MultiTextEdit && !edit.hasChildren())
+			return content.length();
+
+		try {
+			// the edit of a buffer is applied later, it must not be updated to the formatted document
+			(source.fFile == null ? edit.copy() : edit).apply(document, TextEdit.NONE);
+		} catch (BadLocationException e) {
+			throw new IllegalStateException(e);
+		}
+		String formatted= document.get();
+		if (formatted.equals(content)) {
+			// the formatter may return edits which do not change anything
+			return content.length();
+		}
+		if (source.fFile == null) {
+			source.fEdit= edit;
+		} else {
+			// only the formatted bytes of changed files are kept
+			String output= hasBOM ? BOM + formatted : formatted;
+			ByteBuffer bytes= charset.encode(output);
+			source.fFormattedBytes= new byte[bytes.remaining()];
+			bytes.get(source.fFormattedBytes);
+		}
+		return content.length();
+	}
+
+	/**
+	 * Writes a changed compilation unit. A compilation unit which cannot be written is reported as
+	 * a problem and does not abort the writing of the others.
+	 *
+	 * @param source the compilation unit
+	 * @param monitor the progress monitor
+	 */
+	private void write(Source source, IProgressMonitor monitor) {
+		try {
+			if (source.fFile != null) {
+				if (source.fFile.getModificationStamp() != source.fModificationStamp || source.fUnit.hasUnsavedChanges()) {
+					addProblem(Messages.format(FixMessages.BulkCodeFormatter_modified_error, BasicElementLabels.getPathLabel(source.fUnit.getPath(), false)), null);
+					return;
+				}
+				source.fFile.setContents(new ByteArrayInputStream(source.fFormattedBytes), IResource.KEEP_HISTORY, monitor);
+				source.fFormattedBytes= null;
+			} else {
+				if (!source.fContent.equals(source.fUnit.getBuffer().getContents())) {
+					addProblem(Messages.format(FixMessages.BulkCodeFormatter_modified_error, BasicElementLabels.getPathLabel(source.fUnit.getPath(), false)), null);
+					return;
+				}
+				source.fUnit.applyTextEdit(source.fEdit, monitor);
+				source.fEdit= null;
+			}
+		} catch (CoreException e) {
+			addProblem(Messages.format(FixMessages.BulkCodeFormatter_write_error, BasicElementLabels.getPathLabel(source.fUnit.getPath(), false)), e);
+		}
+	}
+
+	private static MultiStatus createStatus() {
+		return new MultiStatus(JavaPlugin.getPluginId(), IStatus.OK, FixMessages.BulkCodeFormatter_problems_message, null);
+	}
+
+	private void addProblem(String message, Throwable exception) {
+		synchronized (fStatus) {
+			fStatus.add(new Status(IStatus.WARNING, JavaPlugin.getPluginId(), IStatus.WARNING, message, exception));
+		}
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2016 IBM Corporation and others.
+ * Copyright (c) 2000, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -658,7 +658,7 @@ public class CleanUpRefactoring extends Refactoring implements IScheduledRefacto
 
 			List<IResource> files= new ArrayList<>();
 			findFilesToBeModified(change, files);
-			result.merge(Checks.validateModifiesFiles(files.toArray(new IFile[files.size()]), getValidationContext()));
+			result.merge(Checks.validateModifiesFiles(files.toArray(new IFile[files.size()]), getValidationContext(), this));
 		} finally {
 			pm.done();
 		}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2016 IBM Corporation and others.
+ * Copyright (c) 2000, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -13,20 +13,35 @@
  *******************************************************************************/
 package org.eclipse.jdt.internal.corext.refactoring.changes;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.eclipse.core.runtime.Assert;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Path;
+import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.SubProgressMonitor;
 
+import org.eclipse.core.resources.IContainer;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IFolder;
 import org.eclipse.core.resources.IResource;
 import org.eclipse.core.resources.ResourcesPlugin;
 
+import org.eclipse.core.filebuffers.FileBuffers;
+import org.eclipse.core.filebuffers.ITextFileBuffer;
+import org.eclipse.core.filebuffers.ITextFileBufferManager;
+import org.eclipse.core.filebuffers.LocationKind;
+
+import org.eclipse.jface.text.BadLocationException;
+import org.eclipse.jface.text.IDocument;
+
 import org.eclipse.ltk.core.refactoring.Change;
 import org.eclipse.ltk.core.refactoring.NullChange;
 import org.eclipse.ltk.core.refactoring.RefactoringStatus;
@@ -36,7 +51,12 @@ import org.eclipse.jdt.core.IJavaElement;
 import org.eclipse.jdt.core.IPackageFragment;
 import org.eclipse.jdt.core.JavaCore;
 import org.eclipse.jdt.core.JavaModelException;
+import org.eclipse.jdt.core.ToolFactory;
+import org.eclipse.jdt.core.compiler.IScanner;
+import org.eclipse.jdt.core.compiler.ITerminalSymbols;
+import org.eclipse.jdt.core.compiler.InvalidInputException;
 
+import org.eclipse.jdt.internal.corext.Corext;
 import org.eclipse.jdt.internal.corext.refactoring.AbstractJavaElementRenameChange;
 import org.eclipse.jdt.internal.corext.refactoring.RefactoringCoreMessages;
 import org.eclipse.jdt.internal.corext.refactoring.util.JavaElementUtil;
@@ -120,6 +140,9 @@ public final class RenamePackageChange extends AbstractJavaElementRenameChange {
 		if (!fRenameSubpackages) {
 			renamePackage(pack, pm, createNewPath(), getNewName());
 
+		} else if (canMoveFolder(pack)) {
+			moveFolder(pack, pm);
+
 		} else {
 			IPackageFragment[] allPackages= JavaElementUtil.getPackageAndSubpackages(pack);
 			Arrays.sort(allPackages, (o1, o2) -> {
@@ -204,6 +227,142 @@ public final class RenamePackageChange extends AbstractJavaElementRenameChange {
 		pm.done();
 	}
 
+	/**
+	 * Returns whether the package and its subpackages can be renamed by moving the package folder
+	 * as a whole. This is the case if all folders below the package folder are subpackages in the
+	 * same package fragment root, if no file or folder below the package folder is linked, and if
+	 * the new package folder neither exists nor lies inside the package folder.
+	 *
+	 * @param pack the package
+	 * @return <code>true</code> if the package folder can be moved
+	 * @throws CoreException if the folders cannot be visited
+	 */
+	private boolean canMoveFolder(IPackageFragment pack) throws CoreException {
+		IResource resource= pack.getResource();
+		if (!(resource instanceof IFolder) || !resource.exists())
+			return false;
+		IPath path= resource.getFullPath();
+		IPath newPath= createNewPath();
+		if (path.isPrefixOf(newPath) || newPath.isPrefixOf(path) || ResourcesPlugin.getWorkspace().getRoot().findMember(newPath) != null)
+			return false;
+		final IJavaElement root= pack.getParent();
+		final boolean[] result= { true };
+		resource.accept(member -> {
+			if (!result[0])
+				return false;
+			// linked files and folders would be moved as links, their targets would not be renamed
+			if (member.isLinked()) {
+				result[0]= false;
+				return false;
+			}
+			if (member.getType() != IResource.FOLDER)
+				return false;
+			IJavaElement element= JavaCore.create(member);
+			if (!(element instanceof IPackageFragment) || !root.equals(element.getParent())) {
+				result[0]= false;
+				return false;
+			}
+			return true;
+		});
+		return result[0];
+	}
+
+	/**
+	 * Renames the package and its subpackages by moving the package folder with a single resource
+	 * operation. The package declarations of the moved compilation units are updated one file at
+	 * a time afterwards.
+	 *
+	 * @param pack the package
+	 * @param pm the progress monitor
+	 * @throws CoreException if the folder cannot be moved or a compilation unit cannot be updated
+	 */
+	private void moveFolder(IPackageFragment pack, IProgressMonitor pm) throws CoreException {
+		IFolder folder= (IFolder) pack.getResource();
+		IFolder newFolder= ResourcesPlugin.getWorkspace().getRoot().getFolder(createNewPath());
+
+		// the Java model is not updated before the end of the workspace operation,
+		// so the compilation units are collected before the folder is moved
+		List<IPath> paths= new ArrayList<>();
+		List<String> newNames= new ArrayList<>();
+		for (IPackageFragment currentPackage : JavaElementUtil.getPackageAndSubpackages(pack)) {
+			String newName= getNewName(currentPackage);
+			for (ICompilationUnit unit : currentPackage.getCompilationUnits()) {
+				IResource resource= unit.getResource();
+				if (resource != null) {
+					paths.add(resource.getFullPath().removeFirstSegments(folder.getFullPath().segmentCount()));
+					newNames.add(newName);
+				}
+			}
+		}
+
+		pm.beginTask("", 1 + paths.size()); //$NON-NLS-1$
+		try {
+			createFolder(newFolder.getParent());
+			folder.move(newFolder.getFullPath(), IResource.KEEP_HISTORY, new SubProgressMonitor(pm, 1));
+			deleteEmptyFolders(folder.getParent(), pack.getParent().getResource());
+
+			for (int i= 0; i < paths.size(); i++) {
+				IFile file= newFolder.getFile(paths.get(i));
+				updatePackageDeclaration(file, newNames.get(i), new SubProgressMonitor(pm, 1));
+				if (fCompilationUnitStamps != null) {
+					Long stamp= fCompilationUnitStamps.get(file);
+					if (stamp != null) {
+						file.revertModificationStamp(stamp.longValue());
+					}
+				}
+			}
+		} finally {
+			pm.done();
+		}
+	}
+
+	private static void createFolder(IContainer container) throws CoreException {
+		if (container instanceof IFolder && !container.exists()) {
+			createFolder(container.getParent());
+			((IFolder) container).create(false, true, null);
+		}
+	}
+
+	private static void deleteEmptyFolders(IContainer container, IResource root) throws CoreException {
+		while (container instanceof IFolder && !container.equals(root) && container.members().length == 0) {
+			IContainer parent= container.getParent();
+			container.delete(false, null);
+			container= parent;
+		}
+	}
+
+	private static void updatePackageDeclaration(IFile file, String newName, IProgressMonitor pm) throws CoreException {
+		ITextFileBufferManager manager= FileBuffers.getTextFileBufferManager();
+		IPath path= file.getFullPath();
+		manager.connect(path, LocationKind.IFILE, null);
+		try {
+			ITextFileBuffer buffer= manager.getTextFileBuffer(path, LocationKind.IFILE);
+			IDocument document= buffer.getDocument();
+			IScanner scanner= ToolFactory.createScanner(false, false, false, false);
+			scanner.setSource(document.get().toCharArray());
+			int token= scanner.getNextToken();
+			while (token != ITerminalSymbols.TokenNamepackage && token != ITerminalSymbols.TokenNameEOF)
+				token= scanner.getNextToken();
+			if (token == ITerminalSymbols.TokenNameEOF)
+				return;
+			int start= -1;
+			int end= -1;
+			while ((token= scanner.getNextToken()) == ITerminalSymbols.TokenNameIdentifier || token == ITerminalSymbols.TokenNameDOT) {
+				if (start == -1)
+					start= scanner.getCurrentTokenStartPosition();
+				end= scanner.getCurrentTokenEndPosition() + 1;
+			}
+			if (start == -1)
+				return;
+			document.replace(start, end - start, newName);
+			buffer.commit(pm, false);
+		} catch (InvalidInputException | BadLocationException e) {
+			throw new CoreException(new Status(IStatus.ERROR, Corext.getPluginId(), e.getMessage(), e));
+		} finally {
+			manager.disconnect(path, LocationKind.IFILE, null);
+		}
+	}
+
 	private void renamePackage(IPackageFragment pack, IProgressMonitor pm, IPath newPath, String newName) throws JavaModelException, CoreException {
 		if (! pack.exists())
 			return; // happens if empty parent with single subpackage is renamed, see https://bugs.eclipse.org/bugs/show_bug.cgi?id=199045
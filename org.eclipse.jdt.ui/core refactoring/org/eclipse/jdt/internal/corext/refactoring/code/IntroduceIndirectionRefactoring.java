@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2019 IBM Corporation and others.
+ * Copyright (c) 2000, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -570,7 +570,7 @@ public class IntroduceIndirectionRefactoring extends Refactoring {
 
 		createChangeAndDiscardRewrite(fIntermediaryType.getCompilationUnit());
 
-		result.merge(Checks.validateModifiesFiles(getAllFilesToModify(), getValidationContext()));
+		result.merge(Checks.validateModifiesFiles(getAllFilesToModify(), getValidationContext(), this));
 		pm.done();
 
 		return result;
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2017 IBM Corporation and others.
+ * Copyright (c) 2000, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -33,6 +33,7 @@ import org.eclipse.jdt.core.dom.EnumDeclaration;
 import org.eclipse.jdt.core.dom.Expression;
 import org.eclipse.jdt.core.dom.FieldAccess;
 import org.eclipse.jdt.core.dom.IBinding;
+import org.eclipse.jdt.core.dom.ITypeBinding;
 import org.eclipse.jdt.core.dom.IVariableBinding;
 import org.eclipse.jdt.core.dom.MethodDeclaration;
 import org.eclipse.jdt.core.dom.QualifiedName;
@@ -149,23 +150,46 @@ import org.eclipse.jdt.internal.corext.dom.GenericVisitor;
 		}
 	}
 
+	/**
+	 * Hashes names like {@link Matcher#match(SimpleName, Object)} compares them: local variables
+	 * by their type, all other names by their binding.
+	 */
+	private static class Hasher extends SubtreeHasher {
+		@Override
+		protected int hashName(SimpleName name) {
+			int hash= name.isDeclaration() ? 1 : 0;
+			IBinding binding= name.resolveBinding();
+			if (binding == null)
+				return hash; // never matches
+			IVariableBinding variable= ASTNodes.getVariableBinding(name);
+			if (variable != null && !variable.isField()) {
+				ITypeBinding type= variable.getType();
+				return 31 * hash + (type != null ? Bindings.hashCode(type) : 0);
+			}
+			return 31 * hash + Bindings.hashCode(binding);
+		}
+	}
+
 	private List<Match> fResult= new ArrayList<>(2);
 	private Match fMatch;
 	private ASTNode[] fSnippet;
 	private int fIndex;
 	private Matcher fMatcher;
+	private Hasher fHasher;
 	private int fTypes;
 
 	private SnippetFinder(ASTNode[] snippet) {
 		super(true);
 		fSnippet= snippet;
 		fMatcher= new Matcher();
+		fHasher= new Hasher();
 		reset();
 	}
 
 	public static List<Match> perform(ASTNode start, ASTNode[] snippet) {
 		Assert.isTrue(start instanceof AbstractTypeDeclaration || start instanceof AnonymousClassDeclaration);
 		SnippetFinder finder= new SnippetFinder(snippet);
+		finder.fHasher.getHash(start);
 		start.accept(finder);
 		for (Iterator<Match> iter = finder.fResult.iterator(); iter.hasNext();) {
 			Match match = iter.next();
@@ -259,6 +283,9 @@ import org.eclipse.jdt.internal.corext.dom.GenericVisitor;
 	private boolean matches(ASTNode node) {
 		if (isSnippetNode(node))
 			return false;
+		// only subtrees with the same structural hash can match
+		if (!fHasher.mayMatch(node, fSnippet[fIndex]))
+			return false;
 		if (node.subtreeMatch(fMatcher, fSnippet[fIndex]) && fMatch.hasCorrectNesting(node)) {
 			fMatch.add(node);
 			fIndex++;
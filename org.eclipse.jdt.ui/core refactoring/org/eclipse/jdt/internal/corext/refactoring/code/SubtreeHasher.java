@@ -0,0 +1,125 @@
+/*******************************************************************************
+ * Copyright (c) 2020 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.corext.refactoring.code;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.jdt.core.dom.ASTMatcher;
+import org.eclipse.jdt.core.dom.ASTNode;
+import org.eclipse.jdt.core.dom.ASTVisitor;
+import org.eclipse.jdt.core.dom.SimpleName;
+import org.eclipse.jdt.core.dom.StructuralPropertyDescriptor;
+
+/**
+ * Computes a structural hash code for each node of an AST subtree, bottom-up in a single pass.
+ * <p>
+ * The hash code of a node combines its node type, the hash codes of its children in visiting
+ * order and the values of its simple properties. Javadoc comments only contribute their node
+ * type, since an {@link ASTMatcher} does not compare doc tags by default. Names are hashed by
+ * {@link #hashName(SimpleName)}, which has to return the same hash code for all names the matcher
+ * considers equal.
+ * </p>
+ * <p>
+ * Hence two subtrees which match have the same hash code, and a matcher only needs to be run on
+ * subtrees whose hash codes are equal.
+ * </p>
+ */
+public class SubtreeHasher extends ASTVisitor {
+
+	private final Map<ASTNode, Integer> fHashes= new HashMap<>();
+
+	/** The hash codes of the nodes being visited, innermost last */
+	private int[] fStack= new int[32];
+
+	private int fDepth= 0;
+
+	public SubtreeHasher() {
+		super(true);
+	}
+
+	/**
+	 * Returns the structural hash code of the given node. Computes the hash codes of the subtree
+	 * of the node if it is not part of a subtree that has been hashed already.
+	 *
+	 * @param node the node
+	 * @return the hash code
+	 */
+	public int getHash(ASTNode node) {
+		Integer hash= fHashes.get(node);
+		if (hash == null) {
+			node.accept(this);
+			hash= fHashes.get(node);
+		}
+		return hash.intValue();
+	}
+
+	/**
+	 * Returns whether the given nodes may match, i.e. whether their hash codes are equal.
+	 *
+	 * @param node the node
+	 * @param other the other node
+	 * @return <code>false</code> if the nodes can't match
+	 */
+	public boolean mayMatch(ASTNode node, ASTNode other) {
+		return getHash(node) == getHash(other);
+	}
+
+	/**
+	 * Returns the hash code of the given name. Names which are considered equal by the matcher
+	 * must have the same hash code.
+	 *
+	 * @param name the name
+	 * @return the hash code
+	 */
+	protected int hashName(SimpleName name) {
+		return name.getIdentifier().hashCode();
+	}
+
+	@Override
+	public boolean preVisit2(ASTNode node) {
+		if (fDepth == fStack.length) {
+			int[] stack= new int[fDepth * 2];
+			System.arraycopy(fStack, 0, stack, 0, fDepth);
+			fStack= stack;
+		}
+		fStack[fDepth++]= node.getNodeType();
+		return true;
+	}
+
+	@Override
+	public void postVisit(ASTNode node) {
+		int hash= fStack[--fDepth];
+		switch (node.getNodeType()) {
+			case ASTNode.JAVADOC:
+				hash= ASTNode.JAVADOC;
+				break;
+			case ASTNode.SIMPLE_NAME:
+				hash= 31 * hash + hashName((SimpleName) node);
+				break;
+			default:
+				List<?> properties= node.structuralPropertiesForType();
+				for (int i= 0; i < properties.size(); i++) {
+					StructuralPropertyDescriptor property= (StructuralPropertyDescriptor) properties.get(i);
+					if (property.isSimpleProperty())
+						hash= 31 * hash + String.valueOf(node.getStructuralProperty(property)).hashCode();
+				}
+				break;
+		}
+		fHashes.put(node, Integer.valueOf(hash));
+		if (fDepth > 0)
+			fStack[fDepth - 1]= 31 * fStack[fDepth - 1] + hash;
+	}
+}
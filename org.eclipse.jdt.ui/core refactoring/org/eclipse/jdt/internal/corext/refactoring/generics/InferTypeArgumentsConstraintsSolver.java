@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -23,7 +23,6 @@ import java.util.Comparator;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 
@@ -45,6 +44,7 @@ import org.eclipse.jdt.internal.corext.refactoring.typeconstraints2.ArrayTypeVar
 import org.eclipse.jdt.internal.corext.refactoring.typeconstraints2.CastVariable2;
 import org.eclipse.jdt.internal.corext.refactoring.typeconstraints2.CollectionElementVariable2;
 import org.eclipse.jdt.internal.corext.refactoring.typeconstraints2.ConstraintVariable2;
+import org.eclipse.jdt.internal.corext.refactoring.typeconstraints2.ConstraintVariableWorkList;
 import org.eclipse.jdt.internal.corext.refactoring.typeconstraints2.ITypeConstraint2;
 import org.eclipse.jdt.internal.corext.refactoring.typeconstraints2.IndependentTypeVariable2;
 import org.eclipse.jdt.internal.corext.refactoring.typeconstraints2.TTypes;
@@ -68,17 +68,17 @@ public class InferTypeArgumentsConstraintsSolver {
 
 	/**
 	 * The work-list used by the type constraint solver to hold the set of
-	 * nodes in the constraint graph that remain to be (re-)processed. Entries
-	 * are <code>ConstraintVariable2</code>s.
+	 * nodes in the constraint graph that remain to be (re-)processed. A node
+	 * is held at most once.
 	 */
-	private LinkedList<ConstraintVariable2> fWorkList;
+	private ConstraintVariableWorkList fWorkList;
 
 	private InferTypeArgumentsUpdate fUpdate;
 
 
 	public InferTypeArgumentsConstraintsSolver(InferTypeArgumentsTCModel typeConstraintFactory) {
 		fTCModel= typeConstraintFactory;
-		fWorkList= new LinkedList<>();
+		fWorkList= new ConstraintVariableWorkList();
 	}
 
 	public InferTypeArgumentsUpdate solveConstraints(IProgressMonitor pm) {
@@ -123,7 +123,7 @@ public class InferTypeArgumentsConstraintsSolver {
 		initializeTypeEstimates(allConstraintVariables);
 		if (pm.isCanceled())
 			throw new OperationCanceledException();
-		fWorkList.addAll(Arrays.asList(allConstraintVariables));
+		fWorkList.addAll(allConstraintVariables);
 		runSolver(new SubProgressMonitor(pm, 1));
 		chooseTypes(allConstraintVariables, new SubProgressMonitor(pm, 1));
 		findCastsToRemove(fTCModel.getCastVariables());
@@ -252,7 +252,7 @@ public class InferTypeArgumentsConstraintsSolver {
 //				throw new IllegalStateException("Type estimate set is now empty for LHS in " + left + " <= " + right + "; estimates were " + leftEstimate + " <= " + rightEstimate); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
 
 			leftSet.setTypeEstimate(xsection);
-			fWorkList.addAll(Arrays.asList(leftSet.getContributingVariables()));
+			fWorkList.addAll(leftSet.getContributingVariables());
 		}
 		if (! lhsSuperTypes.containsAll(rightEstimate)) {
 			TypeSet xsection= rightEstimate.intersectedWith(lhsSuperTypes);
@@ -261,7 +261,7 @@ public class InferTypeArgumentsConstraintsSolver {
 //				throw new IllegalStateException("Type estimate set is now empty for RHS in " + left + " <= " + right + "; estimates were " + leftEstimate + " <= " + rightEstimate); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
 
 			rightSet.setTypeEstimate(xsection);
-			fWorkList.addAll(Arrays.asList(rightSet.getContributingVariables()));
+			fWorkList.addAll(rightSet.getContributingVariables());
 		}
 	}
 
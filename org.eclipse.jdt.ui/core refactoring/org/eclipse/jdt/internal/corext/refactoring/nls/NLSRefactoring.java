@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2016 IBM Corporation and others.
+ * Copyright (c) 2000, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -310,7 +310,7 @@ public class NLSRefactoring extends Refactoring {
 	}
 
 	private RefactoringStatus validateModifiesFiles() {
-		return Checks.validateModifiesFiles(getAllFilesToModify(), getValidationContext());
+		return Checks.validateModifiesFiles(getAllFilesToModify(), getValidationContext(), this);
 	}
 
 	//should stop checking if fatal error
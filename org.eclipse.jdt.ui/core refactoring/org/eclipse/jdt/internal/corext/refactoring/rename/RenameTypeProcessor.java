@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2018 IBM Corporation and others.
+ * Copyright (c) 2000, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -16,6 +16,7 @@ package org.eclipse.jdt.internal.corext.refactoring.rename;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -24,6 +25,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.eclipse.core.runtime.Assert;
 import org.eclipse.core.runtime.CoreException;
@@ -113,6 +115,7 @@ import org.eclipse.jdt.internal.corext.refactoring.tagging.ITextUpdating;
 import org.eclipse.jdt.internal.corext.refactoring.util.Changes;
 import org.eclipse.jdt.internal.corext.refactoring.util.JavaElementUtil;
 import org.eclipse.jdt.internal.corext.refactoring.util.JavaStatusContext;
+import org.eclipse.jdt.internal.corext.refactoring.util.ParallelChangeCreator;
 import org.eclipse.jdt.internal.corext.refactoring.util.QualifiedNameFinder;
 import org.eclipse.jdt.internal.corext.refactoring.util.QualifiedNameSearchResult;
 import org.eclipse.jdt.internal.corext.refactoring.util.RefactoringASTParser;
@@ -171,6 +174,7 @@ public class RenameTypeProcessor extends JavaRenameProcessor implements ITextUpd
 	private boolean fCachedRenameSimilarElements= false;
 	private int fCachedRenamingStrategy= -1;
 	private RefactoringStatus fCachedRefactoringStatus= null;
+	private SearchResultGroup[] fCachedReferences= null;
 
 	public static final class ParticipantDescriptorFilter implements IParticipantDescriptorFilter {
 
@@ -592,6 +596,10 @@ public class RenameTypeProcessor extends JavaRenameProcessor implements ITextUpd
 	 * method creates both the fReferences and the fPreloadedElementToName
 	 * fields.
 	 *
+	 * The references only depend on the type and are kept if the search for similarly
+	 * named elements is canceled, so that the type can still be renamed without
+	 * searching again.
+	 *
 	 * May be called from the UI.
 	 * @param monitor progress monitor
 	 * @return initialization status
@@ -605,129 +613,191 @@ public class RenameTypeProcessor extends JavaRenameProcessor implements ITextUpd
 		Assert.isNotNull(getNewElementName());
 
 		// Do not search again if the preconditions have not changed.
-		// Search depends on the type, the new name, the similarly named elements, and
-		// the strategy
+		// The references depend on the type, the similarly named elements also depend
+		// on the new name, the similarly named elements setting, and the strategy
 
-		if (fReferences != null && (getNewElementName().equals(fCachedNewName)) && (fCachedRenameSimilarElements == getUpdateSimilarDeclarations()) && (fCachedRenamingStrategy == fRenamingStrategy))
+		if (fCachedReferences != null && fPreloadedElementToName != null && (getNewElementName().equals(fCachedNewName)) && (fCachedRenameSimilarElements == getUpdateSimilarDeclarations()) && (fCachedRenamingStrategy == fRenamingStrategy)) {
+			fReferences= fCachedReferences;
 			return fCachedRefactoringStatus;
-
-		fCachedNewName= getNewElementName();
-		fCachedRenameSimilarElements= fUpdateSimilarElements;
-		fCachedRenamingStrategy= fRenamingStrategy;
-		fCachedRefactoringStatus= new RefactoringStatus();
-
+		}
 
 		try {
-			SearchPattern pattern= SearchPattern.createPattern(fType, IJavaSearchConstants.REFERENCES, SearchUtils.GENERICS_AGNOSTIC_MATCH_RULE);
+			monitor.beginTask("", 2); //$NON-NLS-1$
 
-			String binaryRefsDescription= Messages.format(RefactoringCoreMessages.ReferencesInBinaryContext_ref_in_binaries_description , BasicElementLabels.getJavaElementName(fType.getElementName()));
-			ReferencesInBinaryContext binaryRefs= new ReferencesInBinaryContext(binaryRefsDescription);
+			if (fCachedReferences == null) {
+				RefactoringStatus status= new RefactoringStatus();
+				SearchPattern pattern= SearchPattern.createPattern(fType, IJavaSearchConstants.REFERENCES, SearchUtils.GENERICS_AGNOSTIC_MATCH_RULE);
 
-			fReferences= RefactoringSearchEngine.search(
-					pattern,
-					RefactoringScopeFactory.create(fType, true, false),
-					new TypeOccurrenceCollector(fType, binaryRefs),
-					monitor,
-					fCachedRefactoringStatus);
+				String binaryRefsDescription= Messages.format(RefactoringCoreMessages.ReferencesInBinaryContext_ref_in_binaries_description , BasicElementLabels.getJavaElementName(fType.getElementName()));
+				ReferencesInBinaryContext binaryRefs= new ReferencesInBinaryContext(binaryRefsDescription);
 
-			binaryRefs.addErrorIfNecessary(fCachedRefactoringStatus);
-			fReferences= Checks.excludeCompilationUnits(fReferences, fCachedRefactoringStatus);
+				SearchResultGroup[] references= RefactoringSearchEngine.search(
+						pattern,
+						RefactoringScopeFactory.create(fType, true, false),
+						new TypeOccurrenceCollector(fType, binaryRefs),
+						new SubProgressMonitor(monitor, 1),
+						status);
 
-			fPreloadedElementToName= new LinkedHashMap<>();
-			fPreloadedElementToSelection= new HashMap<>();
+				binaryRefs.addErrorIfNecessary(status);
+				fCachedReferences= Checks.excludeCompilationUnits(references, status);
+				fCachedRefactoringStatus= status;
+			} else {
+				monitor.worked(1);
+			}
+			fReferences= fCachedReferences;
 
-			final String unQualifiedTypeName= fType.getElementName();
+			fCachedNewName= getNewElementName();
+			fCachedRenameSimilarElements= fUpdateSimilarElements;
+			fCachedRenamingStrategy= fRenamingStrategy;
+			fPreloadedElementToName= null;
 
-			monitor.beginTask("", fReferences.length); //$NON-NLS-1$
+			LinkedHashMap<IJavaElement, String> elementToName;
+			if (getUpdateSimilarDeclarations())
+				elementToName= findSimilarElements(new SubProgressMonitor(monitor, 1));
+			else
+				elementToName= new LinkedHashMap<>();
 
-			if (getUpdateSimilarDeclarations()) {
+			fPreloadedElementToName= elementToName;
+			fPreloadedElementToSelection= new HashMap<>();
+			for (Iterator<IJavaElement> iter= fPreloadedElementToName.keySet().iterator(); iter.hasNext();) {
+				IJavaElement element= iter.next();
+				fPreloadedElementToSelection.put(element, Boolean.TRUE);
+			}
+			fPreloadedElementToNameDefault= new LinkedHashMap<>(fPreloadedElementToName);
+		} finally {
+			monitor.done();
+		}
+		return fCachedRefactoringStatus;
+	}
 
-				RenamingNameSuggestor sugg= new RenamingNameSuggestor(fRenamingStrategy);
+	/**
+	 * Finds the fields, methods and local variables whose names are derived from the name of the
+	 * type. The elements are found from the matches of the reference search, so no further search
+	 * is needed and no AST is created. The compilation units with references to the type are
+	 * processed in parallel, the elements are returned in the order of the references. The progress
+	 * reports the number of elements found so far.
+	 *
+	 * @param monitor progress monitor
+	 * @return the similarly named elements and their new names, sorted by compilation unit
+	 * @throws JavaModelException if an element cannot be accessed
+	 * @throws OperationCanceledException if user canceled the task
+	 */
+	private LinkedHashMap<IJavaElement, String> findSimilarElements(IProgressMonitor monitor) throws JavaModelException {
+		final int strategy= fRenamingStrategy;
+		final String unQualifiedTypeName= fType.getElementName();
+		final String newTypeName= getNewElementName();
+
+		final Map<ICompilationUnit, SearchResultGroup> cuToGroup= new HashMap<>();
+		final List<ICompilationUnit> cus= new ArrayList<>();
+		for (int i= 0; i < fReferences.length; i++) {
+			final ICompilationUnit cu= fReferences[i].getCompilationUnit();
+			if (cu != null) {
+				cuToGroup.put(cu, fReferences[i]);
+				cus.add(cu);
+			}
+		}
 
-				for (int i= 0; i < fReferences.length; i++) {
-					final ICompilationUnit cu= fReferences[i].getCompilationUnit();
-					if (cu == null)
-						continue;
+		final Map<ICompilationUnit, Map<IJavaElement, String>> cuToElements= Collections.synchronizedMap(new HashMap<ICompilationUnit, Map<IJavaElement, String>>());
+		final AtomicInteger found= new AtomicInteger();
+		try {
+			ParallelChangeCreator.run(cus.toArray(new ICompilationUnit[cus.size()]), (cu, pm) -> {
+				// the suggestor is not thread safe
+				Map<IJavaElement, String> elements= findSimilarElements(cuToGroup.get(cu).getSearchResults(), new RenamingNameSuggestor(strategy), unQualifiedTypeName, newTypeName, pm);
+				cuToElements.put(cu, elements);
+				found.addAndGet(elements.size());
+				return new RefactoringStatus();
+			}, cu -> Messages.format(RefactoringCoreMessages.RenameTypeProcessor_searching_similarly_named_elements,
+					new Object[] { BasicElementLabels.getFileName(cu), Integer.valueOf(found.get()) }), monitor);
+		} catch (JavaModelException e) {
+			throw e;
+		} catch (CoreException e) {
+			throw new JavaModelException(e);
+		}
 
-					final SearchMatch[] results= fReferences[i].getSearchResults();
+		final LinkedHashMap<IJavaElement, String> result= new LinkedHashMap<>();
+		for (Iterator<ICompilationUnit> iter= cus.iterator(); iter.hasNext();)
+			result.putAll(cuToElements.get(iter.next()));
+		return result;
+	}
 
-					for (int j= 0; j < results.length; j++) {
+	/**
+	 * Finds the similarly named elements declared with the given type references. May be called
+	 * from any thread.
+	 *
+	 * @param results the search matches of one compilation unit
+	 * @param sugg the name suggestor of the compilation unit
+	 * @param unQualifiedTypeName the name of the type
+	 * @param newTypeName the new name of the type
+	 * @param monitor progress monitor
+	 * @return the similarly named elements of the compilation unit and their new names
+	 * @throws JavaModelException if an element cannot be accessed
+	 */
+	private Map<IJavaElement, String> findSimilarElements(SearchMatch[] results, RenamingNameSuggestor sugg, String unQualifiedTypeName, String newTypeName, IProgressMonitor monitor) throws JavaModelException {
+		final Map<IJavaElement, String> elementToName= new LinkedHashMap<>();
 
-						if (! (results[j] instanceof TypeReferenceMatch))
-							continue;
+		for (int j= 0; j < results.length; j++) {
 
-						final TypeReferenceMatch match= (TypeReferenceMatch) results[j];
-						final List<IJavaElement> matches= new ArrayList<>();
+			if (! (results[j] instanceof TypeReferenceMatch))
+				continue;
 
-						if (match.getLocalElement() != null) {
-							if (match.getLocalElement() instanceof ILocalVariable) {
-								matches.add(match.getLocalElement());
-							}
-							// else don't update (e.g. match in type parameter, annotation, ...)
-						} else {
-							matches.add((IJavaElement) match.getElement());
-						}
+			final TypeReferenceMatch match= (TypeReferenceMatch) results[j];
+			final List<IJavaElement> matches= new ArrayList<>();
 
-						final IJavaElement[] others= match.getOtherElements();
-						if (others != null)
-							matches.addAll(Arrays.asList(others));
+			if (match.getLocalElement() != null) {
+				if (match.getLocalElement() instanceof ILocalVariable) {
+					matches.add(match.getLocalElement());
+				}
+				// else don't update (e.g. match in type parameter, annotation, ...)
+			} else {
+				matches.add((IJavaElement) match.getElement());
+			}
 
-						for (Iterator<IJavaElement> iter= matches.iterator(); iter.hasNext();) {
-							final IJavaElement element= iter.next();
+			final IJavaElement[] others= match.getOtherElements();
+			if (others != null)
+				matches.addAll(Arrays.asList(others));
 
-							if (! (element instanceof IMethod) && ! (element instanceof IField) && ! (element instanceof ILocalVariable))
-								continue;
+			for (Iterator<IJavaElement> iter= matches.iterator(); iter.hasNext();) {
+				final IJavaElement element= iter.next();
 
-							if (!isInDeclaredType(match.getOffset(), element))
-								continue;
+				if (! (element instanceof IMethod) && ! (element instanceof IField) && ! (element instanceof ILocalVariable))
+					continue;
 
-							if (element instanceof IField) {
-								final IField currentField= (IField) element;
-								final String newFieldName= sugg.suggestNewFieldName(currentField.getJavaProject(), currentField.getElementName(), Flags.isStatic(currentField.getFlags()),
-										unQualifiedTypeName, getNewElementName());
+				if (!isInDeclaredType(match.getOffset(), element))
+					continue;
 
-								if (newFieldName != null)
-									fPreloadedElementToName.put(currentField, newFieldName);
+				if (element instanceof IField) {
+					final IField currentField= (IField) element;
+					final String newFieldName= sugg.suggestNewFieldName(currentField.getJavaProject(), currentField.getElementName(), Flags.isStatic(currentField.getFlags()),
+							unQualifiedTypeName, newTypeName);
 
-							} else if (element instanceof IMethod) {
-								final IMethod currentMethod= (IMethod) element;
-								addMethodRename(unQualifiedTypeName, sugg, currentMethod);
+					if (newFieldName != null)
+						elementToName.put(currentField, newFieldName);
 
-							} else if (element instanceof ILocalVariable) {
-								final ILocalVariable currentLocal= (ILocalVariable) element;
-								final boolean isParameter;
+				} else if (element instanceof IMethod) {
+					final IMethod currentMethod= (IMethod) element;
+					addMethodRename(elementToName, unQualifiedTypeName, newTypeName, sugg, currentMethod);
 
-								if (currentLocal.isParameter()) {
-									addMethodRename(unQualifiedTypeName, sugg, (IMethod) currentLocal.getParent());
-									isParameter= true;
-								} else
-									isParameter= false;
+				} else if (element instanceof ILocalVariable) {
+					final ILocalVariable currentLocal= (ILocalVariable) element;
+					final boolean isParameter;
 
-								final String newLocalName= sugg
-										.suggestNewLocalName(currentLocal.getJavaProject(), currentLocal.getElementName(), isParameter, unQualifiedTypeName, getNewElementName());
+					if (currentLocal.isParameter()) {
+						addMethodRename(elementToName, unQualifiedTypeName, newTypeName, sugg, (IMethod) currentLocal.getParent());
+						isParameter= true;
+					} else
+						isParameter= false;
 
-								if (newLocalName != null)
-									fPreloadedElementToName.put(currentLocal, newLocalName);
-							}
-						}
-					}
-					if (monitor.isCanceled())
-						throw new OperationCanceledException();
-				}
-			}
+					final String newLocalName= sugg
+							.suggestNewLocalName(currentLocal.getJavaProject(), currentLocal.getElementName(), isParameter, unQualifiedTypeName, newTypeName);
 
-			for (Iterator<IJavaElement> iter= fPreloadedElementToName.keySet().iterator(); iter.hasNext();) {
-				IJavaElement element= iter.next();
-				fPreloadedElementToSelection.put(element, Boolean.TRUE);
+					if (newLocalName != null)
+						elementToName.put(currentLocal, newLocalName);
+				}
 			}
-			fPreloadedElementToNameDefault= new LinkedHashMap<>(fPreloadedElementToName);
-
-		} catch (OperationCanceledException e) {
-			fReferences= null;
-			fPreloadedElementToName= null;
-			throw new OperationCanceledException();
+			if (monitor.isCanceled())
+				throw new OperationCanceledException();
 		}
-		return fCachedRefactoringStatus;
+		return elementToName;
 	}
 
 	/**
@@ -753,12 +823,12 @@ public class RenameTypeProcessor extends JavaRenameProcessor implements ITextUpd
 		return false;
 	}
 
-	private void addMethodRename(final String unQualifiedTypeName, RenamingNameSuggestor sugg, final IMethod currentMethod) throws JavaModelException {
+	private static void addMethodRename(Map<IJavaElement, String> elementToName, final String unQualifiedTypeName, String newTypeName, RenamingNameSuggestor sugg, final IMethod currentMethod) throws JavaModelException {
 		if (!currentMethod.isConstructor()) {
-			final String newMethodName= sugg.suggestNewMethodName(currentMethod.getElementName(), unQualifiedTypeName, getNewElementName());
+			final String newMethodName= sugg.suggestNewMethodName(currentMethod.getElementName(), unQualifiedTypeName, newTypeName);
 
 			if (newMethodName != null)
-				fPreloadedElementToName.put(currentMethod, newMethodName);
+				elementToName.put(currentMethod, newMethodName);
 		}
 	}
 
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2019 IBM Corporation and others.
+ * Copyright (c) 2000, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -17,6 +17,7 @@ package org.eclipse.jdt.internal.corext.refactoring.reorg;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -62,6 +63,7 @@ import org.eclipse.jdt.internal.corext.refactoring.SearchResultGroup;
 import org.eclipse.jdt.internal.corext.refactoring.base.ReferencesInBinaryContext;
 import org.eclipse.jdt.internal.corext.refactoring.changes.TextChangeCompatibility;
 import org.eclipse.jdt.internal.corext.refactoring.structure.ReferenceFinderUtil;
+import org.eclipse.jdt.internal.corext.refactoring.util.ParallelChangeCreator;
 import org.eclipse.jdt.internal.corext.refactoring.util.TextChangeManager;
 import org.eclipse.jdt.internal.corext.util.JavaModelUtil;
 import org.eclipse.jdt.internal.corext.util.Messages;
@@ -80,6 +82,8 @@ public class MoveCuUpdateCreator {
 
 	private Map<ICompilationUnit, ImportRewrite> fImportRewrites; //ICompilationUnit -> ImportEdit
 
+	private IType[] fDestinationPackageTypes;
+
 	public MoveCuUpdateCreator(ICompilationUnit cu, IPackageFragment pack){
 		this(new ICompilationUnit[]{cu}, pack);
 	}
@@ -97,8 +101,8 @@ public class MoveCuUpdateCreator {
 		pm.beginTask("", 5); //$NON-NLS-1$
 		try{
 			TextChangeManager changeManager= new TextChangeManager();
-			addUpdates(changeManager, new SubProgressMonitor(pm, 4), status);
-			addImportRewriteUpdates(changeManager);
+			addUpdates(changeManager, new SubProgressMonitor(pm, 3), status);
+			addImportRewriteUpdates(changeManager, new SubProgressMonitor(pm, 1));
 			return changeManager;
 		} catch (JavaModelException e){
 			throw e;
@@ -110,50 +114,71 @@ public class MoveCuUpdateCreator {
 
 	}
 
-	private void addImportRewriteUpdates(TextChangeManager changeManager) throws CoreException {
+	private void addImportRewriteUpdates(final TextChangeManager changeManager, IProgressMonitor pm) throws CoreException {
+		List<ICompilationUnit> cus= new ArrayList<>();
 		for (Map.Entry<ICompilationUnit, ImportRewrite> entry : fImportRewrites.entrySet()) {
-			ICompilationUnit cu = entry.getKey();
 			ImportRewrite importRewrite= entry.getValue();
-			if (importRewrite != null && importRewrite.hasRecordedChanges()) {
-				TextChangeCompatibility.addTextEdit(changeManager.get(cu), RefactoringCoreMessages.MoveCuUpdateCreator_update_imports, importRewrite.rewriteImports(null));
-			}
+			if (importRewrite != null && importRewrite.hasRecordedChanges())
+				cus.add(entry.getKey());
 		}
+		// the import rewrites are independent of each other, and each one only changes its own compilation unit
+		ParallelChangeCreator.run(cus.toArray(new ICompilationUnit[cus.size()]), (cu, monitor) -> {
+			TextEdit edit= getImportRewrite(cu).rewriteImports(monitor);
+			TextChangeCompatibility.addTextEdit(changeManager.get(cu), RefactoringCoreMessages.MoveCuUpdateCreator_update_imports, edit);
+			return new RefactoringStatus();
+		}, null, pm);
 	}
 
 	private void addUpdates(TextChangeManager changeManager, IProgressMonitor pm, RefactoringStatus status) throws CoreException {
-		pm.beginTask("", fCus.length);  //$NON-NLS-1$
+		// group the moved units by source package, so that the references to all moved types of a package are found by one search
+		Map<IPackageFragment, List<ICompilationUnit>> packageToCus= new LinkedHashMap<>();
 		for (ICompilationUnit cu : fCus) {
-			if (pm.isCanceled())
-				throw new OperationCanceledException();
-			addUpdates(changeManager, cu, new SubProgressMonitor(pm, 1), status);
-		}
-	}
-
-	private void addUpdates(TextChangeManager changeManager, ICompilationUnit movedUnit, IProgressMonitor pm, RefactoringStatus status) throws CoreException{
-		try{
-			pm.beginTask("", 3);  //$NON-NLS-1$
-		  	pm.subTask(Messages.format(RefactoringCoreMessages.MoveCuUpdateCreator_searching, BasicElementLabels.getFileName(movedUnit)));
-
-			if (isInAnotherFragmentOfSamePackage(movedUnit, fDestination)){
-				pm.worked(3);
-				return;
+			if (isInAnotherFragmentOfSamePackage(cu, fDestination))
+				continue;
+			IPackageFragment pack= (IPackageFragment) cu.getParent();
+			List<ICompilationUnit> cus= packageToCus.get(pack);
+			if (cus == null) {
+				cus= new ArrayList<>();
+				packageToCus.put(pack, cus);
 			}
+			cus.add(cu);
+		}
 
-		  	addImportToSourcePackageTypes(movedUnit, new SubProgressMonitor(pm, 1));
+		pm.beginTask("", fCus.length + packageToCus.size() * 2);  //$NON-NLS-1$
+		fDestinationPackageTypes= getDestinationPackageTypes();
+		List<ICompilationUnit> movedUnits= new ArrayList<>();
+		for (List<ICompilationUnit> cus : packageToCus.values())
+			movedUnits.addAll(cus);
+		ParallelChangeCreator.run(movedUnits.toArray(new ICompilationUnit[movedUnits.size()]), (movedUnit, monitor) -> {
+			addImportToSourcePackageTypes(movedUnit, monitor);
 			removeImportsToDestinationPackageTypes(movedUnit);
-			addReferenceUpdates(changeManager, movedUnit, new SubProgressMonitor(pm, 2), status);
-		} finally{
-			pm.done();
+			return new RefactoringStatus();
+		}, unit -> Messages.format(RefactoringCoreMessages.MoveCuUpdateCreator_searching, BasicElementLabels.getFileName(unit)), new SubProgressMonitor(pm, fCus.length));
+
+		for (Map.Entry<IPackageFragment, List<ICompilationUnit>> entry : packageToCus.entrySet()) {
+			if (pm.isCanceled())
+				throw new OperationCanceledException();
+			addReferenceUpdates(changeManager, entry.getKey(), entry.getValue(), new SubProgressMonitor(pm, 2), status);
 		}
 	}
 
-	private void addReferenceUpdates(TextChangeManager changeManager, ICompilationUnit movedUnit, IProgressMonitor pm, RefactoringStatus status) throws JavaModelException, CoreException {
+	/**
+	 * Updates the references to the moved compilation units of one source package.
+	 *
+	 * @param changeManager the change manager
+	 * @param sourcePackage the source package of the moved units
+	 * @param movedUnits the moved compilation units of the source package
+	 * @param pm the progress monitor
+	 * @param status the status
+	 * @throws CoreException if the references cannot be found or updated
+	 */
+	private void addReferenceUpdates(TextChangeManager changeManager, IPackageFragment sourcePackage, List<ICompilationUnit> movedUnits, IProgressMonitor pm, RefactoringStatus status) throws JavaModelException, CoreException {
 		List<ICompilationUnit> cuList= Arrays.asList(fCus);
-		for (SearchResultGroup searchResultGroup : getReferences(movedUnit, pm, status)) {
+		for (SearchResultGroup searchResultGroup : getReferences(sourcePackage, movedUnits, pm, status)) {
 			ICompilationUnit referencingCu= searchResultGroup.getCompilationUnit();
 			if (referencingCu == null)
 				continue;
-			boolean simpleReferencesNeedNewImport= simpleReferencesNeedNewImport(movedUnit, referencingCu, cuList);
+			boolean simpleReferencesNeedNewImport= simpleReferencesNeedNewImport(sourcePackage, referencingCu, cuList);
 			for (SearchMatch result : searchResultGroup.getSearchResults()) {
 				// TODO: should update type references with results from addImport
 				TypeReference reference= (TypeReference) result;
@@ -162,10 +187,10 @@ public class MoveCuUpdateCreator {
 					IImportDeclaration importDecl= (IImportDeclaration) SearchUtils.getEnclosingJavaElement(result);
 					if (Flags.isStatic(importDecl.getFlags())) {
 						rewrite.removeStaticImport(importDecl.getElementName());
-						addStaticImport(movedUnit, importDecl, rewrite);
+						addStaticImport(sourcePackage, importDecl, rewrite);
 					} else {
 						rewrite.removeImport(importDecl.getElementName());
-						rewrite.addImport(createStringForNewImport(movedUnit, importDecl));
+						rewrite.addImport(createStringForNewImport(sourcePackage, importDecl));
 					}
 				} else if (reference.isQualified()) {
 					TextChange textChange= changeManager.get(referencingCu);
@@ -181,9 +206,9 @@ public class MoveCuUpdateCreator {
 		}
 	}
 
-	private void addStaticImport(ICompilationUnit movedUnit, IImportDeclaration importDecl, ImportRewrite rewrite) {
+	private void addStaticImport(IPackageFragment sourcePackage, IImportDeclaration importDecl, ImportRewrite rewrite) {
 		String old= importDecl.getElementName();
-		int oldPackLength= movedUnit.getParent().getElementName().length();
+		int oldPackLength= sourcePackage.getElementName().length();
 
 		StringBuilder result= new StringBuilder(fDestination.getElementName());
 		if (oldPackLength == 0) // move FROM default package
@@ -204,9 +229,9 @@ public class MoveCuUpdateCreator {
 			return packageName + '.' + typeName;
 	}
 
-    private String createStringForNewImport(ICompilationUnit movedUnit, IImportDeclaration importDecl) {
+    private String createStringForNewImport(IPackageFragment sourcePackage, IImportDeclaration importDecl) {
     	String old= importDecl.getElementName();
-		int oldPackLength= movedUnit.getParent().getElementName().length();
+		int oldPackLength= sourcePackage.getElementName().length();
 
 		StringBuilder result= new StringBuilder(fDestination.getElementName());
 		if (oldPackLength == 0) // move FROM default package
@@ -220,7 +245,7 @@ public class MoveCuUpdateCreator {
 
 	private void removeImportsToDestinationPackageTypes(ICompilationUnit movedUnit) throws CoreException{
 		ImportRewrite importEdit= getImportRewrite(movedUnit);
-		for (IType destinationType : getDestinationPackageTypes()) {
+		for (IType destinationType : fDestinationPackageTypes) {
 			importEdit.removeImport(destinationType.getFullyQualifiedName('.'));
 		}
 		importEdit.removeImport(fDestination.getElementName().concat(".*")); //$NON-NLS-1$
@@ -253,7 +278,7 @@ public class MoveCuUpdateCreator {
 		}
 	}
 
-	private ImportRewrite getImportRewrite(ICompilationUnit cu) throws CoreException{
+	private synchronized ImportRewrite getImportRewrite(ICompilationUnit cu) throws CoreException{
 		if (fImportRewrites.containsKey(cu))
 			return fImportRewrites.get(cu);
 		ImportRewrite importEdit= StubUtility.createImportRewrite(cu, true);
@@ -261,32 +286,30 @@ public class MoveCuUpdateCreator {
 		return importEdit;
 	}
 
-	private boolean simpleReferencesNeedNewImport(ICompilationUnit movedUnit, ICompilationUnit referencingCu, List<ICompilationUnit> cuList) {
-		if (referencingCu.equals(movedUnit))
-			return false;
+	private boolean simpleReferencesNeedNewImport(IPackageFragment sourcePackage, ICompilationUnit referencingCu, List<ICompilationUnit> cuList) {
 		if (cuList.contains(referencingCu))
 			return false;
-		if (isReferenceInAnotherFragmentOfSamePackage(referencingCu, movedUnit)) {
+		if (isReferenceInAnotherFragmentOfSamePackage(referencingCu, sourcePackage)) {
 			/* Destination package is different from source, since
-			 * isDestinationAnotherFragmentOfSamePackage(movedUnit) was false in addUpdates(.) */
+			 * isInAnotherFragmentOfSamePackage(movedUnit, fDestination) was false in addUpdates(.) */
 			return true;
 		}
 
 		//heuristic
-		if (referencingCu.getImport(movedUnit.getParent().getElementName() + ".*").exists()) //$NON-NLS-1$
+		if (referencingCu.getImport(sourcePackage.getElementName() + ".*").exists()) //$NON-NLS-1$
 			return true; // has old star import
-		if (referencingCu.getParent().equals(movedUnit.getParent()))
+		if (referencingCu.getParent().equals(sourcePackage))
 			return true; //is moved away from same package
 		return false;
 	}
 
-	private boolean isReferenceInAnotherFragmentOfSamePackage(ICompilationUnit referencingCu, ICompilationUnit movedUnit) {
+	private boolean isReferenceInAnotherFragmentOfSamePackage(ICompilationUnit referencingCu, IPackageFragment sourcePackage) {
 		if (referencingCu == null)
 			return false;
 		if (! (referencingCu.getParent() instanceof IPackageFragment))
 			return false;
 		IPackageFragment pack= (IPackageFragment) referencingCu.getParent();
-		return isInAnotherFragmentOfSamePackage(movedUnit, pack);
+		return ! sourcePackage.equals(pack) && JavaModelUtil.isSamePackage(sourcePackage, pack);
 	}
 
 	private static boolean isInAnotherFragmentOfSamePackage(ICompilationUnit cu, IPackageFragment pack) {
@@ -296,13 +319,18 @@ public class MoveCuUpdateCreator {
 		return ! cuPack.equals(pack) && JavaModelUtil.isSamePackage(cuPack, pack);
 	}
 
-	private static SearchResultGroup[] getReferences(ICompilationUnit unit, IProgressMonitor pm, RefactoringStatus status) throws CoreException {
-		final SearchPattern pattern= RefactoringSearchEngine.createOrPattern(unit.getTypes(), IJavaSearchConstants.REFERENCES);
+	private static SearchResultGroup[] getReferences(IPackageFragment sourcePackage, List<ICompilationUnit> units, IProgressMonitor pm, RefactoringStatus status) throws CoreException {
+		List<IType> types= new ArrayList<>();
+		for (ICompilationUnit unit : units)
+			types.addAll(Arrays.asList(unit.getTypes()));
+		final SearchPattern pattern= RefactoringSearchEngine.createOrPattern(types.toArray(new IType[types.size()]), IJavaSearchConstants.REFERENCES);
 		if (pattern != null) {
-			String binaryRefsDescription= Messages.format(RefactoringCoreMessages.ReferencesInBinaryContext_ref_in_binaries_description , BasicElementLabels.getFileName(unit));
+			String binaryRefsDescription= units.size() == 1
+					? Messages.format(RefactoringCoreMessages.ReferencesInBinaryContext_ref_in_binaries_description , BasicElementLabels.getFileName(units.get(0)))
+					: RefactoringCoreMessages.ReferencesInBinaryContext_ref_in_binaries_description_plural;
 			ReferencesInBinaryContext binaryRefs= new ReferencesInBinaryContext(binaryRefsDescription);
-			Collector requestor= new Collector(((IPackageFragment) unit.getParent()), binaryRefs);
-			IJavaSearchScope scope= RefactoringScopeFactory.create(unit, true, false);
+			Collector requestor= new Collector(sourcePackage, binaryRefs);
+			IJavaSearchScope scope= RefactoringScopeFactory.create(sourcePackage, true, false);
 
 			SearchResultGroup[] result= RefactoringSearchEngine.search(pattern, scope, requestor, new SubProgressMonitor(pm, 1), status);
 			binaryRefs.addErrorIfNecessary(status);
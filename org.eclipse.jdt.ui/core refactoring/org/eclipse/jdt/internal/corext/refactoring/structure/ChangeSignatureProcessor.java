@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2018 IBM Corporation and others.
+ * Copyright (c) 2000, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -17,6 +17,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -59,6 +60,7 @@ import org.eclipse.jdt.core.compiler.IProblem;
 import org.eclipse.jdt.core.dom.AST;
 import org.eclipse.jdt.core.dom.ASTNode;
 import org.eclipse.jdt.core.dom.ASTParser;
+import org.eclipse.jdt.core.dom.ASTRequestor;
 import org.eclipse.jdt.core.dom.AbstractTypeDeclaration;
 import org.eclipse.jdt.core.dom.Block;
 import org.eclipse.jdt.core.dom.BodyDeclaration;
@@ -70,6 +72,7 @@ import org.eclipse.jdt.core.dom.EnumConstantDeclaration;
 import org.eclipse.jdt.core.dom.EnumDeclaration;
 import org.eclipse.jdt.core.dom.Expression;
 import org.eclipse.jdt.core.dom.ExpressionMethodReference;
+import org.eclipse.jdt.core.dom.IBinding;
 import org.eclipse.jdt.core.dom.IMethodBinding;
 import org.eclipse.jdt.core.dom.ITypeBinding;
 import org.eclipse.jdt.core.dom.ImportDeclaration;
@@ -153,6 +156,8 @@ import org.eclipse.jdt.internal.corext.refactoring.tagging.IDelegateUpdating;
 import org.eclipse.jdt.internal.corext.refactoring.util.JavaElementUtil;
 import org.eclipse.jdt.internal.corext.refactoring.util.JavaStatusContext;
 import org.eclipse.jdt.internal.corext.refactoring.util.JavadocUtil;
+import org.eclipse.jdt.internal.corext.refactoring.util.ParallelChangeCreator;
+import org.eclipse.jdt.internal.corext.refactoring.util.ParallelChangeCreator.IUnitProcessor;
 import org.eclipse.jdt.internal.corext.refactoring.util.RefactoringASTParser;
 import org.eclipse.jdt.internal.corext.refactoring.util.ResourceUtil;
 import org.eclipse.jdt.internal.corext.refactoring.util.TextChangeManager;
@@ -1383,49 +1388,156 @@ public class ChangeSignatureProcessor extends RefactoringProcessor implements ID
 		}else{
 			pm.worked(1);
 		}
+		Map<ICompilationUnit, SearchResultGroup> groups= new LinkedHashMap<>();
 		for (SearchResultGroup occurrence : fOccurrences) {
-			if (pm.isCanceled())
-				throw new OperationCanceledException();
-			SearchResultGroup group= occurrence;
-			ICompilationUnit cu= group.getCompilationUnit();
-			if (cu == null)
-				continue;
-			CompilationUnitRewrite cuRewrite;
-			if (cu.equals(getCu())) {
-				cuRewrite= fBaseCuRewrite;
-			} else {
-				cuRewrite= new CompilationUnitRewrite(cu);
+			ICompilationUnit cu= occurrence.getCompilationUnit();
+			if (cu != null)
+				groups.put(cu, occurrence);
+		}
+		List<ICompilationUnit> otherUnits= new ArrayList<>(groups.keySet());
+		otherUnits.remove(getCu());
+
+		final Map<ICompilationUnit, Set<IType>> subclassMapping= namedSubclassMapping;
+		if (groups.containsKey(getCu()))
+			result.merge(createChange(getCu(), groups.get(getCu()), fBaseCuRewrite, subclassMapping, null));
+		// the body updater and default value advisor of Introduce Parameter (Object) are not thread safe
+		if (fBodyUpdater == null && fDefaultValueAdvisor == null && ParallelChangeCreator.isConcurrent(otherUnits.size())) {
+			// each worker parses its compilation units on its own, since the ASTs parsed in one batch
+			// share a binding resolver, which is not thread safe. For the same reason, the workers
+			// do not use the new types resolved by the refactoring, but resolve them with their ASTs.
+			final Map<ITypeBinding, String> typeBindingKeys= getTypeBindingKeys();
+			IUnitProcessor processor= (cu, monitor) -> {
+				if (monitor.isCanceled())
+					throw new OperationCanceledException();
+				Map<ITypeBinding, ITypeBinding> typeBindings= new IdentityHashMap<>();
+				CompilationUnitRewrite cuRewrite= createRewrite(cu, typeBindingKeys, typeBindings);
 				cuRewrite.getASTRewrite().setTargetSourceRangeComputer(new TightSourceRangeComputer());
-			}
-			//IntroduceParameterObjectRefactoring needs to update declarations first:
-			List<OccurrenceUpdate<? extends ASTNode>> deferredUpdates= new ArrayList<>();
-			for (ASTNode node : ASTNodeSearchUtil.findNodes(group.getSearchResults(), cuRewrite.getRoot())) {
-				OccurrenceUpdate<? extends ASTNode> update= createOccurrenceUpdate(node, cuRewrite, result);
-				if (update instanceof DeclarationUpdate) {
-					update.updateNode();
-				} else {
-					deferredUpdates.add(update);
+				if (typeBindings.size() < typeBindingKeys.size()) {
+					// a type cannot be resolved from the compilation unit, use the types of the refactoring one unit at a time
+					synchronized (typeBindingKeys) {
+						return createChange(cu, groups.get(cu), cuRewrite, subclassMapping, null);
+					}
 				}
+				return createChange(cu, groups.get(cu), cuRewrite, subclassMapping, typeBindings);
+			};
+			result.merge(ParallelChangeCreator.run(otherUnits.toArray(new ICompilationUnit[otherUnits.size()]), processor, null, new SubProgressMonitor(pm, 1)));
+		} else {
+			// parse the other compilation units in batches
+			CompilationUnitRewritePrefetcher prefetcher= new CompilationUnitRewritePrefetcher(null, otherUnits.toArray(new ICompilationUnit[otherUnits.size()]));
+			for (ICompilationUnit cu : prefetcher.getCompilationUnits()) {
+				if (pm.isCanceled())
+					throw new OperationCanceledException();
+				CompilationUnitRewrite cuRewrite= prefetcher.createRewrite(cu, null);
+				cuRewrite.getASTRewrite().setTargetSourceRangeComputer(new TightSourceRangeComputer());
+				result.merge(createChange(cu, groups.get(cu), cuRewrite, subclassMapping, null));
+			}
+		}
+
+		pm.done();
+		return fChangeManager;
+	}
+
+	/**
+	 * Returns the binding keys of the types resolved by the refactoring, which are used to update
+	 * the occurrences: the new types of the parameters and of the return type, and the types of the
+	 * exceptions. Called before the workers are started, since the bindings of the refactoring
+	 * must not be accessed concurrently.
+	 *
+	 * @return the binding keys by type binding of the refactoring
+	 */
+	private Map<ITypeBinding, String> getTypeBindingKeys() {
+		Map<ITypeBinding, String> keys= new IdentityHashMap<>();
+		for (ParameterInfo info : fParameterInfos)
+			addTypeBindingKey(keys, info.getNewTypeBinding());
+		if (fReturnTypeInfo != null)
+			addTypeBindingKey(keys, fReturnTypeInfo.getNewTypeBinding());
+		for (ExceptionInfo info : fExceptionInfos)
+			addTypeBindingKey(keys, info.getTypeBinding());
+		return keys;
+	}
+
+	private static void addTypeBindingKey(Map<ITypeBinding, String> keys, ITypeBinding binding) {
+		if (binding != null)
+			keys.put(binding, binding.getKey());
+	}
+
+	/**
+	 * Creates the rewrite of a compilation unit processed by a worker. The compilation unit is
+	 * parsed on its own, together with the types of the refactoring.
+	 *
+	 * @param cu the compilation unit
+	 * @param typeBindingKeys the binding keys by type binding of the refactoring
+	 * @param typeBindings receives the bindings of the AST of the compilation unit by type binding
+	 *            of the refactoring, for the types which can be resolved
+	 * @return the rewrite
+	 */
+	private static CompilationUnitRewrite createRewrite(ICompilationUnit cu, Map<ITypeBinding, String> typeBindingKeys, Map<ITypeBinding, ITypeBinding> typeBindings) {
+		final Map<String, ITypeBinding> resolved= new HashMap<>();
+		final CompilationUnit[] root= new CompilationUnit[1];
+		Set<String> keys= new HashSet<>(typeBindingKeys.values());
+		new RefactoringASTParser(IASTSharedValues.SHARED_AST_LEVEL).createASTs(new ICompilationUnit[] { cu }, keys.toArray(new String[keys.size()]), null, true, true, false, new ASTRequestor() {
+			@Override
+			public void acceptAST(ICompilationUnit source, CompilationUnit ast) {
+				root[0]= ast;
 			}
-			for (OccurrenceUpdate<? extends ASTNode> occurrenceUpdate : deferredUpdates) {
-				occurrenceUpdate.updateNode();
+
+			@Override
+			public void acceptBinding(String bindingKey, IBinding binding) {
+				if (binding instanceof ITypeBinding)
+					resolved.put(bindingKey, (ITypeBinding) binding);
 			}
+		}, null);
+		for (Map.Entry<ITypeBinding, String> entry : typeBindingKeys.entrySet()) {
+			ITypeBinding binding= resolved.get(entry.getValue());
+			if (binding != null)
+				typeBindings.put(entry.getKey(), binding);
+		}
+		return new CompilationUnitRewrite(cu, root[0]);
+	}
 
-			if (isNoArgConstructor && namedSubclassMapping.containsKey(cu)){
-				//only non-anonymous subclasses may have noArgConstructors to modify - see bug 43444
-				for (IType subtype : namedSubclassMapping.get(cu)) {
-					AbstractTypeDeclaration subtypeNode= ASTNodeSearchUtil.getAbstractTypeDeclarationNode(subtype, cuRewrite.getRoot());
-					if (subtypeNode != null)
-						modifyImplicitCallsToNoArgConstructor(subtypeNode, cuRewrite);
-				}
+	/**
+	 * Updates the occurrences in the given compilation unit and adds its change to the change
+	 * manager. Called concurrently for different compilation units, each with its own AST.
+	 *
+	 * @param cu the compilation unit
+	 * @param group the occurrences in the compilation unit
+	 * @param cuRewrite the rewrite of the compilation unit
+	 * @param namedSubclassMapping the named subclasses by compilation unit, or <code>null</code>
+	 *            if the method is not a no-arg constructor
+	 * @param typeBindings the bindings of the AST of the compilation unit by type binding of the
+	 *            refactoring, or <code>null</code> to use the type bindings of the refactoring
+	 * @return the status of the compilation unit
+	 * @throws CoreException if the change cannot be created
+	 */
+	private RefactoringStatus createChange(ICompilationUnit cu, SearchResultGroup group, CompilationUnitRewrite cuRewrite, Map<ICompilationUnit, Set<IType>> namedSubclassMapping, Map<ITypeBinding, ITypeBinding> typeBindings) throws CoreException {
+		RefactoringStatus result= new RefactoringStatus();
+		//IntroduceParameterObjectRefactoring needs to update declarations first:
+		List<OccurrenceUpdate<? extends ASTNode>> deferredUpdates= new ArrayList<>();
+		for (ASTNode node : ASTNodeSearchUtil.findNodes(group.getSearchResults(), cuRewrite.getRoot())) {
+			OccurrenceUpdate<? extends ASTNode> update= createOccurrenceUpdate(node, cuRewrite, result);
+			update.setTypeBindings(typeBindings);
+			if (update instanceof DeclarationUpdate) {
+				update.updateNode();
+			} else {
+				deferredUpdates.add(update);
 			}
-			TextChange change= cuRewrite.createChange(true);
-			if (change != null)
-				fChangeManager.manage(cu, change);
+		}
+		for (OccurrenceUpdate<? extends ASTNode> occurrenceUpdate : deferredUpdates) {
+			occurrenceUpdate.updateNode();
 		}
 
-		pm.done();
-		return fChangeManager;
+		if (namedSubclassMapping != null && namedSubclassMapping.containsKey(cu)){
+			//only non-anonymous subclasses may have noArgConstructors to modify - see bug 43444
+			for (IType subtype : namedSubclassMapping.get(cu)) {
+				AbstractTypeDeclaration subtypeNode= ASTNodeSearchUtil.getAbstractTypeDeclarationNode(subtype, cuRewrite.getRoot());
+				if (subtypeNode != null)
+					modifyImplicitCallsToNoArgConstructor(subtypeNode, cuRewrite);
+			}
+		}
+		TextChange change= cuRewrite.createChange(true);
+		if (change != null)
+			fChangeManager.manage(cu, change);
+		return result;
 	}
 
 	private Map<ICompilationUnit, Set<IType>> createNamedSubclassMapping(IProgressMonitor pm) throws JavaModelException{
@@ -1643,6 +1755,7 @@ public class ChangeSignatureProcessor extends RefactoringProcessor implements ID
 		protected final CompilationUnitRewrite fCuRewrite;
 		protected final TextEditGroup fDescription;
 		protected RefactoringStatus fResult;
+		private Map<ITypeBinding, ITypeBinding> fTypeBindings;
 
 		protected OccurrenceUpdate(CompilationUnitRewrite cuRewrite, TextEditGroup description, RefactoringStatus result) {
 			fCuRewrite= cuRewrite;
@@ -1650,6 +1763,24 @@ public class ChangeSignatureProcessor extends RefactoringProcessor implements ID
 			fResult= result;
 		}
 
+		final void setTypeBindings(Map<ITypeBinding, ITypeBinding> typeBindings) {
+			fTypeBindings= typeBindings;
+		}
+
+		/**
+		 * Returns the binding to use in this compilation unit for a type resolved by the
+		 * refactoring.
+		 *
+		 * @param binding a type binding of the refactoring, or <code>null</code>
+		 * @return the given binding, or the equivalent binding of the AST of the compilation unit
+		 *         if the compilation unit is processed by a worker thread
+		 */
+		protected final ITypeBinding getTypeBinding(ITypeBinding binding) {
+			if (binding == null || fTypeBindings == null)
+				return binding;
+			return fTypeBindings.get(binding);
+		}
+
 		protected final ASTRewrite getASTRewrite() {
 			return fCuRewrite.getASTRewrite();
 		}
@@ -2037,7 +2168,7 @@ public class ChangeSignatureProcessor extends RefactoringProcessor implements ID
 			if (oldParam instanceof SingleVariableDeclaration) {
 				getASTRewrite().set(oldParam, SingleVariableDeclaration.VARARGS_PROPERTY, Boolean.valueOf(info.isNewVarargs()), fDescription);
 				SingleVariableDeclaration oldSVDParam= (SingleVariableDeclaration) oldParam;
-				replaceTypeNode(oldSVDParam.getType(), ParameterInfo.stripEllipsis(info.getNewTypeName()), info.getNewTypeBinding());
+				replaceTypeNode(oldSVDParam.getType(), ParameterInfo.stripEllipsis(info.getNewTypeName()), getTypeBinding(info.getNewTypeBinding()));
 				removeExtraDimensions(oldSVDParam);
 			}
 		}
@@ -2092,7 +2223,7 @@ public class ChangeSignatureProcessor extends RefactoringProcessor implements ID
 		protected SingleVariableDeclaration createNewSingleVariableDeclaration(ParameterInfo info) {
 			SingleVariableDeclaration newP= getASTRewrite().getAST().newSingleVariableDeclaration();
 			newP.setName(getASTRewrite().getAST().newSimpleName(info.getNewName()));
-			newP.setType(createNewTypeNode(ParameterInfo.stripEllipsis(info.getNewTypeName()), info.getNewTypeBinding()));
+			newP.setType(createNewTypeNode(ParameterInfo.stripEllipsis(info.getNewTypeName()), getTypeBinding(info.getNewTypeBinding())));
 			newP.setVarargs(info.isNewVarargs());
 			return newP;
 		}
@@ -2231,7 +2362,7 @@ public class ChangeSignatureProcessor extends RefactoringProcessor implements ID
 		private void changeReturnType() {
 			if (isReturnTypeSameAsInitial())
 				return;
-			replaceTypeNode(fMethDecl.getReturnType2(), fReturnTypeInfo.getNewTypeName(), fReturnTypeInfo.getNewTypeBinding());
+			replaceTypeNode(fMethDecl.getReturnType2(), fReturnTypeInfo.getNewTypeName(), getTypeBinding(fReturnTypeInfo.getNewTypeBinding()));
 			removeExtraDimensions(fMethDecl);
 			//Remove expression from return statement when changed to void? No, would lose information!
 			//Could add return statement with default value and add todo comment, but compile error is better.
@@ -2273,7 +2404,7 @@ public class ChangeSignatureProcessor extends RefactoringProcessor implements ID
 		}
 
 		private void removeExceptionFromNodeList(ExceptionInfo toRemove, List<Type> list) {
-			ITypeBinding typeToRemove= toRemove.getTypeBinding();
+			ITypeBinding typeToRemove= getTypeBinding(toRemove.getTypeBinding());
 			for (Type currentExcType : list) {
 				ITypeBinding currentType= currentExcType.resolveBinding();
 				/* Maybe remove all subclasses of typeToRemove too.
@@ -2436,7 +2567,7 @@ public class ChangeSignatureProcessor extends RefactoringProcessor implements ID
 							boolean remove= false;
 							final ITypeBinding nameBinding= name.resolveTypeBinding();
 							if (nameBinding != null) {
-								final ITypeBinding infoBinding= info.getTypeBinding();
+								final ITypeBinding infoBinding= getTypeBinding(info.getTypeBinding());
 								if (infoBinding != null && Bindings.equals(infoBinding, nameBinding))
 									remove= true;
 								else if (info.getElement().getElementName().equals(nameBinding.getName()))
@@ -2470,7 +2601,7 @@ public class ChangeSignatureProcessor extends RefactoringProcessor implements ID
 							final ITypeBinding nameBinding= tagName.resolveTypeBinding();
 							if (nameBinding != null) {
 								boolean process= false;
-								final ITypeBinding infoBinding= info.getTypeBinding();
+								final ITypeBinding infoBinding= getTypeBinding(info.getTypeBinding());
 								if (infoBinding != null && Bindings.equals(infoBinding, nameBinding))
 									process= true;
 								else if (info.getElement().getElementName().equals(nameBinding.getName()))
@@ -2628,7 +2759,7 @@ public class ChangeSignatureProcessor extends RefactoringProcessor implements ID
 
 		private Type createNewDocRefType(ParameterInfo info) {
 			String newTypeName= ParameterInfo.stripEllipsis(info.getNewTypeName());
-			ITypeBinding newTypeBinding= info.getNewTypeBinding();
+			ITypeBinding newTypeBinding= getTypeBinding(info.getNewTypeBinding());
 			if (newTypeBinding != null)
 				newTypeBinding= newTypeBinding.getErasure(); //see bug 83127: Javadoc references are raw (erasures)
 			return createNewTypeNode(newTypeName, newTypeBinding);
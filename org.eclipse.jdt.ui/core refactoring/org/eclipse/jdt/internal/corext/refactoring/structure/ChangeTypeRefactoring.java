@@ -484,7 +484,7 @@ public class ChangeTypeRefactoring extends Refactoring {
 		pm.beginTask(RefactoringCoreMessages.ChangeTypeRefactoring_checking_preconditions, 1);
 
 		RefactoringStatus result= Checks.validateModifiesFiles(
-			ResourceUtil.getFiles(fAffectedUnits), getValidationContext());
+			ResourceUtil.getFiles(fAffectedUnits), getValidationContext(), this);
 
 		pm.done();
 		return result;
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -14,11 +14,9 @@
 package org.eclipse.jdt.internal.corext.refactoring.structure.constraints;
 
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.Map;
 
 import org.eclipse.core.runtime.Assert;
@@ -28,6 +26,7 @@ import org.eclipse.jdt.core.ICompilationUnit;
 import org.eclipse.jdt.internal.corext.refactoring.typeconstraints.types.TType;
 import org.eclipse.jdt.internal.corext.refactoring.typeconstraints2.CastVariable2;
 import org.eclipse.jdt.internal.corext.refactoring.typeconstraints2.ConstraintVariable2;
+import org.eclipse.jdt.internal.corext.refactoring.typeconstraints2.ConstraintVariableWorkList;
 import org.eclipse.jdt.internal.corext.refactoring.typeconstraints2.ITypeConstraint2;
 import org.eclipse.jdt.internal.corext.refactoring.typeconstraints2.ITypeConstraintVariable;
 import org.eclipse.jdt.internal.corext.refactoring.typeconstraints2.ITypeSet;
@@ -50,8 +49,8 @@ public class SuperTypeConstraintsSolver {
 	/** The obsolete casts (element type: <code>&lt;ICompilationUnit, Collection&lt;CastVariable2&gt;&gt;</code>) */
 	protected Map<ICompilationUnit, Collection<CastVariable2>> fObsoleteCasts= null;
 
-	/** The list of constraint variables to be processed */
-	protected LinkedList<ConstraintVariable2> fProcessable= null;
+	/** The work-list of constraint variables to be processed */
+	protected ConstraintVariableWorkList fProcessable= null;
 
 	/** The type occurrences (element type: <code>&lt;ICompilationUnit, Collection&lt;ITypeConstraintVariable&gt;</code>) */
 	protected Map<ICompilationUnit, Collection<ITypeConstraintVariable>> fTypeOccurrences= null;
@@ -247,7 +246,7 @@ public class SuperTypeConstraintsSolver {
 				final ITypeSet newEstimate= leftEstimate.restrictedTo(constraint.getRight().getTypeEstimate());
 				if (leftEstimate != newEstimate) {
 					set.setTypeEstimate(newEstimate);
-					fProcessable.addAll(Arrays.asList(set.getContributingVariables()));
+					fProcessable.addAll(set.getContributingVariables());
 				}
 			}
 		}
@@ -257,7 +256,7 @@ public class SuperTypeConstraintsSolver {
 	 * Solves the constraints of the associated model.
 	 */
 	public final void solveConstraints() {
-		fProcessable= new LinkedList<>();
+		fProcessable= new ConstraintVariableWorkList();
 		final Collection<ConstraintVariable2> variables= fModel.getConstraintVariables();
 		final Collection<ITypeConstraint2> constraints= fModel.getTypeConstraints();
 		final int level= fModel.getCompliance();
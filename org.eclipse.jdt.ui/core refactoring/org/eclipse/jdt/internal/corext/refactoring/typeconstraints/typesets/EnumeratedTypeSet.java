@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -13,9 +13,10 @@
  *******************************************************************************/
 package org.eclipse.jdt.internal.corext.refactoring.typeconstraints.typesets;
 
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Iterator;
-import java.util.LinkedHashSet;
-import java.util.Set;
+import java.util.NoSuchElementException;
 
 import org.eclipse.core.runtime.Assert;
 
@@ -24,8 +25,14 @@ import org.eclipse.jdt.internal.corext.refactoring.typeconstraints.types.TType;
 import org.eclipse.jdt.internal.corext.refactoring.typeconstraints2.TTypes;
 
 /**
- * A type-safe wrapper for {@code Set<TType>} that also adds {@code TType}-specific
+ * A set of {@code TType}s that also adds {@code TType}-specific
  * functionality, e.g. subTypes() and superTypes().
+ * <p>
+ * The members are stored as a bit set of the ids given to the types by the
+ * {@link TypeSetEnvironment}, so that intersections, subset and equality checks
+ * operate on whole words. The ids are also kept in the order in which the members
+ * have been added, which is the order of iteration.
+ * </p>
  */
 public class EnumeratedTypeSet extends TypeSet {
 	static private int sCount= 0;
@@ -39,9 +46,18 @@ public class EnumeratedTypeSet extends TypeSet {
 	}
 
 	/**
-	 * Set containing the TTypes in this EnumeratedTypeSet.
+	 * Bit set containing the ids of the TTypes in this EnumeratedTypeSet,
+	 * see {@link TypeSetEnvironment#getTypeId(TType)}.
 	 */
-	Set<TType> fMembers= new LinkedHashSet<>();
+	private BitSet fMembers= new BitSet();
+
+	/**
+	 * The ids of the members in the order in which they have been added. The first
+	 * <code>fOrderSize</code> elements are exactly the bits set in <code>fMembers</code>.
+	 */
+	private int[] fOrder= new int[4];
+
+	private int fOrderSize= 0;
 
 	/**
 	 * Constructs a new EnumeratedTypeSet with the members of Set s in it.
@@ -53,7 +69,7 @@ public class EnumeratedTypeSet extends TypeSet {
 	public EnumeratedTypeSet(Iterator<TType> types, TypeSetEnvironment typeSetEnvironment) {
 		super(typeSetEnvironment);
 		while (types.hasNext()) {
-			fMembers.add(types.next());
+			add(types.next());
 		}
 		sCount++;
 	}
@@ -77,7 +93,7 @@ public class EnumeratedTypeSet extends TypeSet {
 	public EnumeratedTypeSet(TType t, TypeSetEnvironment typeSetEnvironment) {
 		super(typeSetEnvironment);
 		Assert.isNotNull(t);
-		fMembers.add(t);
+		add(t);
 		sCount++;
 	}
 
@@ -92,22 +108,22 @@ public class EnumeratedTypeSet extends TypeSet {
 	@Override
 	public boolean equals(Object o) {
 		if (this == o) return true;
-		if (o instanceof EnumeratedTypeSet) {
+		if (o instanceof EnumeratedTypeSet && ((EnumeratedTypeSet) o).getTypeSetEnvironment() == getTypeSetEnvironment()) {
 			EnumeratedTypeSet other= (EnumeratedTypeSet) o;
 
 			return fMembers.equals(other.fMembers);
 		} else if (o instanceof SingletonTypeSet) {
 			SingletonTypeSet other= (SingletonTypeSet) o;
 
-			return (fMembers.size() == 1) && fMembers.contains(other.anyMember());
+			return isSingleton() && contains(other.anyMember());
 		} else if (o instanceof TypeSet) {
 			TypeSet other= (TypeSet) o;
 
 			for(Iterator<TType> otherIter= other.iterator(); otherIter.hasNext(); ) {
-				if (!fMembers.contains(otherIter.next()))
+				if (!contains(otherIter.next()))
 					return false;
 			}
-			for(Iterator<TType> myIter= fMembers.iterator(); myIter.hasNext(); ) {
+			for(Iterator<TType> myIter= iterator(); myIter.hasNext(); ) {
 				if (!other.contains(myIter.next()))
 					return false;
 			}
@@ -118,7 +134,11 @@ public class EnumeratedTypeSet extends TypeSet {
 
 	@Override
 	public int hashCode() {
-		return 37 + fMembers.hashCode();
+		// based on the members, since equal sets may come from different environments
+		int hashCode= 37;
+		for (int i= 0; i < fOrderSize; i++)
+			hashCode+= getTypeSetEnvironment().getType(fOrder[i]).hashCode();
+		return hashCode;
 	}
 
 	/**
@@ -152,8 +172,10 @@ public class EnumeratedTypeSet extends TypeSet {
 			// More than an optimization: the universe never contains array types, so
 			// if s2 has array types, the following will retain them, as it should.
 			EnumeratedTypeSet ets2= (EnumeratedTypeSet) s2;
-			fMembers= new LinkedHashSet<>();
-			fMembers.addAll(ets2.fMembers);
+			fMembers= new BitSet();
+			fOrder= new int[Math.max(ets2.fOrderSize, 4)];
+			fOrderSize= 0;
+			addAll(ets2);
 		} else
 			retainAll(s2);
 	}
@@ -167,7 +189,7 @@ public class EnumeratedTypeSet extends TypeSet {
 		if (isUniverse())
 			return makeClone(); // subtypes(universe) = universe
 
-		if (fMembers.contains(getJavaLangObject()))
+		if (contains(getJavaLangObject()))
 			return getTypeSetEnvironment().getUniverseTypeSet();
 
 		return getTypeSetEnvironment().createSubTypesSet(this);
@@ -200,20 +222,28 @@ public class EnumeratedTypeSet extends TypeSet {
 	public TypeSet makeClone() {
 		EnumeratedTypeSet result= new EnumeratedTypeSet(getTypeSetEnvironment());
 
-		result.fMembers.addAll(fMembers);
+		result.copyMembers(this);
 		result.initComplete();
 		return result;
 	}
 
+	private void copyMembers(EnumeratedTypeSet ets) {
+		fMembers.or(ets.fMembers);
+		fOrder= Arrays.copyOf(ets.fOrder, Math.max(ets.fOrderSize, 4));
+		fOrderSize= ets.fOrderSize;
+	}
+
 	public int size() {
-		return fMembers.size();
+		return fOrderSize;
 	}
 
 	public void clear() {
-		if (isUniverse())
-			fMembers= new LinkedHashSet<>();
-		else
+		if (isUniverse()) {
+			fMembers= new BitSet();
+			fOrder= new int[4];
+		} else
 			fMembers.clear();
+		fOrderSize= 0;
 	}
 
 	@Override
@@ -222,44 +252,106 @@ public class EnumeratedTypeSet extends TypeSet {
 	}
 
 	public TType[] toArray() {
-		return fMembers.toArray(new TType[fMembers.size()]);
+		TType[] result= new TType[size()];
+		int i= 0;
+		for (Iterator<TType> iter= iterator(); iter.hasNext(); )
+			result[i++]= iter.next();
+		return result;
 	}
 
 	public boolean add(TType t) {
 		// Doesn't make sense to do here what other methods do (copy-and-modify)
 		Assert.isTrue(!isUniverse(), "Someone's trying to expand the universe!"); //$NON-NLS-1$
-		return fMembers.add(t);
+		return addId(getTypeSetEnvironment().getTypeId(t));
+	}
+
+	private boolean addId(int id) {
+		if (fMembers.get(id))
+			return false;
+		fMembers.set(id);
+		if (fOrderSize == fOrder.length)
+			fOrder= Arrays.copyOf(fOrder, fOrderSize * 2);
+		fOrder[fOrderSize++]= id;
+		return true;
 	}
 
 	@Override
 	public boolean contains(TType t) {
 		if (isUniverse())
 			return true;
-		return fMembers.contains(t);
+		int id= getTypeSetEnvironment().findTypeId(t);
+		return id >= 0 && fMembers.get(id);
 	}
 
 	public boolean remove(TType t) {
 		if (isUniverse())
-			fMembers= cloneSet(fMembers);
-		return fMembers.remove(t);
+			copyOnWrite();
+		if (!clearMember(t))
+			return false;
+		removeClearedIds();
+		return true;
 	}
 
-	private Set<TType> cloneSet(Set<TType> members) {
-		Set<TType> result= new LinkedHashSet<>();
-		result.addAll(members);
-		return result;
+	private void copyOnWrite() {
+		fMembers= (BitSet) fMembers.clone();
+		fOrder= fOrder.clone();
 	}
 
-	public boolean addAll(TypeSet s) {
-		if (s instanceof EnumeratedTypeSet) {
-			EnumeratedTypeSet ets= (EnumeratedTypeSet) s;
+	/**
+	 * Clears the bit of the given type. {@link #removeClearedIds()} must be called
+	 * afterwards, this allows to remove several members in one pass.
+	 *
+	 * @param t the type
+	 * @return <code>true</code> if the type was a member
+	 */
+	private boolean clearMember(TType t) {
+		int id= getTypeSetEnvironment().findTypeId(t);
+		if (id < 0 || !fMembers.get(id))
+			return false;
+		fMembers.clear(id);
+		return true;
+	}
 
-			return fMembers.addAll(ets.fMembers);
-		} else {
-			EnumeratedTypeSet ets= s.enumerate();
+	/**
+	 * Removes the ids whose bits have been cleared from the insertion order.
+	 */
+	private void removeClearedIds() {
+		int size= 0;
+		for (int i= 0; i < fOrderSize; i++) {
+			if (fMembers.get(fOrder[i]))
+				fOrder[size++]= fOrder[i];
+		}
+		fOrderSize= size;
+	}
+
+	/**
+	 * Returns the members of the given set as ids of the receiver's environment.
+	 *
+	 * @param ets the other type set
+	 * @return the bit set of the members; must not be modified
+	 */
+	private BitSet getMembers(EnumeratedTypeSet ets) {
+		if (ets.getTypeSetEnvironment() == getTypeSetEnvironment())
+			return ets.fMembers;
+		BitSet result= new BitSet();
+		for (Iterator<TType> iter= ets.iterator(); iter.hasNext(); )
+			result.set(getTypeSetEnvironment().getTypeId(iter.next()));
+		return result;
+	}
 
-			return fMembers.addAll(ets.fMembers);
+	public boolean addAll(TypeSet s) {
+		EnumeratedTypeSet ets= s.enumerate();
+		boolean sameEnvironment= ets.getTypeSetEnvironment() == getTypeSetEnvironment();
+		boolean changed= false;
+
+		// in the insertion order of s
+		for (int i= 0; i < ets.fOrderSize; i++) {
+			int id= ets.fOrder[i];
+			if (!sameEnvironment)
+				id= getTypeSetEnvironment().getTypeId(ets.getTypeSetEnvironment().getType(id));
+			changed|= addId(id);
 		}
+		return changed;
 	}
 
 	@Override
@@ -279,14 +371,20 @@ public class EnumeratedTypeSet extends TypeSet {
 		if (s.isUniverse())
 			return false;
 		EnumeratedTypeSet ets= s.enumerate();
+		BitSet missing= (BitSet) getMembers(ets).clone();
 
-		return fMembers.containsAll(ets.fMembers);
+		missing.andNot(fMembers);
+		return missing.isEmpty();
 	}
 
 	public boolean removeAll(EnumeratedTypeSet s) {
 		if (isUniverse())
-			fMembers= cloneSet(fMembers);
-		return fMembers.removeAll(s.fMembers);
+			copyOnWrite();
+		int size= fOrderSize;
+
+		fMembers.andNot(getMembers(s));
+		removeClearedIds();
+		return fOrderSize != size;
 	}
 
 	public boolean retainAll(TypeSet s) {
@@ -295,69 +393,80 @@ public class EnumeratedTypeSet extends TypeSet {
 		EnumeratedTypeSet ets= (EnumeratedTypeSet) s;
 
 		if (isUniverse()) {
-			fMembers= cloneSet(ets.fMembers);
+			fMembers= new BitSet();
+			fOrder= new int[Math.max(ets.fOrderSize, 4)];
+			fOrderSize= 0;
+			addAll(ets);
 			return true;
-		} else
-			return fMembers.retainAll(ets.fMembers);
+		} else {
+			int size= fOrderSize;
+
+			fMembers.and(getMembers(ets));
+			removeClearedIds();
+			return fOrderSize != size;
+		}
 	}
 
 	@Override
 	public boolean isSingleton() {
-		return fMembers.size() == 1;
+		return size() == 1;
 	}
 
 	@Override
 	public TType anyMember() {
-		return fMembers.iterator().next();
+		if (fOrderSize == 0)
+			throw new NoSuchElementException();
+		return getTypeSetEnvironment().getType(fOrder[0]);
 	}
 
 	@Override
 	public TypeSet upperBound() {
-		if (fMembers.size() == 1)
-			return new SingletonTypeSet(fMembers.iterator().next(), getTypeSetEnvironment());
-		if (fMembers.contains(getJavaLangObject()))
+		if (isSingleton())
+			return new SingletonTypeSet(anyMember(), getTypeSetEnvironment());
+		if (contains(getJavaLangObject()))
 			return new SingletonTypeSet(getJavaLangObject(), getTypeSetEnvironment());
 
 		EnumeratedTypeSet result= new EnumeratedTypeSet(getTypeSetEnvironment());
 
 		// Add to result each element of fMembers that has no proper supertype in fMembers
-		result.fMembers.addAll(fMembers);
-		for(Iterator<TType> iter= fMembers.iterator(); iter.hasNext(); ) {
+		result.copyMembers(this);
+		for(Iterator<TType> iter= iterator(); iter.hasNext(); ) {
 			TType t= iter.next();
 
 			if (t.isArrayType()) {
 				ArrayType at= (ArrayType) t;
 				int numDims= at.getDimensions();
 				for(Iterator<TType> subIter=TTypes.getAllSubTypesIterator(at.getElementType()); subIter.hasNext(); ) {
-					result.fMembers.remove(TTypes.createArrayType(subIter.next(), numDims));
+					result.clearMember(TTypes.createArrayType(subIter.next(), numDims));
 				}
 			} else {
 				for (Iterator<TType> iterator= TTypes.getAllSubTypesIterator(t); iterator.hasNext();) {
-					result.fMembers.remove(iterator.next());
+					result.clearMember(iterator.next());
 				}
 			}
 		}
+		result.removeClearedIds();
 		result.initComplete();
 		return result;
 	}
 
 	@Override
 	public TypeSet lowerBound() {
-		if (fMembers.size() == 1)
-			return new SingletonTypeSet(fMembers.iterator().next(), getTypeSetEnvironment());
+		if (isSingleton())
+			return new SingletonTypeSet(anyMember(), getTypeSetEnvironment());
 
 		EnumeratedTypeSet result= new EnumeratedTypeSet(getTypeSetEnvironment());
 
 		// Add to result each element of fMembers that has no proper subtype in fMembers
-		result.fMembers.addAll(fMembers);
+		result.copyMembers(this);
 
-		for(Iterator<TType> iter= fMembers.iterator(); iter.hasNext(); ) {
+		for(Iterator<TType> iter= iterator(); iter.hasNext(); ) {
 			TType t= iter.next();
 
 			// java.lang.Object is only in the lower bound if fMembers consists
 			// of only java.lang.Object, but that case is handled above.
 			if (t.equals(getJavaLangObject())) {
-				result.fMembers.remove(t);
+				result.clearMember(t);
 				continue;
 			}
 
@@ -365,14 +474,15 @@ public class EnumeratedTypeSet extends TypeSet {
 				ArrayType at= (ArrayType) t;
 				int numDims= at.getDimensions();
 				for(Iterator<TType> superIter=TTypes.getAllSuperTypesIterator(at.getElementType()); superIter.hasNext(); ) {
-					result.fMembers.remove(TTypes.createArrayType(superIter.next(), numDims));
+					result.clearMember(TTypes.createArrayType(superIter.next(), numDims));
 				}
 			} else {
 				for (Iterator<TType> iterator= TTypes.getAllSuperTypesIterator(t); iterator.hasNext();) {
-					result.fMembers.remove(iterator.next());
+					result.clearMember(iterator.next());
 				}
 			}
 		}
+		result.removeClearedIds();
 		if (result.size() > 0)
 			return result;
 		else
@@ -381,31 +491,58 @@ public class EnumeratedTypeSet extends TypeSet {
 
 	@Override
 	public boolean hasUniqueLowerBound() {
-		return fMembers.size() == 1;
+		return isSingleton();
 	}
 
 	@Override
 	public boolean hasUniqueUpperBound() {
-		return fMembers.size() == 1;
+		return isSingleton();
 	}
 
 	@Override
 	public TType uniqueLowerBound() {
-		if (fMembers.size() == 1)
-			return fMembers.iterator().next();
+		if (isSingleton())
+			return anyMember();
 		return null;
 	}
 
 	@Override
 	public TType uniqueUpperBound() {
-		if (fMembers.size() == 1)
-			return fMembers.iterator().next();
+		if (isSingleton())
+			return anyMember();
 		return null;
 	}
 
 	@Override
 	public Iterator<TType> iterator() {
-		return fMembers.iterator();
+		return new Iterator<TType>() {
+			private int fNext= 0;
+			private boolean fCanRemove= false;
+
+			@Override
+			public boolean hasNext() {
+				return fNext < fOrderSize;
+			}
+
+			@Override
+			public TType next() {
+				if (fNext >= fOrderSize)
+					throw new NoSuchElementException();
+				fCanRemove= true;
+				return getTypeSetEnvironment().getType(fOrder[fNext++]);
+			}
+
+			@Override
+			public void remove() {
+				if (!fCanRemove)
+					throw new IllegalStateException();
+				fCanRemove= false;
+				fNext--;
+				fMembers.clear(fOrder[fNext]);
+				System.arraycopy(fOrder, fNext + 1, fOrder, fNext, fOrderSize - fNext - 1);
+				fOrderSize--;
+			}
+		};
 	}
 
 	/**
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2005, 2015 IBM Corporation and others.
+ * Copyright (c) 2005, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -14,7 +14,10 @@
 
 package org.eclipse.jdt.internal.corext.refactoring.typeconstraints.typesets;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.eclipse.jdt.internal.corext.refactoring.typeconstraints.types.TType;
@@ -33,6 +36,12 @@ public class TypeSetEnvironment {
 	private final Map<TType, SuperTypesOfSingleton> fSuperTypesOfSingletons= new LinkedHashMap<>();//@perf
 	private final Map<Object, SuperTypesSet> fSuperTypesSets= new LinkedHashMap<>();//@perf
 
+	/**
+	 * The dense numbering of the types used in enumerated type sets, see {@link #getTypeId(TType)}.
+	 */
+	private final Map<TType, Integer> fTypeIds= new HashMap<>();
+	private final List<TType> fTypes= new ArrayList<>();
+
 	private int fgCommonExprHits= 0;
 	private int fgCommonExprMisses= 0;
 
@@ -119,6 +128,46 @@ public class TypeSetEnvironment {
 		}
 	}
 
+	/**
+	 * Returns the id of the given type. The types are numbered densely in the order in which they
+	 * are first passed to this method, so that {@link EnumeratedTypeSet}s can represent their
+	 * members as bits.
+	 *
+	 * @param type the type
+	 * @return the id of the type
+	 */
+	int getTypeId(TType type) {
+		Integer id= fTypeIds.get(type);
+		if (id == null) {
+			id= Integer.valueOf(fTypes.size());
+			fTypeIds.put(type, id);
+			fTypes.add(type);
+		}
+		return id.intValue();
+	}
+
+	/**
+	 * Returns the id of the given type without numbering it.
+	 *
+	 * @param type the type
+	 * @return the id of the type, or <code>-1</code> if the type has not been numbered yet and
+	 *         hence is not contained in any enumerated type set
+	 */
+	int findTypeId(TType type) {
+		Integer id= fTypeIds.get(type);
+		return id != null ? id.intValue() : -1;
+	}
+
+	/**
+	 * Returns the type with the given id.
+	 *
+	 * @param id the id returned by {@link #getTypeId(TType)}
+	 * @return the type
+	 */
+	TType getType(int id) {
+		return fTypes.get(id);
+	}
+
 	public void dumpStats() {
 		System.out.println("Common expression hits:   " + fgCommonExprHits); //$NON-NLS-1$
 		System.out.println("Common expression misses: " + fgCommonExprMisses); //$NON-NLS-1$
@@ -0,0 +1,130 @@
+/*******************************************************************************
+ * Copyright (c) 2020 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.corext.refactoring.typeconstraints2;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The work-list of a type constraint solver, holding the constraint variables whose type
+ * estimate has changed and whose constraints remain to be (re-)processed.
+ * <p>
+ * Variables are processed in first-in, first-out order. A variable which is already waiting to
+ * be processed is not added a second time, since processing it once propagates its latest type
+ * estimate. Each variable is given a dense index when it is first added, so that checking and
+ * updating the membership do not depend on the <code>equals</code> and <code>hashCode</code>
+ * implementations of the variables.
+ * </p>
+ */
+public final class ConstraintVariableWorkList {
+
+	/** The indices of the variables (key type: <code>ConstraintVariable2</code>) */
+	private final Map<ConstraintVariable2, Integer> fIndices= new IdentityHashMap<>();
+
+	/** The variables by index */
+	private final List<ConstraintVariable2> fVariables= new ArrayList<>();
+
+	/** The indices of the queued variables */
+	private final BitSet fQueued= new BitSet();
+
+	/** The queue of variable indices, used as a ring buffer */
+	private int[] fQueue= new int[16];
+
+	private int fHead= 0;
+
+	private int fSize= 0;
+
+	/**
+	 * Adds the given variable unless it is already waiting to be processed.
+	 *
+	 * @param variable the constraint variable
+	 * @return <code>true</code> if the variable has been added
+	 */
+	public boolean add(ConstraintVariable2 variable) {
+		Integer index= fIndices.get(variable);
+		if (index == null) {
+			index= Integer.valueOf(fVariables.size());
+			fIndices.put(variable, index);
+			fVariables.add(variable);
+		}
+		int value= index.intValue();
+		if (fQueued.get(value))
+			return false;
+		fQueued.set(value);
+		if (fSize == fQueue.length) {
+			int[] queue= new int[fQueue.length * 2];
+			int first= fQueue.length - fHead;
+			System.arraycopy(fQueue, fHead, queue, 0, first);
+			System.arraycopy(fQueue, 0, queue, first, fHead);
+			fQueue= queue;
+			fHead= 0;
+		}
+		fQueue[(fHead + fSize) % fQueue.length]= value;
+		fSize++;
+		return true;
+	}
+
+	/**
+	 * Adds the given variables which are not yet waiting to be processed.
+	 *
+	 * @param variables the constraint variables
+	 */
+	public void addAll(ConstraintVariable2[] variables) {
+		for (ConstraintVariable2 variable : variables)
+			add(variable);
+	}
+
+	/**
+	 * Adds the given variables which are not yet waiting to be processed.
+	 *
+	 * @param variables the constraint variables
+	 */
+	public void addAll(Collection<? extends ConstraintVariable2> variables) {
+		for (ConstraintVariable2 variable : variables)
+			add(variable);
+	}
+
+	/**
+	 * Removes the variable which has been waiting the longest.
+	 *
+	 * @return the constraint variable
+	 */
+	public ConstraintVariable2 removeFirst() {
+		if (fSize == 0)
+			throw new IllegalStateException("Work-list is empty"); //$NON-NLS-1$
+		int value= fQueue[fHead];
+		fHead= (fHead + 1) % fQueue.length;
+		fSize--;
+		fQueued.clear(value);
+		return fVariables.get(value);
+	}
+
+	/**
+	 * @return <code>true</code> iff no variable is waiting to be processed
+	 */
+	public boolean isEmpty() {
+		return fSize == 0;
+	}
+
+	/**
+	 * @return the number of variables waiting to be processed
+	 */
+	public int size() {
+		return fSize;
+	}
+}
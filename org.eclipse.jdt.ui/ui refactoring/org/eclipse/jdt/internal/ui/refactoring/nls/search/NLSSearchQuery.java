@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2016 IBM Corporation and others.
+ * Copyright (c) 2000, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -14,6 +14,11 @@
 
 package org.eclipse.jdt.internal.ui.refactoring.nls.search;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
@@ -42,6 +47,7 @@ import org.eclipse.jdt.core.search.SearchPattern;
 
 import org.eclipse.jdt.internal.corext.refactoring.nls.NLSRefactoring;
 import org.eclipse.jdt.internal.corext.util.Messages;
+import org.eclipse.jdt.internal.corext.util.ParallelUnitRunner;
 import org.eclipse.jdt.internal.corext.util.SearchUtils;
 
 import org.eclipse.jdt.ui.JavaElementLabels;
@@ -77,6 +83,7 @@ public class NLSSearchQuery implements ISearchQuery {
 			final AbstractTextSearchResult textResult= (AbstractTextSearchResult) getSearchResult();
 			textResult.removeAll();
 
+			final Map<ICompilationUnit, List<Integer>> accessors= new LinkedHashMap<>();
 			for (int i= 0; i < fWrapperClass.length; i++) {
 				IJavaElement wrapperClass= fWrapperClass[i];
 				IFile propertieFile= fPropertiesFile[i];
@@ -85,45 +92,75 @@ public class NLSSearchQuery implements ISearchQuery {
 				if (! propertieFile.exists())
 					return JavaUIStatus.createError(0, Messages.format(NLSSearchMessages.NLSSearchQuery_propertiesNotExists, BasicElementLabels.getResourceName(propertieFile)), null);
 
-				SearchPattern pattern= SearchPattern.createPattern(wrapperClass, IJavaSearchConstants.REFERENCES, SearchUtils.GENERICS_AGNOSTIC_MATCH_RULE);
-				SearchParticipant[] participants= new SearchParticipant[] {SearchEngine.getDefaultSearchParticipant()};
-
-				NLSSearchResultRequestor requestor= new NLSSearchResultRequestor(propertieFile, fResult);
-				try {
-					SearchEngine engine= new SearchEngine();
-					engine.search(pattern, participants, fScope, requestor, new SubProgressMonitor(monitor, 4));
-					requestor.reportUnusedPropertyNames(new SubProgressMonitor(monitor, 1));
-
-					ICompilationUnit compilationUnit= ((IType)wrapperClass).getCompilationUnit();
-					CompilationUnitEntry groupElement= new CompilationUnitEntry(NLSSearchMessages.NLSSearchResultCollector_unusedKeys, compilationUnit);
-
-					boolean hasUnusedPropertie= false;
-					for (IField field : ((IType)wrapperClass).getFields()) {
-						if (isNLSField(field)) {
-							ISourceRange sourceRange= field.getSourceRange();
-							if (sourceRange != null) {
-								String fieldName= field.getElementName();
-								if (!requestor.hasPropertyKey(fieldName)) {
-									fResult.addMatch(new Match(compilationUnit, sourceRange.getOffset(), sourceRange.getLength()));
-								}
-								if (!requestor.isUsedPropertyKey(fieldName)) {
-									hasUnusedPropertie= true;
-									fResult.addMatch(new Match(groupElement, sourceRange.getOffset(), sourceRange.getLength()));
-								}
-							}
+				ICompilationUnit compilationUnit= ((IType)wrapperClass).getCompilationUnit();
+				List<Integer> indices= accessors.get(compilationUnit);
+				if (indices == null) {
+					indices= new ArrayList<>(1);
+					accessors.put(compilationUnit, indices);
+				}
+				indices.add(Integer.valueOf(i));
+			}
+
+			// the accessor classes are searched independently, and the matches are added to the result as they are found
+			try {
+				ParallelUnitRunner.run(accessors.keySet().toArray(new ICompilationUnit[accessors.size()]), (unit, pm) -> {
+					for (Integer index : accessors.get(unit))
+						search((IType) fWrapperClass[index.intValue()], fPropertiesFile[index.intValue()], pm);
+					return null;
+				}, unit -> Messages.format(NLSSearchMessages.NLSSearchQuery_searching, BasicElementLabels.getFileName(unit)), new SubProgressMonitor(monitor, 5 * fWrapperClass.length));
+			} catch (CoreException e) {
+				return new Status(e.getStatus().getSeverity(), JavaPlugin.getPluginId(), IStatus.OK, NLSSearchMessages.NLSSearchQuery_error, e);
+			}
+		} finally {
+			monitor.done();
+		}
+		return 	Status.OK_STATUS;
+	}
+
+	/**
+	 * Searches the broken and unused keys of the given accessor class. May be called from any
+	 * thread.
+	 *
+	 * @param wrapperClass the accessor class
+	 * @param propertieFile the properties file of the accessor class
+	 * @param monitor the progress monitor
+	 * @throws CoreException if the search fails
+	 */
+	private void search(IType wrapperClass, IFile propertieFile, IProgressMonitor monitor) throws CoreException {
+		monitor.beginTask("", 5); //$NON-NLS-1$
+		try {
+			SearchPattern pattern= SearchPattern.createPattern(wrapperClass, IJavaSearchConstants.REFERENCES, SearchUtils.GENERICS_AGNOSTIC_MATCH_RULE);
+			SearchParticipant[] participants= new SearchParticipant[] {SearchEngine.getDefaultSearchParticipant()};
+
+			NLSSearchResultRequestor requestor= new NLSSearchResultRequestor(propertieFile, fResult);
+			SearchEngine engine= new SearchEngine();
+			engine.search(pattern, participants, fScope, requestor, new SubProgressMonitor(monitor, 4));
+			requestor.reportUnusedPropertyNames(new SubProgressMonitor(monitor, 1));
+
+			ICompilationUnit compilationUnit= wrapperClass.getCompilationUnit();
+			CompilationUnitEntry groupElement= new CompilationUnitEntry(NLSSearchMessages.NLSSearchResultCollector_unusedKeys, compilationUnit);
+
+			boolean hasUnusedPropertie= false;
+			for (IField field : wrapperClass.getFields()) {
+				if (isNLSField(field)) {
+					ISourceRange sourceRange= field.getSourceRange();
+					if (sourceRange != null) {
+						String fieldName= field.getElementName();
+						if (!requestor.hasPropertyKey(fieldName)) {
+							fResult.addMatch(new Match(compilationUnit, sourceRange.getOffset(), sourceRange.getLength()));
+						}
+						if (!requestor.isUsedPropertyKey(fieldName)) {
+							hasUnusedPropertie= true;
+							fResult.addMatch(new Match(groupElement, sourceRange.getOffset(), sourceRange.getLength()));
 						}
 					}
-					if (hasUnusedPropertie)
-						fResult.addCompilationUnitGroup(groupElement);
-
-				} catch (CoreException e) {
-					return new Status(e.getStatus().getSeverity(), JavaPlugin.getPluginId(), IStatus.OK, NLSSearchMessages.NLSSearchQuery_error, e);
 				}
 			}
+			if (hasUnusedPropertie)
+				fResult.addCompilationUnitGroup(groupElement);
 		} finally {
 			monitor.done();
 		}
-		return 	Status.OK_STATUS;
 	}
 
 	private boolean isNLSField(IField field) throws JavaModelException {
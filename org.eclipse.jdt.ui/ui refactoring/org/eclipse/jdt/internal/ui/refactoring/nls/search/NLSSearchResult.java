@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -62,12 +62,31 @@ public class NLSSearchResult extends AbstractTextSearchResult implements IEditor
 		fCompilationUnitGroups= new ArrayList<>();
 	}
 
+	/*
+	 * The groups are added by the search of each accessor class, which may run on any thread.
+	 */
 	public void addFileEntryGroup(FileEntry group) {
-		fFileEntryGroups.add(group);
+		synchronized (fFileEntryGroups) {
+			fFileEntryGroups.add(group);
+		}
 	}
 
 	public void addCompilationUnitGroup(CompilationUnitEntry group) {
-		fCompilationUnitGroups.add(group);
+		synchronized (fCompilationUnitGroups) {
+			fCompilationUnitGroups.add(group);
+		}
+	}
+
+	private FileEntry[] getFileEntryGroups() {
+		synchronized (fFileEntryGroups) {
+			return fFileEntryGroups.toArray(new FileEntry[fFileEntryGroups.size()]);
+		}
+	}
+
+	private CompilationUnitEntry[] getCompilationUnitGroups() {
+		synchronized (fCompilationUnitGroups) {
+			return fCompilationUnitGroups.toArray(new CompilationUnitEntry[fCompilationUnitGroups.size()]);
+		}
 	}
 
 	/*
@@ -95,7 +114,7 @@ public class NLSSearchResult extends AbstractTextSearchResult implements IEditor
 	@Override
 	public Match[] computeContainedMatches(AbstractTextSearchResult result, IFile file) {
 		Set<Match> matches= new HashSet<>();
-		for (FileEntry element : fFileEntryGroups) {
+		for (FileEntry element : getFileEntryGroups()) {
 			if (element.getPropertiesFile().equals(file)) {
 				matches.addAll(Arrays.asList(getMatches(element)));
 			}
@@ -104,7 +123,7 @@ public class NLSSearchResult extends AbstractTextSearchResult implements IEditor
 			return matches.toArray(new Match[matches.size()]);
 
 		try {
-			for (CompilationUnitEntry element : fCompilationUnitGroups) {
+			for (CompilationUnitEntry element : getCompilationUnitGroups()) {
 				ICompilationUnit cu= element.getCompilationUnit();
 				if (cu.exists() && file.equals(cu.getCorrespondingResource())) {
 					matches.addAll(Arrays.asList(getMatches(element)));
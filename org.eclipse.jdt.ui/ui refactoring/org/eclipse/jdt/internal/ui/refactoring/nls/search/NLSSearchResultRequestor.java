@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2013 IBM Corporation and others.
+ * Copyright (c) 2000, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -18,8 +18,10 @@ import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Enumeration;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.Map;
 import java.util.Set;
 
 import org.eclipse.core.runtime.CoreException;
@@ -86,6 +88,20 @@ class NLSSearchResultRequestor extends SearchRequestor {
 	private Properties fProperties;
 	private HashSet<String> fUsedPropertyNames;
 
+	/**
+	 * The start positions of the property names in the properties file, or <code>null</code> if
+	 * the file has not been read yet
+	 */
+	private Map<String, Integer> fPropertyNameStartPositions;
+
+	/** The scanners of the projects of the matches, reused for all matches */
+	private final Map<IJavaProject, IScanner> fScanners= new HashMap<>();
+
+	/** The compilation unit whose source is set on the scanner of its project */
+	private ICompilationUnit fScannedUnit;
+
+	private String fScannedSource;
+
 	public NLSSearchResultRequestor(IFile propertiesFile, NLSSearchResult result) {
 		fPropertiesFile= propertiesFile;
 		fResult= result;
@@ -243,20 +259,17 @@ class NLSSearchResultRequestor extends SearchRequestor {
 		if (unit == null)
 			return null;
 
-		String source= unit.getSource();
-		if (source == null)
-			return null;
-
-		IJavaProject javaProject= unit.getJavaProject();
-		IScanner scanner= null;
-		if (javaProject != null) {
-			String complianceLevel= javaProject.getOption(JavaCore.COMPILER_COMPLIANCE, true);
-			String sourceLevel= javaProject.getOption(JavaCore.COMPILER_SOURCE, true);
-			scanner= ToolFactory.createScanner(false, false, false, sourceLevel, complianceLevel);
-		} else {
-			scanner= ToolFactory.createScanner(false, false, false, false);
+		IScanner scanner= getScanner(unit.getJavaProject());
+		if (!unit.equals(fScannedUnit)) {
+			// the matches of a compilation unit are reported together, so the source is only set once per unit
+			fScannedUnit= null;
+			fScannedSource= unit.getSource();
+			if (fScannedSource == null)
+				return null;
+			scanner.setSource(fScannedSource.toCharArray());
+			fScannedUnit= unit;
 		}
-		scanner.setSource(source.toCharArray());
+		String source= fScannedSource;
 		scanner.resetTo(keyPositionResult.getOffset() + keyPositionResult.getLength(), source.length());
 
 		try {
@@ -326,6 +339,28 @@ class NLSSearchResultRequestor extends SearchRequestor {
 		}
 	}
 
+	/**
+	 * Returns the scanner for compilation units of the given project.
+	 *
+	 * @param javaProject the project, or <code>null</code>
+	 * @return the scanner, shared by all compilation units of the project
+	 */
+	private IScanner getScanner(IJavaProject javaProject) {
+		IScanner scanner= fScanners.get(javaProject);
+		if (scanner == null) {
+			if (javaProject != null) {
+				String complianceLevel= javaProject.getOption(JavaCore.COMPILER_COMPLIANCE, true);
+				String sourceLevel= javaProject.getOption(JavaCore.COMPILER_SOURCE, true);
+				scanner= ToolFactory.createScanner(false, false, false, sourceLevel, complianceLevel);
+			} else {
+				scanner= ToolFactory.createScanner(false, false, false, false);
+			}
+			fScanners.put(javaProject, scanner);
+			fScannedUnit= null;
+		}
+		return scanner;
+	}
+
 	/**
 	 * Finds the start position in the property file. We assume that
 	 * the key is the first match on a line.
@@ -334,6 +369,22 @@ class NLSSearchResultRequestor extends SearchRequestor {
 	 * @return	the start position of the property name in the file, -1 if not found
 	 */
 	private int findPropertyNameStartPosition(String propertyName) {
+		if (fPropertyNameStartPositions == null) {
+			fPropertyNameStartPositions= new HashMap<>();
+			readPropertyNameStartPositions();
+		}
+		Integer start= fPropertyNameStartPositions.get(propertyName);
+		if (start == null)
+			return -1; //key not found in file. See bug 63794. This can happen if the key contains escaped characters.
+		return start.intValue();
+	}
+
+	/**
+	 * Reads the properties file once and remembers the start position of the first line starting
+	 * with each property name. The property name of a line ends at the first whitespace or
+	 * <code>'='</code> which is not escaped.
+	 */
+	private void readPropertyNameStartPositions() {
 		// Fix for http://dev.eclipse.org/bugs/show_bug.cgi?id=19319
 		InputStream stream= null;
 		LineReader lineReader= null;
@@ -349,7 +400,7 @@ class NLSSearchResultRequestor extends SearchRequestor {
 		} catch (CoreException cex) {
 			// failed to get input stream
 			JavaPlugin.log(cex);
-			return -1;
+			return;
 		} catch (IOException e) {
 			if (stream != null) {
 				try {
@@ -358,36 +409,32 @@ class NLSSearchResultRequestor extends SearchRequestor {
 					JavaPlugin.log(ce);
 				}
 			}
-			return -1;
+			return;
 		}
 		int start= 0;
 		try {
 			StringBuffer buf= new StringBuffer(80);
 			int eols= lineReader.readLine(buf);
-			int keyLength= propertyName.length();
 			while (eols > 0) {
 				String line= buf.toString();
-				int i= line.indexOf(propertyName);
-				int charPos= i + keyLength;
-				char terminatorChar= 0;
-				boolean hasNoValue= (charPos >= line.length());
-				if (i > -1 && !hasNoValue)
-					terminatorChar= line.charAt(charPos);
-				if (line.trim().startsWith(propertyName) &&
-						(hasNoValue || Character.isWhitespace(terminatorChar) || terminatorChar == '=')) {
-					start += line.indexOf(propertyName);
-					eols= -17; // found key
-				} else {
-					start += line.length() + eols;
-					buf.setLength(0);
-					eols= lineReader.readLine(buf);
+				int nameStart= 0;
+				while (nameStart < line.length() && line.charAt(nameStart) <= ' ')
+					nameStart++;
+				int nameEnd= nameStart;
+				while (nameEnd < line.length()) {
+					char ch= line.charAt(nameEnd);
+					if (Character.isWhitespace(ch) || ch == '=')
+						break;
+					nameEnd+= ch == '\\' ? 2 : 1;
 				}
+				nameEnd= Math.min(nameEnd, line.length());
+				if (nameEnd > nameStart)
+					fPropertyNameStartPositions.putIfAbsent(line.substring(nameStart, nameEnd), Integer.valueOf(start + nameStart));
+				start += line.length() + eols;
+				eols= lineReader.readLine(buf);
 			}
-			if (eols != -17)
-				start= -1; //key not found in file. See bug 63794. This can happen if the key contains escaped characters.
 		} catch (IOException ex) {
 			JavaPlugin.log(ex);
-			return -1;
 		} finally {
 			try {
 				lineReader.close();
@@ -395,7 +442,6 @@ class NLSSearchResultRequestor extends SearchRequestor {
 				JavaPlugin.log(ex);
 			}
 		}
-		return start;
 	}
 
 	private void loadProperties() {
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2019 IBM Corporation and others.
+ * Copyright (c) 2000, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -311,6 +311,11 @@ public final class ActionMessages extends NLS {
 	public static String FormatAllAction_description;
 
 	public static String MultiFormatAction_name;
+	public static String MultiFormatAction_bulk_message;
+	public static String MultiFormatAction_bulk_format;
+	public static String MultiFormatAction_bulk_dryRun;
+	public static String MultiFormatAction_bulk_dryRunResult;
+	public static String MultiFormatAction_bulk_result;
 
 	public static String SortMembersAction_label;
 	public static String SortMembersAction_tooltip;
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2013 IBM Corporation and others.
+ * Copyright (c) 2007, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -13,14 +13,25 @@
  *******************************************************************************/
 package org.eclipse.jdt.internal.ui.actions;
 
+import java.lang.reflect.InvocationTargetException;
 import java.util.Hashtable;
 import java.util.Map;
 
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.OperationCanceledException;
+
+import org.eclipse.jface.dialogs.ErrorDialog;
+import org.eclipse.jface.dialogs.IDialogConstants;
+import org.eclipse.jface.dialogs.MessageDialog;
+import org.eclipse.jface.dialogs.ProgressMonitorDialog;
+
 import org.eclipse.ui.IWorkbenchSite;
 
 import org.eclipse.jdt.core.ICompilationUnit;
 
+import org.eclipse.jdt.internal.corext.fix.BulkCodeFormatter;
 import org.eclipse.jdt.internal.corext.fix.CleanUpConstants;
+import org.eclipse.jdt.internal.corext.util.Messages;
 
 import org.eclipse.jdt.ui.cleanup.CleanUpOptions;
 import org.eclipse.jdt.ui.cleanup.ICleanUp;
@@ -32,6 +43,14 @@ import org.eclipse.jdt.internal.ui.fix.CodeFormatCleanUp;
  */
 public class MultiFormatAction extends CleanUpAction {
 
+	/**
+	 * The number of compilation units from which on they are formatted with the
+	 * {@link BulkCodeFormatter} instead of the clean up refactoring.
+	 *
+	 * @since 3.21
+	 */
+	private static final int BULK_FORMAT_THRESHOLD= Integer.getInteger("org.eclipse.jdt.ui.bulkFormatThreshold", 200).intValue(); //$NON-NLS-1$
+
 	public MultiFormatAction(IWorkbenchSite site) {
 		super(site);
 	}
@@ -49,6 +68,58 @@ public class MultiFormatAction extends CleanUpAction {
 		};
 	}
 
+	/*
+	 * @see org.eclipse.jdt.internal.ui.actions.CleanUpAction#performRefactoring(org.eclipse.jdt.core.ICompilationUnit[], org.eclipse.jdt.ui.cleanup.ICleanUp[])
+	 * @since 3.21
+	 */
+	@Override
+	protected void performRefactoring(ICompilationUnit[] units, ICleanUp[] cleanUps) throws InvocationTargetException {
+		if (units.length < BULK_FORMAT_THRESHOLD) {
+			super.performRefactoring(units, cleanUps);
+			return;
+		}
+
+		String message= Messages.format(ActionMessages.MultiFormatAction_bulk_message, Integer.valueOf(units.length));
+		MessageDialog dialog= new MessageDialog(getShell(), getActionName(), null, message, MessageDialog.QUESTION, new String[] {
+				ActionMessages.MultiFormatAction_bulk_format, ActionMessages.MultiFormatAction_bulk_dryRun, IDialogConstants.CANCEL_LABEL }, 0);
+		int result= dialog.open();
+		if (result != 0 && result != 1)
+			return;
+		boolean apply= result == 0;
+
+		BulkCodeFormatter formatter= new BulkCodeFormatter(units);
+		try {
+			new ProgressMonitorDialog(getShell()).run(true, true, monitor -> {
+				try {
+					formatter.format(monitor);
+					if (apply)
+						formatter.apply(monitor);
+				} catch (CoreException e) {
+					throw new InvocationTargetException(e);
+				} catch (OperationCanceledException e) {
+					throw new InterruptedException();
+				}
+			});
+		} catch (InterruptedException e) {
+			return;
+		}
+
+		BulkCodeFormatter.Statistics statistics= formatter.getStatistics();
+		if (apply) {
+			message= Messages.format(ActionMessages.MultiFormatAction_bulk_result, new Object[] {
+					Integer.valueOf(statistics.getChangedUnits()), Integer.valueOf(statistics.getUnits()),
+					Long.valueOf(statistics.getFormatTime()), Long.valueOf(statistics.getUnitsPerSecond()), Long.valueOf(statistics.getWriteTime()) });
+		} else {
+			message= Messages.format(ActionMessages.MultiFormatAction_bulk_dryRunResult, new Object[] {
+					Integer.valueOf(statistics.getChangedUnits()), Integer.valueOf(statistics.getUnits()),
+					Long.valueOf(statistics.getFormatTime()), Long.valueOf(statistics.getUnitsPerSecond()) });
+		}
+		if (formatter.getStatus().isOK())
+			MessageDialog.openInformation(getShell(), getActionName(), message);
+		else
+			ErrorDialog.openError(getShell(), getActionName(), message, formatter.getStatus());
+	}
+
 	/*
 	 * @see org.eclipse.jdt.internal.ui.actions.CleanUpAction#getActionName()
 	 */
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2019 IBM Corporation and others.
+ * Copyright (c) 2000, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -224,6 +224,8 @@ public class CallHierarchyViewPart extends ViewPart implements ICallHierarchyVie
     private SashForm fHierarchyLocationSplitter;
     private Clipboard fClipboard;
     private SearchScopeActionGroup fSearchScopeActions;
+    private IJavaSearchScope fSearchScope;
+    private String fSearchScopeDescription;
     private ToggleOrientationAction[] fToggleOrientationActions;
     private ToggleCallModeAction[] fToggleCallModeActions;
     private SelectFieldModeAction[] fToggleFieldModeActions;
@@ -769,6 +771,8 @@ public class CallHierarchyViewPart extends ViewPart implements ICallHierarchyVie
      *
      */
     public void refresh() {
+        CallHierarchy.getDefault().clearCache();
+        fSearchScope= null;
         setCalleeRoots(null);
         setCallerRoots(null);
 
@@ -1136,7 +1140,13 @@ public class CallHierarchyViewPart extends ViewPart implements ICallHierarchyVie
 			showPage(PAGE_VIEWER);
 
 			int includeMask= getIncludeMask();
-			CallHierarchy.getDefault().setSearchScope(getSearchScope(includeMask));
+			String scopeDescription= fSearchScopeActions.getFullDescription(includeMask);
+			if (fSearchScope == null || scopeDescription == null || !scopeDescription.equals(fSearchScopeDescription)) {
+				// scopes do not compare equal, so the scope is only replaced if it has changed
+				fSearchScope= getSearchScope(includeMask);
+				fSearchScopeDescription= scopeDescription;
+			}
+			CallHierarchy.getDefault().setSearchScope(fSearchScope);
 
 			// set input to null so that setComparator does not cause a refresh on the old contents:
 			fCallHierarchyViewer.setInput(null);
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2017 IBM Corporation and others.
+ * Copyright (c) 2000, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -42,6 +42,8 @@ import org.eclipse.ui.PlatformUI;
 
 import org.eclipse.jdt.core.JavaCore;
 
+import org.eclipse.jdt.internal.corext.util.Messages;
+
 import org.eclipse.jdt.ui.PreferenceConstants;
 
 import org.eclipse.jdt.internal.ui.IJavaHelpContextIds;
@@ -124,6 +126,43 @@ public class JavaBasePreferencePage extends PreferencePage implements IWorkbench
 		return button;
 	}
 
+	private Text addIntegerField(Composite parent, String label, String key) {
+		Composite composite= new Composite(parent, SWT.NONE);
+		GridLayout layout= new GridLayout(2, false);
+		layout.marginHeight= 0;
+		layout.marginWidth= 0;
+		composite.setLayout(layout);
+		composite.setLayoutData(new GridData(GridData.FILL_HORIZONTAL));
+
+		Label labelControl= new Label(composite, SWT.NONE);
+		labelControl.setText(label);
+
+		Text text= new Text(composite, SWT.BORDER | SWT.SINGLE);
+		GridData gd= new GridData(GridData.HORIZONTAL_ALIGN_BEGINNING);
+		gd.widthHint= convertWidthInCharsToPixels(10);
+		text.setLayoutData(gd);
+		text.setData(key);
+		text.setText(getPreferenceStore().getString(key));
+		text.addModifyListener(e -> validateIntegerFields());
+
+		fTextControls.add(text);
+		return text;
+	}
+
+	private void validateIntegerFields() {
+		for (Text text : fTextControls) {
+			try {
+				Integer.parseInt(text.getText().trim());
+			} catch (NumberFormatException e) {
+				setErrorMessage(Messages.format(PreferencesMessages.JavaBasePreferencePage_invalid_number, text.getText()));
+				setValid(false);
+				return;
+			}
+		}
+		setErrorMessage(null);
+		setValid(true);
+	}
+
 	@Override
 	protected Control createContents(Composite parent) {
 		initializeDialogUnits(parent);
@@ -182,6 +221,7 @@ public class JavaBasePreferencePage extends PreferencePage implements IWorkbench
 		group.setText(PreferencesMessages.JavaBasePreferencePage_search);
 
 		addCheckBox(group, PreferencesMessages.JavaBasePreferencePage_search_small_menu, null, PreferenceConstants.SEARCH_USE_REDUCED_MENU);
+		addIntegerField(group, PreferencesMessages.JavaBasePreferencePage_search_max_matches, PreferenceConstants.SEARCH_MAX_MATCHES);
 
 		Button rebuildIndexButton= new Button(group, SWT.PUSH);
 		rebuildIndexButton.setText(PreferencesMessages.JavaBasePreferencePage_rebuildIndexButtonName);
@@ -284,7 +324,7 @@ public class JavaBasePreferencePage extends PreferencePage implements IWorkbench
 		for (int i= 0; i < fTextControls.size(); i++) {
 			Text text= fTextControls.get(i);
 			String key= (String) text.getData();
-			store.setValue(key, text.getText());
+			store.setValue(key, text.getText().trim());
 		}
 
 		JavaPlugin.flushInstanceScope();
@@ -114,6 +114,8 @@ public final class PreferencesMessages extends NLS {
 	public static String JavaBasePreferencePage_refactoring_auto_save;
 	public static String JavaBasePreferencePage_search;
 	public static String JavaBasePreferencePage_search_small_menu;
+	public static String JavaBasePreferencePage_search_max_matches;
+	public static String JavaBasePreferencePage_invalid_number;
 	public static String JavaBuildConfigurationBlock_build_recreate_modified;
 	public static String JavadocConfigurationBlock_error_archive_not_found_in_workspace;
 	public static String JavadocConfigurationBlock_external_radio;
@@ -0,0 +1,40 @@
+/*******************************************************************************
+ * Copyright (c) 2020 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.ui.search;
+
+import org.eclipse.jface.action.Action;
+
+import org.eclipse.search.ui.NewSearchUI;
+
+/**
+ * Continues a search whose result has been truncated, see {@link JavaSearchResult#isTruncated()}.
+ * The Java search engine cannot resume a search, so the query is run again without limiting the
+ * number of matches.
+ */
+public class ContinueSearchAction extends Action {
+
+	private final JavaSearchQuery fQuery;
+
+	public ContinueSearchAction(JavaSearchQuery query) {
+		super(SearchMessages.ContinueSearchAction_label);
+		setToolTipText(SearchMessages.ContinueSearchAction_tooltip);
+		fQuery= query;
+	}
+
+	@Override
+	public void run() {
+		fQuery.setMatchesLimited(false);
+		NewSearchUI.runQueryInBackground(fQuery);
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2008 IBM Corporation and others.
+ * Copyright (c) 2000, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -15,45 +15,61 @@ package org.eclipse.jdt.internal.ui.search;
 
 import org.eclipse.search.ui.text.Match;
 
+import org.eclipse.jdt.core.search.SearchMatch;
+
 /**
  * A search match with additional java-specific info.
  */
 public class JavaElementMatch extends Match {
-	private final int fAccuracy;
+
+	/*
+	 * The accuracy and the kinds of the match are packed into one field, since a search for a
+	 * frequently used element can produce a very large number of matches.
+	 */
+	private static final int INACCURATE= 1 << 0;
+	private static final int WRITE_ACCESS= 1 << 1;
+	private static final int READ_ACCESS= 1 << 2;
+	private static final int JAVADOC= 1 << 3;
+	private static final int SUPER_INVOCATION= 1 << 4;
+
 	private final int fMatchRule;
-	private final boolean fIsWriteAccess;
-	private final boolean fIsReadAccess;
-	private final boolean fIsJavadoc;
-	private final boolean fIsSuperInvocation;
+	private final int fKind;
 
 	JavaElementMatch(Object element, int matchRule, int offset, int length, int accuracy, boolean isReadAccess, boolean isWriteAccess, boolean isJavadoc, boolean isSuperInvocation) {
 		super(element, offset, length);
-		fAccuracy= accuracy;
 		fMatchRule= matchRule;
-		fIsWriteAccess= isWriteAccess;
-		fIsReadAccess= isReadAccess;
-		fIsJavadoc= isJavadoc;
-		fIsSuperInvocation= isSuperInvocation;
+		int kind= 0;
+		if (accuracy == SearchMatch.A_INACCURATE)
+			kind|= INACCURATE;
+		if (isWriteAccess)
+			kind|= WRITE_ACCESS;
+		if (isReadAccess)
+			kind|= READ_ACCESS;
+		if (isJavadoc)
+			kind|= JAVADOC;
+		if (isSuperInvocation)
+			kind|= SUPER_INVOCATION;
+		fKind= kind;
 	}
 
 	public int getAccuracy() {
-		return fAccuracy;
+		return (fKind & INACCURATE) != 0 ? SearchMatch.A_INACCURATE : SearchMatch.A_ACCURATE;
 	}
 
 	public boolean isWriteAccess() {
-		return fIsWriteAccess;
+		return (fKind & WRITE_ACCESS) != 0;
 	}
 
 	public boolean isReadAccess() {
-		return fIsReadAccess;
+		return (fKind & READ_ACCESS) != 0;
 	}
 
 	public boolean isJavadoc() {
-		return fIsJavadoc;
+		return (fKind & JAVADOC) != 0;
 	}
 
 	public boolean isSuperInvocation() {
-		return fIsSuperInvocation;
+		return (fKind & SUPER_INVOCATION) != 0;
 	}
 
 	public int getMatchRule() {
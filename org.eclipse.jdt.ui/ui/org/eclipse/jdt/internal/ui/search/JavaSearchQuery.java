@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2016 IBM Corporation and others.
+ * Copyright (c) 2000, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -45,6 +45,7 @@ import org.eclipse.jdt.internal.corext.util.Messages;
 import org.eclipse.jdt.internal.corext.util.SearchUtils;
 
 import org.eclipse.jdt.ui.JavaElementLabels;
+import org.eclipse.jdt.ui.PreferenceConstants;
 import org.eclipse.jdt.ui.search.ElementQuerySpecification;
 import org.eclipse.jdt.ui.search.IMatchPresentation;
 import org.eclipse.jdt.ui.search.IQueryParticipant;
@@ -63,6 +64,13 @@ public class JavaSearchQuery implements ISearchQuery {
 	private ISearchResult fResult;
 	private final List<QuerySpecification> fPatternDataList;
 
+	/**
+	 * Tells whether the matches collected from the Java search engine are limited by
+	 * {@link PreferenceConstants#SEARCH_MAX_MATCHES}, so that a search with too many matches does
+	 * not exhaust the memory.
+	 */
+	private volatile boolean fMatchesLimited= true;
+
 	public JavaSearchQuery(QuerySpecification data) {
 		if (data == null) {
 			throw new IllegalArgumentException("data must not be null"); //$NON-NLS-1$
@@ -102,6 +110,7 @@ public class JavaSearchQuery implements ISearchQuery {
 	public IStatus run(IProgressMonitor monitor) {
 		final JavaSearchResult textResult= (JavaSearchResult) getSearchResult();
 		textResult.removeAll();
+		int maxMatches= -1;
 		// Don't need to pass in working copies in 3.0 here
 		SearchEngine engine= new SearchEngine();
 		try {
@@ -172,10 +181,12 @@ public class JavaSearchQuery implements ISearchQuery {
 			SubMonitor subMonitor= SubMonitor.convert(monitor, Messages.format(SearchMessages.JavaSearchQuery_task_label, stringPattern), totalTicks);
 
 			boolean ignorePotentials= NewSearchUI.arePotentialMatchesIgnored();
-			NewSearchResultCollector collector= new NewSearchResultCollector(textResult, ignorePotentials);
+			maxMatches= getMaxMatches();
+			NewSearchResultCollector collector= new NewSearchResultCollector(textResult, ignorePotentials, maxMatches);
 
 
 			engine.search(pattern, new SearchParticipant[] { SearchEngine.getDefaultSearchParticipant() }, getFirstSpecification().getScope(), collector, subMonitor.split(1000));
+			textResult.setTruncated(collector.isTruncated());
 			for (int i= 0; i < participantDescriptors.length; i++) {
 				final ISearchRequestor requestor= new SearchRequestor(participantDescriptors[i].getParticipant(), textResult);
 				final IProgressMonitor participantPM= subMonitor.split(ticks[i]);
@@ -211,10 +222,37 @@ public class JavaSearchQuery implements ISearchQuery {
 		} catch (CoreException e) {
 			return e.getStatus();
 		}
+		if (textResult.isTruncated()) {
+			String message= Messages.format(SearchMessages.JavaSearchQuery_status_truncated_message, new Object[] { String.valueOf(textResult.getMatchCount()), String.valueOf(maxMatches) });
+			return new Status(IStatus.INFO, JavaPlugin.getPluginId(), 0, message, null);
+		}
 		String message= Messages.format(SearchMessages.JavaSearchQuery_status_ok_message, String.valueOf(textResult.getMatchCount()));
 		return new Status(IStatus.OK, JavaPlugin.getPluginId(), 0, message, null);
 	}
 
+	/**
+	 * Returns the maximum number of matches collected from the Java search engine.
+	 *
+	 * @return the maximum number of matches, or <code>-1</code> if not limited
+	 */
+	private int getMaxMatches() {
+		if (!fMatchesLimited)
+			return -1;
+		int maxMatches= PreferenceConstants.getPreferenceStore().getInt(PreferenceConstants.SEARCH_MAX_MATCHES);
+		return maxMatches > 0 ? maxMatches : -1;
+	}
+
+	/**
+	 * Sets whether the matches collected from the Java search engine are limited. The search
+	 * engine cannot resume a search, so a truncated search is continued by running the query
+	 * again without the limit.
+	 *
+	 * @param limited <code>true</code> to limit the matches by the preference
+	 */
+	void setMatchesLimited(boolean limited) {
+		fMatchesLimited= limited;
+	}
+
 	private int getMatchMode(String pattern) {
 		if (pattern.indexOf('*') != -1 || pattern.indexOf('?') != -1) {
 			return SearchPattern.R_PATTERN_MATCH;
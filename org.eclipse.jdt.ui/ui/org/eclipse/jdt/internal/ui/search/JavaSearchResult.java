@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2016 IBM Corporation and others.
+ * Copyright (c) 2000, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -13,18 +13,28 @@
  *******************************************************************************/
 package org.eclipse.jdt.internal.ui.search;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
 
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Status;
 
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IResource;
+
 import org.eclipse.jface.resource.ImageDescriptor;
 
 import org.eclipse.search.ui.ISearchQuery;
 import org.eclipse.search.ui.text.Match;
 import org.eclipse.search.ui.text.MatchFilter;
 
+import org.eclipse.jdt.core.IJavaElement;
+
 import org.eclipse.jdt.internal.corext.util.Messages;
 
 import org.eclipse.jdt.ui.search.IMatchPresentation;
@@ -35,10 +45,24 @@ public class JavaSearchResult extends AbstractJavaSearchResult {
 
 	private final JavaSearchQuery fQuery;
 	private final Map<Object, IMatchPresentation> fElementsToParticipants;
+	/**
+	 * The elements with matches, by the compilation unit, class file or file that contains them.
+	 * Elements which are not contained in a file are their own key.
+	 */
+	private final Map<Object, Set<Object>> fFilesToElements;
+	/**
+	 * The number of matches being added for each element. The element stays in the index while
+	 * matches are added for it, even if it has no match yet.
+	 */
+	private final Map<Object, Integer> fPendingAdds;
+	/** Tells whether the search has dropped matches, see {@link NewSearchResultCollector#isTruncated()} */
+	private volatile boolean fTruncated;
 
 	public JavaSearchResult(JavaSearchQuery query) {
 		fQuery= query;
 		fElementsToParticipants= new HashMap<>();
+		fFilesToElements= new HashMap<>();
+		fPendingAdds= new HashMap<>();
 		setActiveMatchFilters(JavaMatchFilter.getLastUsedFilters());
 	}
 
@@ -49,9 +73,23 @@ public class JavaSearchResult extends AbstractJavaSearchResult {
 
 	@Override
 	public String getLabel() {
-		return fQuery.getSpecification().size() == 1
+		String label= fQuery.getSpecification().size() == 1
 				? fQuery.getResultLabel(getMatchCount())
 				: Messages.format(SearchMessages.JavaSearchQuery_multi_selection_search_description, fQuery.getResultLabel(getMatchCount()));
+		return fTruncated ? Messages.format(SearchMessages.JavaSearchResult_truncated_label, label) : label;
+	}
+
+	/**
+	 * Tells whether the search has dropped matches because it has found too many.
+	 *
+	 * @return <code>true</code> if the result is incomplete
+	 */
+	public boolean isTruncated() {
+		return fTruncated;
+	}
+
+	void setTruncated(boolean truncated) {
+		fTruncated= truncated;
 	}
 
 	@Override
@@ -81,30 +119,176 @@ public class JavaSearchResult extends AbstractJavaSearchResult {
 
 	boolean addMatch(Match match, IMatchPresentation participant) {
 		Object element= match.getElement();
-		if (fElementsToParticipants.get(element) != null) {
-			// TODO must access the participant id / label to properly report the error.
-			JavaPlugin.log(new Status(IStatus.WARNING, JavaPlugin.getPluginId(), 0, "A second search participant was found for an element", null)); //$NON-NLS-1$
-			return false;
+		synchronized(this) {
+			if (fElementsToParticipants.get(element) != null) {
+				// TODO must access the participant id / label to properly report the error.
+				JavaPlugin.log(new Status(IStatus.WARNING, JavaPlugin.getPluginId(), 0, "A second search participant was found for an element", null)); //$NON-NLS-1$
+				return false;
+			}
+			fElementsToParticipants.put(element, participant);
+			beginAdd(element);
+		}
+		try {
+			super.addMatch(match);
+		} finally {
+			endAdd(element);
 		}
-		fElementsToParticipants.put(element, participant);
-		addMatch(match);
 		return true;
 	}
 
+	/*
+	 * The index is updated while holding the lock of this result, but the matches are added and
+	 * removed by the super class outside of it, so that the listeners are not notified while
+	 * holding the lock. An element is indexed before its matches are added, and stays indexed
+	 * until the matches have been added, so that a concurrent removal of its last match does not
+	 * drop it from the index.
+	 */
+
+	@Override
+	public void addMatch(Match match) {
+		Object element= match.getElement();
+		beginAdd(element);
+		try {
+			super.addMatch(match);
+		} finally {
+			endAdd(element);
+		}
+	}
+
+	@Override
+	public void addMatches(Match[] matches) {
+		for (Match match : matches)
+			beginAdd(match.getElement());
+		try {
+			super.addMatches(matches);
+		} finally {
+			for (Match match : matches)
+				endAdd(match.getElement());
+		}
+	}
+
 	@Override
 	public void removeAll() {
 		synchronized(this) {
 			fElementsToParticipants.clear();
+			fFilesToElements.clear();
+			for (Object element : fPendingAdds.keySet())
+				addToIndex(element);
+			fTruncated= false;
 		}
 		super.removeAll();
+		synchronized(this) {
+			// drops the elements whose matches have been added after the index was cleared, but removed by the super class
+			List<Object> elements= new ArrayList<>();
+			for (Set<Object> inFile : fFilesToElements.values())
+				elements.addAll(inFile);
+			for (Object element : elements)
+				removeFromIndex(element);
+		}
 	}
 
 	@Override
 	public void removeMatch(Match match) {
+		super.removeMatch(match);
 		synchronized(this) {
-			if (getMatchCount(match.getElement()) == 1)
-				fElementsToParticipants.remove(match.getElement());
+			removeFromIndex(match.getElement());
 		}
-		super.removeMatch(match);
+	}
+
+	@Override
+	public void removeMatches(Match[] matches) {
+		super.removeMatches(matches);
+		synchronized(this) {
+			for (Match match : matches)
+				removeFromIndex(match.getElement());
+		}
+	}
+
+	/**
+	 * Returns the elements with matches that may be contained in the given container, without
+	 * looking at all elements of the result when the container is inside a file.
+	 *
+	 * @param container a Java element or resource
+	 * @return the elements that are contained in the container, and possibly a few elements of
+	 *         the same file that are not
+	 */
+	public synchronized Object[] getElementsIn(Object container) {
+		if (isInFile(container)) {
+			Set<Object> elements= fFilesToElements.get(getFile(container));
+			return elements != null ? elements.toArray() : new Object[0];
+		}
+		List<Object> result= new ArrayList<>();
+		for (Entry<Object, Set<Object>> entry : fFilesToElements.entrySet()) {
+			if (isParentOf(container, entry.getKey()))
+				result.addAll(entry.getValue());
+		}
+		return result.toArray();
+	}
+
+	private synchronized void beginAdd(Object element) {
+		addToIndex(element);
+		Integer count= fPendingAdds.get(element);
+		fPendingAdds.put(element, Integer.valueOf(count == null ? 1 : count.intValue() + 1));
+	}
+
+	private synchronized void endAdd(Object element) {
+		int count= fPendingAdds.get(element).intValue() - 1;
+		if (count > 0) {
+			fPendingAdds.put(element, Integer.valueOf(count));
+		} else {
+			fPendingAdds.remove(element);
+			// drops the element if its matches have been removed meanwhile, or have not been added
+			removeFromIndex(element);
+		}
+	}
+
+	private void addToIndex(Object element) {
+		Object file= getFile(element);
+		Set<Object> elements= fFilesToElements.get(file);
+		if (elements == null) {
+			elements= new HashSet<>();
+			fFilesToElements.put(file, elements);
+		}
+		elements.add(element);
+	}
+
+	private void removeFromIndex(Object element) {
+		if (fPendingAdds.containsKey(element) || getMatchCount(element) > 0)
+			return;
+		fElementsToParticipants.remove(element);
+		Object file= getFile(element);
+		Set<Object> elements= fFilesToElements.get(file);
+		if (elements != null && elements.remove(element) && elements.isEmpty())
+			fFilesToElements.remove(file);
+	}
+
+	private static boolean isInFile(Object element) {
+		return element instanceof IFile || element instanceof IJavaElement && getTypeRoot((IJavaElement) element) != null;
+	}
+
+	private static Object getFile(Object element) {
+		if (element instanceof IJavaElement) {
+			IJavaElement typeRoot= getTypeRoot((IJavaElement) element);
+			if (typeRoot != null)
+				return typeRoot;
+		}
+		return element;
+	}
+
+	private static IJavaElement getTypeRoot(IJavaElement element) {
+		IJavaElement typeRoot= element.getAncestor(IJavaElement.COMPILATION_UNIT);
+		return typeRoot != null ? typeRoot : element.getAncestor(IJavaElement.CLASS_FILE);
+	}
+
+	private static boolean isParentOf(Object ancestor, Object descendant) {
+		while (descendant != null && !ancestor.equals(descendant)) {
+			if (descendant instanceof IJavaElement)
+				descendant= ((IJavaElement) descendant).getParent();
+			else if (descendant instanceof IResource)
+				descendant= ((IResource) descendant).getParent();
+			else
+				descendant= null;
+		}
+		return descendant != null;
 	}
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2019 IBM Corporation and others.
+ * Copyright (c) 2000, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -249,6 +249,10 @@ public class JavaSearchResultPage extends AbstractTextSearchViewPage implements
 
 		mgr.appendToGroup(IContextMenuConstants.GROUP_EDIT, getCopyQualifiedNameAction());
 
+		AbstractTextSearchResult input= getInput();
+		if (input instanceof JavaSearchResult && ((JavaSearchResult) input).isTruncated())
+			mgr.appendToGroup(IContextMenuConstants.GROUP_SEARCH, new ContinueSearchAction((JavaSearchQuery) input.getQuery()));
+
 		fActionGroup.setContext(new ActionContext(getSite().getSelectionProvider().getSelection()));
 		fActionGroup.fillContextMenu(mgr);
 	}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -13,9 +13,13 @@
  *******************************************************************************/
 package org.eclipse.jdt.internal.ui.search;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.eclipse.core.runtime.CoreException;
 
 import org.eclipse.search.ui.text.AbstractTextSearchResult;
+import org.eclipse.search.ui.text.Match;
 
 import org.eclipse.jdt.core.IJavaElement;
 import org.eclipse.jdt.core.search.FieldDeclarationMatch;
@@ -27,14 +31,59 @@ import org.eclipse.jdt.core.search.SearchMatch;
 import org.eclipse.jdt.core.search.SearchParticipant;
 import org.eclipse.jdt.core.search.SearchRequestor;
 
+/**
+ * Collects the matches of a search into a search result. The matches are added to the result in
+ * batches, so that a search with many matches does not notify the result listeners for each
+ * match. The remaining matches are added when the reporting ends. The number of collected matches
+ * can be limited, further matches are dropped and the collector reports that the result has been
+ * truncated.
+ */
 public class NewSearchResultCollector extends SearchRequestor {
+
+	/** The maximum number of matches that are collected before they are added to the result */
+	private static final int BATCH_SIZE= 100;
+
 	private AbstractTextSearchResult fSearch;
 	private boolean fIgnorePotentials;
 
+	/** The maximum number of collected matches, or <code>-1</code> if not limited */
+	private final int fMaxMatches;
+
+	private int fMatchCount;
+
+	private boolean fTruncated;
+
+	private final List<Match> fPendingMatches= new ArrayList<>(BATCH_SIZE);
+
+	/** The enclosing element of the last match, shared by the following matches in the same element */
+	private IJavaElement fLastEnclosingElement;
+
 	public NewSearchResultCollector(AbstractTextSearchResult search, boolean ignorePotentials) {
+		this(search, ignorePotentials, -1);
+	}
+
+	/**
+	 * Creates a collector which collects at most the given number of matches.
+	 *
+	 * @param search the search result
+	 * @param ignorePotentials <code>true</code> to drop inaccurate matches
+	 * @param maxMatches the maximum number of collected matches, or <code>-1</code> if not limited
+	 */
+	public NewSearchResultCollector(AbstractTextSearchResult search, boolean ignorePotentials, int maxMatches) {
 		super();
 		fSearch= search;
 		fIgnorePotentials= ignorePotentials;
+		fMaxMatches= maxMatches;
+	}
+
+	/**
+	 * Tells whether matches have been dropped because the maximum number of matches has been
+	 * collected.
+	 *
+	 * @return <code>true</code> if the search result is incomplete
+	 */
+	public boolean isTruncated() {
+		return fTruncated;
 	}
 
 	@Override
@@ -43,6 +92,11 @@ public class NewSearchResultCollector extends SearchRequestor {
 		if (enclosingElement != null) {
 			if (fIgnorePotentials && (match.getAccuracy() == SearchMatch.A_INACCURATE))
 				return;
+			if (fMaxMatches != -1 && fMatchCount >= fMaxMatches) {
+				fTruncated= true;
+				return;
+			}
+			fMatchCount++;
 			boolean isWriteAccess= false;
 			boolean isReadAccess= false;
 			if (match instanceof FieldReferenceMatch) {
@@ -63,7 +117,13 @@ public class NewSearchResultCollector extends SearchRequestor {
 				MethodReferenceMatch methodRef= (MethodReferenceMatch) match;
 				isSuperInvocation= methodRef.isSuperInvocation();
 			}
-			fSearch.addMatch(new JavaElementMatch(enclosingElement, match.getRule(), match.getOffset(), match.getLength(), match.getAccuracy(), isReadAccess, isWriteAccess, match.isInsideDocComment(), isSuperInvocation));
+			if (enclosingElement.equals(fLastEnclosingElement))
+				enclosingElement= fLastEnclosingElement;
+			else
+				fLastEnclosingElement= enclosingElement;
+			fPendingMatches.add(new JavaElementMatch(enclosingElement, match.getRule(), match.getOffset(), match.getLength(), match.getAccuracy(), isReadAccess, isWriteAccess, match.isInsideDocComment(), isSuperInvocation));
+			if (fPendingMatches.size() >= BATCH_SIZE)
+				flushMatches();
 		}
 	}
 
@@ -73,6 +133,8 @@ public class NewSearchResultCollector extends SearchRequestor {
 
 	@Override
 	public void endReporting() {
+		flushMatches();
+		fLastEnclosingElement= null;
 	}
 
 	@Override
@@ -83,4 +145,10 @@ public class NewSearchResultCollector extends SearchRequestor {
 	public void exitParticipant(SearchParticipant participant) {
 	}
 
+	private void flushMatches() {
+		if (!fPendingMatches.isEmpty()) {
+			fSearch.addMatches(fPendingMatches.toArray(new Match[fPendingMatches.size()]));
+			fPendingMatches.clear();
+		}
+	}
 }
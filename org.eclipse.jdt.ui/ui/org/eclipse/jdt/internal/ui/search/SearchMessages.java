@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2017 IBM Corporation and others.
+ * Copyright (c) 2000, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -221,6 +221,10 @@ public final class SearchMessages extends NLS {
 	public static String JavaSearchQuery_error_unsupported_pattern;
 	public static String JavaSearchQuery_singularReferencesWithMatchLocations;
 	public static String JavaSearchQuery_status_ok_message;
+	public static String JavaSearchQuery_status_truncated_message;
+	public static String JavaSearchResult_truncated_label;
+	public static String ContinueSearchAction_label;
+	public static String ContinueSearchAction_tooltip;
 	public static String JavaSearchQuery_error_participant_estimate;
 	public static String JavaSearchQuery_error_participant_search;
 	public static String SearchParticipant_error_noID;
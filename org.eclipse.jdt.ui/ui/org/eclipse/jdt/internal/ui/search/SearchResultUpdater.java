@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -63,7 +63,13 @@ public class SearchResultUpdater implements IElementChangedListener, IQueryListe
 	}
 
 	private void handleRemoved(Set<IAdaptable> removedElements) {
-		for (Object element : fResult.getElements()) {
+		// only look at the elements in the removed containers, a reconcile must not visit all elements of the result
+		Set<Object> candidates= new HashSet<>();
+		for (IAdaptable removed : removedElements) {
+			for (Object element : fResult.getElementsIn(removed))
+				candidates.add(element);
+		}
+		for (Object element : candidates) {
 			if (isContainedInRemoved(removedElements, element)) {
 				if (element instanceof IJavaElement) {
 					IJavaElement je= (IJavaElement) element;
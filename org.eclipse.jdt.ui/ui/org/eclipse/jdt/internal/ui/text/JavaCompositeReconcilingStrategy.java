@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -38,6 +38,11 @@ public class JavaCompositeReconcilingStrategy  extends CompositeReconcilingStrat
 
 	private ITextEditor fEditor;
 	private JavaReconcilingStrategy fJavaStrategy;
+	/**
+	 * The spelling strategy.
+	 * @since 3.21
+	 */
+	private JavaSpellingReconcileStrategy fSpellingStrategy;
 
 	/**
 	 * Creates a new Java reconciling strategy.
@@ -49,9 +54,10 @@ public class JavaCompositeReconcilingStrategy  extends CompositeReconcilingStrat
 	public JavaCompositeReconcilingStrategy(ISourceViewer viewer, ITextEditor editor, String documentPartitioning) {
 		fEditor= editor;
 		fJavaStrategy= new JavaReconcilingStrategy(editor);
+		fSpellingStrategy= new JavaSpellingReconcileStrategy(viewer, editor);
 		setReconcilingStrategies(new IReconcilingStrategy[] {
 			fJavaStrategy,
-			new JavaSpellingReconcileStrategy(viewer, editor)
+			fSpellingStrategy
 		});
 	}
 
@@ -158,6 +164,15 @@ public class JavaCompositeReconcilingStrategy  extends CompositeReconcilingStrat
 
 	}
 
+	/**
+	 * Disposes this strategy.
+	 *
+	 * @since 3.21
+	 */
+	public void dispose() {
+		fSpellingStrategy.dispose();
+	}
+
 	/**
 	 * Called when reconcile has finished.
 	 *
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2013 IBM Corporation and others.
+ * Copyright (c) 2000, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -47,6 +47,12 @@ public final class JavaHeuristicScanner implements Symbols {
 	 */
 	public static final int UNBOUND= -2;
 
+	/**
+	 * Returned by the token stream lookups if the token stream cannot answer the query.
+	 * @since 3.21
+	 */
+	private static final int NO_CACHED_RESULT= -3;
+
 
 	/* character constants */
 	private static final char LBRACE= '{';
@@ -270,6 +276,12 @@ public final class JavaHeuristicScanner implements Symbols {
 	private final static StopCondition fNonWS= new NonWhitespace();
 	private final StopCondition fNonIdent= new NonJavaIdentifierPartDefaultPartition();
 
+	/**
+	 * The tokens of the document.
+	 * @since 3.21
+	 */
+	private JavaTokenStream fTokenStream;
+
 	/**
 	 * Creates a new instance.
 	 *
@@ -315,44 +327,19 @@ public final class JavaHeuristicScanner implements Symbols {
 	 * @return a constant from {@link Symbols} describing the next token
 	 */
 	public int nextToken(int start, int bound) {
+		int token= nextCachedToken(start, bound);
+		if (token != NO_CACHED_RESULT)
+			return token;
+
 		int pos= scanForward(start, bound, fNonWSDefaultPart);
 		if (pos == NOT_FOUND)
 			return TokenEOF;
 
 		fPos++;
 
-		switch (fChar) {
-			case LBRACE:
-				return TokenLBRACE;
-			case RBRACE:
-				return TokenRBRACE;
-			case LBRACKET:
-				return TokenLBRACKET;
-			case RBRACKET:
-				return TokenRBRACKET;
-			case LPAREN:
-				return TokenLPAREN;
-			case RPAREN:
-				return TokenRPAREN;
-			case SEMICOLON:
-				return TokenSEMICOLON;
-			case COLON:
-				return TokenCOLON;
-			case COMMA:
-				return TokenCOMMA;
-			case QUESTIONMARK:
-				return TokenQUESTIONMARK;
-			case EQUAL:
-				return TokenEQUAL;
-			case LANGLE:
-				return TokenLESSTHAN;
-			case RANGLE:
-				return TokenGREATERTHAN;
-			case PLUS:
-				return TokenPLUS;
-			case AT:
-				return TokenAT;
-		}
+		int symbol= getSymbol(fChar);
+		if (symbol != TokenOTHER)
+			return symbol;
 
 		// else
 		if (Character.isJavaIdentifierPart(fChar)) {
@@ -391,13 +378,127 @@ public final class JavaHeuristicScanner implements Symbols {
 	 * @return a constant from {@link Symbols} describing the previous token
 	 */
 	public int previousToken(int start, int bound) {
+		int token= previousCachedToken(start, bound);
+		if (token != NO_CACHED_RESULT)
+			return token;
+
 		int pos= scanBackward(start, bound, fNonWSDefaultPart);
 		if (pos == NOT_FOUND)
 			return TokenEOF;
 
 		fPos--;
 
-		switch (fChar) {
+		int symbol= getSymbol(fChar);
+		if (symbol != TokenOTHER)
+			return symbol;
+
+		// else
+		if (Character.isJavaIdentifierPart(fChar)) {
+			// assume an ident or keyword
+			int from, to= pos + 1;
+			pos= scanBackward(pos - 1, bound, fNonIdent);
+			if (pos == NOT_FOUND)
+				from= bound == UNBOUND ? 0 : bound + 1;
+			else
+				from= pos + 1;
+
+			String identOrKeyword;
+			try {
+				identOrKeyword= fDocument.get(from, to - from);
+			} catch (BadLocationException e) {
+				return TokenEOF;
+			}
+
+			return getToken(identOrKeyword);
+
+
+		} else {
+			// operators, number literals etc
+			return TokenOTHER;
+		}
+
+	}
+
+	/**
+	 * Returns the token stream of the document.
+	 *
+	 * @return the token stream
+	 * @since 3.21
+	 */
+	private JavaTokenStream getTokenStream() {
+		if (fTokenStream == null || !fTokenStream.isConnected())
+			fTokenStream= JavaTokenStream.get(fDocument, fPartitioning, fPartition);
+		return fTokenStream;
+	}
+
+	/**
+	 * Looks up the next token in the token stream. The token stream answers the query if the token
+	 * lies completely within the given range.
+	 *
+	 * @param start the first character position in the document to consider
+	 * @param bound the first position not to consider any more
+	 * @return a constant from {@link Symbols} describing the next token, or
+	 *         <code>NO_CACHED_RESULT</code> if the document must be scanned
+	 * @since 3.21
+	 */
+	private int nextCachedToken(int start, int bound) {
+		int end= bound == UNBOUND ? fDocument.getLength() : bound;
+		if (start < 0 || start >= end || end > fDocument.getLength())
+			return NO_CACHED_RESULT;
+
+		JavaTokenStream stream= getTokenStream();
+		try {
+			synchronized (stream) {
+				int index= stream.findTokenForward(fDocument, start);
+				if (index == -1 || stream.getStart(index) < start || stream.getEnd(index) > end)
+					return NO_CACHED_RESULT;
+				fPos= stream.getEnd(index);
+				return stream.getType(index);
+			}
+		} catch (BadLocationException e) {
+			return NO_CACHED_RESULT;
+		}
+	}
+
+	/**
+	 * Looks up the previous token in the token stream. The token stream answers the query if the
+	 * token lies completely within the given range.
+	 *
+	 * @param start the first character position in the document to consider
+	 * @param bound the first position not to consider any more
+	 * @return a constant from {@link Symbols} describing the previous token, or
+	 *         <code>NO_CACHED_RESULT</code> if the document must be scanned
+	 * @since 3.21
+	 */
+	private int previousCachedToken(int start, int bound) {
+		int low= bound == UNBOUND ? -1 : bound;
+		if (low < -1 || start <= low || start >= fDocument.getLength())
+			return NO_CACHED_RESULT;
+
+		JavaTokenStream stream= getTokenStream();
+		try {
+			synchronized (stream) {
+				int index= stream.findTokenBackward(fDocument, start);
+				if (index == -1 || stream.getEnd(index) - 1 > start || stream.getStart(index) <= low)
+					return NO_CACHED_RESULT;
+				fPos= stream.getStart(index) - 1;
+				return stream.getType(index);
+			}
+		} catch (BadLocationException e) {
+			return NO_CACHED_RESULT;
+		}
+	}
+
+	/**
+	 * Returns the token constant for a character which is a token on its own.
+	 *
+	 * @param ch the character
+	 * @return one of the constants defined in {@link Symbols}, <code>TokenOTHER</code> if the
+	 *         character is not a token on its own
+	 * @since 3.21
+	 */
+	static int getSymbol(char ch) {
+		switch (ch) {
 			case LBRACE:
 				return TokenLBRACE;
 			case RBRACE:
@@ -429,32 +530,7 @@ public final class JavaHeuristicScanner implements Symbols {
 			case AT:
 				return TokenAT;
 		}
-
-		// else
-		if (Character.isJavaIdentifierPart(fChar)) {
-			// assume an ident or keyword
-			int from, to= pos + 1;
-			pos= scanBackward(pos - 1, bound, fNonIdent);
-			if (pos == NOT_FOUND)
-				from= bound == UNBOUND ? 0 : bound + 1;
-			else
-				from= pos + 1;
-
-			String identOrKeyword;
-			try {
-				identOrKeyword= fDocument.get(from, to - from);
-			} catch (BadLocationException e) {
-				return TokenEOF;
-			}
-
-			return getToken(identOrKeyword);
-
-
-		} else {
-			// operators, number literals etc
-			return TokenOTHER;
-		}
-
+		return TokenOTHER;
 	}
 
 	/**
@@ -463,7 +539,7 @@ public final class JavaHeuristicScanner implements Symbols {
 	 * @param s a scanned identifier
 	 * @return one of the constants defined in {@link Symbols}
 	 */
-	private int getToken(String s) {
+	static int getToken(String s) {
 		Assert.isNotNull(s);
 
 		switch (s.length()) {
@@ -561,6 +637,10 @@ public final class JavaHeuristicScanner implements Symbols {
 	public int findClosingPeer(int start, int bound, final char openingPeer, final char closingPeer) {
 		Assert.isLegal(start >= 0);
 
+		int peer= findCachedClosingPeer(start, bound, openingPeer, closingPeer);
+		if (peer != NO_CACHED_RESULT)
+			return peer;
+
 		try {
 			CharacterMatch match= new CharacterMatch(new char[] {openingPeer, closingPeer});
 			int depth= 1;
@@ -616,6 +696,10 @@ public final class JavaHeuristicScanner implements Symbols {
 	public int findOpeningPeer(int start, int bound, char openingPeer, char closingPeer) {
 		Assert.isLegal(start < fDocument.getLength());
 
+		int peer= findCachedOpeningPeer(start, bound, openingPeer, closingPeer);
+		if (peer != NO_CACHED_RESULT)
+			return peer;
+
 		try {
 			final CharacterMatch match= new CharacterMatch(new char[] {openingPeer, closingPeer});
 			int depth= 1;
@@ -639,6 +723,98 @@ public final class JavaHeuristicScanner implements Symbols {
 		}
 	}
 
+	/**
+	 * Finds the closing peer in the token stream. Only peers which are tokens on their own are
+	 * looked up.
+	 *
+	 * @param start the start position
+	 * @param bound the bound
+	 * @param openingPeer the opening peer character
+	 * @param closingPeer the closing peer character
+	 * @return the matching peer character position, <code>NOT_FOUND</code>, or
+	 *         <code>NO_CACHED_RESULT</code> if the document must be scanned
+	 * @since 3.21
+	 */
+	private int findCachedClosingPeer(int start, int bound, char openingPeer, char closingPeer) {
+		int openingToken= getSymbol(openingPeer);
+		int closingToken= getSymbol(closingPeer);
+		int end= bound == UNBOUND ? fDocument.getLength() : bound;
+		if (openingToken == TokenOTHER || closingToken == TokenOTHER || end > fDocument.getLength())
+			return NO_CACHED_RESULT;
+
+		JavaTokenStream stream= getTokenStream();
+		try {
+			synchronized (stream) {
+				int depth= 1;
+				int index= stream.findTokenForward(fDocument, start);
+				while (index != -1) {
+					int tokenStart= stream.getStart(index);
+					if (tokenStart >= end)
+						break;
+					int type= stream.getType(index);
+					if (tokenStart >= start && type == openingToken) {
+						depth++;
+					} else if (tokenStart >= start && type == closingToken) {
+						if (--depth == 0) {
+							fPos= tokenStart;
+							return tokenStart;
+						}
+					}
+					index= stream.next(fDocument, index);
+				}
+				fPos= end;
+				return NOT_FOUND;
+			}
+		} catch (BadLocationException e) {
+			return NO_CACHED_RESULT;
+		}
+	}
+
+	/**
+	 * Finds the opening peer in the token stream. Only peers which are tokens on their own are
+	 * looked up.
+	 *
+	 * @param start the start position
+	 * @param bound the bound
+	 * @param openingPeer the opening peer character
+	 * @param closingPeer the closing peer character
+	 * @return the matching peer character position, <code>NOT_FOUND</code>, or
+	 *         <code>NO_CACHED_RESULT</code> if the document must be scanned
+	 * @since 3.21
+	 */
+	private int findCachedOpeningPeer(int start, int bound, char openingPeer, char closingPeer) {
+		int openingToken= getSymbol(openingPeer);
+		int closingToken= getSymbol(closingPeer);
+		int low= bound == UNBOUND ? -1 : bound;
+		if (openingToken == TokenOTHER || closingToken == TokenOTHER || low < -1 || start < 0)
+			return NO_CACHED_RESULT;
+
+		JavaTokenStream stream= getTokenStream();
+		try {
+			synchronized (stream) {
+				int depth= 1;
+				for (int index= stream.findTokenBackward(fDocument, start); index >= 0; index--) {
+					int tokenStart= stream.getStart(index);
+					if (tokenStart <= low)
+						break;
+					int type= stream.getType(index);
+					if (type == closingToken) {
+						depth++;
+					} else if (type == openingToken) {
+						if (--depth == 0) {
+							fPos= tokenStart;
+							return tokenStart;
+						}
+					}
+				}
+				fPos= low;
+				return NOT_FOUND;
+			}
+		} catch (BadLocationException e) {
+			return NO_CACHED_RESULT;
+		}
+	}
+
 	/**
 	 * Computes the surrounding block around <code>offset</code>. The search is started at the
 	 * beginning of <code>offset</code>, i.e. an opening brace at <code>offset</code> will not be
@@ -0,0 +1,345 @@
+/*******************************************************************************
+ * Copyright (c) 2020 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.ui.text;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import org.eclipse.jface.text.BadLocationException;
+import org.eclipse.jface.text.DocumentEvent;
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.IDocumentExtension3;
+import org.eclipse.jface.text.IDocumentListener;
+import org.eclipse.jface.text.IDocumentPartitioningListener;
+import org.eclipse.jface.text.IDocumentPartitioningListenerExtension;
+import org.eclipse.jface.text.IRegion;
+import org.eclipse.jface.text.ITypedRegion;
+import org.eclipse.jface.text.TextUtilities;
+
+/**
+ * The tokens of a document as seen by the {@link JavaHeuristicScanner}: identifiers and single
+ * non-whitespace characters in one partition type of a partitioning. The tokens are kept in
+ * compact <code>int</code> arrays and are scanned lazily from the start of the document up to the
+ * highest requested position. A document or partitioning change discards the tokens from the
+ * changed offset on, since the partitions and tokens before the change are not affected by it.
+ * <p>
+ * The token streams are attached to their document and are shared by all scanners on the document.
+ * Clients that read several values of a token must hold the lock of the stream, since a document
+ * change discards tokens. The streams are detached from the document when its partitioner of a
+ * partitioning they use is removed.
+ * </p>
+ *
+ * @since 3.21
+ */
+final class JavaTokenStream implements Symbols {
+
+	/**
+	 * The token streams of a document, by partitioning and partition type.
+	 */
+	private static final class DocumentTokenStreams implements IDocumentListener, IDocumentPartitioningListener, IDocumentPartitioningListenerExtension {
+		private final Map<String, JavaTokenStream> fStreams= new HashMap<>();
+
+		@Override
+		public void documentAboutToBeChanged(DocumentEvent event) {
+		}
+
+		@Override
+		public void documentChanged(DocumentEvent event) {
+			invalidate(event.getOffset());
+		}
+
+		@Override
+		public void documentPartitioningChanged(IDocument document) {
+			documentPartitioningChanged(document, null);
+		}
+
+		@Override
+		public void documentPartitioningChanged(IDocument document, IRegion changedRegion) {
+			if (!hasPartitioners(document)) {
+				disconnect(document);
+				return;
+			}
+			// e.g. opening a comment changes the partitions after the edit
+			invalidate(changedRegion != null ? changedRegion.getOffset() : 0);
+		}
+
+		private boolean hasPartitioners(IDocument document) {
+			if (!(document instanceof IDocumentExtension3))
+				return document.getDocumentPartitioner() != null;
+			IDocumentExtension3 extension= (IDocumentExtension3) document;
+			synchronized (fStreams) {
+				for (JavaTokenStream stream : fStreams.values()) {
+					if (extension.getDocumentPartitioner(stream.fPartitioning) == null)
+						return false;
+				}
+			}
+			return true;
+		}
+
+		private void invalidate(int offset) {
+			synchronized (fStreams) {
+				for (JavaTokenStream stream : fStreams.values()) {
+					stream.invalidate(offset);
+				}
+			}
+		}
+	}
+
+	/** The minimum number of characters scanned at once. */
+	private static final int CHUNK_SIZE= 512;
+
+	private static final Map<IDocument, DocumentTokenStreams> fgStreams= new WeakHashMap<>();
+
+	/**
+	 * Returns the token stream of the given document.
+	 *
+	 * @param document the document
+	 * @param partitioning the partitioning
+	 * @param partition the partition type of the tokens
+	 * @return the token stream
+	 */
+	static JavaTokenStream get(IDocument document, String partitioning, String partition) {
+		DocumentTokenStreams streams;
+		synchronized (fgStreams) {
+			streams= fgStreams.get(document);
+			if (streams == null) {
+				streams= new DocumentTokenStreams();
+				document.addDocumentListener(streams);
+				document.addDocumentPartitioningListener(streams);
+				fgStreams.put(document, streams);
+			}
+		}
+		synchronized (streams.fStreams) {
+			String key= partitioning + '/' + partition;
+			JavaTokenStream stream= streams.fStreams.get(key);
+			if (stream == null) {
+				stream= new JavaTokenStream(partitioning, partition);
+				streams.fStreams.put(key, stream);
+			}
+			return stream;
+		}
+	}
+
+	/**
+	 * Detaches the token streams from the given document.
+	 *
+	 * @param document the document
+	 */
+	static void disconnect(IDocument document) {
+		DocumentTokenStreams streams;
+		synchronized (fgStreams) {
+			streams= fgStreams.remove(document);
+		}
+		if (streams != null) {
+			document.removeDocumentListener(streams);
+			document.removeDocumentPartitioningListener(streams);
+			synchronized (streams.fStreams) {
+				for (JavaTokenStream stream : streams.fStreams.values()) {
+					stream.fConnected= false;
+				}
+			}
+		}
+	}
+
+	private final String fPartitioning;
+	private final String fPartition;
+
+	/** The start offsets of the tokens. */
+	private int[] fStarts= new int[256];
+	/** The end offsets (exclusive) of the tokens. */
+	private int[] fEnds= new int[256];
+	/** The {@link Symbols} of the tokens. */
+	private int[] fTypes= new int[256];
+	/** The number of tokens. */
+	private int fCount;
+	/** All tokens starting before this offset are complete. */
+	private int fScannedEnd;
+	/** Whether the stream still receives the changes of its document. */
+	private volatile boolean fConnected= true;
+
+	private JavaTokenStream(String partitioning, String partition) {
+		fPartitioning= partitioning;
+		fPartition= partition;
+	}
+
+	/**
+	 * Tells whether the stream is still attached to its document. A detached stream is no longer
+	 * updated and must not be used.
+	 *
+	 * @return <code>true</code> if the stream is attached to its document
+	 */
+	boolean isConnected() {
+		return fConnected;
+	}
+
+	/**
+	 * Discards the tokens which may be affected by a change at the given offset.
+	 *
+	 * @param offset the offset of the change
+	 */
+	synchronized void invalidate(int offset) {
+		int index= indexOfTokenEndingAfter(offset - 1);
+		if (index < fCount) {
+			fScannedEnd= Math.min(offset, fStarts[index]);
+			fCount= index;
+		} else {
+			fScannedEnd= Math.min(fScannedEnd, offset);
+		}
+	}
+
+	/**
+	 * Returns the index of the first token that ends after the given offset, i.e. the token at the
+	 * offset or the first token after it.
+	 *
+	 * @param document the document
+	 * @param offset the offset
+	 * @return the index of the token, or <code>-1</code> if there is no such token
+	 * @throws BadLocationException if the document cannot be scanned
+	 */
+	synchronized int findTokenForward(IDocument document, int offset) throws BadLocationException {
+		int length= document.getLength();
+		scan(document, offset + 1);
+		int index= indexOfTokenEndingAfter(offset);
+		while (index == fCount && fScannedEnd < length) {
+			scan(document, fScannedEnd + 1);
+			index= indexOfTokenEndingAfter(offset);
+		}
+		return index < fCount ? index : -1;
+	}
+
+	/**
+	 * Returns the index of the last token that starts at or before the given offset.
+	 *
+	 * @param document the document
+	 * @param offset the offset
+	 * @return the index of the token, or <code>-1</code> if there is no such token
+	 * @throws BadLocationException if the document cannot be scanned
+	 */
+	synchronized int findTokenBackward(IDocument document, int offset) throws BadLocationException {
+		scan(document, offset + 1);
+		int index= indexOfTokenEndingAfter(offset);
+		if (index < fCount && fStarts[index] <= offset)
+			return index;
+		return index - 1;
+	}
+
+	/**
+	 * Returns the index of the token following the given token.
+	 *
+	 * @param document the document
+	 * @param index the index of a token
+	 * @return the index of the next token, or <code>-1</code> if there is no such token
+	 * @throws BadLocationException if the document cannot be scanned
+	 */
+	synchronized int next(IDocument document, int index) throws BadLocationException {
+		if (index + 1 < fCount)
+			return index + 1;
+		return findTokenForward(document, fEnds[index]);
+	}
+
+	synchronized int getStart(int index) {
+		return fStarts[index];
+	}
+
+	synchronized int getEnd(int index) {
+		return fEnds[index];
+	}
+
+	synchronized int getType(int index) {
+		return fTypes[index];
+	}
+
+	private int indexOfTokenEndingAfter(int offset) {
+		int low= 0;
+		int high= fCount;
+		while (low < high) {
+			int mid= (low + high) >>> 1;
+			if (fEnds[mid] <= offset)
+				low= mid + 1;
+			else
+				high= mid;
+		}
+		return low;
+	}
+
+	/**
+	 * Scans the document until all tokens starting before the given offset are known.
+	 *
+	 * @param document the document
+	 * @param offset the offset
+	 * @throws BadLocationException if the document cannot be scanned
+	 */
+	private void scan(IDocument document, int offset) throws BadLocationException {
+		int length= document.getLength();
+		if (fScannedEnd > length)
+			fScannedEnd= length;
+		if (offset <= fScannedEnd)
+			return;
+
+		int start= fScannedEnd;
+		int end= Math.min(length, Math.max(offset, start + CHUNK_SIZE));
+		// do not split an identifier
+		while (end < length && Character.isJavaIdentifierPart(document.getChar(end - 1)) && Character.isJavaIdentifierPart(document.getChar(end)))
+			end++;
+		if (start == end)
+			return;
+
+		String text= document.get(start, end - start);
+		for (ITypedRegion region : TextUtilities.computePartitioning(document, fPartitioning, start, end - start, false)) {
+			if (!fPartition.equals(region.getType()))
+				continue;
+			int from= Math.max(start, region.getOffset());
+			int to= Math.min(end, region.getOffset() + region.getLength());
+			scanRegion(text, start, from, to);
+		}
+		fScannedEnd= end;
+	}
+
+	private void scanRegion(String text, int textOffset, int from, int to) {
+		int pos= from;
+		while (pos < to) {
+			char ch= text.charAt(pos - textOffset);
+			if (Character.isWhitespace(ch)) {
+				pos++;
+				continue;
+			}
+			int symbol= JavaHeuristicScanner.getSymbol(ch);
+			if (symbol == TokenOTHER && Character.isJavaIdentifierPart(ch)) {
+				int identEnd= pos + 1;
+				while (identEnd < to && Character.isJavaIdentifierPart(text.charAt(identEnd - textOffset)))
+					identEnd++;
+				add(pos, identEnd, JavaHeuristicScanner.getToken(text.substring(pos - textOffset, identEnd - textOffset)));
+				pos= identEnd;
+			} else {
+				add(pos, pos + 1, symbol);
+				pos++;
+			}
+		}
+	}
+
+	private void add(int start, int end, int type) {
+		if (fCount == fStarts.length) {
+			int capacity= fCount * 2;
+			fStarts= Arrays.copyOf(fStarts, capacity);
+			fEnds= Arrays.copyOf(fEnds, capacity);
+			fTypes= Arrays.copyOf(fTypes, capacity);
+		}
+		fStarts[fCount]= start;
+		fEnds[fCount]= end;
+		fTypes[fCount]= type;
+		fCount++;
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2005, 2019 IBM Corporation and others.
+ * Copyright (c) 2005, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -18,6 +18,7 @@ package org.eclipse.jdt.internal.ui.text.java;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.lang.ref.WeakReference;
 import java.net.URL;
 
 import org.osgi.framework.Bundle;
@@ -57,6 +58,7 @@ import org.eclipse.jface.text.DefaultPositionUpdater;
 import org.eclipse.jface.text.DocumentCommand;
 import org.eclipse.jface.text.DocumentEvent;
 import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.IDocumentExtension4;
 import org.eclipse.jface.text.IInformationControlCreator;
 import org.eclipse.jface.text.IPositionUpdater;
 import org.eclipse.jface.text.IRegion;
@@ -228,6 +230,51 @@ public abstract class AbstractJavaCompletionProposal implements IJavaCompletionP
 
 	}
 
+	/**
+	 * The prefix last read by {@link AbstractJavaCompletionProposal#getPrefix(IDocument, int)}. While
+	 * the user types, all proposals of a content assist session are validated against the same
+	 * prefix, hence the prefix and its characters are only read once per keystroke.
+	 *
+	 * @since 3.21
+	 */
+	private static final class PrefixCache {
+
+		private static WeakReference<IDocument> fgDocument= new WeakReference<>(null);
+		private static long fgModificationStamp;
+		private static int fgOffset;
+		private static int fgLength;
+		private static String fgPrefix;
+		private static char[] fgPrefixChars;
+
+		static synchronized String get(IDocument document, int offset, int length) throws BadLocationException {
+			if (!(document instanceof IDocumentExtension4))
+				return document.get(offset, length);
+			long modificationStamp= ((IDocumentExtension4) document).getModificationStamp();
+			if (modificationStamp == IDocumentExtension4.UNKNOWN_MODIFICATION_STAMP)
+				return document.get(offset, length);
+
+			if (fgDocument.get() != document || fgModificationStamp != modificationStamp || fgOffset != offset || fgLength != length) {
+				String prefix= document.get(offset, length);
+				if (fgDocument.get() != document)
+					fgDocument= new WeakReference<>(document);
+				fgModificationStamp= modificationStamp;
+				fgOffset= offset;
+				fgLength= length;
+				fgPrefix= prefix;
+				fgPrefixChars= null;
+			}
+			return fgPrefix;
+		}
+
+		static synchronized char[] getChars(String pattern) {
+			if (pattern != fgPrefix)
+				return pattern.toCharArray();
+			if (fgPrefixChars == null)
+				fgPrefixChars= pattern.toCharArray();
+			return fgPrefixChars;
+		}
+	}
+
 	private StyledString fDisplayString;
 	private String fReplacementString;
 	private int fReplacementOffset;
@@ -243,11 +290,58 @@ public abstract class AbstractJavaCompletionProposal implements IJavaCompletionP
 
 	private int fPatternMatchRule= -1;
 
+	/**
+	 * The display string the match key has been computed from.
+	 * @since 3.21
+	 */
+	private StyledString fMatchKeySource;
+	/**
+	 * The length of the display string when the match key has been computed.
+	 * @since 3.21
+	 */
+	private int fMatchKeySourceLength;
+	/**
+	 * The match key, see {@link #getMatchKey()}.
+	 * @since 3.21
+	 */
+	private String fMatchKey;
+	/**
+	 * The characters of the match key.
+	 * @since 3.21
+	 */
+	private char[] fMatchKeyChars;
+	/**
+	 * The last pattern that did not match the match key, or <code>null</code>.
+	 * @since 3.21
+	 */
+	private String fRejectedPattern;
+	/**
+	 * The match options the last pattern has been rejected with.
+	 * @since 3.21
+	 */
+	private int fRejectedOptions;
+
 	private StyleRange fRememberedStyleRange;
 
 	private boolean fToggleEating;
 	private ITextViewer fTextViewer;
 
+	/**
+	 * Match option for CamelCase matching.
+	 * @since 3.21
+	 */
+	private static final int MATCH_CAMEL_CASE= 1;
+	/**
+	 * Match option for substring matching.
+	 * @since 3.21
+	 */
+	private static final int MATCH_SUBSTRING= 2;
+	/**
+	 * Match option for subword matching.
+	 * @since 3.21
+	 */
+	private static final int MATCH_SUBWORD= 4;
+
 
 	/**
 	 * The control creator.
@@ -855,7 +949,32 @@ public abstract class AbstractJavaCompletionProposal implements IJavaCompletionP
 		 * for performance reasons, as computing the
 		 * replacement string can be expensive.
 		 */
-		return isPrefix(pattern, TextProcessor.deprocess(getDisplayString()));
+		return isPrefix(pattern, getMatchKey());
+	}
+
+	/**
+	 * Returns the proposal's {@link #getDisplayString() display string} without the bidi
+	 * formatting characters, i.e. the string the pattern in the document is matched against by
+	 * default. The match key is only computed when the display string changes, so that validating
+	 * the proposal while the user types does not create garbage. Passing the match key itself to
+	 * {@link #isPrefix(String, String)} additionally lets the proposal reject a pattern right away
+	 * if it already rejected a prefix of it.
+	 *
+	 * @return the match key
+	 * @since 3.21
+	 */
+	protected final String getMatchKey() {
+		StyledString source= getStyledDisplayString();
+		if (source == null)
+			return ""; //$NON-NLS-1$
+		if (source != fMatchKeySource || source.length() != fMatchKeySourceLength) {
+			fMatchKey= TextProcessor.deprocess(source.getString());
+			fMatchKeyChars= fMatchKey.toCharArray();
+			fMatchKeySource= source;
+			fMatchKeySourceLength= source.length();
+			fRejectedPattern= null;
+		}
+		return fMatchKey;
 	}
 
 	/**
@@ -892,7 +1011,7 @@ public abstract class AbstractJavaCompletionProposal implements IJavaCompletionP
 		try {
 			int length= offset - getReplacementOffset();
 			if (length > 0)
-				return document.get(getReplacementOffset(), length);
+				return PrefixCache.get(document, getReplacementOffset(), length);
 		} catch (BadLocationException x) {
 		}
 		return ""; //$NON-NLS-1$
@@ -912,7 +1031,25 @@ public abstract class AbstractJavaCompletionProposal implements IJavaCompletionP
 	protected boolean isPrefix(String pattern, String string) {
 		if (pattern == null || string == null || pattern.length() > string.length())
 			return false;
-		fPatternMatchRule= getPatternMatchRule(pattern, string);
+		if (string != fMatchKey) {
+			fPatternMatchRule= getPatternMatchRule(pattern, string);
+			return fPatternMatchRule != -1;
+		}
+
+		// none of the match rules accepts a pattern whose prefix it rejects, hence
+		// the proposal stays filtered out while the user keeps typing
+		int options= getMatchOptions();
+		if (fRejectedPattern != null && fRejectedOptions == options && pattern.startsWith(fRejectedPattern)) {
+			fPatternMatchRule= -1;
+			return false;
+		}
+		fPatternMatchRule= getPatternMatchRule(pattern, string, fMatchKeyChars, options);
+		if (fPatternMatchRule == -1) {
+			fRejectedPattern= pattern;
+			fRejectedOptions= options;
+		} else {
+			fRejectedPattern= null;
+		}
 		return fPatternMatchRule != -1;
 	}
 
@@ -927,27 +1064,64 @@ public abstract class AbstractJavaCompletionProposal implements IJavaCompletionP
 	 * @since 3.12
 	 */
 	protected int getPatternMatchRule(String pattern, String string) {
-		String start;
-		try {
-			start= string.substring(0, pattern.length());
-		} catch (StringIndexOutOfBoundsException e) {
+		if (pattern.length() > string.length()) {
 			String message= "Error retrieving proposal text.\nDisplay string:\n" + string + "\nPattern:\n" + pattern; //$NON-NLS-1$//$NON-NLS-2$
-			JavaPlugin.log(new Status(IStatus.ERROR, JavaPlugin.getPluginId(), IStatus.OK, message, e));
+			JavaPlugin.log(new Status(IStatus.ERROR, JavaPlugin.getPluginId(), IStatus.OK, message, new StringIndexOutOfBoundsException(pattern.length())));
 			return -1;
 		}
-		if (start.equalsIgnoreCase(pattern)) {
+		return getPatternMatchRule(pattern, string, string == fMatchKey ? fMatchKeyChars : null, getMatchOptions());
+	}
+
+	/**
+	 * Matches the given <code>pattern</code> in <code>string</code> without copying the pattern
+	 * or the string unless a CamelCase, substring or subword match has to be tested.
+	 *
+	 * @param pattern the pattern to match, not longer than <code>string</code>
+	 * @param string the string to look for the pattern
+	 * @param stringChars the characters of <code>string</code>, or <code>null</code> if not known
+	 * @param options the enabled match options, see {@link #getMatchOptions()}
+	 * @return the match rule, or -1 if the <code>pattern</code> doesn't match the
+	 *         <code>string</code>
+	 * @since 3.21
+	 */
+	private static int getPatternMatchRule(String pattern, String string, char[] stringChars, int options) {
+		if (string.regionMatches(true, 0, pattern, 0, pattern.length()))
 			return SearchPattern.R_PREFIX_MATCH;
-		} else if (isCamelCaseMatching() && CharOperation.camelCaseMatch(pattern.toCharArray(), string.toCharArray())) {
+		if (options == 0)
+			return -1;
+
+		char[] patternChars= PrefixCache.getChars(pattern);
+		if (stringChars == null)
+			stringChars= string.toCharArray();
+		if ((options & MATCH_CAMEL_CASE) != 0 && CharOperation.camelCaseMatch(patternChars, stringChars)) {
 			return SearchPattern.R_CAMELCASE_MATCH;
-		} else if (isSubstringMatching() && CharOperation.substringMatch(pattern.toCharArray(), string.toCharArray())) {
+		} else if ((options & MATCH_SUBSTRING) != 0 && CharOperation.substringMatch(patternChars, stringChars)) {
 			return SearchPattern.R_SUBSTRING_MATCH;
-		} else if (isSubwordMatching() && CharOperation.subWordMatch(pattern.toCharArray(), string.toCharArray())) {
+		} else if ((options & MATCH_SUBWORD) != 0 && CharOperation.subWordMatch(patternChars, stringChars)) {
 			return SearchPattern.R_SUBWORD_MATCH;
 		} else {
 			return -1;
 		}
 	}
 
+	/**
+	 * Returns the enabled match options.
+	 *
+	 * @return a combination of {@link #MATCH_CAMEL_CASE}, {@link #MATCH_SUBSTRING} and
+	 *         {@link #MATCH_SUBWORD}
+	 * @since 3.21
+	 */
+	private int getMatchOptions() {
+		int options= 0;
+		if (isCamelCaseMatching())
+			options|= MATCH_CAMEL_CASE;
+		if (isSubstringMatching())
+			options|= MATCH_SUBSTRING;
+		if (isSubwordMatching())
+			options|= MATCH_SUBWORD;
+		return options;
+	}
+
 	/**
 	 * Matches <code>prefix</code> against <code>string</code> and replaces the matched region
 	 * by prefix. Case is preserved as much as possible. This method returns <code>string</code> if camel case completion
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2005, 2013 IBM Corporation and others.
+ * Copyright (c) 2005, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -276,6 +276,24 @@ public final class CompletionProposalCategory {
 		return false;
 	}
 
+	/**
+	 * Returns <code>true</code> if any computer of this category in the given partition requires
+	 * to be called in the UI thread, <code>false</code> otherwise.
+	 *
+	 * @param partition the partition
+	 * @return <code>true</code> if the category must be computed in the UI thread
+	 * @see CompletionProposalComputerDescriptor#requiresUIThread()
+	 * @since 3.21
+	 */
+	public boolean requiresUIThread(String partition) {
+		List<CompletionProposalComputerDescriptor> descriptors= fRegistry.getProposalComputerDescriptors(partition);
+		for (CompletionProposalComputerDescriptor desc : descriptors) {
+			if (desc.getCategory() == this && desc.requiresUIThread())
+				return true;
+		}
+		return false;
+	}
+
 	/**
 	 * @return sortOrder
 	 */
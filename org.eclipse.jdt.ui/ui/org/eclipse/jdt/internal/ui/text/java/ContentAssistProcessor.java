@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2005, 2016 IBM Corporation and others.
+ * Copyright (c) 2005, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -19,10 +19,18 @@ package org.eclipse.jdt.internal.ui.text.java;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.events.SelectionAdapter;
@@ -51,6 +59,8 @@ import org.eclipse.jface.dialogs.MessageDialog;
 import org.eclipse.jface.preference.IPreferenceStore;
 import org.eclipse.jface.resource.JFaceResources;
 
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.IDocumentExtension4;
 import org.eclipse.jface.text.ITextViewer;
 import org.eclipse.jface.text.contentassist.ContentAssistEvent;
 import org.eclipse.jface.text.contentassist.ContentAssistant;
@@ -121,7 +131,9 @@ public class ContentAssistProcessor implements IContentAssistProcessor {
 			// This may show the warning dialog if all categories are disabled
 			setCategoryIteration();
 			for (CompletionProposalCategory cat : getCategoriesToNotify()) {
-				cat.sessionStarted();
+				CategoryComputation running= fDiscardedComputations.get(cat);
+				if (running == null || !running.runWhenDone(cat::sessionStarted))
+					cat.sessionStarted();
 			}
 
 			fRepetition= 0;
@@ -181,8 +193,12 @@ public class ContentAssistProcessor implements IContentAssistProcessor {
 				return;
 			}
 
+			clearPendingComputations();
 			for (CompletionProposalCategory cat : getCategoriesToNotify()) {
-				cat.sessionEnded();
+				// the computers of a category are told that the session ended once they are no longer computing
+				CategoryComputation running= fDiscardedComputations.get(cat);
+				if (running == null || !running.runWhenDone(cat::sessionEnded))
+					cat.sessionEnded();
 			}
 
 			fSelectedProposal= null;
@@ -229,6 +245,113 @@ public class ContentAssistProcessor implements IContentAssistProcessor {
 
 	private static final Comparator<CompletionProposalCategory> ORDER_COMPARATOR= (d1, d2) -> d1.getSortOrder() - d2.getSortOrder();
 
+	/**
+	 * The time in milliseconds a category computed concurrently may take before its proposals are
+	 * left out of the current result.
+	 *
+	 * @since 3.21
+	 */
+	private static final long CATEGORY_TIMEOUT= Long.getLong("org.eclipse.jdt.ui.codeAssistCategoryTimeout", 1000).longValue(); // ms //$NON-NLS-1$
+
+	/**
+	 * Computes the categories which do not require the UI thread.
+	 *
+	 * @since 3.21
+	 */
+	private static final ExecutorService CATEGORY_EXECUTOR= Executors.newCachedThreadPool(runnable -> {
+		Thread thread= new Thread(runnable, "Java Content Assist Category"); //$NON-NLS-1$
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	/**
+	 * The document state a completion proposal computation was started for.
+	 *
+	 * @since 3.21
+	 */
+	private static final class ComputationKey {
+		private final IDocument fDocument;
+		private final long fModificationStamp;
+		private final int fOffset;
+
+		ComputationKey(ITextViewer viewer, int offset) {
+			fDocument= viewer != null ? viewer.getDocument() : null;
+			fModificationStamp= fDocument instanceof IDocumentExtension4 ? ((IDocumentExtension4) fDocument).getModificationStamp() : IDocumentExtension4.UNKNOWN_MODIFICATION_STAMP;
+			fOffset= offset;
+		}
+
+		boolean matches(ComputationKey other) {
+			return other != null && fDocument != null && fDocument == other.fDocument && fOffset == other.fOffset
+					&& fModificationStamp != IDocumentExtension4.UNKNOWN_MODIFICATION_STAMP && fModificationStamp == other.fModificationStamp;
+		}
+	}
+
+	/**
+	 * The concurrent computation of the proposals of one category. The computation is cancelled
+	 * through its progress monitor.
+	 *
+	 * @since 3.21
+	 */
+	private static final class CategoryComputation extends FutureTask<List<ICompletionProposal>> {
+		private final IProgressMonitor fMonitor;
+		private volatile long fTime;
+		private List<Runnable> fDeferred= new ArrayList<>(2);
+
+		CategoryComputation(CompletionProposalCategory category, ContentAssistInvocationContext context, String partition, IProgressMonitor monitor) {
+			super(() -> category.computeCompletionProposals(context, partition, monitor));
+			fMonitor= monitor;
+		}
+
+		@Override
+		public void run() {
+			long start= System.currentTimeMillis();
+			try {
+				super.run();
+			} finally {
+				fTime= System.currentTimeMillis() - start;
+			}
+		}
+
+		long getTime() {
+			return fTime;
+		}
+
+		void cancelComputation() {
+			fMonitor.setCanceled(true);
+		}
+
+		/**
+		 * Runs the given runnable after the computation has completed. The runnables run in the
+		 * order they were passed.
+		 *
+		 * @param runnable the runnable
+		 * @return <code>false</code> if the computation has already completed and the runnable
+		 *         was not run
+		 */
+		synchronized boolean runWhenDone(Runnable runnable) {
+			if (fDeferred == null)
+				return false;
+			fDeferred.add(runnable);
+			return true;
+		}
+
+		@Override
+		protected void done() {
+			List<Runnable> deferred;
+			synchronized (this) {
+				deferred= fDeferred;
+				fDeferred= null;
+			}
+			for (Runnable runnable : deferred) {
+				try {
+					runnable.run();
+				} catch (RuntimeException e) {
+					JavaPlugin.log(e);
+				}
+			}
+		}
+	}
+
 	private final List<CompletionProposalCategory> fCategories;
 	private final String fPartition;
 	private final ContentAssistant fAssistant;
@@ -259,6 +382,29 @@ public class ContentAssistProcessor implements IContentAssistProcessor {
 	 */
 	private boolean fNeedsSortingAfterFiltering;
 
+	/**
+	 * The computations of categories which did not complete in time. Their proposals are used
+	 * if proposals are requested again for the same document state.
+	 *
+	 * @since 3.21
+	 */
+	private final Map<CompletionProposalCategory, CategoryComputation> fPendingComputations= new HashMap<>();
+
+	/**
+	 * The document state of the pending computations.
+	 *
+	 * @since 3.21
+	 */
+	private ComputationKey fPendingComputationKey;
+
+	/**
+	 * The computations which were discarded while still running. A category is not computed again
+	 * before its discarded computation has completed.
+	 *
+	 * @since 3.21
+	 */
+	private final Map<CompletionProposalCategory, CategoryComputation> fDiscardedComputations= new HashMap<>();
+
 
 	public ContentAssistProcessor(ContentAssistant assistant, String partition) {
 		Assert.isNotNull(partition);
@@ -329,8 +475,16 @@ public class ContentAssistProcessor implements IContentAssistProcessor {
 		boolean needsSortingAfterFiltering= false;
 		List<ICompletionProposal> proposals= new ArrayList<>();
 		List<CompletionProposalCategory> providers= getCategories();
-		for (CompletionProposalCategory cat : providers) {
-			List<ICompletionProposal> computed= cat.computeCompletionProposals(context, fPartition, new SubProgressMonitor(monitor, 1));
+		List<List<ICompletionProposal>> computedByCategory= computeCategories(providers, new ComputationKey(viewer, offset), monitor, context);
+		for (int i= 0; i < providers.size(); i++) {
+			CompletionProposalCategory cat= providers.get(i);
+			List<ICompletionProposal> computed= computedByCategory.get(i);
+			if (computed == null) {
+				if (fErrorMessage == null) {
+					fErrorMessage= Messages.format(JavaTextMessages.ContentAssistProcessor_category_timeout, LegacyActionTools.removeMnemonics(cat.getDisplayName()));
+				}
+				continue;
+			}
 			proposals.addAll(computed);
 			needsSortingAfterFiltering= needsSortingAfterFiltering || (cat.isSortingAfterFilteringNeeded() && !computed.isEmpty());
 			if (fErrorMessage == null) {
@@ -344,6 +498,127 @@ public class ContentAssistProcessor implements IContentAssistProcessor {
 		return proposals;
 	}
 
+	/**
+	 * Computes the proposals of the given categories. If more than one category is computed, the
+	 * categories that do not require the UI thread are computed concurrently on the shared
+	 * invocation context, while the others are computed in the calling thread. A concurrently
+	 * computed category that does not complete within {@link #CATEGORY_TIMEOUT} is left out of
+	 * the result, but its computation continues. Its proposals are used if proposals are
+	 * requested again before the document changes.
+	 *
+	 * @param categories the categories to compute
+	 * @param key the document state of this computation
+	 * @param monitor the progress monitor
+	 * @param context the code assist invocation context
+	 * @return the proposals of each category, in the order of the categories. The entry of a
+	 *         category that did not complete in time is <code>null</code>.
+	 * @since 3.21
+	 */
+	private List<List<ICompletionProposal>> computeCategories(List<CompletionProposalCategory> categories, ComputationKey key, IProgressMonitor monitor, ContentAssistInvocationContext context) {
+		if (!key.matches(fPendingComputationKey)) {
+			clearPendingComputations();
+		}
+
+		int size= categories.size();
+		List<CategoryComputation> futures= new ArrayList<>(size);
+		boolean[] busy= new boolean[size];
+		long[] times= new long[size];
+		for (int i= 0; i < size; i++) {
+			CompletionProposalCategory cat= categories.get(i);
+			CategoryComputation future= fPendingComputations.remove(cat);
+			if (future == null && isComputing(cat)) {
+				// the computers of a category must not be called concurrently
+				busy[i]= true;
+			} else if (future == null && size > 1 && !cat.requiresUIThread(fPartition)) {
+				future= new CategoryComputation(cat, context, fPartition, new NullProgressMonitor());
+				CATEGORY_EXECUTOR.execute(future);
+			}
+			futures.add(future);
+		}
+
+		List<List<ICompletionProposal>> result= new ArrayList<>(size);
+		for (int i= 0; i < size; i++) {
+			CompletionProposalCategory cat= categories.get(i);
+			if (!busy[i] && futures.get(i) == null) {
+				long start= System.currentTimeMillis();
+				result.add(cat.computeCompletionProposals(context, fPartition, new SubProgressMonitor(monitor, 1)));
+				times[i]= System.currentTimeMillis() - start;
+			} else {
+				result.add(null);
+			}
+		}
+
+		long deadline= System.currentTimeMillis() + CATEGORY_TIMEOUT;
+		for (int i= 0; i < size; i++) {
+			CategoryComputation future= futures.get(i);
+			if (future == null)
+				continue;
+			CompletionProposalCategory cat= categories.get(i);
+			if (monitor.isCanceled())
+				future.cancelComputation();
+			try {
+				result.set(i, future.get(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS));
+				times[i]= future.getTime();
+			} catch (TimeoutException e) {
+				fPendingComputations.put(cat, future);
+				fPendingComputationKey= key;
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				fPendingComputations.put(cat, future);
+				fPendingComputationKey= key;
+			} catch (ExecutionException e) {
+				JavaPlugin.log(e.getCause());
+				result.set(i, Collections.emptyList());
+			}
+			monitor.worked(1);
+		}
+
+		if (JavaPlugin.DEBUG_RESULT_COLLECTOR) {
+			for (int i= 0; i < size; i++) {
+				String label= LegacyActionTools.removeMnemonics(categories.get(i).getDisplayName());
+				String time= result.get(i) != null ? String.valueOf(times[i]) : "> " + CATEGORY_TIMEOUT; //$NON-NLS-1$
+				System.err.println("Code Assist (" + label + "):\t" + time); //$NON-NLS-1$ //$NON-NLS-2$
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Cancels and discards the computations which did not complete in time.
+	 *
+	 * @since 3.21
+	 */
+	private void clearPendingComputations() {
+		for (Map.Entry<CompletionProposalCategory, CategoryComputation> entry : fPendingComputations.entrySet()) {
+			CategoryComputation future= entry.getValue();
+			if (!future.isDone()) {
+				future.cancelComputation();
+				fDiscardedComputations.put(entry.getKey(), future);
+			}
+		}
+		fPendingComputations.clear();
+		fPendingComputationKey= null;
+	}
+
+	/**
+	 * Tells whether a discarded computation of the given category is still running. Does not
+	 * wait for the computation.
+	 *
+	 * @param category the category
+	 * @return <code>true</code> if the category cannot be computed now
+	 * @since 3.21
+	 */
+	private boolean isComputing(CompletionProposalCategory category) {
+		CategoryComputation discarded= fDiscardedComputations.get(category);
+		if (discarded == null)
+			return false;
+		if (!discarded.isDone())
+			return true;
+		// the proposals of a discarded computation are not used
+		fDiscardedComputations.remove(category);
+		return false;
+	}
+
 	/**
 	 * Filters and sorts the proposals. The passed list may be modified
 	 * and returned, or a new list may be created and returned.
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2016 IBM Corporation and others.
+ * Copyright (c) 2000, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -13,8 +13,6 @@
  *******************************************************************************/
 package org.eclipse.jdt.internal.ui.text.java;
 
-import org.eclipse.osgi.util.TextProcessor;
-
 import org.eclipse.swt.graphics.Image;
 
 import org.eclipse.core.runtime.Assert;
@@ -113,7 +111,7 @@ public class JavaCompletionProposal extends AbstractJavaCompletionProposal {
 
 	@Override
 	protected boolean isValidPrefix(String prefix) {
-		String word= TextProcessor.deprocess(getDisplayString());
+		String word= getMatchKey();
 		if (isInJavadoc()) {
 			if (word.indexOf("{@link ") == 0) { //$NON-NLS-1$
 				word= word.substring(7);
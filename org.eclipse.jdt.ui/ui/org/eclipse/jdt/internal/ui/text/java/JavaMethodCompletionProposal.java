@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2005, 2018 IBM Corporation and others.
+ * Copyright (c) 2005, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -14,8 +14,6 @@
  *******************************************************************************/
 package org.eclipse.jdt.internal.ui.text.java;
 
-import org.eclipse.osgi.util.TextProcessor;
-
 import org.eclipse.jface.preference.IPreferenceStore;
 
 import org.eclipse.jface.text.BadLocationException;
@@ -293,7 +291,7 @@ public class JavaMethodCompletionProposal extends LazyJavaCompletionProposal {
 		if (super.isValidPrefix(prefix))
 			return true;
 
-		String word= TextProcessor.deprocess(getDisplayString());
+		String word= getMatchKey();
 		if (fProposal.getKind() == CompletionProposal.CONSTRUCTOR_INVOCATION) {
 			int start= word.indexOf(JavaElementLabels.CONCAT_STRING) + JavaElementLabels.CONCAT_STRING.length();
 			word= word.substring(start);
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -13,6 +13,10 @@
  *******************************************************************************/
 package org.eclipse.jdt.internal.ui.text.spelling;
 
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.Platform;
 import org.eclipse.core.runtime.content.IContentType;
 
@@ -37,9 +41,19 @@ import org.eclipse.jdt.core.IProblemRequestor;
 import org.eclipse.jdt.core.JavaCore;
 import org.eclipse.jdt.core.compiler.IProblem;
 
+import org.eclipse.jdt.ui.PreferenceConstants;
+
+import org.eclipse.jdt.internal.ui.text.spelling.engine.ISpellChecker;
+
 
 /**
  * Reconcile strategy for spell checking comments.
+ * <p>
+ * The strategy remembers the problems it has reported and tracks the document changes since, see
+ * {@link SpellingProblemTracker}. Only the comment and string partitions touched by the changes
+ * are checked again, the problems in the rest of the document are reported unchanged. The whole
+ * document is checked again when the spell checker or its dictionaries have changed.
+ * </p>
  *
  * @since 3.1
  */
@@ -48,7 +62,8 @@ public class JavaSpellingReconcileStrategy extends SpellingReconcileStrategy {
 
 	/**
 	 * Spelling problem collector that forwards {@link SpellingProblem}s as
-	 * {@link IProblem}s to the {@link IProblemRequestor}.
+	 * {@link IProblem}s to the {@link IProblemRequestor}, together with the
+	 * reported problems outside of the checked region.
 	 */
 	private class SpellingProblemCollector implements ISpellingProblemCollector {
 
@@ -57,8 +72,7 @@ public class JavaSpellingReconcileStrategy extends SpellingReconcileStrategy {
 		 */
 		@Override
 		public void accept(SpellingProblem problem) {
-			IProblemRequestor requestor= fRequestor;
-			if (requestor != null) {
+			if (fRequestor != null) {
 				try {
 					int line= getDocument().getLineOfOffset(problem.getOffset()) + 1;
 					String word= getDocument().get(problem.getOffset(), problem.getLength());
@@ -72,7 +86,7 @@ public class JavaSpellingReconcileStrategy extends SpellingReconcileStrategy {
 					IEditorInput editorInput= fEditor.getEditorInput();
 					if (editorInput != null) {
 						CoreSpellingProblem iProblem= new CoreSpellingProblem(problem.getOffset(), problem.getOffset() + problem.getLength() - 1, line, problem.getMessage(), word, dictionaryMatch, sentenceStart, getDocument(), editorInput.getName());
-						requestor.acceptProblem(iProblem);
+						fCheckedProblems.add(iProblem);
 					}
 				} catch (BadLocationException x) {
 					// drop this SpellingProblem
@@ -85,6 +99,7 @@ public class JavaSpellingReconcileStrategy extends SpellingReconcileStrategy {
 		 */
 		@Override
 		public void beginCollecting() {
+			fCheckedProblems= new ArrayList<>();
 			if (fRequestor != null)
 				fRequestor.beginReporting();
 		}
@@ -94,8 +109,17 @@ public class JavaSpellingReconcileStrategy extends SpellingReconcileStrategy {
 		 */
 		@Override
 		public void endCollecting() {
-			if (fRequestor != null)
-				fRequestor.endReporting();
+			IProblemRequestor requestor= fRequestor;
+			if (requestor != null) {
+				// a cancelled check keeps the reported problems and the changed region
+				boolean completed= fProgressMonitor == null || !fProgressMonitor.isCanceled();
+				List<CoreSpellingProblem> problems= fTracker.endCheck(getDocument(), fCheckedProblems, completed, getProblemsThreshold());
+				for (CoreSpellingProblem problem : problems) {
+					requestor.acceptProblem(problem);
+				}
+				requestor.endReporting();
+			}
+			fCheckedProblems= null;
 		}
 	}
 
@@ -112,6 +136,42 @@ public class JavaSpellingReconcileStrategy extends SpellingReconcileStrategy {
 	/** The problem requester. */
 	private IProblemRequestor fRequestor;
 
+	/**
+	 * The tracker of the reported problems, installed as listener on the document.
+	 * @since 3.21
+	 */
+	private final SpellingProblemTracker fTracker= new SpellingProblemTracker();
+
+	/**
+	 * Tells whether the tracker is installed on the document.
+	 * @since 3.21
+	 */
+	private boolean fTrackerInstalled;
+
+	/**
+	 * The progress monitor of the reconciler.
+	 * @since 3.21
+	 */
+	private IProgressMonitor fProgressMonitor;
+
+	/**
+	 * The spell checker of the last check.
+	 * @since 3.21
+	 */
+	private ISpellChecker fChecker;
+
+	/**
+	 * The generation of the spell checker at the last check.
+	 * @since 3.21
+	 */
+	private int fCheckerGeneration;
+
+	/**
+	 * The problems found by the running check.
+	 * @since 3.21
+	 */
+	private List<CoreSpellingProblem> fCheckedProblems;
+
 
 	/**
 	 * Creates a new comment reconcile strategy.
@@ -129,8 +189,37 @@ public class JavaSpellingReconcileStrategy extends SpellingReconcileStrategy {
 	 */
 	@Override
 	public void reconcile(IRegion region) {
-		if (fRequestor != null && isSpellingEnabled())
-			super.reconcile(region);
+		if (fRequestor != null && isSpellingEnabled()) {
+			ISpellChecker checker= null;
+			int generation= 0;
+			try {
+				checker= SpellCheckEngine.getInstance().getSpellChecker();
+				if (checker != null)
+					generation= checker.getGeneration();
+			} catch (IllegalStateException e) {
+				// the engine has been shut down
+			}
+			if (checker == null || checker != fChecker || generation != fCheckerGeneration)
+				fTracker.requestFullCheck();
+			fChecker= checker;
+			fCheckerGeneration= generation;
+
+			super.reconcile(fTracker.beginCheck(getDocument(), getProblemsThreshold()));
+		}
+	}
+
+	/*
+	 * @see org.eclipse.ui.texteditor.spelling.SpellingReconcileStrategy#setProgressMonitor(org.eclipse.core.runtime.IProgressMonitor)
+	 * @since 3.21
+	 */
+	@Override
+	public void setProgressMonitor(IProgressMonitor monitor) {
+		super.setProgressMonitor(monitor);
+		fProgressMonitor= monitor;
+	}
+
+	private static int getProblemsThreshold() {
+		return PreferenceConstants.getPreferenceStore().getInt(PreferenceConstants.SPELLING_PROBLEMS_THRESHOLD);
 	}
 
 	private boolean isSpellingEnabled() {
@@ -160,8 +249,33 @@ public class JavaSpellingReconcileStrategy extends SpellingReconcileStrategy {
 	 */
 	@Override
 	public void setDocument(IDocument document) {
+		uninstallDocumentListener();
 		super.setDocument(document);
 		updateProblemRequester();
+		fTracker.reset();
+		if (document != null) {
+			document.addDocumentListener(fTracker);
+			document.addDocumentPartitioningListener(fTracker);
+			fTrackerInstalled= true;
+		}
+	}
+
+	/**
+	 * Disposes this strategy.
+	 *
+	 * @since 3.21
+	 */
+	public void dispose() {
+		uninstallDocumentListener();
+	}
+
+	private void uninstallDocumentListener() {
+		IDocument document= getDocument();
+		if (fTrackerInstalled && document != null) {
+			document.removeDocumentListener(fTracker);
+			document.removeDocumentPartitioningListener(fTracker);
+		}
+		fTrackerInstalled= false;
 	}
 
 	/**
@@ -0,0 +1,345 @@
+/*******************************************************************************
+ * Copyright (c) 2020 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.ui.text.spelling;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.jface.text.BadLocationException;
+import org.eclipse.jface.text.DocumentEvent;
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.IDocumentListener;
+import org.eclipse.jface.text.IDocumentPartitioningListener;
+import org.eclipse.jface.text.IDocumentPartitioningListenerExtension;
+import org.eclipse.jface.text.IRegion;
+import org.eclipse.jface.text.ITypedRegion;
+import org.eclipse.jface.text.Region;
+import org.eclipse.jface.text.TextUtilities;
+
+import org.eclipse.jdt.ui.text.IJavaPartitions;
+
+/**
+ * Remembers the spelling problems reported for a document and tracks the document changes since.
+ * The tracker must be registered as document and document partitioning listener.
+ * <p>
+ * A check is started with {@link #beginCheck(IDocument, int)}, which returns the region to check:
+ * the comment and string partitions touched by the changes, or the whole document. The problems
+ * found in that region are merged with the remembered problems outside of it by
+ * {@link #endCheck(IDocument, List, boolean, int)}. A check which has been cancelled or during
+ * which the document has changed does not update the remembered problems, and the changed region
+ * stays dirty.
+ * </p>
+ *
+ * @since 3.21
+ */
+public class SpellingProblemTracker implements IDocumentListener, IDocumentPartitioningListener, IDocumentPartitioningListenerExtension {
+
+	/** The lock guarding the state, which is updated by the document listener and by the reconciler. */
+	private final Object fLock= new Object();
+
+	/** The reported problems in document order, with their offsets adjusted to the document changes since. */
+	private List<CoreSpellingProblem> fProblems= new ArrayList<>();
+
+	/** The number of requests to check the whole document. */
+	private int fFullCheckRequests= 1;
+
+	/** The number of requests to check the whole document satisfied by a completed check. */
+	private int fFullCheckRequestsDone;
+
+	/** The start of the region changed since the last check, or <code>-1</code> if unchanged. */
+	private int fDirtyStart= -1;
+
+	/** The end (exclusive) of the region changed since the last check. */
+	private int fDirtyEnd;
+
+	/** The start of the partitioning change not yet added to the dirty region, or <code>-1</code>. */
+	private int fPartitioningStart= -1;
+
+	/** The end (exclusive) of the partitioning change not yet added to the dirty region. */
+	private int fPartitioningEnd;
+
+	/** The number of document changes, used to detect changes during a check. */
+	private int fChangeCount;
+
+	/** The start of the region of the running check, the problems outside it are kept. */
+	private int fCheckedStart;
+
+	/** The end (exclusive) of the region of the running check. */
+	private int fCheckedEnd;
+
+	/** The change count when the running check started. */
+	private int fCheckedChangeCount;
+
+	/** The full check requests when the running check started, or <code>-1</code> if it is not a full check. */
+	private int fCheckedFullCheckRequests;
+
+	/**
+	 * Forgets the reported problems, the next check checks the whole document.
+	 */
+	public void reset() {
+		synchronized (fLock) {
+			fProblems= new ArrayList<>();
+			fFullCheckRequests++;
+			fDirtyStart= -1;
+			fPartitioningStart= -1;
+		}
+	}
+
+	/**
+	 * Requests that the next check checks the whole document, e.g. because the spell checker has
+	 * changed.
+	 */
+	public void requestFullCheck() {
+		synchronized (fLock) {
+			fFullCheckRequests++;
+		}
+	}
+
+	/**
+	 * Starts a check and computes the region to check: the comment and string partitions touched
+	 * by the document changes since the last completed check, or the whole document if requested
+	 * or if the remembered problems reach the threshold.
+	 *
+	 * @param document the document
+	 * @param threshold the maximal number of problems reported
+	 * @return the region to check, may be empty
+	 */
+	public IRegion beginCheck(IDocument document, int threshold) {
+		int length= document.getLength();
+		int start, end;
+		synchronized (fLock) {
+			fCheckedChangeCount= fChangeCount;
+			fCheckedFullCheckRequests= -1;
+			addPartitioningChange();
+			if (fProblems.size() >= threshold)
+				fFullCheckRequests++;
+			if (isFullCheckNeeded()) {
+				fCheckedFullCheckRequests= fFullCheckRequests;
+				return setCheckedRegion(0, length);
+			}
+			if (fDirtyStart == -1)
+				return setCheckedRegion(0, 0);
+			start= Math.min(fDirtyStart, length);
+			end= Math.min(fDirtyEnd, length);
+		}
+
+		try {
+			// sentences and Javadoc tags are recognized from the start of the partition
+			IRegion startLine= document.getLineInformationOfOffset(start);
+			IRegion endLine= document.getLineInformationOfOffset(end);
+			int lineEnd= endLine.getOffset() + endLine.getLength();
+			ITypedRegion first= TextUtilities.getPartition(document, IJavaPartitions.JAVA_PARTITIONING, startLine.getOffset(), false);
+			ITypedRegion last= TextUtilities.getPartition(document, IJavaPartitions.JAVA_PARTITIONING, lineEnd, false);
+			start= first.getOffset();
+			end= Math.max(lineEnd, last.getOffset() + last.getLength());
+		} catch (BadLocationException e) {
+			// the document has been changed in another thread
+			start= 0;
+			end= length;
+		}
+		synchronized (fLock) {
+			return setCheckedRegion(start, end);
+		}
+	}
+
+	private IRegion setCheckedRegion(int start, int end) {
+		fCheckedStart= start;
+		fCheckedEnd= end;
+		return new Region(start, end - start);
+	}
+
+	/**
+	 * Ends the check started by the last call to {@link #beginCheck(IDocument, int)}. If the check
+	 * has completed and the document has not been changed during the check, the problems found
+	 * in the checked region are merged with the remembered problems outside of it, and the
+	 * document is clean. Otherwise the found problems are dropped, the remembered problems are
+	 * kept and the changed region is checked again by the next check.
+	 *
+	 * @param document the document
+	 * @param checkedProblems the problems found in the checked region, in document order
+	 * @param completed <code>true</code> if the whole region has been checked,
+	 *            <code>false</code> if the check has been cancelled
+	 * @param threshold the maximal number of problems reported
+	 * @return the problems to report
+	 */
+	public List<CoreSpellingProblem> endCheck(IDocument document, List<CoreSpellingProblem> checkedProblems, boolean completed, int threshold) {
+		synchronized (fLock) {
+			if (!completed || fChangeCount != fCheckedChangeCount)
+				return new ArrayList<>(fProblems);
+
+			boolean fullCheck= fCheckedFullCheckRequests != -1;
+			List<CoreSpellingProblem> merged= new ArrayList<>(fProblems.size() + checkedProblems.size());
+			int index= 0;
+			if (!fullCheck) {
+				for (; index < fProblems.size() && fProblems.get(index).getSourceEnd() < fCheckedStart; index++) {
+					merged.add(fProblems.get(index));
+				}
+			}
+			merged.addAll(checkedProblems);
+			if (!fullCheck) {
+				for (; index < fProblems.size(); index++) {
+					CoreSpellingProblem problem= fProblems.get(index);
+					if (problem.getSourceStart() >= fCheckedEnd)
+						merged.add(problem);
+				}
+			}
+			if (merged.size() > threshold)
+				merged= new ArrayList<>(merged.subList(0, threshold));
+
+			// the line numbers of unchanged problems may have moved
+			for (CoreSpellingProblem problem : merged) {
+				try {
+					problem.setSourceLineNumber(document.getLineOfOffset(problem.getSourceStart()) + 1);
+				} catch (BadLocationException e) {
+					// keep the line, the problem is updated by the next check
+				}
+			}
+
+			fProblems= merged;
+			if (fullCheck)
+				fFullCheckRequestsDone= fCheckedFullCheckRequests;
+			fDirtyStart= -1;
+			return new ArrayList<>(merged);
+		}
+	}
+
+	/**
+	 * Returns the remembered problems.
+	 *
+	 * @return the problems in document order
+	 */
+	public List<CoreSpellingProblem> getProblems() {
+		synchronized (fLock) {
+			return new ArrayList<>(fProblems);
+		}
+	}
+
+	/**
+	 * Tells whether the next check must check the whole document.
+	 *
+	 * @return <code>true</code> if the whole document must be checked
+	 */
+	public boolean isFullCheckNeeded() {
+		synchronized (fLock) {
+			return fFullCheckRequests != fFullCheckRequestsDone;
+		}
+	}
+
+	/**
+	 * Returns the region changed since the last completed check.
+	 *
+	 * @return the changed region, or <code>null</code> if the document has not changed
+	 */
+	public IRegion getDirtyRegion() {
+		synchronized (fLock) {
+			addPartitioningChange();
+			return fDirtyStart == -1 ? null : new Region(fDirtyStart, fDirtyEnd - fDirtyStart);
+		}
+	}
+
+	/*
+	 * @see org.eclipse.jface.text.IDocumentListener#documentAboutToBeChanged(org.eclipse.jface.text.DocumentEvent)
+	 */
+	@Override
+	public void documentAboutToBeChanged(DocumentEvent event) {
+	}
+
+	/*
+	 * @see org.eclipse.jface.text.IDocumentListener#documentChanged(org.eclipse.jface.text.DocumentEvent)
+	 */
+	@Override
+	public void documentChanged(DocumentEvent event) {
+		String text= event.getText();
+		int offset= event.getOffset();
+		int length= event.getLength();
+		int textLength= text == null ? 0 : text.length();
+		int delta= textLength - length;
+		synchronized (fLock) {
+			fChangeCount++;
+
+			List<CoreSpellingProblem> problems= new ArrayList<>(fProblems.size());
+			for (CoreSpellingProblem problem : fProblems) {
+				if (problem.getSourceEnd() < offset) {
+					problems.add(problem);
+				} else if (problem.getSourceStart() >= offset + length) {
+					problem.setSourceStart(problem.getSourceStart() + delta);
+					problem.setSourceEnd(problem.getSourceEnd() + delta);
+					problems.add(problem);
+				}
+			}
+			fProblems= problems;
+
+			if (fDirtyStart == -1) {
+				fDirtyStart= offset;
+				fDirtyEnd= offset + textLength;
+			} else {
+				if (fDirtyEnd >= offset + length)
+					fDirtyEnd+= delta;
+				else if (fDirtyEnd > offset)
+					fDirtyEnd= offset;
+				fDirtyStart= Math.min(fDirtyStart, offset);
+				fDirtyEnd= Math.max(fDirtyEnd, offset + textLength);
+			}
+			addPartitioningChange();
+		}
+	}
+
+	/*
+	 * @see org.eclipse.jface.text.IDocumentPartitioningListener#documentPartitioningChanged(org.eclipse.jface.text.IDocument)
+	 */
+	@Override
+	public void documentPartitioningChanged(IDocument document) {
+		requestFullCheck();
+	}
+
+	/*
+	 * @see org.eclipse.jface.text.IDocumentPartitioningListenerExtension#documentPartitioningChanged(org.eclipse.jface.text.IDocument, org.eclipse.jface.text.IRegion)
+	 */
+	@Override
+	public void documentPartitioningChanged(IDocument document, IRegion changedRegion) {
+		if (changedRegion == null) {
+			documentPartitioningChanged(document);
+			return;
+		}
+		// the region is already in the coordinates of the changed document, it is added
+		// to the dirty region after the document change has been handled
+		synchronized (fLock) {
+			int end= changedRegion.getOffset() + changedRegion.getLength();
+			if (fPartitioningStart == -1) {
+				fPartitioningStart= changedRegion.getOffset();
+				fPartitioningEnd= end;
+			} else {
+				fPartitioningStart= Math.min(fPartitioningStart, changedRegion.getOffset());
+				fPartitioningEnd= Math.max(fPartitioningEnd, end);
+			}
+		}
+	}
+
+	/**
+	 * Adds the pending partitioning change to the dirty region. Must be called while holding the
+	 * lock.
+	 */
+	private void addPartitioningChange() {
+		if (fPartitioningStart == -1)
+			return;
+		if (fDirtyStart == -1) {
+			fDirtyStart= fPartitioningStart;
+			fDirtyEnd= fPartitioningEnd;
+		} else {
+			fDirtyStart= Math.min(fDirtyStart, fPartitioningStart);
+			fDirtyEnd= Math.max(fDirtyEnd, fPartitioningEnd);
+		}
+		fPartitioningStart= -1;
+	}
+}
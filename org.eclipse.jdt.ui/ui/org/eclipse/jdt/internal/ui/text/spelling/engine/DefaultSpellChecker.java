@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2016 IBM Corporation and others.
+ * Copyright (c) 2000, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -14,9 +14,11 @@
 package org.eclipse.jdt.internal.ui.text.spelling.engine;
 
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
 
 import org.eclipse.core.runtime.Assert;
@@ -33,6 +35,12 @@ import org.eclipse.jdt.ui.PreferenceConstants;
  */
 public class DefaultSpellChecker implements ISpellChecker {
 
+	/**
+	 * The maximum number of cached word verdicts.
+	 * @since 3.21
+	 */
+	private static final int MAX_CACHED_VERDICTS= 20000;
+
 	/** Array of URL prefixes */
 	public static final String[] URL_PREFIXES= new String[] { "http://", "https://", "www.", "ftp://", "ftps://", "news://", "mailto://" }; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$ //$NON-NLS-7$
 
@@ -146,6 +154,25 @@ public class DefaultSpellChecker implements ISpellChecker {
 	 */
 	private Locale fLocale;
 
+	/**
+	 * The results of {@link #isCorrect(String)} by word for the current generation. Synchronized
+	 * on itself, also guards the generation and the options.
+	 * @since 3.21
+	 */
+	private final Map<String, Boolean> fVerdicts= new HashMap<>();
+
+	/**
+	 * The generation of this checker, see {@link #getGeneration()}.
+	 * @since 3.21
+	 */
+	private int fGeneration;
+
+	/**
+	 * The spelling preferences of the current generation as bit set, see {@link #getOptions()}.
+	 * @since 3.21
+	 */
+	private int fOptions;
+
 	/**
 	 * Creates a new default spell checker.
 	 *
@@ -158,12 +185,14 @@ public class DefaultSpellChecker implements ISpellChecker {
 
 		fPreferences= store;
 		fLocale= locale;
+		fOptions= getOptions();
 	}
 
 	@Override
 	public final void addDictionary(final ISpellDictionary dictionary) {
 		// synchronizing is necessary as this is a write access
 		fDictionaries.add(dictionary);
+		invalidateVerdicts();
 	}
 
 	@Override
@@ -200,13 +229,14 @@ public class DefaultSpellChecker implements ISpellChecker {
 			if (dictionary.acceptsWords())
 				dictionary.addWord(addable);
 		}
-
+		invalidateVerdicts();
 	}
 
 	@Override
 	public final void checkWord(final String word) {
 		// synchronizing is necessary as this is a write access
 		fIgnored.remove(word.toLowerCase());
+		invalidateVerdicts();
 	}
 
 	@Override
@@ -221,6 +251,7 @@ public class DefaultSpellChecker implements ISpellChecker {
 		final boolean ignoreSingleLetters= fPreferences.getBoolean(PreferenceConstants.SPELLING_IGNORE_SINGLE_LETTERS);
 		final int problemsThreshold= PreferenceConstants.getPreferenceStore().getInt(PreferenceConstants.SPELLING_PROBLEMS_THRESHOLD);
 
+		updateOptions();
 		iterator.setIgnoreSingleLetters(ignoreSingleLetters);
 
 		Iterator<ISpellDictionary> iter= fDictionaries.iterator();
@@ -290,10 +321,40 @@ public class DefaultSpellChecker implements ISpellChecker {
 	public final void ignoreWord(final String word) {
 		// synchronizing is necessary as this is a write access
 		fIgnored.add(word.toLowerCase());
+		invalidateVerdicts();
 	}
 
 	@Override
 	public final boolean isCorrect(final String word) {
+		int generation;
+		synchronized (fVerdicts) {
+			Boolean verdict= fVerdicts.get(word);
+			if (verdict != null)
+				return verdict.booleanValue();
+			generation= fGeneration;
+		}
+
+		boolean correct= computeCorrect(word);
+
+		synchronized (fVerdicts) {
+			// do not cache a verdict computed with outdated dictionaries
+			if (generation == fGeneration) {
+				if (fVerdicts.size() >= MAX_CACHED_VERDICTS)
+					fVerdicts.clear();
+				fVerdicts.put(word, Boolean.valueOf(correct));
+			}
+		}
+		return correct;
+	}
+
+	/**
+	 * Looks up the specified word in the dictionaries.
+	 *
+	 * @param word the word to check
+	 * @return <code>true</code> iff the word is correctly spelled
+	 * @since 3.21
+	 */
+	private boolean computeCorrect(final String word) {
 		// synchronizing is necessary as this is called from execute
 		Set<ISpellDictionary> copy;
 		synchronized (fDictionaries) {
@@ -317,10 +378,71 @@ public class DefaultSpellChecker implements ISpellChecker {
 	public final void removeDictionary(final ISpellDictionary dictionary) {
 		// synchronizing is necessary as this is a write access
 		fDictionaries.remove(dictionary);
+		invalidateVerdicts();
 	}
 
 	@Override
 	public Locale getLocale() {
 		return fLocale;
 	}
+
+	@Override
+	public int getGeneration() {
+		updateOptions();
+		synchronized (fVerdicts) {
+			return fGeneration;
+		}
+	}
+
+	/**
+	 * Starts a new generation and discards the cached verdicts.
+	 *
+	 * @since 3.21
+	 */
+	private void invalidateVerdicts() {
+		synchronized (fVerdicts) {
+			fVerdicts.clear();
+			fGeneration++;
+		}
+	}
+
+	/**
+	 * Starts a new generation if the spelling preferences have changed.
+	 *
+	 * @since 3.21
+	 */
+	private void updateOptions() {
+		int options= getOptions();
+		synchronized (fVerdicts) {
+			if (options != fOptions) {
+				fOptions= options;
+				fVerdicts.clear();
+				fGeneration++;
+			}
+		}
+	}
+
+	/**
+	 * Returns the spelling preferences which affect the result of a spell check as bit set.
+	 *
+	 * @return the spelling preferences
+	 * @since 3.21
+	 */
+	private int getOptions() {
+		String[] keys= {
+				PreferenceConstants.SPELLING_IGNORE_DIGITS,
+				PreferenceConstants.SPELLING_IGNORE_MIXED,
+				PreferenceConstants.SPELLING_IGNORE_SENTENCE,
+				PreferenceConstants.SPELLING_IGNORE_UPPER,
+				PreferenceConstants.SPELLING_IGNORE_URLS,
+				PreferenceConstants.SPELLING_IGNORE_NON_LETTERS,
+				PreferenceConstants.SPELLING_IGNORE_SINGLE_LETTERS,
+				PreferenceConstants.SPELLING_IGNORE_JAVA_STRINGS };
+		int options= 0;
+		for (int i= 0; i < keys.length; i++) {
+			if (fPreferences.getBoolean(keys[i]))
+				options|= 1 << i;
+		}
+		return options;
+	}
 }
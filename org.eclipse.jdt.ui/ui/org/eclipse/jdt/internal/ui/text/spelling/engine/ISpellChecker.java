@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -110,4 +110,14 @@ public interface ISpellChecker {
 	 * @since 3.3
 	 */
 	Locale getLocale();
+
+	/**
+	 * Returns the generation of this spell checker. The generation changes whenever the result of
+	 * a spell check may have changed, e.g. when a dictionary or a word has been added or when a
+	 * spelling preference has changed.
+	 *
+	 * @return the generation of this spell checker
+	 * @since 3.21
+	 */
+	int getGeneration();
 }
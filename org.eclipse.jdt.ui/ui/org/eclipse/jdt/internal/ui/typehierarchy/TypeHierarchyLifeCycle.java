@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2017 IBM Corporation and others.
+ * Copyright (c) 2000, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -23,6 +23,7 @@ import org.eclipse.swt.widgets.Display;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.PerformanceStats;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.jobs.Job;
 
@@ -56,7 +57,40 @@ import org.eclipse.jdt.internal.ui.JavaPlugin;
  */
 public class TypeHierarchyLifeCycle implements ITypeHierarchyChangedListener, IElementChangedListener {
 
+	/**
+	 * The name of the performance event used to trace hierarchy refreshes. The context of each
+	 * run is the reason for the refresh.
+	 */
+	private static final String PERFORMANCE_EVENT= JavaPlugin.getPluginId() + "/perf/typehierarchy/refresh"; //$NON-NLS-1$
+
+	/**
+	 * If <code>true</code>, the time spent refreshing the hierarchy is forwarded to core's
+	 * {@link PerformanceStats} service.
+	 */
+	private static final boolean MEASURE_PERFORMANCE= PerformanceStats.isEnabled(PERFORMANCE_EVENT);
+
+	private static final int CLASSPATH_CHANGE_FLAGS= IJavaElementDelta.F_CLASSPATH_CHANGED | IJavaElementDelta.F_RESOLVED_CLASSPATH_CHANGED
+			| IJavaElementDelta.F_ARCHIVE_CONTENT_CHANGED | IJavaElementDelta.F_ADDED_TO_CLASSPATH | IJavaElementDelta.F_REMOVED_FROM_CLASSPATH
+			| IJavaElementDelta.F_OPENED | IJavaElementDelta.F_CLOSED;
+
 	private boolean fHierarchyRefreshNeeded;
+
+	/**
+	 * Set when the hierarchy reported a change, until the delta of the change has been analyzed.
+	 */
+	private boolean fHierarchyChangePending;
+
+	/**
+	 * Set when the hierarchy reported a change which did not affect its shape. The hierarchy
+	 * does not report further changes until it is refreshed, so the deltas are analyzed here
+	 * until the next refresh.
+	 */
+	private boolean fHierarchyStale;
+
+	/**
+	 * The reason for the next refresh of the hierarchy, or <code>null</code> if unknown.
+	 */
+	private String fRefreshReason;
 	private ITypeHierarchy fHierarchy;
 	private IJavaElement[] fInputElements;
 	private boolean fIsSuperTypesOnly;
@@ -197,7 +231,7 @@ public class TypeHierarchyLifeCycle implements ITypeHierarchyChangedListener, IE
 		}
 		boolean hierachyCreationNeeded= (fHierarchy == null || !Arrays.equals(elements, fInputElements));
 
-		if (hierachyCreationNeeded || fHierarchyRefreshNeeded) {
+		if (hierachyCreationNeeded || fHierarchyRefreshNeeded || fHierarchyStale) {
 			if (fTypeHierarchyViewPart == null) {
 				IRunnableWithProgress op= new IRunnableWithProgress() {
 					@Override
@@ -330,20 +364,34 @@ public class TypeHierarchyLifeCycle implements ITypeHierarchyChangedListener, IE
 			fHierarchy.removeTypeHierarchyChangedListener(this);
 			JavaCore.removeElementChangedListener(this);
 		}
-		if (hierachyCreationNeeded) {
-			fHierarchy= createTypeHierarchy(elements, pm);
-			if (pm != null && pm.isCanceled()) {
-				throw new OperationCanceledException();
+		PerformanceStats stats= null;
+		if (MEASURE_PERFORMANCE) {
+			String reason= hierachyCreationNeeded ? "new input: " + HistoryAction.getElementLabel(elements) : fRefreshReason; //$NON-NLS-1$
+			stats= PerformanceStats.getStats(PERFORMANCE_EVENT, this);
+			stats.startRun(reason != null ? reason : "refresh requested"); //$NON-NLS-1$
+		}
+		try {
+			if (hierachyCreationNeeded) {
+				fHierarchy= createTypeHierarchy(elements, pm);
+				if (pm != null && pm.isCanceled()) {
+					throw new OperationCanceledException();
+				}
+				fInputElements= elements;
+			} else {
+				fHierarchy.refresh(pm);
+				if (pm != null && pm.isCanceled())
+					throw new OperationCanceledException();
 			}
-			fInputElements= elements;
-		} else {
-			fHierarchy.refresh(pm);
-			if (pm != null && pm.isCanceled())
-				throw new OperationCanceledException();
+		} finally {
+			if (stats != null)
+				stats.endRun();
 		}
 		fHierarchy.addTypeHierarchyChangedListener(this);
 		JavaCore.addElementChangedListener(this);
 		fHierarchyRefreshNeeded= false;
+		fHierarchyChangePending= false;
+		fHierarchyStale= false;
+		fRefreshReason= null;
 	}
 
 	/*
@@ -351,8 +399,10 @@ public class TypeHierarchyLifeCycle implements ITypeHierarchyChangedListener, IE
 	 */
 	@Override
 	public void typeHierarchyChanged(ITypeHierarchy typeHierarchy) {
-	 	fHierarchyRefreshNeeded= true;
- 		fireChange(null);
+		// The hierarchy reports every change to the types it contains. The hierarchy is registered
+		// as element changed listener before this life cycle (see doHierarchyRefresh(..)), so the
+		// delta causing the change is analyzed by elementChanged(..) right after this call.
+		fHierarchyChangePending= true;
 	}
 
 	/*
@@ -360,6 +410,20 @@ public class TypeHierarchyLifeCycle implements ITypeHierarchyChangedListener, IE
 	 */
 	@Override
 	public void elementChanged(ElementChangedEvent event) {
+		if (fHierarchyChangePending || fHierarchyStale && !fHierarchyRefreshNeeded) {
+			fHierarchyChangePending= false;
+			String reason= getHierarchyChangeReason(event.getDelta());
+			if (reason != null) {
+				fRefreshReason= reason;
+				fHierarchyRefreshNeeded= true;
+				fireChange(null);
+				return;
+			}
+			// only member bodies changed, the shape of the hierarchy is intact. The hierarchy
+			// still needs a refresh to report changes again, which happens on the next access.
+			fHierarchyStale= true;
+		}
+
 		if (fChangeListeners.isEmpty()) {
 			return;
 		}
@@ -423,6 +487,63 @@ public class TypeHierarchyLifeCycle implements ITypeHierarchyChangedListener, IE
 		}
 	}
 
+	/**
+	 * Analyzes a delta for changes which can affect the shape of the hierarchy, i.e. the set of
+	 * types in the hierarchy or their super types. Changes to member bodies, fields and methods
+	 * cannot affect the shape, unless they add or remove local or anonymous types.
+	 *
+	 * @param delta the delta to analyze
+	 * @return the reason why the hierarchy must be refreshed, or <code>null</code> if the delta
+	 *         does not affect the shape of the hierarchy
+	 */
+	private static String getHierarchyChangeReason(IJavaElementDelta delta) {
+		IJavaElement element= delta.getElement();
+		int kind= delta.getKind();
+		int flags= delta.getFlags();
+		switch (element.getElementType()) {
+			case IJavaElement.JAVA_MODEL:
+			case IJavaElement.JAVA_PROJECT:
+			case IJavaElement.PACKAGE_FRAGMENT_ROOT:
+			case IJavaElement.PACKAGE_FRAGMENT:
+				if (kind != IJavaElementDelta.CHANGED)
+					return getReason("added or removed", element); //$NON-NLS-1$
+				if ((flags & CLASSPATH_CHANGE_FLAGS) != 0)
+					return getReason("classpath changed", element); //$NON-NLS-1$
+				break;
+			case IJavaElement.COMPILATION_UNIT:
+				if (kind != IJavaElementDelta.CHANGED)
+					return getReason("added or removed", element); //$NON-NLS-1$
+				if ((flags & IJavaElementDelta.F_CONTENT) != 0 && (flags & IJavaElementDelta.F_FINE_GRAINED) == 0)
+					return getReason("content changed", element); //$NON-NLS-1$
+				break;
+			case IJavaElement.CLASS_FILE:
+				return getReason("class file changed", element); //$NON-NLS-1$
+			case IJavaElement.PACKAGE_DECLARATION:
+			case IJavaElement.IMPORT_CONTAINER:
+			case IJavaElement.IMPORT_DECLARATION:
+				return getReason("imports or package declaration changed", element); //$NON-NLS-1$
+			case IJavaElement.TYPE:
+				if (kind != IJavaElementDelta.CHANGED)
+					return getReason("type added or removed", element); //$NON-NLS-1$
+				if ((flags & (IJavaElementDelta.F_SUPER_TYPES | IJavaElementDelta.F_MODIFIERS | IJavaElementDelta.F_CONTENT)) != 0)
+					return getReason("type declaration changed", element); //$NON-NLS-1$
+				break;
+			default:
+				// members: only local and anonymous types contained in them can affect the hierarchy
+				break;
+		}
+		for (IJavaElementDelta child : delta.getAffectedChildren()) {
+			String reason= getHierarchyChangeReason(child);
+			if (reason != null)
+				return reason;
+		}
+		return null;
+	}
+
+	private static String getReason(String change, IJavaElement element) {
+		return change + ": " + element.getElementName(); //$NON-NLS-1$
+	}
+
 	private boolean isPossibleStructuralChange(int flags) {
 		return (flags & (IJavaElementDelta.F_CONTENT | IJavaElementDelta.F_FINE_GRAINED)) == IJavaElementDelta.F_CONTENT;
 	}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2019 IBM Corporation and others.
+ * Copyright (c) 2000, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -3279,6 +3279,18 @@ public class PreferenceConstants {
 	 */
 	public static final String SEARCH_USE_REDUCED_MENU= "Search.usereducemenu"; //$NON-NLS-1$
 
+	/**
+	 * A named preference that holds the maximum number of matches that a Java search collects
+	 * from the search engine. Further matches are dropped, and the search can be continued without
+	 * the limit from the search result.
+	 * <p>
+	 * Value is of type <code>Integer</code>. A value of <code>0</code> or less means that the
+	 * number of matches is not limited.
+	 * </p>
+	 * @since 3.21
+	 */
+	public static final String SEARCH_MAX_MATCHES= "Search.maxmatches"; //$NON-NLS-1$
+
 	/**
 	 * A named preference that controls if the Java Browsing views are linked to the active editor.
 	 * <p>
@@ -3965,6 +3977,7 @@ public class PreferenceConstants {
 		store.setDefault(PreferenceConstants.LINK_BROWSING_MEMBERS_TO_EDITOR, true);
 
 		store.setDefault(PreferenceConstants.SEARCH_USE_REDUCED_MENU, true);
+		store.setDefault(PreferenceConstants.SEARCH_MAX_MATCHES, 100000);
 
 		// AppearancePreferencePage
 		store.setDefault(PreferenceConstants.APPEARANCE_COMPRESS_PACKAGE_NAMES, false);
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2006, 2011 IBM Corporation and others.
+ * Copyright (c) 2006, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -365,13 +365,58 @@ public class DefaultJavaFoldingStructureProvider implements IJavaFoldingStructur
 
 				fUpdatingCount++;
 				try {
-					update(createContext(false));
+					Set<IJavaElement> affected= computeAffectedMembers(delta);
+					if (affected != null)
+						update(createContext(false), affected);
+					else
+						update(createContext(false));
 				} finally {
 					fUpdatingCount--;
 				}
 			}
 		}
 
+		/**
+		 * Computes the members whose folding regions may be affected by a fine grained delta of
+		 * the compilation unit. The folding regions of all other elements are not affected: their
+		 * positions are updated by the document.
+		 *
+		 * @param delta the delta of the compilation unit
+		 * @return the affected members, or <code>null</code> if the whole folding structure must
+		 *         be recomputed
+		 * @since 3.21
+		 */
+		private Set<IJavaElement> computeAffectedMembers(IJavaElementDelta delta) {
+			int flags= delta.getFlags();
+			if (!(fInput instanceof ICompilationUnit) || (flags & IJavaElementDelta.F_FINE_GRAINED) == 0 || (flags & IJavaElementDelta.F_CHILDREN) == 0)
+				return null;
+
+			Set<IJavaElement> affected= new HashSet<>();
+			if (!collectAffectedMembers(delta.getAffectedChildren(), affected) || affected.isEmpty())
+				return null;
+			return affected;
+		}
+
+		private boolean collectAffectedMembers(IJavaElementDelta[] deltas, Set<IJavaElement> affected) {
+			for (IJavaElementDelta delta : deltas) {
+				IJavaElement element= delta.getElement();
+				if (!(element instanceof IMember))
+					return false; // imports and package declarations may change the header comment
+
+				boolean isTopLevelType= element.getElementType() == IJavaElement.TYPE && ((IMember) element).getDeclaringType() == null;
+				boolean isStructuralChange= delta.getKind() != IJavaElementDelta.CHANGED
+						|| (delta.getFlags() & ~(IJavaElementDelta.F_CHILDREN | IJavaElementDelta.F_FINE_GRAINED)) != 0;
+				if (isStructuralChange) {
+					if (isTopLevelType)
+						return false; // the first type owns the header comment
+					affected.add(element);
+				} else if (!collectAffectedMembers(delta.getAffectedChildren(), affected)) {
+					return false;
+				}
+			}
+			return true;
+		}
+
 		/**
 		 * Ignore the delta if there are errors on the caret line.
 		 * <p>
@@ -891,13 +936,48 @@ public class DefaultJavaFoldingStructureProvider implements IJavaFoldingStructur
 		if (ctx == null)
 			return;
 
+		computeFoldingStructure(ctx);
+		update(ctx, computeCurrentStructure(ctx, null));
+	}
+
+	/**
+	 * Updates the folding regions of the given members and their children. The folding regions
+	 * of all other elements are left untouched.
+	 *
+	 * @param ctx the context
+	 * @param members the members to update, added members are included, removed members are
+	 *            excluded from the new structure
+	 * @since 3.21
+	 */
+	private void update(FoldingStructureComputationContext ctx, Set<IJavaElement> members) {
+		if (ctx == null)
+			return;
+
+		try {
+			String source= ((ISourceReference) fInput).getSource();
+			if (source == null)
+				return;
+			IType[] types= ((ICompilationUnit) fInput).getTypes();
+			if (types.length > 0)
+				ctx.setFirstType(types[0]); // the header comment belongs to the first type, which is not updated
+
+			ctx.getScanner().setSource(source.toCharArray());
+			for (IJavaElement member : members) {
+				if (member.exists())
+					computeFoldingStructure(new IJavaElement[] { member }, ctx);
+			}
+		} catch (JavaModelException x) {
+			return;
+		}
+		update(ctx, computeCurrentStructure(ctx, members));
+	}
+
+	private void update(FoldingStructureComputationContext ctx, Map<IJavaElement, List<Tuple>> oldStructure) {
 		Map<JavaProjectionAnnotation, Position> additions= new HashMap<>();
 		List<JavaProjectionAnnotation> deletions= new ArrayList<>();
 		List<JavaProjectionAnnotation> updates= new ArrayList<>();
 
-		computeFoldingStructure(ctx);
 		Map<JavaProjectionAnnotation, Position> newStructure= ctx.fMap;
-		Map<IJavaElement, List<Tuple>> oldStructure= computeCurrentStructure(ctx);
 
 		Iterator<JavaProjectionAnnotation> e= newStructure.keySet().iterator();
 		while (e.hasNext()) {
@@ -1388,7 +1468,15 @@ public class DefaultJavaFoldingStructureProvider implements IJavaFoldingStructur
 		return null;
 	}
 
-	private Map<IJavaElement, List<Tuple>> computeCurrentStructure(FoldingStructureComputationContext ctx) {
+	/**
+	 * Returns the current folding structure.
+	 *
+	 * @param ctx the context
+	 * @param members the members to return the folding regions for, including the folding regions
+	 *            of their children, or <code>null</code> for all folding regions
+	 * @return the current folding structure
+	 */
+	private Map<IJavaElement, List<Tuple>> computeCurrentStructure(FoldingStructureComputationContext ctx, Set<IJavaElement> members) {
 		Map<IJavaElement, List<Tuple>> map= new HashMap<>();
 		ProjectionAnnotationModel model= ctx.getModel();
 		Iterator<Annotation> e= model.getAnnotationIterator();
@@ -1396,6 +1484,8 @@ public class DefaultJavaFoldingStructureProvider implements IJavaFoldingStructur
 			Object annotation= e.next();
 			if (annotation instanceof JavaProjectionAnnotation) {
 				JavaProjectionAnnotation java= (JavaProjectionAnnotation) annotation;
+				if (members != null && !isContained(java.getElement(), members))
+					continue;
 				Position position= model.getPosition(java);
 				Assert.isNotNull(position);
 				List<Tuple> list= map.get(java.getElement());
@@ -1419,6 +1509,15 @@ public class DefaultJavaFoldingStructureProvider implements IJavaFoldingStructur
 		return map;
 	}
 
+	private static boolean isContained(IJavaElement element, Set<IJavaElement> members) {
+		while (element != null) {
+			if (members.contains(element))
+				return true;
+			element= element.getParent();
+		}
+		return false;
+	}
+
 	/*
 	 * @see IJavaFoldingStructureProviderExtension#collapseMembers()
 	 * @since 3.2
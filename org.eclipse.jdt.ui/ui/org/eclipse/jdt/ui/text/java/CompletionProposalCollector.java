@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2018 IBM Corporation and others.
+ * Copyright (c) 2000, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -121,7 +121,9 @@ public class CompletionProposalCollector extends CompletionRequestor {
 	private final IJavaProject fJavaProject;
 	private int fUserReplacementLength;
 
-	private CompletionContext fContext;
+	/* set from the thread running code completion, read by the invocation context */
+	private volatile CompletionContext fContext;
+	private volatile boolean fReportingEnded;
 	private IProblem fLastProblem;
 
 	/* performance instrumentation */
@@ -328,6 +330,7 @@ public class CompletionProposalCollector extends CompletionRequestor {
 			fUITime= 0;
 		}
 
+		fReportingEnded= false;
 		fLastProblem= null;
 		fJavaProposals.clear();
 		fKeywords.clear();
@@ -356,6 +359,17 @@ public class CompletionProposalCollector extends CompletionRequestor {
 			System.err.println("Core Collector (core):\t" + (total - fUITime)); //$NON-NLS-1$
 			System.err.println("Core Collector (ui):\t" + fUITime); //$NON-NLS-1$
 		}
+		fReportingEnded= true;
+	}
+
+	/**
+	 * Tells whether code completion has completed reporting to this collector.
+	 *
+	 * @return <code>true</code> if {@link #endReporting()} has been called since the last
+	 *         {@link #beginReporting()}
+	 */
+	boolean isReportingEnded() {
+		return fReportingEnded;
 	}
 
 	/**
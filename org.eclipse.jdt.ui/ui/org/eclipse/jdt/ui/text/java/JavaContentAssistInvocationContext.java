@@ -13,6 +13,9 @@
  *******************************************************************************/
 package org.eclipse.jdt.ui.text.java;
 
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
 import org.eclipse.core.runtime.Assert;
 
 import org.eclipse.jface.text.ITextViewer;
@@ -38,6 +41,10 @@ import org.eclipse.jdt.internal.ui.text.java.ContentAssistHistory.RHSHistory;
 /**
  * Describes the context of a content assist invocation in a Java editor.
  * <p>
+ * The lazily computed values of the context may be requested from several threads, since
+ * completion proposal categories which do not require the UI thread are computed concurrently.
+ * </p>
+ * <p>
  * Clients may use but not subclass this class.
  * </p>
  *
@@ -59,6 +66,11 @@ public class JavaContentAssistInvocationContext extends ContentAssistInvocationC
 
 	private IJavaCompletionProposal[] fKeywordProposals= null;
 	private CompletionContext fCoreContext= null;
+	/**
+	 * The code completion run by {@link #computeKeywordsAndContext()}, <code>null</code> until it
+	 * is needed.
+	 */
+	private FutureTask<CompletionProposalCollector> fKeywordsAndContext;
 
 	/**
 	 * Creates a new context.
@@ -103,7 +115,7 @@ public class JavaContentAssistInvocationContext extends ContentAssistInvocationC
 	 *
 	 * @return the compilation unit that content assist is invoked in, possibly <code>null</code>
 	 */
-	public ICompilationUnit getCompilationUnit() {
+	public synchronized ICompilationUnit getCompilationUnit() {
 		if (!fCUComputed) {
 			fCUComputed= true;
 			if (fCollector != null) {
@@ -140,17 +152,21 @@ public class JavaContentAssistInvocationContext extends ContentAssistInvocationC
 	 * @return the available keyword proposals
 	 */
 	public IJavaCompletionProposal[] getKeywordProposals() {
-		if (fKeywordProposals == null) {
-			if (fCollector != null && !fCollector.isIgnored(CompletionProposal.KEYWORD) && fCollector.getContext() != null) {
-				// use the existing collector if it exists, collects keywords, and has already been invoked
+		synchronized (this) {
+			if (fKeywordProposals != null)
+				return fKeywordProposals;
+			if (fCollector != null && !fCollector.isIgnored(CompletionProposal.KEYWORD) && fCollector.isReportingEnded()) {
+				// use the existing collector if it exists, collects keywords, and has already completed
 				fKeywordProposals= fCollector.getKeywordCompletionProposals();
-			} else {
-				// otherwise, retrieve keywords ourselves
-				computeKeywordsAndContext();
+				return fKeywordProposals;
 			}
 		}
 
-		return fKeywordProposals;
+		// otherwise, retrieve keywords ourselves
+		computeKeywordsAndContext();
+		synchronized (this) {
+			return fKeywordProposals != null ? fKeywordProposals : new IJavaCompletionProposal[0];
+		}
 	}
 
 	/**
@@ -165,21 +181,24 @@ public class JavaContentAssistInvocationContext extends ContentAssistInvocationC
 	 * @return the core completion context if available, <code>null</code> otherwise
 	 */
 	public CompletionContext getCoreContext() {
-		if (fCollector != null) {
-			CompletionContext context= fCollector.getContext();
-			if (context != null) {
-				if (fCoreContext == null) {
-					fCoreContext= context;
+		synchronized (this) {
+			if (fCollector != null) {
+				CompletionContext context= fCollector.getContext();
+				if (context != null) {
+					if (fCoreContext == null) {
+						fCoreContext= context;
+					}
+					return context;
 				}
-				return context;
 			}
+			if (fCoreContext != null)
+				return fCoreContext;
 		}
 
-		if (fCoreContext == null) {
-			computeKeywordsAndContext(); // Retrieve the context ourselves
+		computeKeywordsAndContext(); // Retrieve the context ourselves
+		synchronized (this) {
+			return fCoreContext;
 		}
-
-		return fCoreContext;
 	}
 
 	/**
@@ -206,20 +225,28 @@ public class JavaContentAssistInvocationContext extends ContentAssistInvocationC
 	 * @return the content assist type history for the expected type
 	 */
 	private RHSHistory getRHSHistory() {
-		if (fRHSHistory == null) {
-			CompletionContext context= getCoreContext();
-			if (context != null) {
-				char[][] expectedTypes= context.getExpectedTypesSignatures();
-				if (expectedTypes != null && expectedTypes.length > 0) {
-					String expected= SignatureUtil.stripSignatureToFQN(String.valueOf(expectedTypes[0]));
-					fRHSHistory= JavaPlugin.getDefault().getContentAssistHistory().getHistory(expected);
-				}
+		synchronized (this) {
+			if (fRHSHistory != null)
+				return fRHSHistory;
+		}
+		RHSHistory history= null;
+		CompletionContext context= getCoreContext();
+		if (context != null) {
+			char[][] expectedTypes= context.getExpectedTypesSignatures();
+			if (expectedTypes != null && expectedTypes.length > 0) {
+				String expected= SignatureUtil.stripSignatureToFQN(String.valueOf(expectedTypes[0]));
+				history= JavaPlugin.getDefault().getContentAssistHistory().getHistory(expected);
 			}
+		}
+		if (history == null) {
+			history= JavaPlugin.getDefault().getContentAssistHistory().getHistory(null);
+		}
+		synchronized (this) {
 			if (fRHSHistory == null) {
-				fRHSHistory= JavaPlugin.getDefault().getContentAssistHistory().getHistory(null);
+				fRHSHistory= history;
 			}
+			return fRHSHistory;
 		}
-		return fRHSHistory;
 	}
 
 	/**
@@ -233,7 +260,12 @@ public class JavaContentAssistInvocationContext extends ContentAssistInvocationC
 	 * @return the expected type if any, <code>null</code> otherwise
 	 */
 	public IType getExpectedType() {
-		if (fType == null && getCompilationUnit() != null) {
+		synchronized (this) {
+			if (fType != null)
+				return fType;
+		}
+		IType type= null;
+		if (getCompilationUnit() != null) {
 			CompletionContext context= getCoreContext();
 			if (context != null) {
 				char[][] expectedTypes= context.getExpectedTypesSignatures();
@@ -241,7 +273,7 @@ public class JavaContentAssistInvocationContext extends ContentAssistInvocationC
 					IJavaProject project= getCompilationUnit().getJavaProject();
 					if (project != null) {
 						try {
-							fType= project.findType(SignatureUtil.stripSignatureToFQN(String.valueOf(expectedTypes[0])));
+							type= project.findType(SignatureUtil.stripSignatureToFQN(String.valueOf(expectedTypes[0])));
 						} catch (JavaModelException x) {
 							JavaPlugin.log(x);
 						}
@@ -249,7 +281,12 @@ public class JavaContentAssistInvocationContext extends ContentAssistInvocationC
 				}
 			}
 		}
-		return fType;
+		synchronized (this) {
+			if (fType == null) {
+				fType= type;
+			}
+			return fType;
+		}
 	}
 
 	/**
@@ -257,7 +294,7 @@ public class JavaContentAssistInvocationContext extends ContentAssistInvocationC
 	 *
 	 * @return a label provider that can be used to compute proposal labels
 	 */
-	public CompletionProposalLabelProvider getLabelProvider() {
+	public synchronized CompletionProposalLabelProvider getLabelProvider() {
 		if (fLabelProvider == null) {
 			if (fCollector != null) {
 				fLabelProvider= fCollector.getLabelProvider();
@@ -280,24 +317,71 @@ public class JavaContentAssistInvocationContext extends ContentAssistInvocationC
 	 *
 	 * @param collector the collector
 	 */
-	void setCollector(CompletionProposalCollector collector) {
+	synchronized void setCollector(CompletionProposalCollector collector) {
 		fCollector= collector;
 	}
 
 	/**
 	 * Fallback to retrieve a core context and keyword proposals when no collector is available.
-	 * Runs code completion on the cu and collects keyword proposals. {@link #fKeywordProposals} is
-	 * non-<code>null</code> after this call.
+	 * Runs code completion on the cu and collects keyword proposals. The code completion runs only
+	 * once per context: concurrent callers wait for it, and the results are only published when it
+	 * is done. {@link #fKeywordProposals} is non-<code>null</code> after this call, unless the
+	 * calling thread has been interrupted.
 	 *
 	 * @since 3.3
 	 */
 	private void computeKeywordsAndContext() {
-		ICompilationUnit cu= getCompilationUnit();
-		if (cu == null) {
+		FutureTask<CompletionProposalCollector> task;
+		boolean run;
+		synchronized (this) {
+			run= fKeywordsAndContext == null;
+			if (run) {
+				fKeywordsAndContext= new FutureTask<>(this::codeComplete);
+			}
+			task= fKeywordsAndContext;
+		}
+		if (run) {
+			task.run();
+		}
+
+		CompletionProposalCollector collector;
+		try {
+			collector= task.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return;
+		} catch (ExecutionException e) {
+			JavaPlugin.log(e.getCause());
+			collector= null;
+		}
+		synchronized (this) {
+			if (collector != null) {
+				if (fCoreContext == null) {
+					fCoreContext= collector.getContext();
+				}
+				if (fKeywordProposals == null) {
+					fKeywordProposals= collector.getKeywordCompletionProposals();
+				}
+				if (fLabelProvider == null) {
+					fLabelProvider= collector.getLabelProvider();
+				}
+			}
 			if (fKeywordProposals == null) {
 				fKeywordProposals= new IJavaCompletionProposal[0];
 			}
-			return;
+		}
+	}
+
+	/**
+	 * Runs code completion on the cu, collecting keyword proposals.
+	 *
+	 * @return the collector after code completion has completed, or <code>null</code> if there is
+	 *         no compilation unit or code completion failed
+	 */
+	private CompletionProposalCollector codeComplete() {
+		ICompilationUnit cu= getCompilationUnit();
+		if (cu == null) {
+			return null;
 		}
 
 		CompletionProposalCollector collector= new CompletionProposalCollector(cu, true);
@@ -305,22 +389,12 @@ public class JavaContentAssistInvocationContext extends ContentAssistInvocationC
 
 		try {
 			cu.codeComplete(getInvocationOffset(), collector, new CompletionTimeoutProgressMonitor());
-			if (fCoreContext == null) {
-				fCoreContext= collector.getContext();
-			}
-			if (fKeywordProposals == null) {
-				fKeywordProposals= collector.getKeywordCompletionProposals();
-			}
-			if (fLabelProvider == null) {
-				fLabelProvider= collector.getLabelProvider();
-			}
+			return collector;
 		} catch (JavaModelException x) {
 			if (!x.isDoesNotExist() || cu.getJavaProject() == null || cu.getJavaProject().isOnClasspath(cu)) {
 				JavaPlugin.log(x);
 			}
-			if (fKeywordProposals == null) {
-				fKeywordProposals= new IJavaCompletionProposal[0];
-			}
+			return null;
 		}
 	}
 
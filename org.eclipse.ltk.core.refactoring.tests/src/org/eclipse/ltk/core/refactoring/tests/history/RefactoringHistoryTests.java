@@ -22,6 +22,7 @@ public class RefactoringHistoryTests {
 		TestSuite suite= new TestSuite(RefactoringHistoryTests.class.getName());
 		suite.addTestSuite(RefactoringHistorySerializationTests.class);
 		suite.addTestSuite(RefactoringHistoryServiceTests.class);
+		suite.addTestSuite(RefactoringSessionStreamingTests.class);
 		return suite;
 	}
 }
\ No newline at end of file
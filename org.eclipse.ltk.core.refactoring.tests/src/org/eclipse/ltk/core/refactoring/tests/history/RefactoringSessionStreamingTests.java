@@ -0,0 +1,165 @@
+/*******************************************************************************
+ * Copyright (c) 2020 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ltk.core.refactoring.tests.history;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.Status;
+
+import org.eclipse.ltk.core.refactoring.IRefactoringCoreStatusCodes;
+import org.eclipse.ltk.core.refactoring.RefactoringContext;
+import org.eclipse.ltk.core.refactoring.RefactoringDescriptor;
+import org.eclipse.ltk.core.refactoring.RefactoringStatus;
+import org.eclipse.ltk.internal.core.refactoring.history.PerformRefactoringScriptOperation;
+import org.eclipse.ltk.internal.core.refactoring.history.RefactoringHistoryService;
+
+public class RefactoringSessionStreamingTests extends TestCase {
+
+	private static String createScript(String version, int count) {
+		StringBuilder buffer= new StringBuilder();
+		buffer.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+		buffer.append("<session version=\"").append(version).append("\">\n");
+		for (int index= 0; index < count; index++) {
+			buffer.append("<refactoring comment=\"A mock comment\" description=\"Mock ").append(index);
+			buffer.append("\" flags=\"").append(index % 2 == 0 ? RefactoringDescriptor.BREAKING_CHANGE : RefactoringDescriptor.NONE);
+			buffer.append("\" id=\"org.eclipse.ltk.core.mock\" project=\"test\"/>\n");
+		}
+		buffer.append("</session>\n");
+		return buffer.toString();
+	}
+
+	private static int readSession(String xml, int flags, List<String> descriptions, int limit) throws Exception {
+		return RefactoringHistoryService.getInstance().readRefactoringSession(new ByteArrayInputStream(xml.getBytes("utf-8")), flags, (descriptor, index) -> {
+			assertEquals("Descriptors must be passed with their position in the session:", "Mock " + index, descriptor.getDescription());
+			descriptions.add(descriptor.getDescription());
+			return descriptions.size() < limit;
+		});
+	}
+
+	private static PerformRefactoringScriptOperation performScript(String xml, int flags, int checkpoint, List<String> performed, String failing) throws Exception {
+		PerformRefactoringScriptOperation operation= new PerformRefactoringScriptOperation(new ByteArrayInputStream(xml.getBytes("utf-8")), flags, checkpoint) {
+
+			@Override
+			protected RefactoringContext createRefactoringContext(RefactoringDescriptor descriptor, RefactoringStatus status, IProgressMonitor monitor) throws CoreException {
+				if (descriptor.getDescription().equals(failing)) {
+					status.addFatalError("Failed: " + failing);
+					return null;
+				}
+				performed.add(descriptor.getDescription());
+				return super.createRefactoringContext(descriptor, status, monitor);
+			}
+		};
+		operation.run(new NullProgressMonitor());
+		return operation;
+	}
+
+	public void testReadAll() throws Exception {
+		List<String> descriptions= new ArrayList<>();
+		assertEquals(5, readSession(createScript("1.0", 5), RefactoringDescriptor.NONE, descriptions, Integer.MAX_VALUE));
+		assertEquals("[Mock 0, Mock 1, Mock 2, Mock 3, Mock 4]", descriptions.toString());
+	}
+
+	public void testReadFiltered() throws Exception {
+		List<String> descriptions= new ArrayList<>();
+		assertEquals(3, readSession(createScript("1.0", 5), RefactoringDescriptor.BREAKING_CHANGE, descriptions, Integer.MAX_VALUE));
+		assertEquals("[Mock 0, Mock 2, Mock 4]", descriptions.toString());
+	}
+
+	public void testPerformScript() throws Exception {
+		List<String> performed= new ArrayList<>();
+		PerformRefactoringScriptOperation operation= performScript(createScript("1.0", 5), RefactoringDescriptor.NONE, 0, performed, null);
+		assertTrue(operation.getExecutionStatus().isOK());
+		assertEquals(5, operation.getCheckpoint());
+		assertEquals("[Mock 0, Mock 1, Mock 2, Mock 3, Mock 4]", performed.toString());
+	}
+
+	public void testResumeScript() throws Exception {
+		String script= createScript("1.0", 5);
+		List<String> performed= new ArrayList<>();
+		PerformRefactoringScriptOperation operation= performScript(script, RefactoringDescriptor.NONE, 0, performed, "Mock 2");
+		assertTrue(operation.getExecutionStatus().hasFatalError());
+		assertEquals(2, operation.getCheckpoint());
+		assertEquals("[Mock 0, Mock 1]", performed.toString());
+
+		performed.clear();
+		operation= performScript(script, RefactoringDescriptor.NONE, operation.getCheckpoint(), performed, null);
+		assertTrue(operation.getExecutionStatus().isOK());
+		assertEquals(5, operation.getCheckpoint());
+		assertEquals("[Mock 2, Mock 3, Mock 4]", performed.toString());
+	}
+
+	public void testResumeScriptWithOtherFlags() throws Exception {
+		String script= createScript("1.0", 5);
+		List<String> performed= new ArrayList<>();
+		PerformRefactoringScriptOperation operation= performScript(script, RefactoringDescriptor.BREAKING_CHANGE, 0, performed, "Mock 2");
+		assertTrue(operation.getExecutionStatus().hasFatalError());
+		assertEquals("The checkpoint must count the filtered descriptors", 2, operation.getCheckpoint());
+		assertEquals("[Mock 0]", performed.toString());
+
+		performed.clear();
+		operation= performScript(script, RefactoringDescriptor.NONE, operation.getCheckpoint(), performed, null);
+		assertTrue(operation.getExecutionStatus().isOK());
+		assertEquals("[Mock 2, Mock 3, Mock 4]", performed.toString());
+	}
+
+	public void testCheckpointSkipsFilteredDescriptors() throws Exception {
+		List<String> performed= new ArrayList<>();
+		PerformRefactoringScriptOperation operation= performScript(createScript("1.0", 6), RefactoringDescriptor.BREAKING_CHANGE, 0, performed, null);
+		assertTrue(operation.getExecutionStatus().isOK());
+		assertEquals("[Mock 0, Mock 2, Mock 4]", performed.toString());
+		assertEquals("The checkpoint must move past the filtered descriptors", 6, operation.getCheckpoint());
+
+		performed.clear();
+		operation= performScript(createScript("1.0", 6), RefactoringDescriptor.BREAKING_CHANGE, 0, performed, "Mock 4");
+		assertEquals("[Mock 0, Mock 2]", performed.toString());
+		assertEquals(4, operation.getCheckpoint());
+	}
+
+	public void testStopReading() throws Exception {
+		List<String> descriptions= new ArrayList<>();
+		assertEquals(2, readSession(createScript("1.0", 1000), RefactoringDescriptor.NONE, descriptions, 2));
+		assertEquals("[Mock 0, Mock 1]", descriptions.toString());
+	}
+
+	public void testHandlerException() throws Exception {
+		IStatus expected= new Status(IStatus.ERROR, "org.eclipse.ltk.core.refactoring.tests", "Handler failed");
+		try {
+			RefactoringHistoryService.getInstance().readRefactoringSession(new ByteArrayInputStream(createScript("1.0", 3).getBytes("utf-8")), RefactoringDescriptor.NONE, (descriptor, index) -> {
+				throw new CoreException(expected);
+			});
+			fail("Handler exception must be propagated");
+		} catch (CoreException exception) {
+			assertSame(expected, exception.getStatus());
+		}
+	}
+
+	public void testUnsupportedVersion() throws Exception {
+		List<String> descriptions= new ArrayList<>();
+		try {
+			readSession(createScript("2.0", 3), RefactoringDescriptor.NONE, descriptions, Integer.MAX_VALUE);
+			fail("Unsupported version must be detected");
+		} catch (CoreException exception) {
+			assertEquals(IRefactoringCoreStatusCodes.UNSUPPORTED_REFACTORING_HISTORY_VERSION, exception.getStatus().getCode());
+		}
+		assertTrue("No descriptor must be passed for unsupported versions", descriptions.isEmpty());
+	}
+}
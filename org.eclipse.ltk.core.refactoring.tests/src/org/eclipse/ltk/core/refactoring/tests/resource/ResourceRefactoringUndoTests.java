@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2008, 2015 IBM Corporation and others.
+ * Copyright (c) 2008, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -48,12 +48,16 @@ import org.eclipse.core.resources.IResource;
 import org.eclipse.core.resources.IWorkspaceRoot;
 import org.eclipse.core.resources.ResourcesPlugin;
 
+import org.eclipse.text.edits.ReplaceEdit;
+
 import org.eclipse.ltk.core.refactoring.CheckConditionsOperation;
+import org.eclipse.ltk.core.refactoring.PerformChangeOperation;
 import org.eclipse.ltk.core.refactoring.PerformRefactoringOperation;
 import org.eclipse.ltk.core.refactoring.Refactoring;
 import org.eclipse.ltk.core.refactoring.RefactoringContribution;
 import org.eclipse.ltk.core.refactoring.RefactoringCore;
 import org.eclipse.ltk.core.refactoring.RefactoringStatus;
+import org.eclipse.ltk.core.refactoring.TextFileChange;
 import org.eclipse.ltk.core.refactoring.resource.DeleteResourcesDescriptor;
 import org.eclipse.ltk.core.refactoring.resource.RenameResourceDescriptor;
 import org.eclipse.ltk.core.refactoring.tests.FileSystemHelper;
@@ -62,6 +66,7 @@ import org.eclipse.ltk.core.refactoring.tests.participants.ElementRenameProcesso
 import org.eclipse.ltk.core.refactoring.tests.participants.ElementRenameRefactoring;
 import org.eclipse.ltk.core.refactoring.tests.util.SimpleTestProject;
 import org.eclipse.ltk.internal.core.refactoring.RefactoringCorePlugin;
+import org.eclipse.ltk.internal.core.refactoring.UndoPayloadStore;
 
 import junit.framework.Test;
 import junit.framework.TestCase;
@@ -405,6 +410,74 @@ public class ResourceRefactoringUndoTests extends TestCase {
 		assertEquals(ElementRenameProcessor.WORKINGPRE_EXEC, h.get(i++));
 	}
 
+	public void testTextFileChangeSpilledUndoRedoLTK() throws ExecutionException, CoreException, InterruptedException {
+		UndoPayloadStore store= UndoPayloadStore.getInstance();
+		store.setMemoryLimit(0);
+		try {
+			TextFileChange change= new TextFileChange("Replace", testFile);
+			change.setEdit(new ReplaceEdit(0, CONTENT.length(), "goodbye"));
+			PerformChangeOperation op= new PerformChangeOperation(change);
+			op.setUndoManager(RefactoringCore.getUndoManager(), "Replace");
+			ResourcesPlugin.getWorkspace().run(op, getMonitor());
+			assertEquals("goodbye", readContent(testFile));
+
+			store.join();
+			String[] spilled= RefactoringCorePlugin.getDefault().getStateLocation().append(".undo").toFile().list();
+			assertTrue("Undo should be spilled", spilled != null && spilled.length > 0);
+
+			undo();
+			assertEquals(CONTENT, readContent(testFile));
+
+			store.join();
+			redo();
+			assertEquals("goodbye", readContent(testFile));
+		} finally {
+			store.setMemoryLimit(-1);
+		}
+	}
+
+	public void testStackedTextFileChangesSpilledUndoLTK() throws ExecutionException, CoreException, InterruptedException {
+		// the older undo is spilled while the file contains the newer change, both undos must restore the file
+		UndoPayloadStore store= UndoPayloadStore.getInstance();
+		store.setMemoryLimit(Long.MAX_VALUE);
+		try {
+			performTextFileChange(testFile, new ReplaceEdit(0, 1, "j"));
+			assertEquals("jello", readContent(testFile));
+			performTextFileChange(testFile, new ReplaceEdit(4, 1, "y"));
+			assertEquals("jelly", readContent(testFile));
+
+			// a change of another file makes the store spill the older payloads
+			store.setMemoryLimit(0);
+			IFile otherFile= fProject.createFile(testFolder, "otherFile.txt", CONTENT);
+			performTextFileChange(otherFile, new ReplaceEdit(0, CONTENT.length(), "goodbye"));
+			store.join();
+			String[] spilled= RefactoringCorePlugin.getDefault().getStateLocation().append(".undo").toFile().list();
+			assertTrue("Undo should be spilled", spilled != null && spilled.length >= 2);
+
+			undo();
+			assertEquals(CONTENT, readContent(otherFile));
+			undo();
+			assertEquals("jello", readContent(testFile));
+			undo();
+			assertEquals(CONTENT, readContent(testFile));
+
+			redo();
+			assertEquals("jello", readContent(testFile));
+			redo();
+			assertEquals("jelly", readContent(testFile));
+		} finally {
+			store.setMemoryLimit(-1);
+		}
+	}
+
+	private void performTextFileChange(IFile file, ReplaceEdit edit) throws CoreException {
+		TextFileChange change= new TextFileChange("Replace", file);
+		change.setEdit(edit);
+		PerformChangeOperation op= new PerformChangeOperation(change);
+		op.setUndoManager(RefactoringCore.getUndoManager(), "Replace");
+		ResourcesPlugin.getWorkspace().run(op, getMonitor());
+	}
+
 	private void execute(PerformRefactoringOperation op) throws CoreException {
 		ResourcesPlugin.getWorkspace().run(op, getMonitor());
 	}
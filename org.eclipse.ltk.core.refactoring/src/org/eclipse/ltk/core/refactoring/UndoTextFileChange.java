@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2010 IBM Corporation and others.
+ * Copyright (c) 2000, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -41,6 +41,7 @@ import org.eclipse.ltk.internal.core.refactoring.Changes;
 import org.eclipse.ltk.internal.core.refactoring.ContentStamps;
 import org.eclipse.ltk.internal.core.refactoring.Lock;
 import org.eclipse.ltk.internal.core.refactoring.RefactoringCorePlugin;
+import org.eclipse.ltk.internal.core.refactoring.UndoPayloadStore;
 
 /**
  * A change to perform the reverse change of a {@link TextFileChange}.
@@ -65,6 +66,44 @@ public class UndoTextFileChange extends Change {
 	private boolean fDirty;
 	private BufferValidationState fValidationState;
 
+	/**
+	 * The undo edit, written to disk as its replacements if the undo stack exceeds its memory
+	 * budget. <code>fUndo</code> is guarded by the lock of the payload.
+	 */
+	private final UndoEditPayload fPayload= new UndoEditPayload();
+
+	private final class UndoEditPayload extends UndoPayloadStore.Payload {
+
+		/** <code>true</code> while the change is performed, the edit is not spilled meanwhile */
+		private boolean fPerforming;
+
+		private boolean fPerformed;
+
+		@Override
+		protected long estimateSize() {
+			return fUndo != null ? UndoPayloadStore.estimateSize(fUndo) : 0;
+		}
+
+		@Override
+		protected synchronized String getContent() {
+			// the replacements do not depend on the current content of the file, which may
+			// have been modified by the changes above this one on the undo stack
+			if (!isCurrent())
+				return null;
+			return UndoPayloadStore.writeReplacements(fUndo);
+		}
+
+		@Override
+		protected boolean isCurrent() {
+			return !fPerforming && !fPerformed && fUndo != null;
+		}
+
+		@Override
+		protected void released() {
+			fUndo= null;
+		}
+	}
+
 	/**
 	 * Create a new undo text file change object.
 	 *
@@ -146,6 +185,7 @@ public class UndoTextFileChange extends Change {
 		pm.beginTask("", 1); //$NON-NLS-1$
 		try {
 			fValidationState= BufferValidationState.create(fFile);
+			UndoPayloadStore.getInstance().add(fPayload);
 		} finally {
 			pm.done();
 		}
@@ -182,7 +222,17 @@ public class UndoTextFileChange extends Change {
 			ContentStamp currentStamp= ContentStamps.get(fFile, document);
 
 			boolean[] setContentStampSuccess= { false };
-			UndoEdit redo= performEdits(buffer, document, setContentStampSuccess);
+			UndoEdit redo;
+			boolean performed= false;
+			try {
+				redo= performEdits(buffer, document, getUndoEdit(), setContentStampSuccess);
+				performed= true;
+			} finally {
+				synchronized (fPayload) {
+					fPayload.fPerforming= false;
+					fPayload.fPerformed= performed;
+				}
+			}
 
 			if (needsSaving()) {
 				buffer.commit(pm, false);
@@ -214,9 +264,25 @@ public class UndoTextFileChange extends Change {
 		}
 	}
 
-	private UndoEdit performEdits(ITextFileBuffer buffer, final IDocument document, final boolean[] setContentStampSuccess) throws MalformedTreeException, BadLocationException, CoreException {
+	/**
+	 * Returns the edit to perform. If the undo edit has been written to disk, the edit performs
+	 * the replacements read back from disk.
+	 *
+	 * @return the edit to perform
+	 * @throws CoreException if the replacements cannot be read
+	 */
+	private TextEdit getUndoEdit() throws CoreException {
+		synchronized (fPayload) {
+			fPayload.fPerforming= true;
+			if (fUndo != null)
+				return fUndo;
+		}
+		return UndoPayloadStore.readReplacements(fPayload.readContent());
+	}
+
+	private UndoEdit performEdits(ITextFileBuffer buffer, final IDocument document, final TextEdit undo, final boolean[] setContentStampSuccess) throws MalformedTreeException, BadLocationException, CoreException {
 		if (! buffer.isSynchronizationContextRequested()) {
-			return doPerformEdits(document, setContentStampSuccess);
+			return doPerformEdits(document, undo, setContentStampSuccess);
 		}
 
 		ITextFileBufferManager fileBufferManager= FileBuffers.getTextFileBufferManager();
@@ -232,7 +298,7 @@ public class UndoTextFileChange extends Change {
 			public void run() {
 				synchronized (completionLock) {
 					try {
-						result[0]= doPerformEdits(document, setContentStampSuccess);
+						result[0]= doPerformEdits(document, undo, setContentStampSuccess);
 					} catch (BadLocationException e) {
 						badLocationException[0]= e;
 					} catch (MalformedTreeException e) {
@@ -267,10 +333,10 @@ public class UndoTextFileChange extends Change {
 		return result[0];
 	}
 
-	private UndoEdit doPerformEdits(IDocument document, boolean[] setContentStampSuccess) throws MalformedTreeException, BadLocationException, CoreException {
+	private UndoEdit doPerformEdits(IDocument document, TextEdit undo, boolean[] setContentStampSuccess) throws MalformedTreeException, BadLocationException, CoreException {
 		// perform the changes
 		LinkedModeModel.closeAllModels(document);
-		UndoEdit redo= fUndo.apply(document, TextEdit.CREATE_UNDO);
+		UndoEdit redo= undo.apply(document, TextEdit.CREATE_UNDO);
 
 		// try to restore the document content stamp
 		setContentStampSuccess[0]= ContentStamps.set(document, fContentStampToRestore);
@@ -282,6 +348,7 @@ public class UndoTextFileChange extends Change {
 		if (fValidationState != null) {
 			fValidationState.dispose();
 		}
+		UndoPayloadStore.getInstance().remove(fPayload);
 	}
 
 	private boolean needsSaving() {
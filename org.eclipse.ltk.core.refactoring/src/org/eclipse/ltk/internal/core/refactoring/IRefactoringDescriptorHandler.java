@@ -0,0 +1,42 @@
+/*******************************************************************************
+ * Copyright (c) 2020 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ltk.internal.core.refactoring;
+
+import org.eclipse.core.runtime.CoreException;
+
+import org.eclipse.ltk.core.refactoring.RefactoringDescriptor;
+
+/**
+ * Handler which receives refactoring descriptors one at a time while a
+ * refactoring session is being read.
+ *
+ * @see RefactoringSessionReader#readSession(org.xml.sax.InputSource, IRefactoringDescriptorHandler)
+ */
+public interface IRefactoringDescriptorHandler {
+
+	/**
+	 * Handles a refactoring descriptor which has just been read.
+	 *
+	 * @param descriptor
+	 *            the refactoring descriptor
+	 * @param index
+	 *            the zero-based position of the descriptor in the session
+	 * @return <code>true</code> to continue reading the session,
+	 *         <code>false</code> to stop reading
+	 * @throws CoreException
+	 *             if an error occurs while handling the descriptor. Reading
+	 *             is aborted and the exception is propagated to the caller.
+	 */
+	boolean handleDescriptor(RefactoringDescriptor descriptor, int index) throws CoreException;
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2009 IBM Corporation and others.
+ * Copyright (c) 2000, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -34,6 +34,9 @@ public class ParticipantDescriptor {
 	private IConfigurationElement fConfigurationElement;
 	private boolean fEnabled;
 
+	/** The enablement expression, or <code>null</code> if it has not been converted yet */
+	private Expression fExpression;
+
 	private static final String ID= "id"; //$NON-NLS-1$
 	private static final String NAME= "name";  //$NON-NLS-1$
 	private static final String CLASS= "class"; //$NON-NLS-1$
@@ -71,11 +74,9 @@ public class ParticipantDescriptor {
 	}
 
 	public boolean matches(IEvaluationContext context, IParticipantDescriptorFilter filter, RefactoringStatus status) throws CoreException {
-		IConfigurationElement[] elements= fConfigurationElement.getChildren(ExpressionTagNames.ENABLEMENT);
-		if (elements.length == 0)
+		Expression exp= getExpression();
+		if (exp == null)
 			return false;
-		Assert.isTrue(elements.length == 1);
-		Expression exp= ExpressionConverter.getDefault().perform(elements[0]);
 		if (!convert(exp.evaluate(context)))
 			return false;
 		if (filter != null && !filter.select(fConfigurationElement, status))
@@ -84,6 +85,17 @@ public class ParticipantDescriptor {
 		return true;
 	}
 
+	private synchronized Expression getExpression() throws CoreException {
+		if (fExpression == null) {
+			IConfigurationElement[] elements= fConfigurationElement.getChildren(ExpressionTagNames.ENABLEMENT);
+			if (elements.length == 0)
+				return null;
+			Assert.isTrue(elements.length == 1);
+			fExpression= ExpressionConverter.getDefault().perform(elements[0]);
+		}
+		return fExpression;
+	}
+
 	public RefactoringParticipant createParticipant() throws CoreException {
 		return (RefactoringParticipant)fConfigurationElement.createExecutableExtension(CLASS);
 	}
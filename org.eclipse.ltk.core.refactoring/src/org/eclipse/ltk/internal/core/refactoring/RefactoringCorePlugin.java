@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2008 IBM Corporation and others.
+ * Copyright (c) 2000, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -133,6 +133,7 @@ public class RefactoringCorePlugin extends Plugin {
 		}
 		if (fgUndoManager != null)
 			fgUndoManager.shutdown();
+		UndoPayloadStore.shutdown();
 		final RefactoringHistoryService service= RefactoringHistoryService.getInstance();
 		service.disconnect();
 		if (fRefactoringHistoryListener != null)
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2005, 2008 IBM Corporation and others.
+ * Copyright (c) 2005, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -23,6 +23,9 @@ public final class RefactoringPreferenceConstants {
 	/** The shared refactoring history preference */
 	public static final String PREFERENCE_SHARED_REFACTORING_HISTORY= "org.eclipse.ltk.core.refactoring.enable.project.refactoring.history"; //$NON-NLS-1$
 
+	/** The memory budget of the undo changes in megabytes, see {@link UndoPayloadStore} */
+	public static final String PREFERENCE_UNDO_MEMORY_LIMIT= "org.eclipse.ltk.core.refactoring.undo.memory.limit"; //$NON-NLS-1$
+
 	private RefactoringPreferenceConstants() {
 		// Not for instantiation
 	}
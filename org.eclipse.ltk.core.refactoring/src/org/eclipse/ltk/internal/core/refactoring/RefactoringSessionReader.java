@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2005, 2008 IBM Corporation and others.
+ * Copyright (c) 2005, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -33,6 +33,7 @@ import org.xml.sax.SAXParseException;
 import org.xml.sax.XMLReader;
 import org.xml.sax.helpers.DefaultHandler;
 
+import org.eclipse.core.runtime.Assert;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Status;
@@ -76,6 +77,40 @@ public final class RefactoringSessionReader extends DefaultHandler {
 
 	private Locator fLocator;
 
+	/**
+	 * The handler to pass the refactoring descriptors to, or <code>null</code>
+	 * if the descriptors are collected into {@link #fRefactoringDescriptors}
+	 */
+	private IRefactoringDescriptorHandler fHandler= null;
+
+	/** The number of refactoring descriptors read so far */
+	private int fDescriptorCount= 0;
+
+	/**
+	 * Exception used to transport a core exception thrown by the descriptor
+	 * handler through the parser.
+	 */
+	private static final class HandlerException extends SAXException {
+
+		private static final long serialVersionUID= 1L;
+
+		private final CoreException fCoreException;
+
+		HandlerException(CoreException exception) {
+			super(exception);
+			fCoreException= exception;
+		}
+	}
+
+	/**
+	 * Exception used to stop parsing if the descriptor handler does not want
+	 * to receive further descriptors.
+	 */
+	private static final class StopReadingException extends SAXException {
+
+		private static final long serialVersionUID= 1L;
+	}
+
 	/**
 	 * Creates a new refactoring session reader.
 	 *
@@ -133,19 +168,75 @@ public final class RefactoringSessionReader extends DefaultHandler {
 	 *             if an error occurs while reading form the input source
 	 */
 	public RefactoringSessionDescriptor readSession(final InputSource source) throws CoreException {
+		try {
+			parse(source, null);
+			if (fRefactoringDescriptors != null) {
+				checkVersion();
+				return new RefactoringSessionDescriptor(fRefactoringDescriptors.toArray(new RefactoringDescriptor[fRefactoringDescriptors.size()]), fVersion, fComment);
+			}
+		} finally {
+			fRefactoringDescriptors= null;
+			fVersion= null;
+			fComment= null;
+		}
+		return null;
+	}
+
+	/**
+	 * Reads the refactoring descriptors of a refactoring session from the
+	 * specified input object and passes them to the handler as soon as they
+	 * have been read.
+	 * <p>
+	 * In contrast to {@link #readSession(InputSource)}, the descriptors are not
+	 * retained by the reader, which allows to process refactoring sessions of
+	 * arbitrary size.
+	 * </p>
+	 *
+	 * @param source
+	 *            the input source
+	 * @param handler
+	 *            the handler to pass the descriptors to
+	 * @return the number of refactoring descriptors which have been passed to
+	 *         the handler
+	 * @throws CoreException
+	 *             if an error occurs while reading form the input source, or
+	 *             if the handler threw an exception
+	 */
+	public int readSession(final InputSource source, final IRefactoringDescriptorHandler handler) throws CoreException {
+		Assert.isNotNull(handler);
+		try {
+			parse(source, handler);
+			return fDescriptorCount;
+		} finally {
+			fVersion= null;
+			fComment= null;
+		}
+	}
+
+	/**
+	 * Parses the input source.
+	 *
+	 * @param source
+	 *            the input source
+	 * @param handler
+	 *            the descriptor handler, or <code>null</code> to collect the
+	 *            descriptors
+	 * @throws CoreException
+	 *             if an error occurs while reading form the input source
+	 */
+	private void parse(final InputSource source, final IRefactoringDescriptorHandler handler) throws CoreException {
 		fSessionFound= false;
+		fHandler= handler;
+		fDescriptorCount= 0;
 		try {
 			source.setSystemId("/"); //$NON-NLS-1$
 			createParser(SAXParserFactory.newInstance()).parse(source, this);
 			if (!fSessionFound)
 				throw new CoreException(new Status(IStatus.ERROR, RefactoringCorePlugin.getPluginId(), IRefactoringCoreStatusCodes.REFACTORING_HISTORY_FORMAT_ERROR, RefactoringCoreMessages.RefactoringSessionReader_no_session, null));
-			if (fRefactoringDescriptors != null) {
-				if (fVersion == null || "".equals(fVersion)) //$NON-NLS-1$
-					throw new CoreException(new Status(IStatus.ERROR, RefactoringCorePlugin.getPluginId(), IRefactoringCoreStatusCodes.MISSING_REFACTORING_HISTORY_VERSION, RefactoringCoreMessages.RefactoringSessionReader_missing_version_information, null));
-				if (!IRefactoringSerializationConstants.CURRENT_VERSION.equals(fVersion))
-					throw new CoreException(new Status(IStatus.ERROR, RefactoringCorePlugin.getPluginId(), IRefactoringCoreStatusCodes.UNSUPPORTED_REFACTORING_HISTORY_VERSION, RefactoringCoreMessages.RefactoringSessionReader_unsupported_version_information, null));
-				return new RefactoringSessionDescriptor(fRefactoringDescriptors.toArray(new RefactoringDescriptor[fRefactoringDescriptors.size()]), fVersion, fComment);
-			}
+		} catch (StopReadingException exception) {
+			// The handler does not want to receive further descriptors
+		} catch (HandlerException exception) {
+			throw exception.fCoreException;
 		} catch (SAXParseException exception) {
 			String message= Messages.format(RefactoringCoreMessages.RefactoringSessionReader_invalid_contents_at,
 					new Object[] {
@@ -156,12 +247,22 @@ public final class RefactoringSessionReader extends DefaultHandler {
 		} catch (IOException | ParserConfigurationException | SAXException exception) {
 			throwCoreException(exception, exception.getLocalizedMessage());
 		} finally {
-			fRefactoringDescriptors= null;
-			fVersion= null;
-			fComment= null;
+			fHandler= null;
 			fLocator= null;
 		}
-		return null;
+	}
+
+	/**
+	 * Checks whether the version of the refactoring session is supported.
+	 *
+	 * @throws CoreException
+	 *             if the version is missing or not supported
+	 */
+	private void checkVersion() throws CoreException {
+		if (fVersion == null || "".equals(fVersion)) //$NON-NLS-1$
+			throw new CoreException(new Status(IStatus.ERROR, RefactoringCorePlugin.getPluginId(), IRefactoringCoreStatusCodes.MISSING_REFACTORING_HISTORY_VERSION, RefactoringCoreMessages.RefactoringSessionReader_missing_version_information, null));
+		if (!IRefactoringSerializationConstants.CURRENT_VERSION.equals(fVersion))
+			throw new CoreException(new Status(IStatus.ERROR, RefactoringCorePlugin.getPluginId(), IRefactoringCoreStatusCodes.UNSUPPORTED_REFACTORING_HISTORY_VERSION, RefactoringCoreMessages.RefactoringSessionReader_unsupported_version_information, null));
 	}
 
 	private void throwCoreException(Exception exception, String message) throws CoreException {
@@ -242,9 +343,21 @@ public final class RefactoringSessionReader extends DefaultHandler {
 			} catch (NumberFormatException exception) {
 				// Do nothing
 			}
-			if (fRefactoringDescriptors == null)
-				fRefactoringDescriptors= new ArrayList<>();
-			fRefactoringDescriptors.add(descriptor);
+			if (fHandler != null) {
+				try {
+					if (fDescriptorCount == 0)
+						checkVersion();
+					if (!fHandler.handleDescriptor(descriptor, fDescriptorCount++))
+						throw new StopReadingException();
+				} catch (CoreException exception) {
+					throw new HandlerException(exception);
+				}
+			} else {
+				if (fRefactoringDescriptors == null)
+					fRefactoringDescriptors= new ArrayList<>();
+				fRefactoringDescriptors.add(descriptor);
+				fDescriptorCount++;
+			}
 
 		} else if (IRefactoringSerializationConstants.ELEMENT_SESSION.equals(qualifiedName)) {
 			fSessionFound= true;
@@ -0,0 +1,430 @@
+/*******************************************************************************
+ * Copyright (c) 2020 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ltk.internal.core.refactoring;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Platform;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+
+import org.eclipse.text.edits.InsertEdit;
+import org.eclipse.text.edits.MultiTextEdit;
+import org.eclipse.text.edits.ReplaceEdit;
+import org.eclipse.text.edits.TextEdit;
+
+/**
+ * Keeps the payload of the changes on the undo and redo stacks within a memory budget.
+ * <p>
+ * Undo changes register their payload when they are initialized and unregister it when they are
+ * disposed. If the estimated size of all payloads in memory exceeds the budget given by
+ * {@link RefactoringPreferenceConstants#PREFERENCE_UNDO_MEMORY_LIMIT}, the oldest payloads are
+ * compressed and written to the state location of the plug-in by a background job. A spilled
+ * payload is read back when its change is performed.
+ * </p>
+ */
+public final class UndoPayloadStore {
+
+	/**
+	 * The payload of an undo change that can be written to disk.
+	 * <p>
+	 * Implementations must synchronize on the payload when accessing the data which is released by
+	 * {@link #released()}.
+	 * </p>
+	 */
+	public abstract static class Payload {
+
+		private Entry fEntry;
+
+		/**
+		 * Returns the estimated size of the payload in memory.
+		 *
+		 * @return the size in bytes
+		 */
+		protected abstract long estimateSize();
+
+		/**
+		 * Returns the content to be written to disk. This method is called from a background job
+		 * without holding the lock of the payload.
+		 *
+		 * @return the content representing the payload, or <code>null</code> if the payload cannot
+		 *         be written to disk at this time
+		 * @throws CoreException if the content cannot be computed
+		 */
+		protected abstract String getContent() throws CoreException;
+
+		/**
+		 * Tells whether the content returned by {@link #getContent()} still represents the
+		 * payload. Called while holding the lock of the payload.
+		 *
+		 * @return <code>true</code> if the in-memory payload can be released
+		 */
+		protected abstract boolean isCurrent();
+
+		/**
+		 * Releases the in-memory payload after its content has been written to disk. Called while
+		 * holding the lock of the payload.
+		 */
+		protected abstract void released();
+
+		/**
+		 * Returns whether the payload has been written to disk.
+		 *
+		 * @return <code>true</code> if the payload has to be read with {@link #readContent()}
+		 */
+		public final synchronized boolean isSpilled() {
+			return fEntry != null && fEntry.fFile != null;
+		}
+
+		/**
+		 * Reads the content of a spilled payload.
+		 *
+		 * @return the content returned by {@link #getContent()}
+		 * @throws CoreException if the content cannot be read
+		 */
+		public final String readContent() throws CoreException {
+			File file;
+			synchronized (this) {
+				file= fEntry != null ? fEntry.fFile : null;
+			}
+			if (file == null)
+				throw new CoreException(new Status(IStatus.ERROR, RefactoringCorePlugin.getPluginId(), "Undo payload has not been spilled")); //$NON-NLS-1$
+			StringBuilder builder= new StringBuilder();
+			try (Reader reader= new BufferedReader(new InputStreamReader(new GZIPInputStream(new FileInputStream(file)), StandardCharsets.UTF_8))) {
+				char[] buffer= new char[8192];
+				int read;
+				while ((read= reader.read(buffer)) != -1)
+					builder.append(buffer, 0, read);
+			} catch (IOException e) {
+				throw new CoreException(new Status(IStatus.ERROR, RefactoringCorePlugin.getPluginId(),
+					Messages.format(RefactoringCoreMessages.UndoPayloadStore_cannot_read, file.getAbsolutePath()), e));
+			}
+			return builder.toString();
+		}
+	}
+
+	/**
+	 * The registration of a payload, remains valid if the payload is garbage collected without
+	 * being unregistered so that its spill file can be deleted.
+	 */
+	private static final class Entry extends WeakReference<Payload> {
+		final long fSize;
+		File fFile;
+
+		Entry(Payload payload, long size, ReferenceQueue<Payload> queue) {
+			super(payload, queue);
+			fSize= size;
+		}
+	}
+
+	/** The default memory budget in megabytes. */
+	private static final long DEFAULT_MEMORY_LIMIT= 64;
+
+	private static final String NAME_SPILL_FOLDER= ".undo"; //$NON-NLS-1$
+
+	private static UndoPayloadStore fgInstance;
+
+	/**
+	 * Returns the undo payload store.
+	 *
+	 * @return the undo payload store
+	 */
+	public static synchronized UndoPayloadStore getInstance() {
+		if (fgInstance == null)
+			fgInstance= new UndoPayloadStore();
+		return fgInstance;
+	}
+
+	/**
+	 * Deletes the spilled payloads when the plug-in is stopped.
+	 */
+	static synchronized void shutdown() {
+		if (fgInstance != null) {
+			fgInstance.fSpillJob.cancel();
+			fgInstance.clear();
+			fgInstance= null;
+		}
+	}
+
+	/** The registered entries, oldest first. */
+	private final Set<Entry> fEntries= new LinkedHashSet<>();
+
+	private final ReferenceQueue<Payload> fQueue= new ReferenceQueue<>();
+
+	/** The estimated size of the payloads in memory. */
+	private long fMemory;
+
+	/** The memory budget in bytes, or <code>-1</code> to use the preference. */
+	private long fMemoryLimit= -1;
+
+	private File fFolder;
+
+	private final Job fSpillJob= new Job(RefactoringCoreMessages.UndoPayloadStore_job_name) {
+		@Override
+		protected IStatus run(IProgressMonitor monitor) {
+			spill(monitor);
+			return Status.OK_STATUS;
+		}
+	};
+
+	/**
+	 * Returns the estimated size of the text inserted by the given edit and its children.
+	 *
+	 * @param edit the edit
+	 * @return the size in bytes
+	 */
+	public static long estimateSize(TextEdit edit) {
+		long size= 64;
+		if (edit instanceof ReplaceEdit)
+			size+= 2L * ((ReplaceEdit) edit).getText().length();
+		else if (edit instanceof InsertEdit)
+			size+= 2L * ((InsertEdit) edit).getText().length();
+		for (TextEdit child : edit.getChildren())
+			size+= estimateSize(child);
+		return size;
+	}
+
+	/**
+	 * Writes the replacements of the given edit to a string, from which
+	 * {@link #readReplacements(String)} creates an equivalent edit. Undo edits only consist of
+	 * replacements.
+	 *
+	 * @param edit the edit whose children are replace edits without children
+	 * @return the replacements, or <code>null</code> if the edit has other children
+	 */
+	public static String writeReplacements(TextEdit edit) {
+		StringBuilder builder= new StringBuilder();
+		for (TextEdit child : edit.getChildren()) {
+			if (!(child instanceof ReplaceEdit) || child.hasChildren())
+				return null;
+			String text= ((ReplaceEdit) child).getText();
+			builder.append(child.getOffset()).append(',').append(child.getLength()).append(',').append(text.length()).append(':').append(text);
+		}
+		return builder.toString();
+	}
+
+	/**
+	 * Creates an edit from the replacements written by {@link #writeReplacements(TextEdit)}.
+	 *
+	 * @param replacements the replacements
+	 * @return the edit performing the replacements
+	 * @throws CoreException if the replacements are malformed
+	 */
+	public static TextEdit readReplacements(String replacements) throws CoreException {
+		MultiTextEdit result= new MultiTextEdit();
+		int index= 0;
+		try {
+			while (index < replacements.length()) {
+				int lengthStart= replacements.indexOf(',', index) + 1;
+				int textLengthStart= replacements.indexOf(',', lengthStart) + 1;
+				int textStart= replacements.indexOf(':', textLengthStart) + 1;
+				int offset= Integer.parseInt(replacements.substring(index, lengthStart - 1));
+				int length= Integer.parseInt(replacements.substring(lengthStart, textLengthStart - 1));
+				int textEnd= textStart + Integer.parseInt(replacements.substring(textLengthStart, textStart - 1));
+				result.addChild(new ReplaceEdit(offset, length, replacements.substring(textStart, textEnd)));
+				index= textEnd;
+			}
+		} catch (RuntimeException e) {
+			throw new CoreException(new Status(IStatus.ERROR, RefactoringCorePlugin.getPluginId(), "Malformed undo payload", e)); //$NON-NLS-1$
+		}
+		return result;
+	}
+
+	private UndoPayloadStore() {
+		fSpillJob.setSystem(true);
+		fSpillJob.setPriority(Job.DECORATE);
+	}
+
+	/**
+	 * Registers the given payload. Does nothing if the payload is already registered.
+	 *
+	 * @param payload the payload
+	 */
+	public void add(Payload payload) {
+		boolean overBudget;
+		synchronized (this) {
+			purge();
+			synchronized (payload) {
+				if (payload.fEntry != null)
+					return;
+				payload.fEntry= new Entry(payload, payload.estimateSize(), fQueue);
+				fEntries.add(payload.fEntry);
+				fMemory+= payload.fEntry.fSize;
+			}
+			overBudget= fMemory > getMemoryLimit();
+		}
+		if (overBudget)
+			fSpillJob.schedule();
+	}
+
+	/**
+	 * Unregisters the given payload and deletes its spilled content.
+	 *
+	 * @param payload the payload
+	 */
+	public void remove(Payload payload) {
+		synchronized (this) {
+			Entry entry;
+			synchronized (payload) {
+				entry= payload.fEntry;
+				payload.fEntry= null;
+			}
+			if (entry != null)
+				remove(entry);
+		}
+	}
+
+	/**
+	 * Sets the memory budget. Used for testing.
+	 *
+	 * @param limit the memory budget in bytes, or <code>-1</code> to use the preference
+	 */
+	public synchronized void setMemoryLimit(long limit) {
+		fMemoryLimit= limit;
+	}
+
+	/**
+	 * Waits until the payloads exceeding the memory budget have been written to disk. Used for
+	 * testing.
+	 *
+	 * @throws InterruptedException if the thread is interrupted while waiting
+	 */
+	public void join() throws InterruptedException {
+		fSpillJob.join();
+	}
+
+	private long getMemoryLimit() {
+		if (fMemoryLimit >= 0)
+			return fMemoryLimit;
+		long megabytes= Platform.getPreferencesService().getLong(RefactoringCorePlugin.getPluginId(), RefactoringPreferenceConstants.PREFERENCE_UNDO_MEMORY_LIMIT, DEFAULT_MEMORY_LIMIT, null);
+		return megabytes * 1024 * 1024;
+	}
+
+	private void spill(IProgressMonitor monitor) {
+		List<Entry> candidates= new ArrayList<>();
+		synchronized (this) {
+			purge();
+			long memory= fMemory;
+			long limit= getMemoryLimit();
+			for (Entry entry : fEntries) {
+				if (memory <= limit)
+					break;
+				if (entry.fFile == null && entry.fSize > 0) {
+					candidates.add(entry);
+					memory-= entry.fSize;
+				}
+			}
+		}
+		for (Entry entry : candidates) {
+			if (monitor.isCanceled())
+				return;
+			Payload payload= entry.get();
+			if (payload == null)
+				continue;
+			try {
+				spill(entry, payload);
+			} catch (CoreException | IOException e) {
+				RefactoringCorePlugin.log(e);
+			}
+		}
+	}
+
+	private void spill(Entry entry, Payload payload) throws CoreException, IOException {
+		String content= payload.getContent();
+		if (content == null)
+			return;
+		File file= File.createTempFile("undo", ".gz", getFolder()); //$NON-NLS-1$ //$NON-NLS-2$
+		try (Writer writer= new BufferedWriter(new OutputStreamWriter(new GZIPOutputStream(new FileOutputStream(file)), StandardCharsets.UTF_8))) {
+			writer.write(content);
+		} catch (IOException e) {
+			file.delete();
+			throw e;
+		}
+		synchronized (this) {
+			synchronized (payload) {
+				if (payload.fEntry == entry && payload.isCurrent()) {
+					payload.released();
+					entry.fFile= file;
+					fMemory-= entry.fSize;
+					return;
+				}
+			}
+		}
+		// the payload has been performed or disposed in the meantime
+		file.delete();
+	}
+
+	private void remove(Entry entry) {
+		if (fEntries.remove(entry)) {
+			if (entry.fFile != null)
+				entry.fFile.delete();
+			else
+				fMemory-= entry.fSize;
+		}
+	}
+
+	private void purge() {
+		Entry entry;
+		while ((entry= (Entry) fQueue.poll()) != null)
+			remove(entry);
+	}
+
+	private synchronized void clear() {
+		for (Entry entry : fEntries) {
+			if (entry.fFile != null)
+				entry.fFile.delete();
+		}
+		fEntries.clear();
+		fMemory= 0;
+	}
+
+	private synchronized File getFolder() throws IOException {
+		if (fFolder == null) {
+			File folder= RefactoringCorePlugin.getDefault().getStateLocation().append(NAME_SPILL_FOLDER).toFile();
+			if (folder.isDirectory()) {
+				// left over from a previous session
+				File[] files= folder.listFiles();
+				if (files != null) {
+					for (File file : files)
+						file.delete();
+				}
+			} else if (!folder.mkdirs()) {
+				throw new IOException(folder.getAbsolutePath());
+			}
+			fFolder= folder;
+		}
+		return fFolder;
+	}
+}
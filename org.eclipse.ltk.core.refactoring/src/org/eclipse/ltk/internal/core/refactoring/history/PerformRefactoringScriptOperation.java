@@ -0,0 +1,249 @@
+/*******************************************************************************
+ * Copyright (c) 2020 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ltk.internal.core.refactoring.history;
+
+import java.io.InputStream;
+
+import org.eclipse.core.runtime.Assert;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.SubProgressMonitor;
+
+import org.eclipse.core.resources.IWorkspaceRunnable;
+import org.eclipse.core.resources.ResourcesPlugin;
+
+import org.eclipse.ltk.core.refactoring.CheckConditionsOperation;
+import org.eclipse.ltk.core.refactoring.PerformRefactoringHistoryOperation;
+import org.eclipse.ltk.core.refactoring.PerformRefactoringOperation;
+import org.eclipse.ltk.core.refactoring.Refactoring;
+import org.eclipse.ltk.core.refactoring.RefactoringContext;
+import org.eclipse.ltk.core.refactoring.RefactoringDescriptor;
+import org.eclipse.ltk.core.refactoring.RefactoringStatus;
+import org.eclipse.ltk.internal.core.refactoring.RefactoringCoreMessages;
+
+/**
+ * Operation that, when run, executes the refactorings of a refactoring script
+ * while the script is being read.
+ * <p>
+ * In contrast to {@link PerformRefactoringHistoryOperation}, the refactoring
+ * descriptors are not loaded into memory up front. Each descriptor is executed
+ * as soon as it has been read and is released afterwards.
+ * </p>
+ * <p>
+ * Execution stops at the first refactoring which fails with a fatal error. The
+ * position of the failed refactoring in the script is available as
+ * {@link #getCheckpoint() checkpoint}. A subsequent operation created with this
+ * checkpoint on the same script skips the applied refactorings and resumes with
+ * the failed one. The checkpoint counts all refactorings of the script, so it
+ * remains valid if the subsequent operation uses different flags.
+ * </p>
+ *
+ * @see PerformRefactoringHistoryOperation
+ */
+public class PerformRefactoringScriptOperation implements IWorkspaceRunnable {
+
+	/**
+	 * The position in the script of the first refactoring which has not been
+	 * applied yet, counting all refactorings of the script regardless of the
+	 * flags
+	 */
+	private int fCheckpoint;
+
+	/** The status of the execution */
+	private RefactoringStatus fExecutionStatus= new RefactoringStatus();
+
+	/** The refactoring descriptor flags to filter the script with */
+	private final int fFlags;
+
+	/** The input stream to read the script from */
+	private final InputStream fStream;
+
+	/**
+	 * Creates a new perform refactoring script operation.
+	 *
+	 * @param stream
+	 *            the input stream to read the refactoring script from
+	 * @param flags
+	 *            the refactoring descriptor flags which must be set in order
+	 *            for a refactoring to be executed, or
+	 *            <code>RefactoringDescriptor#NONE</code>
+	 * @param checkpoint
+	 *            the position in the script of the first refactoring to
+	 *            execute, as returned by {@link #getCheckpoint()} of a previous
+	 *            operation, or <code>0</code> to execute the whole script
+	 */
+	public PerformRefactoringScriptOperation(final InputStream stream, final int flags, final int checkpoint) {
+		Assert.isNotNull(stream);
+		Assert.isTrue(flags >= RefactoringDescriptor.NONE);
+		Assert.isTrue(checkpoint >= 0);
+		fStream= stream;
+		fFlags= flags;
+		fCheckpoint= checkpoint;
+	}
+
+	/**
+	 * Hook method which is called when the specified refactoring is going to be
+	 * executed.
+	 *
+	 * @param refactoring
+	 *            the refactoring about to be executed
+	 * @param descriptor
+	 *            the refactoring descriptor
+	 * @param monitor
+	 *            the progress monitor to use
+	 * @return a status describing the outcome of the initialization
+	 */
+	protected RefactoringStatus aboutToPerformRefactoring(final Refactoring refactoring, final RefactoringDescriptor descriptor, final IProgressMonitor monitor) {
+		Assert.isNotNull(refactoring);
+		Assert.isNotNull(descriptor);
+		return new RefactoringStatus();
+	}
+
+	/**
+	 * Method which is called to create a refactoring context from a refactoring
+	 * descriptor. The default implementation delegates the task to the
+	 * refactoring descriptor.
+	 *
+	 * @param descriptor
+	 *            the refactoring descriptor
+	 * @param status
+	 *            a refactoring status to describe the outcome of the
+	 *            initialization
+	 * @param monitor
+	 *            the progress monitor to use
+	 * @return the refactoring context, or <code>null</code> if no refactoring
+	 *         is available for this refactoring descriptor
+	 * @throws CoreException
+	 *             if an error occurs while creating the refactoring context
+	 */
+	protected RefactoringContext createRefactoringContext(final RefactoringDescriptor descriptor, final RefactoringStatus status, final IProgressMonitor monitor) throws CoreException {
+		try {
+			Assert.isNotNull(descriptor);
+			return descriptor.createRefactoringContext(status);
+		} finally {
+			if (monitor != null)
+				monitor.done();
+		}
+	}
+
+	/**
+	 * Returns the position in the script of the first refactoring which has not
+	 * been applied yet. The position counts all refactorings of the script,
+	 * including the ones which do not have the flags of this operation.
+	 *
+	 * @return the checkpoint to resume the script from
+	 */
+	public final int getCheckpoint() {
+		return fCheckpoint;
+	}
+
+	/**
+	 * Returns the execution status. Guaranteed not to be <code>null</code>.
+	 *
+	 * @return the status of the execution
+	 */
+	public final RefactoringStatus getExecutionStatus() {
+		return fExecutionStatus;
+	}
+
+	/**
+	 * Hook method which is called when the specified refactoring has been
+	 * performed.
+	 *
+	 * @param refactoring
+	 *            the refactoring which has been performed
+	 * @param monitor
+	 *            the progress monitor to use
+	 */
+	protected void refactoringPerformed(final Refactoring refactoring, final IProgressMonitor monitor) {
+		Assert.isNotNull(refactoring);
+		Assert.isNotNull(monitor);
+
+		// Do nothing
+	}
+
+	@Override
+	public void run(final IProgressMonitor monitor) throws CoreException {
+		fExecutionStatus= new RefactoringStatus();
+		monitor.beginTask(RefactoringCoreMessages.PerformRefactoringHistoryOperation_perform_refactorings, IProgressMonitor.UNKNOWN);
+		final RefactoringHistoryService service= RefactoringHistoryService.getInstance();
+		try {
+			service.connect();
+			// the flags are checked here, so that the checkpoint also moves past the filtered refactorings
+			service.readRefactoringSession(fStream, RefactoringDescriptor.NONE, (descriptor, index) -> {
+				if (index < fCheckpoint)
+					return true;
+				if (monitor.isCanceled())
+					throw new OperationCanceledException();
+				final int flags= descriptor.getFlags();
+				if (fFlags > RefactoringDescriptor.NONE && (flags | fFlags) != flags) {
+					fCheckpoint= index + 1;
+					return true;
+				}
+				final RefactoringStatus status= performRefactoring(descriptor, monitor);
+				fExecutionStatus.merge(status);
+				if (status.hasFatalError())
+					return false;
+				fCheckpoint= index + 1;
+				return true;
+			});
+		} finally {
+			service.disconnect();
+			monitor.done();
+		}
+	}
+
+	/**
+	 * Creates and performs the refactoring of the specified descriptor.
+	 *
+	 * @param descriptor
+	 *            the refactoring descriptor
+	 * @param monitor
+	 *            the progress monitor to use
+	 * @return the status of the execution
+	 * @throws CoreException
+	 *             if an error occurs while performing the refactoring
+	 */
+	private RefactoringStatus performRefactoring(final RefactoringDescriptor descriptor, final IProgressMonitor monitor) throws CoreException {
+		final RefactoringStatus status= new RefactoringStatus();
+		RefactoringContext context= null;
+		try {
+			try {
+				context= createRefactoringContext(descriptor, status, new SubProgressMonitor(monitor, 30, SubProgressMonitor.SUPPRESS_SUBTASK_LABEL));
+			} catch (CoreException exception) {
+				status.merge(RefactoringStatus.create(exception.getStatus()));
+			}
+			if (context != null && !status.hasFatalError()) {
+				final Refactoring refactoring= context.getRefactoring();
+				final PerformRefactoringOperation operation= new PerformRefactoringOperation(refactoring, CheckConditionsOperation.ALL_CONDITIONS);
+				try {
+					status.merge(aboutToPerformRefactoring(refactoring, descriptor, new SubProgressMonitor(monitor, 30, SubProgressMonitor.SUPPRESS_SUBTASK_LABEL)));
+					if (!status.hasFatalError()) {
+						ResourcesPlugin.getWorkspace().run(operation, new SubProgressMonitor(monitor, 90, SubProgressMonitor.SUPPRESS_SUBTASK_LABEL));
+						status.merge(operation.getConditionStatus());
+						if (!status.hasFatalError())
+							status.merge(operation.getValidationStatus());
+					}
+				} finally {
+					refactoringPerformed(refactoring, new SubProgressMonitor(monitor, 10, SubProgressMonitor.SUPPRESS_SUBTASK_LABEL));
+				}
+			}
+		} finally {
+			if (context != null)
+				context.dispose();
+		}
+		return status;
+	}
+}
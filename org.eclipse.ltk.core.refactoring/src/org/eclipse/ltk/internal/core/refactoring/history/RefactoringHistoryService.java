@@ -78,6 +78,7 @@ import org.eclipse.ltk.core.refactoring.history.IRefactoringHistoryService;
 import org.eclipse.ltk.core.refactoring.history.RefactoringExecutionEvent;
 import org.eclipse.ltk.core.refactoring.history.RefactoringHistory;
 import org.eclipse.ltk.core.refactoring.history.RefactoringHistoryEvent;
+import org.eclipse.ltk.internal.core.refactoring.IRefactoringDescriptorHandler;
 import org.eclipse.ltk.internal.core.refactoring.IRefactoringSerializationConstants;
 import org.eclipse.ltk.internal.core.refactoring.RefactoringCoreMessages;
 import org.eclipse.ltk.internal.core.refactoring.RefactoringCorePlugin;
@@ -740,24 +741,50 @@ public final class RefactoringHistoryService implements IRefactoringHistoryServi
 	public RefactoringHistory readRefactoringHistory(final InputStream stream, final int flags) throws CoreException {
 		Assert.isNotNull(stream);
 		Assert.isTrue(flags >= RefactoringDescriptor.NONE);
-		final List<RefactoringDescriptor> list= new ArrayList<>();
-		final RefactoringSessionDescriptor descriptor= new RefactoringSessionReader(false, null).readSession(new InputSource(stream));
-		if (descriptor != null) {
-			final RefactoringDescriptor[] descriptors= descriptor.getRefactorings();
-			if (flags > RefactoringDescriptor.NONE) {
-				for (RefactoringDescriptor d : descriptors) {
-					final int current= d.getFlags();
-					if ((current | flags) == current) {
-						list.add(d);
-					}
-				}
-			} else
-				list.addAll(Arrays.asList(descriptors));
-		}
-		final RefactoringDescriptorProxy[] proxies= new RefactoringDescriptorProxy[list.size()];
-		for (int index= 0; index < list.size(); index++)
-			proxies[index]= new RefactoringDescriptorProxyAdapter(list.get(index));
-		return new RefactoringHistoryImplementation(proxies);
+		final List<RefactoringDescriptorProxy> list= new ArrayList<>();
+		readRefactoringSession(stream, flags, (descriptor, index) -> {
+			list.add(new RefactoringDescriptorProxyAdapter(descriptor));
+			return true;
+		});
+		return new RefactoringHistoryImplementation(list.toArray(new RefactoringDescriptorProxy[list.size()]));
+	}
+
+	/**
+	 * Reads refactoring descriptors from the input stream and passes them to
+	 * the specified handler one at a time, as soon as they have been read.
+	 * <p>
+	 * Only descriptors having all of the specified flags set are passed to
+	 * the handler. The index passed to the handler is the position of the
+	 * descriptor in the session, counting the descriptors which have been
+	 * filtered out as well, so that it does not depend on the flags.
+	 * </p>
+	 *
+	 * @param stream
+	 *            the input stream to read from
+	 * @param flags
+	 *            the refactoring descriptor flags which must be set in order
+	 *            for a descriptor to be passed to the handler, or
+	 *            <code>RefactoringDescriptor#NONE</code>
+	 * @param handler
+	 *            the handler to pass the descriptors to
+	 * @return the number of descriptors which have been passed to the handler
+	 * @throws CoreException
+	 *             if an error occurs while reading the refactoring session,
+	 *             or if the handler threw an exception
+	 */
+	public int readRefactoringSession(final InputStream stream, final int flags, final IRefactoringDescriptorHandler handler) throws CoreException {
+		Assert.isNotNull(stream);
+		Assert.isNotNull(handler);
+		Assert.isTrue(flags >= RefactoringDescriptor.NONE);
+		final int[] accepted= { 0 };
+		new RefactoringSessionReader(false, null).readSession(new InputSource(stream), (descriptor, index) -> {
+			final int current= descriptor.getFlags();
+			if (flags > RefactoringDescriptor.NONE && (current | flags) != current)
+				return true;
+			accepted[0]++;
+			return handler.handleDescriptor(descriptor, index);
+		});
+		return accepted[0];
 	}
 
 	@Override
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2013 IBM Corporation and others.
+ * Copyright (c) 2000, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -21,6 +21,7 @@ public class AllTests {
 	public static Test suite() {
 		TestSuite suite= new TestSuite(AllTests.class.getName());
 		suite.addTestSuite(EmptySuite.class);
+		suite.addTestSuite(TextEditChangePreviewViewerTest.class);
 		return suite;
 	}
 }
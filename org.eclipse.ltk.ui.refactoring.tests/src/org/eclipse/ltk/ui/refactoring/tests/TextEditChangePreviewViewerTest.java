@@ -0,0 +1,165 @@
+/*******************************************************************************
+ * Copyright (c) 2020 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ltk.ui.refactoring.tests;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+
+import junit.framework.TestCase;
+
+import org.eclipse.swt.widgets.Display;
+import org.eclipse.swt.widgets.Shell;
+
+import org.eclipse.text.edits.MultiTextEdit;
+import org.eclipse.text.edits.ReplaceEdit;
+import org.eclipse.text.edits.TextEditGroup;
+
+import org.eclipse.jface.text.Document;
+
+import org.eclipse.compare.CompareViewerSwitchingPane;
+import org.eclipse.compare.IStreamContentAccessor;
+import org.eclipse.compare.structuremergeviewer.DiffNode;
+
+import org.eclipse.ltk.core.refactoring.DocumentChange;
+import org.eclipse.ltk.core.refactoring.TextChange;
+import org.eclipse.ltk.internal.ui.refactoring.TextEditChangePreviewViewer;
+
+public class TextEditChangePreviewViewerTest extends TestCase {
+
+	private static final long TIMEOUT= 10000;
+
+	private Shell fShell;
+
+	private TextEditChangePreviewViewer fViewer;
+
+	@Override
+	protected void setUp() throws Exception {
+		fShell= new Shell(Display.getDefault());
+		fViewer= new TextEditChangePreviewViewer();
+		fViewer.createControl(fShell);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		fShell.dispose();
+	}
+
+	private static TextChange createChange(String content, String... replacements) {
+		DocumentChange change= new DocumentChange("change", new Document(content));
+		MultiTextEdit root= new MultiTextEdit();
+		change.setEdit(root);
+		for (int i= 0; i < replacements.length; i+= 2) {
+			ReplaceEdit edit= new ReplaceEdit(content.indexOf(replacements[i]), replacements[i].length(), replacements[i + 1]);
+			root.addChild(edit);
+			change.addTextEditGroup(new TextEditGroup(replacements[i], edit));
+		}
+		return change;
+	}
+
+	private DiffNode getShownInput() {
+		return (DiffNode) ((CompareViewerSwitchingPane) fViewer.getControl()).getInput();
+	}
+
+	private static String getContent(Object element) throws Exception {
+		ByteArrayOutputStream bytes= new ByteArrayOutputStream();
+		try (InputStream stream= ((IStreamContentAccessor) element).getContents()) {
+			int read;
+			while ((read= stream.read()) != -1)
+				bytes.write(read);
+		}
+		return new String(bytes.toByteArray(), "UTF-8");
+	}
+
+	private String getShownPreview() throws Exception {
+		DiffNode input= getShownInput();
+		return input != null ? getContent(input.getRight()) : null;
+	}
+
+	private void waitForPreview(String expected) throws Exception {
+		Display display= fShell.getDisplay();
+		long end= System.currentTimeMillis() + TIMEOUT;
+		while (!expected.equals(getShownPreview())) {
+			assertTrue("timed out waiting for the preview \"" + expected + "\"", System.currentTimeMillis() < end);
+			if (!display.readAndDispatch())
+				Thread.sleep(10);
+		}
+	}
+
+	public void testPreviewIsComputed() throws Exception {
+		TextChange change= createChange("one two three", "two", "2");
+		fViewer.setInput(TextEditChangePreviewViewer.createInput(change));
+
+		waitForPreview("one 2 three");
+		assertEquals("one two three", getContent(getShownInput().getLeft()));
+	}
+
+	public void testPreviousPreviewShownUntilComputed() throws Exception {
+		TextChange first= createChange("first", "first", "1st");
+		fViewer.setInput(TextEditChangePreviewViewer.createInput(first));
+		waitForPreview("1st");
+
+		TextChange second= createChange("second", "second", "2nd");
+		fViewer.setInput(TextEditChangePreviewViewer.createInput(second));
+		// the preview is not blanked while the new one is computed
+		assertNotNull(getShownInput());
+		waitForPreview("2nd");
+	}
+
+	public void testLastInputWins() throws Exception {
+		TextChange first= createChange("first", "first", "1st");
+		TextChange second= createChange("second", "second", "2nd");
+		fViewer.setInput(TextEditChangePreviewViewer.createInput(first));
+		fViewer.setInput(TextEditChangePreviewViewer.createInput(second));
+		waitForPreview("2nd");
+
+		// a late result of the first input must not replace the preview
+		long end= System.currentTimeMillis() + 200;
+		Display display= fShell.getDisplay();
+		while (System.currentTimeMillis() < end) {
+			if (!display.readAndDispatch())
+				Thread.sleep(10);
+		}
+		assertEquals("2nd", getShownPreview());
+	}
+
+	public void testPreviewFollowsEnablement() throws Exception {
+		TextChange change= createChange("one two three", "one", "1", "three", "3");
+		fViewer.setInput(TextEditChangePreviewViewer.createInput(change));
+		waitForPreview("1 two 3");
+
+		change.getChangeGroups()[1].setEnabled(false);
+		fViewer.setInput(TextEditChangePreviewViewer.createInput(change));
+		waitForPreview("1 two three");
+
+		// the cached preview of the first enablement is shown again
+		change.getChangeGroups()[1].setEnabled(true);
+		fViewer.setInput(TextEditChangePreviewViewer.createInput(change));
+		assertEquals("1 two 3", getShownPreview());
+	}
+
+	public void testEnablementChangedWhileComputing() throws Exception {
+		TextChange change= createChange("one two three", "one", "1", "three", "3");
+		fViewer.setInput(TextEditChangePreviewViewer.createInput(change));
+		// the enablement changes before the job has computed the preview of the snapshot
+		change.getChangeGroups()[0].setEnabled(false);
+		fViewer.setInput(TextEditChangePreviewViewer.createInput(change));
+		waitForPreview("one two 3");
+	}
+
+	public void testGroupPreview() throws Exception {
+		TextChange change= createChange("one two three", "one", "1", "three", "3");
+		fViewer.setInput(TextEditChangePreviewViewer.createInput(change, change.getChangeGroups()[1], 2));
+		waitForPreview("one two 3");
+	}
+}
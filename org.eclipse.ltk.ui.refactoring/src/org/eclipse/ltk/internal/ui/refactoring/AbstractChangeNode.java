@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2010 IBM Corporation and others.
+ * Copyright (c) 2000, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -88,6 +88,15 @@ public abstract class AbstractChangeNode extends PreviewNode {
 
 	abstract PreviewNode[] doCreateChildren();
 
+	/**
+	 * Returns whether the children of this node have been created.
+	 *
+	 * @return <code>true</code> if the children have been created
+	 */
+	boolean hasCreatedChildren() {
+		return fChildren != null;
+	}
+
 	@Override
 	public String getText() {
 		return fChange.getName();
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2008 IBM Corporation and others.
+ * Copyright (c) 2000, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -52,8 +52,7 @@ class ChangeElementContentProvider  implements ITreeContentProvider {
 	 */
 	@Override
 	public boolean hasChildren(Object element){
-		Object[] children= getChildren(element);
-		return children != null && children.length > 0;
+		return ((PreviewNode)element).hasChildren();
 	}
 
 	/* non Java-doc
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2008 IBM Corporation and others.
+ * Copyright (c) 2000, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -17,7 +17,9 @@ import java.util.List;
 
 import org.eclipse.ltk.core.refactoring.Change;
 import org.eclipse.ltk.core.refactoring.GroupCategory;
+import org.eclipse.ltk.core.refactoring.MultiStateTextFileChange;
 import org.eclipse.ltk.core.refactoring.TextEditBasedChange;
+import org.eclipse.ltk.core.refactoring.TextEditBasedChangeGroup;
 import org.eclipse.ltk.ui.refactoring.TextEditChangeNode;
 import org.eclipse.ltk.ui.refactoring.TextEditChangeNode.ChildNode;
 
@@ -29,7 +31,42 @@ public abstract class InternalTextEditChangeNode extends AbstractChangeNode {
 
 	@Override
 	int getActive() {
-		return getCompositeChangeActive();
+		if (hasCreatedChildren())
+			return getCompositeChangeActive();
+		// the children show the change groups, don't create them to compute the state
+		TextEditBasedChange change= getTextEditBasedChange();
+		if (!change.isEnabled() || change instanceof MultiStateTextFileChange)
+			return change.isEnabled() ? ACTIVE : INACTIVE;
+		int result= -1;
+		for (TextEditBasedChangeGroup group : change.getChangeGroups()) {
+			if (group.getTextEditGroup().isEmpty())
+				continue;
+			int active= group.isEnabled() ? ACTIVE : INACTIVE;
+			result= result == -1 ? active : ACTIVATION_TABLE[active][result];
+			if (result == PARTLY_ACTIVE)
+				break;
+		}
+		return result == -1 ? ACTIVE : result;
+	}
+
+	@Override
+	boolean hasChildren() {
+		if (hasCreatedChildren())
+			return super.hasChildren();
+		TextEditBasedChange change= getTextEditBasedChange();
+		if (change instanceof MultiStateTextFileChange)
+			return false;
+		for (TextEditBasedChangeGroup group : change.getChangeGroups()) {
+			if (!group.getTextEditGroup().isEmpty())
+				return true;
+		}
+		return false;
+	}
+
+	@Override
+	boolean hasDerived() {
+		// the children only show parts of the changed file
+		return hasDerivedResourceChange(getChange());
 	}
 
 	@Override
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2008 IBM Corporation and others.
+ * Copyright (c) 2000, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -153,6 +153,17 @@ public abstract class PreviewNode {
 	 */
 	abstract PreviewNode[] getChildren();
 
+	/**
+	 * Returns <code>true</code> if the change element has children. Subclasses
+	 * may answer without creating the children, since creating them can be
+	 * expensive and is only needed once the element is expanded.
+	 *
+	 * @return whether the change element has children
+	 */
+	boolean hasChildren() {
+		return getChildren().length > 0;
+	}
+
 	/**
 	 * Returns <code>true</code> if the change node has
 	 * one of the given group categories. Otherwise,
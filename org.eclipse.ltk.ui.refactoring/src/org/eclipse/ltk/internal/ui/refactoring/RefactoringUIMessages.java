@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2017 IBM Corporation and others.
+ * Copyright (c) 2000, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -244,6 +244,8 @@ public final class RefactoringUIMessages extends NLS {
 
 	public static String RefactoringHistoryWizard_error_instantiate_refactoring;
 
+	public static String RefactoringHistoryWizard_error_reading_script;
+
 	public static String RefactoringHistoryWizard_error_resolving_refactoring;
 
 	public static String RefactoringHistoryWizard_fatal_error_message;
@@ -262,6 +264,8 @@ public final class RefactoringUIMessages extends NLS {
 
 	public static String RefactoringHistoryWizard_preparing_refactorings;
 
+	public static String RefactoringHistoryWizard_script_error_description;
+
 	public static String RefactoringHistoryWizard_several_refactorings_undone;
 
 	public static String RefactoringHistoryWizard_undo_message_explanation;
@@ -354,6 +358,8 @@ public final class RefactoringUIMessages extends NLS {
 
 	public static String ShowRefactoringHistoryControl_delete_label;
 
+	public static String TextEditChangePreviewViewer_computing_preview;
+
 	public static String UndoManagerAction_internal_error_message;
 
 	public static String UndoManagerAction_internal_error_title;
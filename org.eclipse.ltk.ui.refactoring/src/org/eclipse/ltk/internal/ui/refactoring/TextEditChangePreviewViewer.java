@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2019 IBM Corporation and others.
+ * Copyright (c) 2000, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -16,6 +16,10 @@ package org.eclipse.ltk.internal.ui.refactoring;
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
 import java.io.UnsupportedEncodingException;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.events.DisposeEvent;
@@ -27,7 +31,11 @@ import org.eclipse.swt.widgets.Control;
 import org.eclipse.core.runtime.AssertionFailedException;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IAdaptable;
-import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
 
 import org.eclipse.core.resources.IResource;
 
@@ -57,8 +65,25 @@ import org.eclipse.ltk.ui.refactoring.IChangePreviewViewer;
 
 public class TextEditChangePreviewViewer implements IChangePreviewViewer {
 
+	/** The maximum number of previews kept for recently viewed changes. */
+	private static final int MAX_CACHED_PREVIEWS= 20;
+
 	private ComparePreviewer fViewer;
 
+	/** The recently computed previews, in access order. */
+	private final Map<PreviewKey, Preview> fPreviews= new LinkedHashMap<PreviewKey, Preview>(MAX_CACHED_PREVIEWS, 0.75f, true) {
+		private static final long serialVersionUID= 1L;
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<PreviewKey, Preview> eldest) {
+			return size() > MAX_CACHED_PREVIEWS;
+		}
+	};
+
+	/** The key of the preview to be shown, or <code>null</code> if there is nothing to show. */
+	private PreviewKey fPendingKey;
+
+	private PreviewJob fPreviewJob;
+
 	private static class TextEditBasedChangeInput extends ChangePreviewViewerInput {
 		TextEditBasedChangeGroup group;
 		int surroundingLines;
@@ -73,6 +98,138 @@ public class TextEditChangePreviewViewer implements IChangePreviewViewer {
 		}
 	}
 
+	/**
+	 * Identifies the preview of an input. The preview content depends on the groups that are
+	 * enabled, hence their enablement is part of the key. The key is created on the UI thread,
+	 * which is the thread that changes the enablement, so it is a snapshot of the input.
+	 */
+	private static final class PreviewKey {
+		final TextEditBasedChange fChange;
+		/** the groups to preview, or <code>null</code> to preview the whole change */
+		final TextEditBasedChangeGroup[] fGroups;
+		final IRegion fRegion;
+		final int fSurroundingLines;
+		private final BitSet fEnablement;
+
+		PreviewKey(TextEditBasedChange change, TextEditBasedChangeGroup[] groups, IRegion region, int surroundingLines) {
+			fChange= change;
+			fGroups= groups;
+			fRegion= region;
+			fSurroundingLines= surroundingLines;
+			TextEditBasedChangeGroup[] changeGroups= change.getChangeGroups();
+			fEnablement= new BitSet(changeGroups.length + 1);
+			for (int i= 0; i < changeGroups.length; i++) {
+				if (changeGroups[i].isEnabled())
+					fEnablement.set(i);
+			}
+			if (change.isEnabled())
+				fEnablement.set(changeGroups.length);
+		}
+
+		/**
+		 * Tells whether the change groups of the given change are still enabled as they were when
+		 * this key has been created.
+		 *
+		 * @param change the change of this key
+		 * @return <code>true</code> if the enablement is unchanged
+		 */
+		boolean hasEnablement(TextEditBasedChange change) {
+			return new PreviewKey(change, fGroups, fRegion, fSurroundingLines).fEnablement.equals(fEnablement);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof PreviewKey))
+				return false;
+			PreviewKey other= (PreviewKey) obj;
+			return fChange == other.fChange
+					&& Arrays.equals(fGroups, other.fGroups)
+					&& (fRegion == null ? other.fRegion == null : other.fRegion != null
+							&& fRegion.getOffset() == other.fRegion.getOffset() && fRegion.getLength() == other.fRegion.getLength())
+					&& fSurroundingLines == other.fSurroundingLines
+					&& fEnablement.equals(other.fEnablement);
+		}
+
+		@Override
+		public int hashCode() {
+			int result= System.identityHashCode(fChange);
+			result= 31 * result + Arrays.hashCode(fGroups);
+			if (fRegion != null)
+				result= 31 * result + fRegion.getOffset();
+			return 31 * result + fEnablement.hashCode();
+		}
+	}
+
+	private static final class Preview {
+		final String fCurrentContent;
+		final String fPreviewContent;
+
+		Preview(String currentContent, String previewContent) {
+			fCurrentContent= currentContent;
+			fPreviewContent= previewContent;
+		}
+	}
+
+	/**
+	 * Computes the preview content off the UI thread, since it requires to read the changed file
+	 * and to apply the edits. The preview is dropped if the enablement of the change groups differs
+	 * from the snapshot in the key after it has been computed, since the enablement may be changed
+	 * on the UI thread meanwhile.
+	 */
+	private class PreviewJob extends Job {
+		private PreviewKey fKey;
+
+		PreviewJob() {
+			super(RefactoringUIMessages.TextEditChangePreviewViewer_computing_preview);
+			setSystem(true);
+		}
+
+		synchronized void setKey(PreviewKey key) {
+			fKey= key;
+		}
+
+		private synchronized PreviewKey getKey() {
+			return fKey;
+		}
+
+		@Override
+		protected IStatus run(IProgressMonitor monitor) {
+			final PreviewKey key= getKey();
+			Preview preview= null;
+			try {
+				preview= computePreview(key, monitor);
+				if (preview == null) {
+					// the enablement has changed on the UI thread, which requests the preview again
+					return Status.CANCEL_STATUS;
+				}
+			} catch (OperationCanceledException e) {
+				return Status.CANCEL_STATUS;
+			} catch (CoreException | AssertionFailedException e) {
+				RefactoringUIPlugin.log(e);
+			}
+			if (monitor.isCanceled())
+				return Status.CANCEL_STATUS;
+
+			final Preview result= preview;
+			if (!fViewer.isDisposed()) {
+				fViewer.getDisplay().asyncExec(new Runnable() {
+					@Override
+					public void run() {
+						if (fViewer.isDisposed() || fPendingKey != key)
+							return;
+						if (result != null) {
+							fPreviews.put(key, result);
+							showPreview(key, result);
+						} else {
+							fViewer.setInput(null);
+						}
+					}
+				});
+			}
+			return Status.OK_STATUS;
+		}
+	}
+
 	private static class ComparePreviewer extends CompareViewerSwitchingPane {
 		private CompareConfiguration fCompareConfiguration;
 		private String fLabel;
@@ -190,6 +347,14 @@ public class TextEditChangePreviewViewer implements IChangePreviewViewer {
 	@Override
 	public void createControl(Composite parent) {
 		fViewer= new ComparePreviewer(parent);
+		fViewer.addDisposeListener(new DisposeListener() {
+			@Override
+			public void widgetDisposed(DisposeEvent e) {
+				if (fPreviewJob != null)
+					fPreviewJob.cancel();
+				fPreviews.clear();
+			}
+		});
 	}
 
 	@Override
@@ -199,39 +364,75 @@ public class TextEditChangePreviewViewer implements IChangePreviewViewer {
 
 	@Override
 	public void setInput(ChangePreviewViewerInput input) {
+		PreviewKey key;
 		try {
-			Change change= input.getChange();
-			if (input instanceof TextEditBasedChangeInput) {
-				TextEditBasedChangeInput extended= (TextEditBasedChangeInput)input;
-				if (extended.group != null && extended.surroundingLines >= 0) {
-					TextEditBasedChangeGroup group= extended.group;
-					TextEditBasedChange editChange= group.getTextEditChange();
-					setInput(editChange, editChange.getCurrentContent(group.getRegion(), true, 2, new NullProgressMonitor()),
-						editChange.getPreviewContent(new TextEditBasedChangeGroup[] { group }, group.getRegion(), true, 2, new NullProgressMonitor()),
-						editChange.getTextType());
-					return;
-				} else if (extended.groups != null && extended.groups.length > 0 && extended.range != null) {
-					TextEditBasedChange editChange= extended.groups[0].getTextEditChange();
-					TextEditBasedChangeGroup[] groups= extended.groups;
-					if (extended.groupCategory != null) {
-
-					}
-					setInput(editChange, editChange.getCurrentContent(extended.range, true, 0, new NullProgressMonitor()),
-						editChange.getPreviewContent(groups, extended.range, true, 0, new NullProgressMonitor()),
-						editChange.getTextType());
-					return;
-				}
-			} else if (change instanceof TextEditBasedChange) {
-				TextEditBasedChange editChange= (TextEditBasedChange)change;
-				setInput(editChange, editChange.getCurrentContent(new NullProgressMonitor()), editChange.getPreviewContent(new NullProgressMonitor()), editChange.getTextType());
-				return;
-			} else {
-				fViewer.setInput(null);
-			}
-		} catch (CoreException | AssertionFailedException e) {
+			key= createKey(input);
+		} catch (AssertionFailedException e) {
 			RefactoringUIPlugin.log(e);
+			key= null;
+		}
+		fPendingKey= key;
+		if (key == null) {
+			if (fPreviewJob != null)
+				fPreviewJob.cancel();
 			fViewer.setInput(null);
+			return;
+		}
+
+		Preview preview= fPreviews.get(key);
+		if (preview != null) {
+			if (fPreviewJob != null)
+				fPreviewJob.cancel();
+			showPreview(key, preview);
+			return;
+		}
+		// the previous preview is shown until the new one has been computed
+		if (fPreviewJob == null)
+			fPreviewJob= new PreviewJob();
+		fPreviewJob.cancel();
+		fPreviewJob.setKey(key);
+		fPreviewJob.schedule();
+	}
+
+	private static PreviewKey createKey(ChangePreviewViewerInput input) {
+		Change change= input.getChange();
+		if (input instanceof TextEditBasedChangeInput) {
+			TextEditBasedChangeInput extended= (TextEditBasedChangeInput)input;
+			if (extended.group != null && extended.surroundingLines >= 0) {
+				TextEditBasedChangeGroup group= extended.group;
+				return new PreviewKey(group.getTextEditChange(), new TextEditBasedChangeGroup[] { group }, group.getRegion(), 2);
+			} else if (extended.groups != null && extended.groups.length > 0 && extended.range != null) {
+				return new PreviewKey(extended.groups[0].getTextEditChange(), extended.groups, extended.range, 0);
+			}
+		} else if (change instanceof TextEditBasedChange) {
+			return new PreviewKey((TextEditBasedChange)change, null, null, 0);
 		}
+		return null;
+	}
+
+	/**
+	 * Computes the preview of the given key.
+	 *
+	 * @param key the key, a snapshot of the input taken on the UI thread
+	 * @param monitor the progress monitor
+	 * @return the preview, or <code>null</code> if the enablement of the change groups has
+	 *         changed since the key has been created
+	 * @throws CoreException if the content of the change cannot be read
+	 */
+	private static Preview computePreview(PreviewKey key, IProgressMonitor monitor) throws CoreException {
+		TextEditBasedChange change= key.fChange;
+		Preview preview;
+		if (key.fGroups == null) {
+			preview= new Preview(change.getCurrentContent(monitor), change.getPreviewContent(monitor));
+		} else {
+			preview= new Preview(change.getCurrentContent(key.fRegion, true, key.fSurroundingLines, monitor),
+				change.getPreviewContent(key.fGroups, key.fRegion, true, key.fSurroundingLines, monitor));
+		}
+		return key.hasEnablement(change) ? preview : null;
+	}
+
+	private void showPreview(PreviewKey key, Preview preview) {
+		setInput(key.fChange, preview.fCurrentContent, preview.fPreviewContent, key.fChange.getTextType());
 	}
 
 	public void refresh() {
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2005, 2008 IBM Corporation and others.
+ * Copyright (c) 2005, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -20,6 +20,7 @@ import org.eclipse.core.resources.IFile;
 import org.eclipse.jface.dialogs.IDialogSettings;
 import org.eclipse.jface.viewers.IStructuredSelection;
 import org.eclipse.jface.wizard.IWizardContainer;
+import org.eclipse.jface.wizard.IWizardPage;
 
 import org.eclipse.ui.IWorkbench;
 import org.eclipse.ui.IWorkbenchWizard;
@@ -74,6 +75,12 @@ public final class ApplyRefactoringScriptWizard extends RefactoringHistoryWizard
 	/** The location of the refactoring script file, or <code>null</code> */
 	private URI fScriptLocation= null;
 
+	/**
+	 * The number of refactorings of the script file, or <code>-1</code> if no
+	 * valid script file has been chosen
+	 */
+	private int fScriptRefactorings= -1;
+
 	/** The apply script wizard page */
 	private ApplyRefactoringScriptWizardPage fWizardPage;
 
@@ -114,7 +121,14 @@ public final class ApplyRefactoringScriptWizard extends RefactoringHistoryWizard
 
 	@Override
 	public boolean canFinish() {
-		return super.canFinish() && fRefactoringHistory != null;
+		return super.canFinish() && (fRefactoringHistory != null || fScriptRefactorings >= 0);
+	}
+
+	@Override
+	public IWizardPage getNextPage(final IWizardPage page) {
+		if (page == fWizardPage && fRefactoringHistory == null && !fWizardPage.loadRefactoringHistory())
+			return null;
+		return super.getNextPage(page);
 	}
 
 	/**
@@ -135,6 +149,14 @@ public final class ApplyRefactoringScriptWizard extends RefactoringHistoryWizard
 		return fScriptLocation;
 	}
 
+	@Override
+	protected URI getRefactoringScriptLocation() {
+		// the script file is only loaded if the refactorings are previewed
+		if (fRefactoringHistory == null && fScriptRefactorings > 0)
+			return fWizardPage.getScriptFile();
+		return null;
+	}
+
 	@Override
 	public void init(final IWorkbench workbench, final IStructuredSelection selection) {
 		if (selection != null && selection.size() == 1) {
@@ -172,6 +194,20 @@ public final class ApplyRefactoringScriptWizard extends RefactoringHistoryWizard
 			wizard.updateButtons();
 	}
 
+	/**
+	 * Sets the number of refactorings of the chosen script file.
+	 *
+	 * @param count
+	 *            the number of refactorings, or <code>-1</code> if no valid
+	 *            script file has been chosen
+	 */
+	public void setScriptRefactorings(final int count) {
+		fScriptRefactorings= count;
+		final IWizardContainer wizard= getContainer();
+		if (wizard.getCurrentPage() != null)
+			wizard.updateButtons();
+	}
+
 	/**
 	 * Sets the location of the refactoring script.
 	 *
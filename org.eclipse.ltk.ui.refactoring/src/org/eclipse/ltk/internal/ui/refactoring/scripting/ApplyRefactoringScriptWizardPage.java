@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2005, 2008 IBM Corporation and others.
+ * Copyright (c) 2005, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -21,6 +21,8 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.UnsupportedEncodingException;
 import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.dnd.Clipboard;
@@ -40,8 +42,14 @@ import org.eclipse.ui.PlatformUI;
 
 import org.eclipse.ltk.core.refactoring.RefactoringCore;
 import org.eclipse.ltk.core.refactoring.RefactoringDescriptor;
+import org.eclipse.ltk.core.refactoring.RefactoringDescriptorProxy;
+import org.eclipse.ltk.internal.core.refactoring.IRefactoringDescriptorHandler;
 import org.eclipse.ltk.internal.core.refactoring.IRefactoringSerializationConstants;
+import org.eclipse.ltk.internal.core.refactoring.history.RefactoringDescriptorProxyAdapter;
+import org.eclipse.ltk.internal.core.refactoring.history.RefactoringHistoryImplementation;
+import org.eclipse.ltk.internal.core.refactoring.history.RefactoringHistoryService;
 import org.eclipse.ltk.internal.ui.refactoring.IRefactoringHelpContextIds;
+import org.eclipse.ltk.internal.ui.refactoring.Messages;
 import org.eclipse.ltk.internal.ui.refactoring.RefactoringUIPlugin;
 
 /**
@@ -79,7 +87,8 @@ public final class ApplyRefactoringScriptWizardPage extends WizardPage {
 
 	@Override
 	public boolean canFlipToNextPage() {
-		return super.canFlipToNextPage();
+		// the script file is loaded when the next page is requested
+		return isPageComplete();
 	}
 
 	@Override
@@ -102,7 +111,9 @@ public final class ApplyRefactoringScriptWizardPage extends WizardPage {
 			protected final void handleClipboardScriptChanged() {
 				super.handleClipboardScriptChanged();
 				ApplyRefactoringScriptWizardPage.this.fWizard.setRefactoringHistory(null);
+				ApplyRefactoringScriptWizardPage.this.fWizard.setScriptRefactorings(-1);
 				setErrorMessage(null);
+				setMessage(null);
 				setPageComplete(true);
 				handleClipboardChanged();
 			}
@@ -111,7 +122,9 @@ public final class ApplyRefactoringScriptWizardPage extends WizardPage {
 			protected final void handleExternalLocationChanged() {
 				super.handleExternalLocationChanged();
 				ApplyRefactoringScriptWizardPage.this.fWizard.setRefactoringHistory(null);
+				ApplyRefactoringScriptWizardPage.this.fWizard.setScriptRefactorings(-1);
 				setErrorMessage(null);
+				setMessage(null);
 				setPageComplete(true);
 				handleLocationChanged();
 			}
@@ -161,32 +174,77 @@ public final class ApplyRefactoringScriptWizardPage extends WizardPage {
 
 	/**
 	 * Handles the location changed event.
+	 * <p>
+	 * The refactorings of the script file are only counted. They are loaded
+	 * when the refactorings are previewed, or read again while they are
+	 * performed.
+	 * </p>
 	 */
 	private void handleLocationChanged() {
+		final int[] count= { 0};
+		if (readScriptFile((descriptor, index) -> {
+			count[0]++;
+			return true;
+		})) {
+			fWizard.setScriptRefactorings(count[0]);
+			setMessage(Messages.format(ScriptingMessages.ApplyRefactoringScriptWizardPage_script_refactorings, Integer.valueOf(count[0])), INFORMATION);
+		}
+	}
+
+	/**
+	 * Loads the refactoring history of the chosen script file, if the
+	 * refactoring script is not taken from the clipboard.
+	 *
+	 * @return <code>true</code> if the refactoring history is available,
+	 *         <code>false</code> if the script file could not be read
+	 */
+	public boolean loadRefactoringHistory() {
+		if (getScriptFile() == null)
+			return true;
+		final List<RefactoringDescriptorProxy> proxies= new ArrayList<>();
+		if (!readScriptFile((descriptor, index) -> {
+			proxies.add(new RefactoringDescriptorProxyAdapter(descriptor));
+			return true;
+		}))
+			return false;
+		fWizard.setRefactoringHistory(new RefactoringHistoryImplementation(proxies.toArray(new RefactoringDescriptorProxy[proxies.size()])));
+		return true;
+	}
+
+	/**
+	 * Reads the refactorings of the chosen script file.
+	 *
+	 * @param handler
+	 *            the handler to pass the refactoring descriptors to
+	 * @return <code>true</code> if the script file has been read,
+	 *         <code>false</code> otherwise
+	 */
+	private boolean readScriptFile(final IRefactoringDescriptorHandler handler) {
 		final URI uri= fLocationControl.getRefactoringScript();
 		if (uri == null) {
 			setErrorMessage(ScriptingMessages.ApplyRefactoringScriptWizardPage_invalid_location);
 			setPageComplete(false);
-			return;
+			return false;
 		}
 		final File file= new File(uri);
 		if (!file.exists()) {
 			setErrorMessage(ScriptingMessages.ApplyRefactoringScriptWizardPage_invalid_script_file);
 			setPageComplete(false);
-			return;
+			return false;
 		}
 		InputStream stream= null;
 		try {
 			stream= new BufferedInputStream(new FileInputStream(file));
-			fWizard.setRefactoringHistory(RefactoringCore.getHistoryService().readRefactoringHistory(stream, RefactoringDescriptor.NONE));
+			RefactoringHistoryService.getInstance().readRefactoringSession(stream, RefactoringDescriptor.NONE, handler);
+			return true;
 		} catch (IOException exception) {
 			setErrorMessage(ScriptingMessages.ApplyRefactoringScriptWizardPage_error_cannot_read);
 			setPageComplete(false);
-			return;
+			return false;
 		} catch (CoreException exception) {
 			setErrorMessage(ScriptingMessages.ApplyRefactoringScriptWizardPage_invalid_format);
 			setPageComplete(false);
-			return;
+			return false;
 		} finally {
 			if (stream != null) {
 				try {
@@ -198,6 +256,18 @@ public final class ApplyRefactoringScriptWizardPage extends WizardPage {
 		}
 	}
 
+	/**
+	 * Returns the location of the refactoring script file to apply.
+	 *
+	 * @return the location of the script file, or <code>null</code> if the
+	 *         refactoring script is taken from the clipboard
+	 */
+	public URI getScriptFile() {
+		if (fLocationControl == null || fLocationControl.isFromClipboard())
+			return null;
+		return fLocationControl.getRefactoringScript();
+	}
+
 	/**
 	 * Gets called if the wizard is finished.
 	 */
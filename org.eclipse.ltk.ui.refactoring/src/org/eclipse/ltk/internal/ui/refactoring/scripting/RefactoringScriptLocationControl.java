@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2006, 2008 IBM Corporation and others.
+ * Copyright (c) 2006, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -183,6 +183,17 @@ public class RefactoringScriptLocationControl extends Composite {
 		return fScriptLocation;
 	}
 
+	/**
+	 * Returns whether the refactoring script should be taken from the
+	 * clipboard.
+	 *
+	 * @return <code>true</code> if the clipboard has been chosen,
+	 *         <code>false</code> otherwise
+	 */
+	public boolean isFromClipboard() {
+		return fFromClipboardButton.getSelection();
+	}
+
 	/**
 	 * Handles the browse external location event.
 	 */
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2005, 2009 IBM Corporation and others.
+ * Copyright (c) 2005, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -43,6 +43,8 @@ public final class ScriptingMessages extends NLS {
 
 	public static String ApplyRefactoringScriptWizardPage_no_text_clipboard;
 
+	public static String ApplyRefactoringScriptWizardPage_script_refactorings;
+
 	private static final String BUNDLE_NAME= "org.eclipse.ltk.internal.ui.refactoring.scripting.ScriptingMessages"; //$NON-NLS-1$
 
 	public static String CreateRefactoringScriptAction_finish_button_label;
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2005, 2011 IBM Corporation and others.
+ * Copyright (c) 2005, 2020 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -14,7 +14,11 @@
  *******************************************************************************/
 package org.eclipse.ltk.ui.refactoring.history;
 
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.lang.reflect.InvocationTargetException;
+import java.net.URI;
 import java.text.ChoiceFormat;
 import java.util.ArrayList;
 import java.util.List;
@@ -69,6 +73,7 @@ import org.eclipse.ltk.core.refactoring.RefactoringStatus;
 import org.eclipse.ltk.core.refactoring.RefactoringStatusEntry;
 import org.eclipse.ltk.core.refactoring.history.IRefactoringHistoryService;
 import org.eclipse.ltk.core.refactoring.history.RefactoringHistory;
+import org.eclipse.ltk.internal.core.refactoring.history.PerformRefactoringScriptOperation;
 import org.eclipse.ltk.internal.core.refactoring.history.RefactoringHistoryImplementation;
 import org.eclipse.ltk.internal.core.refactoring.history.RefactoringHistoryManager;
 import org.eclipse.ltk.internal.ui.refactoring.ChangeExceptionHandler;
@@ -218,6 +223,18 @@ public class RefactoringHistoryWizard extends Wizard {
 	/** Has an exception occurred while cancelling the wizard? */
 	private boolean fCancelException= false;
 
+	/**
+	 * The position of the first refactoring of {@link #fCheckpointScript}
+	 * which has not been performed yet
+	 */
+	private int fCheckpoint= 0;
+
+	/**
+	 * The refactoring script which has been performed partially, or
+	 * <code>null</code>
+	 */
+	private URI fCheckpointScript= null;
+
 	/** The refactoring history control configuration to use */
 	private RefactoringHistoryControlConfiguration fControlConfiguration;
 
@@ -456,7 +473,7 @@ public class RefactoringHistoryWizard extends Wizard {
 	public boolean canFinish() {
 		final IWizardPage page= getContainer().getCurrentPage();
 		if (page == fErrorPage) {
-			if (fHeadlessErrorStatus)
+			if (fHeadlessErrorStatus || fCheckpointScript != null)
 				return true;
 			final RefactoringStatus status= fErrorPage.getStatus();
 			final boolean fatal= status != null && status.hasFatalError();
@@ -669,6 +686,30 @@ public class RefactoringHistoryWizard extends Wizard {
 		return status;
 	}
 
+	/**
+	 * Calls {@link #refactoringPerformed(Refactoring, IProgressMonitor)} in a
+	 * safe runner.
+	 *
+	 * @param refactoring
+	 *            the refactoring which has been performed
+	 * @param monitor
+	 *            the progress monitor to use
+	 */
+	private void fireRefactoringPerformed(final Refactoring refactoring, final IProgressMonitor monitor) {
+		SafeRunner.run(new ISafeRunnable() {
+
+			@Override
+			public void handleException(final Throwable exception) {
+				RefactoringUIPlugin.log(exception);
+			}
+
+			@Override
+			public final void run() throws Exception {
+				RefactoringHistoryWizard.this.refactoringPerformed(refactoring, monitor);
+			}
+		});
+	}
+
 	/**
 	 * Returns the error wizard page.
 	 * <p>
@@ -790,6 +831,32 @@ public class RefactoringHistoryWizard extends Wizard {
 		return super.getPreviousPage(page);
 	}
 
+	/**
+	 * Returns the location of a refactoring script whose refactorings are
+	 * performed instead of the refactoring history when the wizard is finished
+	 * without previewing the refactorings.
+	 * <p>
+	 * The refactorings are performed while the script is read, so that the
+	 * script does not have to be loaded into memory. If a refactoring fails,
+	 * finishing the wizard again resumes the script with this refactoring.
+	 * </p>
+	 * <p>
+	 * The default implementation returns <code>null</code>.
+	 * </p>
+	 * <p>
+	 * Note: This API must not be called from outside the refactoring framework.
+	 * </p>
+	 *
+	 * @return the location of the refactoring script, or <code>null</code> to
+	 *         perform the refactoring history
+	 *
+	 * @noreference This method is not intended to be referenced by clients.
+	 * @since 3.11
+	 */
+	protected URI getRefactoringScriptLocation() {
+		return null;
+	}
+
 	/**
 	 * Returns the refactoring descriptor of the current refactoring.
 	 *
@@ -1055,14 +1122,17 @@ public class RefactoringHistoryWizard extends Wizard {
 				}
 			}
 		} else {
+			final URI script= getRefactoringScriptLocation();
 			final IPreferenceStore store= RefactoringUIPlugin.getDefault().getPreferenceStore();
-			if (!store.getBoolean(PREFERENCE_DO_NOT_WARN_FINISH) && proxies.length > 0) {
+			if (!store.getBoolean(PREFERENCE_DO_NOT_WARN_FINISH) && (proxies.length > 0 || script != null && !script.equals(fCheckpointScript))) {
 				final MessageDialogWithToggle dialog= new MessageDialogWithToggle(getShell(), wizard.getShell().getText(), null, Messages.format(RefactoringUIMessages.RefactoringHistoryWizard_warning_finish, LegacyActionTools.removeMnemonics(IDialogConstants.FINISH_LABEL)), MessageDialog.INFORMATION, new String[] { IDialogConstants.OK_LABEL, IDialogConstants.CANCEL_LABEL}, 0, RefactoringUIMessages.RefactoringHistoryWizard_do_not_show_message, false);
 				dialog.open();
 				store.setValue(PREFERENCE_DO_NOT_WARN_FINISH, dialog.getToggleState());
 				if (dialog.getReturnCode() == IDialogConstants.CANCEL_ID)
 					return false;
 			}
+			if (script != null)
+				return performScript(script, status);
 			final PerformRefactoringHistoryOperation operation= new PerformRefactoringHistoryOperation(new RefactoringHistoryImplementation(descriptors)) {
 
 				@Override
@@ -1072,35 +1142,14 @@ public class RefactoringHistoryWizard extends Wizard {
 
 				@Override
 				protected void refactoringPerformed(final Refactoring refactoring, final IProgressMonitor monitor) {
-					SafeRunner.run(new ISafeRunnable() {
-
-						@Override
-						public void handleException(final Throwable exception) {
-							RefactoringUIPlugin.log(exception);
-						}
-
-						@Override
-						public final void run() throws Exception {
-							RefactoringHistoryWizard.this.refactoringPerformed(refactoring, monitor);
-						}
-					});
+					fireRefactoringPerformed(refactoring, monitor);
 				}
 
 				@Override
 				public void run(final IProgressMonitor monitor) throws CoreException {
 					try {
 						monitor.beginTask(RefactoringUIMessages.RefactoringHistoryWizard_preparing_refactorings, 100);
-						if (!fAboutToPerformFired) {
-							try {
-								status.merge(fireAboutToPerformHistory(new SubProgressMonitor(monitor, 20, SubProgressMonitor.SUPPRESS_SUBTASK_LABEL)));
-							} finally {
-								fAboutToPerformFired= true;
-							}
-						}
-						if (!status.isOK()) {
-							final int severity= status.getSeverity();
-							throw new CoreException(new Status(severity != RefactoringStatus.FATAL ? severity : IStatus.ERROR, RefactoringUIPlugin.getPluginId(), 0, null, null));
-						}
+						prepareHistory(status, new SubProgressMonitor(monitor, 20, SubProgressMonitor.SUPPRESS_SUBTASK_LABEL));
 						super.run(new SubProgressMonitor(monitor, 80, SubProgressMonitor.SUPPRESS_SUBTASK_LABEL));
 					} finally {
 						monitor.done();
@@ -1110,30 +1159,14 @@ public class RefactoringHistoryWizard extends Wizard {
 			try {
 				wizard.run(false, false, new WorkbenchRunnableAdapter(operation, ResourcesPlugin.getWorkspace().getRoot()));
 			} catch (InvocationTargetException exception) {
-				RefactoringUIPlugin.log(exception);
-				final Throwable throwable= exception.getTargetException();
-				if (throwable != null) {
-					final String message= throwable.getLocalizedMessage();
-					if (message != null && !"".equals(message)) //$NON-NLS-1$
-						status.merge(RefactoringStatus.createFatalErrorStatus(message));
-					fErrorPage.setStatus(status);
-					fErrorPage.setNextPageDisabled(status.hasFatalError());
-					fErrorPage.setTitle(RefactoringUIMessages.RefactoringHistoryPreviewPage_apply_error_title);
-					fErrorPage.setDescription(RefactoringUIMessages.RefactoringHistoryPreviewPage_apply_error);
-					wizard.showPage(fErrorPage);
+				if (showPerformError(exception, status))
 					return false;
-				}
 			} catch (InterruptedException exception) {
 				// Does not happen
 			}
 			final RefactoringStatus result= operation.getExecutionStatus();
 			if (!result.isOK()) {
-				fHeadlessErrorStatus= true;
-				fErrorPage.setStatus(result);
-				fErrorPage.setNextPageDisabled(true);
-				fErrorPage.setTitle(RefactoringUIMessages.RefactoringHistoryPreviewPage_finish_error_title);
-				fErrorPage.setDescription(RefactoringUIMessages.RefactoringHistoryPreviewPage_finish_error_description);
-				wizard.showPage(fErrorPage);
+				showFinishError(result);
 				return false;
 			}
 		}
@@ -1212,6 +1245,94 @@ public class RefactoringHistoryWizard extends Wizard {
 		return new RefactoringStatus();
 	}
 
+	/**
+	 * Performs the refactorings of the specified refactoring script while the
+	 * script is read. If the script has been performed partially before, the
+	 * refactorings which have already been performed are skipped.
+	 *
+	 * @param script
+	 *            the location of the refactoring script
+	 * @param status
+	 *            the refactoring status to merge the status of the about to
+	 *            perform history event into
+	 * @return <code>true</code> if the whole script has been performed,
+	 *         <code>false</code> otherwise
+	 */
+	private boolean performScript(final URI script, final RefactoringStatus status) {
+		if (!script.equals(fCheckpointScript)) {
+			fCheckpointScript= script;
+			fCheckpoint= 0;
+		}
+		final IWizardContainer wizard= getContainer();
+		InputStream stream= null;
+		try {
+			stream= new BufferedInputStream(script.toURL().openStream());
+			final PerformRefactoringScriptOperation operation= new PerformRefactoringScriptOperation(stream, RefactoringDescriptor.NONE, fCheckpoint) {
+
+				@Override
+				protected RefactoringContext createRefactoringContext(final RefactoringDescriptor descriptor, final RefactoringStatus state, IProgressMonitor monitor) throws CoreException {
+					return RefactoringHistoryWizard.this.createRefactoringContext(descriptor, state, monitor);
+				}
+
+				@Override
+				protected void refactoringPerformed(final Refactoring refactoring, final IProgressMonitor monitor) {
+					fireRefactoringPerformed(refactoring, monitor);
+				}
+
+				@Override
+				public void run(final IProgressMonitor monitor) throws CoreException {
+					try {
+						monitor.beginTask(RefactoringUIMessages.RefactoringHistoryWizard_preparing_refactorings, 100);
+						prepareHistory(status, new SubProgressMonitor(monitor, 20, SubProgressMonitor.SUPPRESS_SUBTASK_LABEL));
+						super.run(new SubProgressMonitor(monitor, 80, SubProgressMonitor.SUPPRESS_SUBTASK_LABEL));
+					} finally {
+						monitor.done();
+					}
+				}
+			};
+			try {
+				wizard.run(true, true, new WorkbenchRunnableAdapter(operation, ResourcesPlugin.getWorkspace().getRoot()));
+			} finally {
+				fCheckpoint= operation.getCheckpoint();
+			}
+			final RefactoringStatus result= operation.getExecutionStatus();
+			if (result.hasFatalError()) {
+				fErrorPage.setStatus(result);
+				fErrorPage.setNextPageDisabled(true);
+				fErrorPage.setTitle(RefactoringUIMessages.RefactoringHistoryPreviewPage_finish_error_title);
+				fErrorPage.setDescription(Messages.format(RefactoringUIMessages.RefactoringHistoryWizard_script_error_description, new Object[] { Integer.valueOf(fCheckpoint + 1), LegacyActionTools.removeMnemonics(IDialogConstants.FINISH_LABEL)}));
+				wizard.showPage(fErrorPage);
+				return false;
+			}
+			fCheckpointScript= null;
+			fCheckpoint= 0;
+			if (!result.isOK()) {
+				showFinishError(result);
+				return false;
+			}
+			return true;
+		} catch (IOException exception) {
+			RefactoringUIPlugin.log(exception);
+			fCheckpointScript= null;
+			fCheckpoint= 0;
+			status.merge(RefactoringStatus.createFatalErrorStatus(RefactoringUIMessages.RefactoringHistoryWizard_error_reading_script));
+			showFinishError(status);
+		} catch (InvocationTargetException exception) {
+			showPerformError(exception, status);
+		} catch (InterruptedException exception) {
+			// The script has been canceled, finishing the wizard again resumes it
+		} finally {
+			if (stream != null) {
+				try {
+					stream.close();
+				} catch (IOException exception) {
+					// Do nothing
+				}
+			}
+		}
+		return false;
+	}
+
 	/**
 	 * Prepares the error page to be displayed.
 	 *
@@ -1241,6 +1362,30 @@ public class RefactoringHistoryWizard extends Wizard {
 		});
 	}
 
+	/**
+	 * Fires the about to perform history event if this has not happened yet.
+	 *
+	 * @param status
+	 *            the refactoring status to merge the status of the event into
+	 * @param monitor
+	 *            the progress monitor to use
+	 * @throws CoreException
+	 *             if the history must not be performed
+	 */
+	private void prepareHistory(final RefactoringStatus status, final IProgressMonitor monitor) throws CoreException {
+		if (!fAboutToPerformFired) {
+			try {
+				status.merge(fireAboutToPerformHistory(monitor));
+			} finally {
+				fAboutToPerformFired= true;
+			}
+		}
+		if (!status.isOK()) {
+			final int severity= status.getSeverity();
+			throw new CoreException(new Status(severity != RefactoringStatus.FATAL ? severity : IStatus.ERROR, RefactoringUIPlugin.getPluginId(), 0, null, null));
+		}
+	}
+
 	/**
 	 * Prepares the preview page to be displayed.
 	 *
@@ -1354,4 +1499,48 @@ public class RefactoringHistoryWizard extends Wizard {
 		Assert.isNotNull(history);
 		fRefactoringHistory= history;
 	}
+
+	/**
+	 * Shows the error page for the problems which occurred while performing
+	 * the refactorings. Finishing the wizard afterwards closes it.
+	 *
+	 * @param status
+	 *            the status of the execution
+	 */
+	private void showFinishError(final RefactoringStatus status) {
+		fHeadlessErrorStatus= true;
+		fErrorPage.setStatus(status);
+		fErrorPage.setNextPageDisabled(true);
+		fErrorPage.setTitle(RefactoringUIMessages.RefactoringHistoryPreviewPage_finish_error_title);
+		fErrorPage.setDescription(RefactoringUIMessages.RefactoringHistoryPreviewPage_finish_error_description);
+		getContainer().showPage(fErrorPage);
+	}
+
+	/**
+	 * Shows the error page for an exception thrown while performing the
+	 * refactorings.
+	 *
+	 * @param exception
+	 *            the exception
+	 * @param status
+	 *            the refactoring status so far
+	 * @return <code>true</code> if the error page has been shown,
+	 *         <code>false</code> otherwise
+	 */
+	private boolean showPerformError(final InvocationTargetException exception, final RefactoringStatus status) {
+		RefactoringUIPlugin.log(exception);
+		final Throwable throwable= exception.getTargetException();
+		if (throwable != null) {
+			final String message= throwable.getLocalizedMessage();
+			if (message != null && !"".equals(message)) //$NON-NLS-1$
+				status.merge(RefactoringStatus.createFatalErrorStatus(message));
+			fErrorPage.setStatus(status);
+			fErrorPage.setNextPageDisabled(status.hasFatalError());
+			fErrorPage.setTitle(RefactoringUIMessages.RefactoringHistoryPreviewPage_apply_error_title);
+			fErrorPage.setDescription(RefactoringUIMessages.RefactoringHistoryPreviewPage_apply_error);
+			getContainer().showPage(fErrorPage);
+			return true;
+		}
+		return false;
+	}
 }